@@ -134,3 +134,9 @@ DELETE FROM asset WHERE type='TbServiceQueue';
 DELETE FROM asset_profile WHERE name ='TbServiceQueue';
 
 -- QUEUE STATS UPDATE END
+
+-- CLOUD EVENT ENTITY BODY PROTO UPDATE START
+
+ALTER TABLE cloud_event ADD COLUMN IF NOT EXISTS entity_body_proto bytea;
+
+-- CLOUD EVENT ENTITY BODY PROTO UPDATE END
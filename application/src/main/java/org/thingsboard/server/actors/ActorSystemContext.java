@@ -30,7 +30,6 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.thingsboard.common.util.JacksonUtil;
 import org.thingsboard.rule.engine.api.MailService;
 import org.thingsboard.rule.engine.api.NotificationCenter;
 import org.thingsboard.rule.engine.api.RuleEngineDeviceStateManager;
@@ -45,7 +44,6 @@ import org.thingsboard.server.cluster.TbClusterService;
 import org.thingsboard.server.common.data.event.ErrorEvent;
 import org.thingsboard.server.common.data.event.LifecycleEvent;
 import org.thingsboard.server.common.data.event.RuleChainDebugEvent;
-import org.thingsboard.server.common.data.event.RuleNodeDebugEvent;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.plugin.ComponentLifecycleEvent;
@@ -101,6 +99,7 @@ import org.thingsboard.server.service.apiusage.TbApiUsageStateService;
 import org.thingsboard.server.service.component.ComponentDiscoveryService;
 import org.thingsboard.server.service.edge.rpc.EdgeRpcService;
 import org.thingsboard.server.service.entitiy.entityview.TbEntityViewService;
+import org.thingsboard.server.service.event.RuleNodeDebugEventBuffer;
 import org.thingsboard.server.service.executors.DbCallbackExecutorService;
 import org.thingsboard.server.service.executors.ExternalCallExecutorService;
 import org.thingsboard.server.service.executors.NotificationExecutorService;
@@ -115,6 +114,7 @@ import org.thingsboard.server.service.rpc.TbRuleEngineDeviceRpcService;
 import org.thingsboard.server.service.session.DeviceSessionCacheService;
 import org.thingsboard.server.service.sms.SmsExecutorService;
 import org.thingsboard.server.service.state.DeviceStateService;
+import org.thingsboard.server.service.stats.RuleNodeProfilerService;
 import org.thingsboard.server.service.telemetry.AlarmSubscriptionService;
 import org.thingsboard.server.service.telemetry.TelemetrySubscriptionService;
 import org.thingsboard.server.service.transport.TbCoreToTransportService;
@@ -141,17 +141,6 @@ public class ActorSystemContext {
             log.error("Could not save debug Event for Rule Chain", th);
         }
     };
-    private static final FutureCallback<Void> RULE_NODE_DEBUG_EVENT_ERROR_CALLBACK = new FutureCallback<>() {
-        @Override
-        public void onSuccess(@Nullable Void event) {
-
-        }
-
-        @Override
-        public void onFailure(Throwable th) {
-            log.error("Could not save debug Event for Node", th);
-        }
-    };
 
     private final ConcurrentMap<TenantId, DebugTbRateLimits> debugPerTenantLimits = new ConcurrentHashMap<>();
 
@@ -167,6 +156,13 @@ public class ActorSystemContext {
     @Getter
     private TbApiUsageReportClient apiUsageClient;
 
+    @Autowired
+    @Getter
+    private RuleNodeProfilerService ruleNodeProfilerService;
+
+    @Autowired
+    private RuleNodeDebugEventBuffer ruleNodeDebugEventBuffer;
+
     @Autowired
     @Getter
     @Setter
@@ -666,32 +662,9 @@ public class ActorSystemContext {
     }
 
     private void persistDebugAsync(TenantId tenantId, EntityId entityId, String type, TbMsg tbMsg, String relationType, Throwable error, String failureMessage) {
-        if (checkLimits(tenantId, tbMsg, error)) {
-            try {
-                RuleNodeDebugEvent.RuleNodeDebugEventBuilder event = RuleNodeDebugEvent.builder()
-                        .tenantId(tenantId)
-                        .entityId(entityId.getId())
-                        .serviceId(getServiceId())
-                        .eventType(type)
-                        .eventEntity(tbMsg.getOriginator())
-                        .msgId(tbMsg.getId())
-                        .msgType(tbMsg.getType())
-                        .dataType(tbMsg.getDataType().name())
-                        .relationType(relationType)
-                        .data(tbMsg.getData())
-                        .metadata(JacksonUtil.toString(tbMsg.getMetaData().getData()));
-
-                if (error != null) {
-                    event.error(toString(error));
-                } else if (failureMessage != null) {
-                    event.error(failureMessage);
-                }
-
-                ListenableFuture<Void> future = eventService.saveAsync(event.build());
-                Futures.addCallback(future, RULE_NODE_DEBUG_EVENT_ERROR_CALLBACK, MoreExecutors.directExecutor());
-            } catch (IllegalArgumentException ex) {
-                log.warn("Failed to persist rule node debug message", ex);
-            }
+        boolean hasError = error != null || failureMessage != null;
+        if (ruleNodeDebugEventBuffer.isSampled(entityId, tbMsg, hasError) && checkLimits(tenantId, tbMsg, error)) {
+            ruleNodeDebugEventBuffer.add(tenantId, entityId, type, tbMsg, relationType, error, failureMessage);
         }
     }
 
@@ -132,6 +132,7 @@ class DefaultTbContext implements TbContext {
     private final ActorSystemContext mainCtx;
     private final String ruleChainName;
     private final RuleNodeCtx nodeCtx;
+    private volatile long processingStartNanos;
 
     public DefaultTbContext(ActorSystemContext mainCtx, String ruleChainName, RuleNodeCtx nodeCtx) {
         this.mainCtx = mainCtx;
@@ -159,6 +160,7 @@ class DefaultTbContext implements TbContext {
             relationTypes.forEach(relationType -> mainCtx.persistDebugOutput(nodeCtx.getTenantId(), nodeCtx.getSelf().getId(), msg, relationType, th));
         }
         msg.getCallback().onProcessingEnd(nodeCtx.getSelf().getId());
+        onExecuted();
         nodeCtx.getChainActor().tell(new RuleNodeToRuleChainTellNextMsg(nodeCtx.getSelf().getRuleChainId(), nodeCtx.getSelf().getId(), relationTypes, msg, th != null ? th.getMessage() : null));
     }
 
@@ -177,6 +179,7 @@ class DefaultTbContext implements TbContext {
     @Override
     public void output(TbMsg msg, String relationType) {
         TbMsgProcessingStackItem item = msg.popFormStack();
+        onExecuted();
         if (item == null) {
             ack(msg);
         } else {
@@ -333,6 +336,7 @@ class DefaultTbContext implements TbContext {
             mainCtx.persistDebugOutput(nodeCtx.getTenantId(), nodeCtx.getSelf().getId(), tbMsg, "ACK", null);
         }
         tbMsg.getCallback().onProcessingEnd(nodeCtx.getSelf().getId());
+        onExecuted();
         tbMsg.getCallback().onSuccess();
     }
 
@@ -350,12 +354,26 @@ class DefaultTbContext implements TbContext {
         if (nodeCtx.getSelf().isDebugMode()) {
             mainCtx.persistDebugOutput(nodeCtx.getTenantId(), nodeCtx.getSelf().getId(), msg, TbNodeConnectionType.FAILURE, th);
         }
+        onExecuted();
         String failureMessage = getFailureMessage(th);
         nodeCtx.getChainActor().tell(new RuleNodeToRuleChainTellNextMsg(nodeCtx.getSelf().getRuleChainId(),
                 nodeCtx.getSelf().getId(), Collections.singleton(TbNodeConnectionType.FAILURE),
                 msg, failureMessage));
     }
 
+    void onProcessingStart(long startNanos) {
+        processingStartNanos = startNanos;
+    }
+
+    private void onExecuted() {
+        long startNanos = processingStartNanos;
+        if (startNanos != 0) {
+            // only the first result of the msg is recorded, e.g. when a node splits the msg into several ones
+            processingStartNanos = 0;
+            mainCtx.getRuleNodeProfilerService().onExecuted(nodeCtx.getSelf().getId(), System.nanoTime() - startNanos);
+        }
+    }
+
     public void updateSelf(RuleNode self) {
         nodeCtx.setSelf(self);
     }
@@ -52,6 +52,7 @@ import org.thingsboard.server.queue.common.MultipleTbQueueTbMsgCallbackWrapper;
 import org.thingsboard.server.queue.common.TbQueueTbMsgCallbackWrapper;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -70,7 +71,7 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
     private final TbActorRef parent;
     private final TbActorRef self;
     private final Map<RuleNodeId, RuleNodeCtx> nodeActors;
-    private final Map<RuleNodeId, List<RuleNodeRelation>> nodeRoutes;
+    private RuleChainRoutingTable routingTable = RuleChainRoutingTable.EMPTY;
     private final RuleChainService service;
     private final TbClusterService clusterService;
     private final TbApiUsageReportClient apiUsageClient;
@@ -87,7 +88,6 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
         this.parent = parent;
         this.self = self;
         this.nodeActors = new HashMap<>();
-        this.nodeRoutes = new HashMap<>();
         this.service = systemContext.getRuleChainService();
         this.clusterService = systemContext.getClusterService();
     }
@@ -155,7 +155,7 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
         log.trace("[{}][{}] Stopping rule chain with {} nodes", tenantId, entityId, nodeActors.size());
         nodeActors.values().stream().map(RuleNodeCtx::getSelfActor).map(TbActorRef::getActorId).forEach(ctx::stop);
         nodeActors.clear();
-        nodeRoutes.clear();
+        routingTable = RuleChainRoutingTable.EMPTY;
         started = false;
     }
 
@@ -173,7 +173,7 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
     }
 
     private void initRoutes(RuleChain ruleChain, List<RuleNode> ruleNodeList) {
-        nodeRoutes.clear();
+        Map<RuleNodeId, List<RuleNodeRelation>> nodeRoutes = new HashMap<>();
         // Populating the routes map;
         for (RuleNode ruleNode : ruleNodeList) {
             List<EntityRelation> relations = service.getRuleNodeRelations(TenantId.SYS_TENANT_ID, ruleNode.getId());
@@ -190,16 +190,29 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
                         }
                     }
                     nodeRoutes.computeIfAbsent(ruleNode.getId(), k -> new ArrayList<>())
-                            .add(new RuleNodeRelation(ruleNode.getId(), relation.getTo(), relation.getType()));
+                            .add(new RuleNodeRelation(ruleNode.getId(), toRouteTarget(relation.getTo()), relation.getType()));
                 }
             }
         }
+        routingTable = RuleChainRoutingTable.build(nodeRoutes);
 
         firstId = ruleChain.getFirstRuleNodeId();
         firstNode = nodeActors.get(firstId);
         state = ComponentLifecycleState.ACTIVE;
     }
 
+    // targets are created with the specific id types once, so they are not re-created for every message
+    private static EntityId toRouteTarget(EntityId target) {
+        switch (target.getEntityType()) {
+            case RULE_NODE:
+                return new RuleNodeId(target.getId());
+            case RULE_CHAIN:
+                return new RuleChainId(target.getId());
+            default:
+                return target;
+        }
+    }
+
     void onQueueToRuleEngineMsg(QueueToRuleEngineMsg envelope) {
         TbMsg msg = envelope.getMsg();
         if (!checkMsgValid(msg)) {
@@ -297,18 +310,16 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
             EntityId entityId = msg.getOriginator();
             TopicPartitionInfo tpi = systemContext.resolve(ServiceType.TB_RULE_ENGINE, msg.getQueueName(), tenantId, entityId);
 
-            List<RuleNodeRelation> ruleNodeRelations = nodeRoutes.get(originatorNodeId);
-            if (ruleNodeRelations == null) { // When unchecked, this will cause NullPointerException when rule node doesn't exist anymore
+            if (!routingTable.containsNode(originatorNodeId)) {
                 log.warn("[{}][{}][{}] No outbound relations (null). Probably rule node does not exist. Probably old message.", tenantId, entityId, msg.getId());
-                ruleNodeRelations = Collections.emptyList();
             }
 
-            List<RuleNodeRelation> relationsByTypes = ruleNodeRelations.stream()
-                    .filter(r -> contains(relationTypes, r.getType()))
-                    .collect(Collectors.toList());
-            int relationsCount = relationsByTypes.size();
+            RuleNodeRelation[] relationsByTypes = routingTable.getRoutes(originatorNodeId, relationTypes);
+            int relationsCount = relationsByTypes.length;
             if (relationsCount == 0) {
-                log.trace("[{}][{}][{}] No outbound relations to process", tenantId, entityId, msg.getId());
+                if (log.isTraceEnabled()) {
+                    log.trace("[{}][{}][{}] No outbound relations to process", tenantId, entityId, msg.getId());
+                }
                 if (relationTypes.contains(TbNodeConnectionType.FAILURE)) {
                     RuleNodeCtx ruleNodeCtx = nodeActors.get(originatorNodeId);
                     if (ruleNodeCtx != null) {
@@ -321,13 +332,16 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
                     msg.getCallback().onSuccess();
                 }
             } else if (relationsCount == 1) {
-                for (RuleNodeRelation relation : relationsByTypes) {
+                RuleNodeRelation relation = relationsByTypes[0];
+                if (log.isTraceEnabled()) {
                     log.trace("[{}][{}][{}] Pushing message to single target: [{}]", tenantId, entityId, msg.getId(), relation.getOut());
-                    pushToTarget(tpi, msg, relation.getOut(), relation.getType());
                 }
+                pushToTarget(tpi, msg, relation.getOut(), relation.getType());
             } else {
                 MultipleTbQueueTbMsgCallbackWrapper callbackWrapper = new MultipleTbQueueTbMsgCallbackWrapper(relationsCount, msg.getCallback());
-                log.trace("[{}][{}][{}] Pushing message to multiple targets: [{}]", tenantId, entityId, msg.getId(), relationsByTypes);
+                if (log.isTraceEnabled()) {
+                    log.trace("[{}][{}][{}] Pushing message to multiple targets: [{}]", tenantId, entityId, msg.getId(), Arrays.asList(relationsByTypes));
+                }
                 for (RuleNodeRelation relation : relationsByTypes) {
                     EntityId target = relation.getOut();
                     putToQueue(tpi, msg, callbackWrapper, target);
@@ -344,10 +358,10 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
     private void putToQueue(TopicPartitionInfo tpi, TbMsg msg, TbQueueCallback callbackWrapper, EntityId target) {
         switch (target.getEntityType()) {
             case RULE_NODE:
-                putToQueue(tpi, msg.copyWithRuleNodeId(entityId, new RuleNodeId(target.getId()), UUID.randomUUID()), callbackWrapper);
+                putToQueue(tpi, msg.copyWithRuleNodeId(entityId, (RuleNodeId) target, UUID.randomUUID()), callbackWrapper);
                 break;
             case RULE_CHAIN:
-                putToQueue(tpi, msg.copyWithRuleChainId(new RuleChainId(target.getId()), UUID.randomUUID()), callbackWrapper);
+                putToQueue(tpi, msg.copyWithRuleChainId((RuleChainId) target, UUID.randomUUID()), callbackWrapper);
                 break;
         }
     }
@@ -356,10 +370,10 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
         if (tpi.isMyPartition()) {
             switch (target.getEntityType()) {
                 case RULE_NODE:
-                    pushMsgToNode(nodeActors.get(new RuleNodeId(target.getId())), msg, fromRelationType);
+                    pushMsgToNode(nodeActors.get((RuleNodeId) target), msg, fromRelationType);
                     break;
                 case RULE_CHAIN:
-                    parent.tell(new RuleChainToRuleChainMsg(new RuleChainId(target.getId()), entityId, msg, fromRelationType));
+                    parent.tell(new RuleChainToRuleChainMsg((RuleChainId) target, entityId, msg, fromRelationType));
                     break;
             }
         } else {
@@ -376,18 +390,6 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
         clusterService.pushMsgToRuleEngine(tpi, newMsg.getId(), toQueueMsg, callbackWrapper);
     }
 
-    private boolean contains(Set<String> relationTypes, String type) {
-        if (relationTypes == null) {
-            return true;
-        }
-        for (String relationType : relationTypes) {
-            if (relationType.equalsIgnoreCase(type)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     private void pushMsgToNode(RuleNodeCtx nodeCtx, TbMsg msg, String fromRelationType) {
         if (nodeCtx != null) {
             nodeCtx.getSelfActor().tell(new RuleChainToRuleNodeMsg(new DefaultTbContext(systemContext, ruleChainName, nodeCtx), msg, fromRelationType));
@@ -0,0 +1,122 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors.ruleChain;
+
+import org.thingsboard.server.common.data.id.RuleNodeId;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable routes of the rule chain, built once per rule chain update.
+ * Targets are precomputed per rule node and relation type, so the lookup for a single relation type does not allocate.
+ */
+final class RuleChainRoutingTable {
+
+    static final RuleChainRoutingTable EMPTY = new RuleChainRoutingTable(Collections.emptyMap());
+
+    private static final RuleNodeRelation[] NO_ROUTES = new RuleNodeRelation[0];
+
+    private final Map<RuleNodeId, NodeRoutes> routes;
+
+    private RuleChainRoutingTable(Map<RuleNodeId, NodeRoutes> routes) {
+        this.routes = routes;
+    }
+
+    /**
+     * @param relations outbound relations of the rule nodes, rule nodes without relations are expected to have an empty list
+     */
+    static RuleChainRoutingTable build(Map<RuleNodeId, List<RuleNodeRelation>> relations) {
+        Map<RuleNodeId, NodeRoutes> routes = new HashMap<>();
+        relations.forEach((ruleNodeId, nodeRelations) -> routes.put(ruleNodeId, new NodeRoutes(nodeRelations)));
+        return new RuleChainRoutingTable(routes);
+    }
+
+    boolean containsNode(RuleNodeId ruleNodeId) {
+        return routes.containsKey(ruleNodeId);
+    }
+
+    /**
+     * @param relationTypes relation types to match ignoring case, null to match all relations
+     * @return targets in the order of the rule node relations. The returned array is shared and must not be modified
+     */
+    RuleNodeRelation[] getRoutes(RuleNodeId ruleNodeId, Set<String> relationTypes) {
+        NodeRoutes nodeRoutes = routes.get(ruleNodeId);
+        if (nodeRoutes == null) {
+            return NO_ROUTES;
+        }
+        if (relationTypes == null) {
+            return nodeRoutes.all;
+        }
+        if (relationTypes.size() == 1) {
+            return nodeRoutes.get(relationTypes.iterator().next());
+        }
+        return nodeRoutes.get(relationTypes);
+    }
+
+    private static final class NodeRoutes {
+
+        private final RuleNodeRelation[] all;
+        // the same routes by the exact relation type and ignoring case
+        private final Map<String, RuleNodeRelation[]> byType = new HashMap<>();
+        private final Map<String, RuleNodeRelation[]> byTypeIgnoreCase = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+        private NodeRoutes(List<RuleNodeRelation> relations) {
+            this.all = relations.toArray(NO_ROUTES);
+            Map<String, List<RuleNodeRelation>> grouped = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (RuleNodeRelation relation : relations) {
+                grouped.computeIfAbsent(relation.getType(), type -> new ArrayList<>()).add(relation);
+            }
+            grouped.forEach((type, typeRelations) -> byTypeIgnoreCase.put(type, typeRelations.toArray(NO_ROUTES)));
+            for (RuleNodeRelation relation : relations) {
+                byType.put(relation.getType(), byTypeIgnoreCase.get(relation.getType()));
+            }
+        }
+
+        private RuleNodeRelation[] get(String relationType) {
+            RuleNodeRelation[] result = byType.get(relationType);
+            if (result == null) {
+                result = byTypeIgnoreCase.getOrDefault(relationType, NO_ROUTES);
+            }
+            return result;
+        }
+
+        private RuleNodeRelation[] get(Set<String> relationTypes) {
+            List<RuleNodeRelation> result = new ArrayList<>(all.length);
+            for (RuleNodeRelation relation : all) {
+                if (containsIgnoreCase(relationTypes, relation.getType())) {
+                    result.add(relation);
+                }
+            }
+            return result.toArray(NO_ROUTES);
+        }
+
+        private static boolean containsIgnoreCase(Set<String> relationTypes, String type) {
+            for (String relationType : relationTypes) {
+                if (relationType.equalsIgnoreCase(type)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+}
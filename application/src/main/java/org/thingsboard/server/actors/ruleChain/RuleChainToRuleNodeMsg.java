@@ -31,6 +31,9 @@ final class RuleChainToRuleNodeMsg extends TbToRuleNodeActorMsg {
 
     @Getter
     private final String fromRelationType;
+    @Getter
+    @EqualsAndHashCode.Exclude
+    private final long createdNanos = System.nanoTime();
 
     public RuleChainToRuleNodeMsg(TbContext ctx, TbMsg tbMsg, String fromRelationType) {
         super(ctx, tbMsg);
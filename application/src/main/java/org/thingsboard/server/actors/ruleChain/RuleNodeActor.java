@@ -62,6 +62,9 @@ public class RuleNodeActor extends RuleEngineComponentActor<RuleNodeId, RuleNode
             case RULE_TO_SELF_MSG:
                 onRuleNodeToSelfMsg((RuleNodeToSelfMsg) msg);
                 break;
+            case RULE_NODE_BATCH_FLUSH_MSG:
+                onBatchFlushMsg();
+                break;
             case STATS_PERSIST_TICK_MSG:
                 onStatsPersistTick(id);
                 break;
@@ -105,6 +108,14 @@ public class RuleNodeActor extends RuleEngineComponentActor<RuleNodeId, RuleNode
         }
     }
 
+    private void onBatchFlushMsg() {
+        try {
+            processor.onBatchFlushMsg();
+        } catch (Exception e) {
+            logAndPersist("onBatchFlushMsg", e);
+        }
+    }
+
     public static class ActorCreator extends ContextBasedCreator {
 
         private final TenantId tenantId;
@@ -16,6 +16,7 @@
 package org.thingsboard.server.actors.ruleChain;
 
 import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.rule.engine.api.TbBatchNode;
 import org.thingsboard.rule.engine.api.TbNode;
 import org.thingsboard.rule.engine.api.TbNodeConfiguration;
 import org.thingsboard.server.actors.ActorSystemContext;
@@ -36,6 +37,10 @@ import org.thingsboard.server.common.msg.queue.ServiceType;
 import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
 import org.thingsboard.server.common.stats.TbApiUsageReportClient;
 import org.thingsboard.server.gen.transport.TransportProtos;
+import org.thingsboard.server.service.stats.RuleNodeProfilerService.RuleNodeProfile;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author Andrew Shvayka
@@ -46,14 +51,19 @@ public class RuleNodeActorMessageProcessor extends ComponentMsgProcessor<RuleNod
     private final String ruleChainName;
     private final TbApiUsageReportClient apiUsageClient;
     private final DefaultTbContext defaultCtx;
+    private final TbActorRef self;
+    private final List<RuleChainToRuleNodeMsg> pendingBatch = new ArrayList<>();
+    private boolean batchFlushScheduled;
     private RuleNode ruleNode;
     private TbNode tbNode;
     private RuleNodeInfo info;
+    private RuleNodeProfile profile;
 
     RuleNodeActorMessageProcessor(TenantId tenantId, String ruleChainName, RuleNodeId ruleNodeId, ActorSystemContext systemContext
             , TbActorRef parent, TbActorRef self) {
         super(systemContext, tenantId, ruleNodeId);
         this.apiUsageClient = systemContext.getApiUsageClient();
+        this.self = self;
         this.ruleChainName = ruleChainName;
         this.ruleNode = systemContext.getRuleChainService().findRuleNodeById(tenantId, entityId);
         this.defaultCtx = new DefaultTbContext(systemContext, ruleChainName, new RuleNodeCtx(tenantId, parent, self, ruleNode));
@@ -67,6 +77,7 @@ public class RuleNodeActorMessageProcessor extends ComponentMsgProcessor<RuleNod
             tbNode = initComponent(ruleNode);
             if (tbNode != null) {
                 state = ComponentLifecycleState.ACTIVE;
+                profile = systemContext.getRuleNodeProfilerService().register(tenantId, entityId, ruleChainName, ruleNode.getName());
             }
         }
     }
@@ -80,8 +91,12 @@ public class RuleNodeActorMessageProcessor extends ComponentMsgProcessor<RuleNod
                     !(ruleNode.getType().equals(newRuleNode.getType()) && ruleNode.getConfiguration().equals(newRuleNode.getConfiguration()));
             this.ruleNode = newRuleNode;
             this.defaultCtx.updateSelf(newRuleNode);
+            if (profile != null) {
+                profile = systemContext.getRuleNodeProfilerService().register(tenantId, entityId, ruleChainName, newRuleNode.getName());
+            }
             if (restartRequired) {
                 if (tbNode != null) {
+                    flushBatch();
                     tbNode.destroy();
                 }
                 try {
@@ -100,9 +115,12 @@ public class RuleNodeActorMessageProcessor extends ComponentMsgProcessor<RuleNod
     public void stop(TbActorCtx context) {
         log.debug("[{}][{}] Stopping", tenantId, entityId);
         if (tbNode != null) {
+            flushBatch();
             tbNode.destroy();
             state = ComponentLifecycleState.SUSPENDED;
         }
+        systemContext.getRuleNodeProfilerService().unregister(entityId);
+        profile = null;
     }
 
     @Override
@@ -154,10 +172,16 @@ public class RuleNodeActorMessageProcessor extends ComponentMsgProcessor<RuleNod
                 if (ruleNode.isDebugMode()) {
                     systemContext.persistDebugInput(tenantId, entityId, msg.getMsg(), msg.getFromRelationType());
                 }
-                try {
-                    tbNode.onMsg(msg.getCtx(), msg.getMsg());
-                } catch (Exception e) {
-                    msg.getCtx().tellFailure(msg.getMsg(), e);
+                if (tbNode instanceof TbBatchNode batchNode) {
+                    addToBatch(batchNode, msg);
+                } else {
+                    long startNanos = onProcessingStart(msg);
+                    try {
+                        tbNode.onMsg(msg.getCtx(), msg.getMsg());
+                    } catch (Exception e) {
+                        msg.getCtx().tellFailure(msg.getMsg(), e);
+                    }
+                    onProcessingEnd(startNanos);
                 }
             } else {
                 tbMsg.getCallback().onFailure(new RuleNodeException("Message is processed by more then " + maxRuleNodeExecutionsPerMessage + " rule nodes!", ruleChainName, ruleNode));
@@ -165,6 +189,71 @@ public class RuleNodeActorMessageProcessor extends ComponentMsgProcessor<RuleNod
         }
     }
 
+    void onBatchFlushMsg() {
+        batchFlushScheduled = false;
+        flushBatch();
+    }
+
+    private void addToBatch(TbBatchNode batchNode, RuleChainToRuleNodeMsg msg) {
+        pendingBatch.add(msg);
+        if (pendingBatch.size() >= batchNode.getMaxBatchSize()) {
+            flushBatch();
+        } else if (!batchFlushScheduled) {
+            // Messages that are already in the mailbox are processed before the flush message and join the same batch.
+            batchFlushScheduled = true;
+            self.tell(new RuleNodeBatchFlushMsg());
+        }
+    }
+
+    private void flushBatch() {
+        if (pendingBatch.isEmpty()) {
+            return;
+        }
+        List<TbBatchNode.BatchMsg> msgs = new ArrayList<>(pendingBatch.size());
+        long startNanos = 0;
+        for (RuleChainToRuleNodeMsg msg : pendingBatch) {
+            if (msg.getMsg().isValid()) {
+                // every msg is reported via its own context, so each of them starts processing
+                long msgStartNanos = onProcessingStart(msg);
+                if (msgs.isEmpty()) {
+                    startNanos = msgStartNanos;
+                }
+                msgs.add(new TbBatchNode.BatchMsg(msg.getCtx(), msg.getMsg()));
+            }
+        }
+        pendingBatch.clear();
+        if (msgs.isEmpty()) {
+            return;
+        }
+        try {
+            ((TbBatchNode) tbNode).onMsgs(msgs);
+        } catch (Exception e) {
+            // batch node throws only if none of the msgs is reported yet, see TbBatchNode
+            for (TbBatchNode.BatchMsg msg : msgs) {
+                msg.ctx().tellFailure(msg.msg(), e);
+            }
+        }
+        onProcessingEnd(startNanos);
+    }
+
+    private long onProcessingStart(RuleChainToRuleNodeMsg msg) {
+        if (profile == null) {
+            return 0;
+        }
+        long startNanos = System.nanoTime();
+        profile.onQueueWait(startNanos - msg.getCreatedNanos());
+        if (msg.getCtx() instanceof DefaultTbContext ctx) {
+            ctx.onProcessingStart(startNanos);
+        }
+        return startNanos;
+    }
+
+    private void onProcessingEnd(long startNanos) {
+        if (profile != null && startNanos != 0) {
+            profile.onProcessed(System.nanoTime() - startNanos);
+        }
+    }
+
     @Override
     public String getComponentName() {
         return ruleNode.getName();
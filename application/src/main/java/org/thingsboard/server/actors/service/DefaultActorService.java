@@ -24,6 +24,9 @@ import org.thingsboard.common.util.ThingsBoardExecutors;
 import org.thingsboard.common.util.ThingsBoardThreadFactory;
 import org.thingsboard.server.actors.ActorSystemContext;
 import org.thingsboard.server.actors.DefaultTbActorSystem;
+import org.thingsboard.server.actors.TbActorMailboxOverflowStrategy;
+import org.thingsboard.server.actors.TbActorMailboxSettings;
+import org.thingsboard.server.actors.TbActorMailboxStats;
 import org.thingsboard.server.actors.TbActorRef;
 import org.thingsboard.server.actors.TbActorSystem;
 import org.thingsboard.server.actors.TbActorSystemSettings;
@@ -35,9 +38,11 @@ import org.thingsboard.server.common.msg.queue.ServiceType;
 import org.thingsboard.server.queue.discovery.TbApplicationEventListener;
 import org.thingsboard.server.queue.discovery.event.PartitionChangeEvent;
 import org.thingsboard.server.queue.util.AfterStartUp;
+import org.thingsboard.server.service.stats.ActorMailboxStatsService;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -53,6 +58,9 @@ public class DefaultActorService extends TbApplicationEventListener<PartitionCha
     @Autowired
     private ActorSystemContext actorContext;
 
+    @Autowired
+    private ActorMailboxStatsService actorMailboxStatsService;
+
     private TbActorSystem system;
 
     private TbActorRef appActor;
@@ -78,17 +86,35 @@ public class DefaultActorService extends TbApplicationEventListener<PartitionCha
     @Value("${actors.system.rule_dispatcher_pool_size:8}")
     private int ruleDispatcherSize;
 
+    @Value("${actors.system.virtual_thread_dispatchers:}")
+    private Set<String> virtualThreadDispatchers;
+
+    @Value("${actors.system.mailbox.bounded_dispatchers:}")
+    private Set<String> boundedMailboxDispatchers;
+
+    @Value("${actors.system.mailbox.bounded_capacity:65536}")
+    private int boundedMailboxCapacity;
+
+    @Value("${actors.system.mailbox.overflow_strategy:REJECT}")
+    private TbActorMailboxOverflowStrategy mailboxOverflowStrategy;
+
+    @Value("${actors.system.mailbox.backpressure_timeout_ms:1000}")
+    private long mailboxBackpressureTimeoutMs;
+
+    @Value("${actors.system.mailbox.stats_enabled:false}")
+    private boolean mailboxStatsEnabled;
+
     @PostConstruct
     public void initActorSystem() {
         log.info("Initializing actor system.");
         actorContext.setActorService(this);
         TbActorSystemSettings settings = new TbActorSystemSettings(actorThroughput, schedulerPoolSize, maxActorInitAttempts);
-        system = new DefaultTbActorSystem(settings);
+        system = new DefaultTbActorSystem(settings, mailboxStatsEnabled ? actorMailboxStatsService::getStats : actorId -> TbActorMailboxStats.NO_OP);
 
-        system.createDispatcher(APP_DISPATCHER_NAME, initDispatcherExecutor(APP_DISPATCHER_NAME, appDispatcherSize));
-        system.createDispatcher(TENANT_DISPATCHER_NAME, initDispatcherExecutor(TENANT_DISPATCHER_NAME, tenantDispatcherSize));
-        system.createDispatcher(DEVICE_DISPATCHER_NAME, initDispatcherExecutor(DEVICE_DISPATCHER_NAME, deviceDispatcherSize));
-        system.createDispatcher(RULE_DISPATCHER_NAME, initDispatcherExecutor(RULE_DISPATCHER_NAME, ruleDispatcherSize));
+        system.createDispatcher(APP_DISPATCHER_NAME, initDispatcherExecutor(APP_DISPATCHER_NAME, appDispatcherSize), getMailboxSettings(APP_DISPATCHER_NAME));
+        system.createDispatcher(TENANT_DISPATCHER_NAME, initDispatcherExecutor(TENANT_DISPATCHER_NAME, tenantDispatcherSize), getMailboxSettings(TENANT_DISPATCHER_NAME));
+        system.createDispatcher(DEVICE_DISPATCHER_NAME, initDispatcherExecutor(DEVICE_DISPATCHER_NAME, deviceDispatcherSize), getMailboxSettings(DEVICE_DISPATCHER_NAME));
+        system.createDispatcher(RULE_DISPATCHER_NAME, initDispatcherExecutor(RULE_DISPATCHER_NAME, ruleDispatcherSize), getMailboxSettings(RULE_DISPATCHER_NAME));
 
         actorContext.setActorSystem(system);
 
@@ -101,7 +127,22 @@ public class DefaultActorService extends TbApplicationEventListener<PartitionCha
         log.info("Actor system initialized.");
     }
 
+    private TbActorMailboxSettings getMailboxSettings(String dispatcherName) {
+        if (boundedMailboxDispatchers.contains(dispatcherName)) {
+            log.info("[{}] Using bounded actor mailboxes with capacity {} and {} overflow strategy", dispatcherName, boundedMailboxCapacity, mailboxOverflowStrategy);
+            return new TbActorMailboxSettings(boundedMailboxCapacity, mailboxOverflowStrategy, mailboxBackpressureTimeoutMs);
+        }
+        return TbActorMailboxSettings.UNBOUNDED;
+    }
+
     private ExecutorService initDispatcherExecutor(String dispatcherName, int poolSize) {
+        if (virtualThreadDispatchers.contains(dispatcherName)) {
+            if (ThingsBoardExecutors.isVirtualThreadsSupported()) {
+                log.info("[{}] Using virtual threads", dispatcherName);
+                return ThingsBoardExecutors.newVirtualThreadPerTaskExecutor(dispatcherName);
+            }
+            log.warn("[{}] Virtual threads are not supported by Java {}, using thread pool", dispatcherName, Runtime.version().feature());
+        }
         if (poolSize == 0) {
             int cores = Runtime.getRuntime().availableProcessors();
             poolSize = Math.max(1, cores / 2);
@@ -76,6 +76,8 @@ import org.thingsboard.server.service.script.RuleNodeJsScriptEngine;
 import org.thingsboard.server.service.script.RuleNodeTbelScriptEngine;
 import org.thingsboard.server.service.security.permission.Operation;
 import org.thingsboard.server.service.security.permission.Resource;
+import org.thingsboard.server.service.stats.RuleNodeProfilerService;
+import org.thingsboard.server.service.stats.RuleNodeProfilerStats;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -143,6 +145,9 @@ public class RuleChainController extends BaseController {
     @Autowired
     private EventService eventService;
 
+    @Autowired
+    private RuleNodeProfilerService ruleNodeProfilerService;
+
     @Autowired
     private JsInvokeService jsInvokeService;
 
@@ -345,6 +350,17 @@ public class RuleChainController extends BaseController {
                 .map(EventInfo::getBody).orElse(null);
     }
 
+    @ApiOperation(value = "Get rule node profiler stats (getRuleNodeProfilerStats)",
+            notes = "Returns latency statistics of the active rule nodes, sorted by max execution time. " +
+                    "For every rule node the queue wait, processing and execution (including async callbacks) latencies are returned in milliseconds. " +
+                    "Returns an empty list if the profiler is disabled. " + TENANT_AUTHORITY_PARAGRAPH)
+    @PreAuthorize("hasAuthority('TENANT_ADMIN')")
+    @RequestMapping(value = "/ruleNode/profiler", method = RequestMethod.GET)
+    @ResponseBody
+    public List<RuleNodeProfilerStats> getRuleNodeProfilerStats() throws ThingsboardException {
+        return ruleNodeProfilerService.getStats(getCurrentUser().getTenantId());
+    }
+
     @ApiOperation(value = "Is TBEL script executor enabled",
             notes = "Returns 'True' if the TBEL script execution is enabled" + TENANT_AUTHORITY_PARAGRAPH)
     @PreAuthorize("hasAuthority('TENANT_ADMIN')")
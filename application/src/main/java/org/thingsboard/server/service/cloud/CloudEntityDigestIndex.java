@@ -0,0 +1,192 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.cloud;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.thingsboard.server.common.data.Dashboard;
+import org.thingsboard.server.common.data.DashboardInfo;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.HasId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.page.PageData;
+import org.thingsboard.server.common.data.page.PageLink;
+import org.thingsboard.server.common.data.rule.RuleChainType;
+import org.thingsboard.server.dao.asset.AssetProfileService;
+import org.thingsboard.server.dao.asset.AssetService;
+import org.thingsboard.server.dao.dashboard.DashboardService;
+import org.thingsboard.server.dao.device.DeviceProfileService;
+import org.thingsboard.server.dao.device.DeviceService;
+import org.thingsboard.server.dao.entityview.EntityViewService;
+import org.thingsboard.server.dao.rule.RuleChainService;
+import org.thingsboard.server.gen.edge.v1.EntityTypeDigestProto;
+import org.thingsboard.server.service.edge.rpc.EntitySyncDigest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Digests of entities stored on the edge that are sent in the sync request, so the cloud sends only entities that differ.
+ * Loaded from the database on the first sync request and kept up to date from the entity events.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CloudEntityDigestIndex {
+
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    private final DeviceService deviceService;
+    private final DeviceProfileService deviceProfileService;
+    private final AssetService assetService;
+    private final AssetProfileService assetProfileService;
+    private final EntityViewService entityViewService;
+    private final DashboardService dashboardService;
+    private final RuleChainService ruleChainService;
+
+    private final ConcurrentMap<EntityType, EntityTypeIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * @return digests of the supported entity types, types that failed to load are omitted and synced as usual
+     */
+    public List<EntityTypeDigestProto> getDigests(TenantId tenantId) {
+        List<EntityTypeDigestProto> result = new ArrayList<>();
+        for (EntityType entityType : EntitySyncDigest.SUPPORTED_ENTITY_TYPES) {
+            try {
+                result.add(getOrLoadIndex(tenantId, entityType).toProto(entityType));
+            } catch (Exception e) {
+                log.warn("[{}] Failed to load digest of {} entities", tenantId, entityType, e);
+                indexes.remove(entityType);
+            }
+        }
+        return result;
+    }
+
+    public void onEntitySaved(EntityId entityId, Object entity) {
+        EntityTypeIndex index = getIndex(entityId);
+        if (index == null) {
+            return;
+        }
+        if (entity == null || (EntityType.DASHBOARD.equals(entityId.getEntityType()) && !(entity instanceof Dashboard))) {
+            // entity content is unknown, index is going to be reloaded on the next sync request
+            indexes.remove(entityId.getEntityType(), index);
+            return;
+        }
+        index.put(entityId.getId(), EntitySyncDigest.hash(entityId.getEntityType(), entity));
+    }
+
+    public void onEntityDeleted(EntityId entityId) {
+        EntityTypeIndex index = getIndex(entityId);
+        if (index != null) {
+            index.remove(entityId.getId());
+        }
+    }
+
+    private EntityTypeIndex getIndex(EntityId entityId) {
+        if (entityId == null || !EntitySyncDigest.SUPPORTED_ENTITY_TYPES.contains(entityId.getEntityType())) {
+            return null;
+        }
+        return indexes.get(entityId.getEntityType());
+    }
+
+    private EntityTypeIndex getOrLoadIndex(TenantId tenantId, EntityType entityType) {
+        EntityTypeIndex index = indexes.get(entityType);
+        if (index != null && index.tenantId.equals(tenantId)) {
+            return index;
+        }
+        // index is registered before loading, so entities saved meanwhile are not overwritten by the loaded ones
+        index = new EntityTypeIndex(tenantId);
+        indexes.put(entityType, index);
+        switch (entityType) {
+            case DEVICE -> load(index, entityType, pageLink -> deviceService.findDevicesByTenantId(tenantId, pageLink), entity -> entity);
+            case DEVICE_PROFILE -> load(index, entityType, pageLink -> deviceProfileService.findDeviceProfiles(tenantId, pageLink), entity -> entity);
+            case ASSET -> load(index, entityType, pageLink -> assetService.findAssetsByTenantId(tenantId, pageLink), entity -> entity);
+            case ASSET_PROFILE -> load(index, entityType, pageLink -> assetProfileService.findAssetProfiles(tenantId, pageLink), entity -> entity);
+            case ENTITY_VIEW -> load(index, entityType, pageLink -> entityViewService.findEntityViewByTenantId(tenantId, pageLink), entity -> entity);
+            case DASHBOARD -> load(index, entityType, pageLink -> dashboardService.findDashboardsByTenantId(tenantId, pageLink),
+                    (DashboardInfo dashboardInfo) -> dashboardService.findDashboardById(tenantId, dashboardInfo.getId()));
+            case RULE_CHAIN -> load(index, entityType, pageLink -> ruleChainService.findTenantRuleChainsByType(tenantId, RuleChainType.CORE, pageLink), entity -> entity);
+        }
+        log.debug("[{}] Loaded digest of [{}] {} entities", tenantId, index.size(), entityType);
+        return index;
+    }
+
+    private <T extends HasId<?>> void load(EntityTypeIndex index, EntityType entityType,
+                                           Function<PageLink, PageData<T>> finder, Function<T, Object> toDigestEntity) {
+        PageLink pageLink = new PageLink(LOAD_PAGE_SIZE);
+        PageData<T> entities;
+        do {
+            entities = finder.apply(pageLink);
+            for (T entity : entities.getData()) {
+                Object digestEntity = toDigestEntity.apply(entity);
+                if (digestEntity != null) {
+                    index.putIfAbsent(entity.getId().getId(), EntitySyncDigest.hash(entityType, digestEntity));
+                }
+            }
+            pageLink = pageLink.nextPageLink();
+        } while (entities.hasNext());
+    }
+
+    private static class EntityTypeIndex {
+
+        private final TenantId tenantId;
+        private final Map<UUID, Long> hashes = new HashMap<>();
+        private final EntitySyncDigest digest = new EntitySyncDigest();
+
+        EntityTypeIndex(TenantId tenantId) {
+            this.tenantId = tenantId;
+        }
+
+        synchronized void put(UUID id, long hash) {
+            Long oldHash = hashes.put(id, hash);
+            if (oldHash != null) {
+                digest.remove(id, oldHash);
+            }
+            digest.add(id, hash);
+        }
+
+        synchronized void putIfAbsent(UUID id, long hash) {
+            if (!hashes.containsKey(id)) {
+                hashes.put(id, hash);
+                digest.add(id, hash);
+            }
+        }
+
+        synchronized void remove(UUID id) {
+            Long oldHash = hashes.remove(id);
+            if (oldHash != null) {
+                digest.remove(id, oldHash);
+            }
+        }
+
+        synchronized int size() {
+            return hashes.size();
+        }
+
+        synchronized EntityTypeDigestProto toProto(EntityType entityType) {
+            return digest.toProto(entityType);
+        }
+    }
+
+}
@@ -61,6 +61,7 @@ public class CloudEventSourcingListener {
 
     private final TbClusterService tbClusterService;
     private final CloudSynchronizationManager cloudSynchronizationManager;
+    private final CloudEntityDigestIndex cloudEntityDigestIndex;
 
     private static final List<EntityType> COMMON_ENTITY_TYPES = Arrays.asList(
             EntityType.DEVICE,
@@ -84,6 +85,11 @@ public class CloudEventSourcingListener {
 
     @TransactionalEventListener(fallbackExecution = true)
     public void handleEvent(SaveEntityEvent<?> event) {
+        try {
+            cloudEntityDigestIndex.onEntitySaved(event.getEntityId(), event.getEntity());
+        } catch (Exception e) {
+            log.error("failed to update entity digest index: {}", event, e);
+        }
         if (cloudSynchronizationManager.isSync()) {
             return;
         }
@@ -106,6 +112,11 @@ public class CloudEventSourcingListener {
 
     @TransactionalEventListener(fallbackExecution = true)
     public void handleEvent(DeleteEntityEvent<?> event) {
+        try {
+            cloudEntityDigestIndex.onEntityDeleted(event.getEntityId());
+        } catch (Exception e) {
+            log.error("failed to update entity digest index: {}", event, e);
+        }
         if (cloudSynchronizationManager.isSync()) {
             return;
         }
@@ -58,6 +58,7 @@ import org.thingsboard.server.gen.edge.v1.EdgeVersion;
 import org.thingsboard.server.gen.edge.v1.UplinkMsg;
 import org.thingsboard.server.gen.edge.v1.UplinkResponseMsg;
 import org.thingsboard.server.service.cloud.rpc.CloudEventStorageSettings;
+import org.thingsboard.server.service.cloud.rpc.UplinkCongestionController;
 import org.thingsboard.server.service.cloud.rpc.processor.AlarmCloudProcessor;
 import org.thingsboard.server.service.cloud.rpc.processor.AssetCloudProcessor;
 import org.thingsboard.server.service.cloud.rpc.processor.AssetProfileCloudProcessor;
@@ -79,8 +80,11 @@ import org.thingsboard.server.service.state.DefaultDeviceStateService;
 import org.thingsboard.server.service.telemetry.TelemetrySubscriptionService;
 
 import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -90,9 +94,9 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -138,6 +142,9 @@ public class CloudManagerService {
     @Autowired
     private CloudEventStorageSettings cloudEventStorageSettings;
 
+    @Autowired
+    private UplinkCongestionController uplinkCongestionController;
+
     @Autowired
     private DownlinkMessageService downlinkMessageService;
 
@@ -196,9 +203,10 @@ public class CloudManagerService {
     private CloudEventService cloudEventService;
 
     @Autowired
-    private ConfigurableApplicationContext context;
+    private CloudEntityDigestIndex cloudEntityDigestIndex;
 
-    private CountDownLatch latch;
+    @Autowired
+    private ConfigurableApplicationContext context;
 
     private EdgeSettings currentEdgeSettings;
 
@@ -208,11 +216,12 @@ public class CloudManagerService {
     private ScheduledExecutorService reconnectScheduler;
     private ScheduledFuture<?> scheduledFuture;
     private ScheduledExecutorService shutdownExecutor;
-    private volatile boolean isRateLimitViolated = false;
     private volatile boolean initialized;
     private volatile boolean syncInProgress = false;
 
-    private final ConcurrentMap<Integer, UplinkMsg> pendingMsgsMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, UplinkMsgsPack> pendingMsgsMap = new ConcurrentHashMap<>();
+    private final Deque<UplinkMsgsPack> inFlightPacks = new ArrayDeque<>();
+    private final Semaphore newCloudEventsSignal = new Semaphore(0);
 
     private TenantId tenantId;
     private CustomerId customerId;
@@ -227,6 +236,7 @@ public class CloudManagerService {
                     this::onDownlink,
                     this::scheduleReconnect);
             executor = Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName("cloud-manager"));
+            cloudEventService.registerNewCloudEventsListener(this::onNewCloudEvents);
             reconnectScheduler = Executors.newSingleThreadScheduledExecutor(ThingsBoardThreadFactory.forName("cloud-manager-reconnect"));
             processHandleMessages();
         }
@@ -278,47 +288,27 @@ public class CloudManagerService {
                         Long queueSeqIdStart = getQueueSeqIdStart().get();
                         TimePageLink pageLink = new TimePageLink(cloudEventStorageSettings.getMaxReadRecordsCount(),
                                 0, null, null, queueStartTs, System.currentTimeMillis());
-                        if (newCloudEventsAvailable(queueSeqIdStart, pageLink)) {
-                            PageData<CloudEvent> cloudEvents;
-                            boolean success = true;
-                            CloudEvent latestCloudEvent = null;
-                            do {
-                                cloudEvents = cloudEventService.findCloudEvents(tenantId, queueSeqIdStart, null, pageLink);
-                                if (initialized) {
-                                    if (cloudEvents.getData().isEmpty()) {
-                                        log.info("seqId column of cloud_event table started new cycle");
-                                        cloudEvents = findCloudEventsFromBeginning(pageLink);
-                                    }
-                                    log.trace("[{}] event(s) are going to be converted.", cloudEvents.getData().size());
-                                    List<UplinkMsg> uplinkMsgsPack = convertToUplinkMsgsPack(cloudEvents.getData());
-                                    if (!uplinkMsgsPack.isEmpty()) {
-                                        success = sendUplinkMsgsPack(uplinkMsgsPack);
-                                    } else {
-                                        success = true;
-                                    }
-                                    if (!cloudEvents.getData().isEmpty()) {
-                                        latestCloudEvent = cloudEvents.getData().get(cloudEvents.getData().size() - 1);
-                                    }
-                                    if (success) {
-                                        pageLink = pageLink.nextPageLink();
-                                    }
+                        PageData<CloudEvent> cloudEvents = findNewCloudEvents(queueSeqIdStart, pageLink);
+                        if (cloudEvents != null) {
+                            while (initialized) {
+                                log.trace("[{}] event(s) are going to be converted.", cloudEvents.getData().size());
+                                List<UplinkMsg> uplinkMsgsPack = convertToUplinkMsgsPack(cloudEvents.getData());
+                                CloudEvent latestCloudEvent = cloudEvents.getData().isEmpty() ? null :
+                                        cloudEvents.getData().get(cloudEvents.getData().size() - 1);
+                                sendUplinkMsgsPack(uplinkMsgsPack, latestCloudEvent);
+                                if (!cloudEvents.hasNext()) {
+                                    break;
                                 }
-                            } while (initialized && (!success || cloudEvents.hasNext()));
-                            if (latestCloudEvent != null) {
-                                try {
-                                    Long newStartTs = Uuids.unixTimestamp(latestCloudEvent.getUuidId());
-                                    updateQueueStartTsSeqIdOffset(newStartTs, latestCloudEvent.getSeqId());
-                                    log.debug("Queue offset was updated [{}][{}][{}]", latestCloudEvent.getUuidId(), newStartTs, latestCloudEvent.getSeqId());
-                                } catch (Exception e) {
-                                    log.error("Failed to update queue offset [{}]", latestCloudEvent);
+                                pageLink = pageLink.nextPageLink();
+                                cloudEvents = cloudEventService.findCloudEvents(tenantId, queueSeqIdStart, null, pageLink);
+                                if (cloudEvents.getData().isEmpty()) {
+                                    log.info("seqId column of cloud_event table started new cycle");
+                                    cloudEvents = findCloudEventsFromBeginning(pageLink);
                                 }
                             }
+                            awaitInFlightUplinkMsgsPacks();
                         }
-                        try {
-                            Thread.sleep(cloudEventStorageSettings.getNoRecordsSleepInterval());
-                        } catch (InterruptedException e) {
-                            log.error("Error during sleep", e);
-                        }
+                        awaitNewCloudEvents();
                     } else {
                         Thread.sleep(TimeUnit.SECONDS.toMillis(1));
                     }
@@ -329,14 +319,42 @@ public class CloudManagerService {
         });
     }
 
-    private boolean newCloudEventsAvailable(Long queueSeqIdStart, TimePageLink pageLink) {
+    /**
+     * Waits until new cloud events are committed to the storage.
+     * Polling with 'no_read_records_sleep' interval is kept as a safety net in case notification is missed.
+     */
+    private void awaitNewCloudEvents() {
+        try {
+            if (newCloudEventsSignal.tryAcquire(cloudEventStorageSettings.getNoRecordsSleepInterval(), TimeUnit.MILLISECONDS)) {
+                newCloudEventsSignal.drainPermits();
+            }
+        } catch (InterruptedException e) {
+            log.error("Error during sleep", e);
+        }
+    }
+
+    private void onNewCloudEvents(int count) {
+        log.trace("[{}] new cloud event(s) were committed", count);
+        if (newCloudEventsSignal.availablePermits() == 0) {
+            newCloudEventsSignal.release();
+        }
+    }
+
+    /**
+     * Returns first page of not yet processed cloud events or null if there are no new events.
+     */
+    private PageData<CloudEvent> findNewCloudEvents(Long queueSeqIdStart, TimePageLink pageLink) {
         PageData<CloudEvent> cloudEvents = cloudEventService.findCloudEvents(tenantId, queueSeqIdStart, null, pageLink);
         if (cloudEvents.getData().isEmpty()) {
             // check if new cycle started (seq_id starts from '1')
             cloudEvents = findCloudEventsFromBeginning(pageLink);
-            return cloudEvents.getData().stream().anyMatch(ce -> ce.getSeqId() == 1);
+            if (cloudEvents.getData().stream().anyMatch(ce -> ce.getSeqId() == 1)) {
+                log.info("seqId column of cloud_event table started new cycle");
+                return cloudEvents;
+            }
+            return null;
         } else {
-            return true;
+            return cloudEvents;
         }
     }
 
@@ -346,69 +364,165 @@ public class CloudManagerService {
         return cloudEventService.findCloudEvents(tenantId, 0L, seqIdEnd, pageLink);
     }
 
-    private boolean sendUplinkMsgsPack(List<UplinkMsg> uplinkMsgsPack) throws InterruptedException {
+    /**
+     * Adds pack to the window of in-flight packs and sends it without waiting for the responses.
+     * Blocks only while the window is full, i.e. until the oldest pack is acknowledged or discarded.
+     * Window size and pacing between packs are driven by {@link UplinkCongestionController}.
+     */
+    private void sendUplinkMsgsPack(List<UplinkMsg> uplinkMsgsPack, CloudEvent latestCloudEvent) throws InterruptedException {
+        uplinkMsgsPackLock.lock();
+        try {
+            completeAcknowledgedUplinkMsgsPacks();
+            while (initialized && inFlightPacks.size() >= uplinkCongestionController.getWindow()) {
+                awaitHeadUplinkMsgsPack();
+            }
+            if (!initialized) {
+                return;
+            }
+            pace();
+            UplinkMsgsPack pack = new UplinkMsgsPack(uplinkMsgsPack, latestCloudEvent);
+            uplinkMsgsPack.forEach(msg -> pendingMsgsMap.put(msg.getUplinkMsgId(), pack));
+            inFlightPacks.add(pack);
+            log.trace("[{}] uplink msg(s) are going to be send, in-flight packs [{}]", uplinkMsgsPack.size(), inFlightPacks.size());
+            sendPendingMsgs(pack);
+        } finally {
+            uplinkMsgsPackLock.unlock();
+        }
+    }
+
+    private void awaitInFlightUplinkMsgsPacks() throws InterruptedException {
         uplinkMsgsPackLock.lock();
         try {
-            int attempt = 1;
-            boolean success;
-            LinkedBlockingQueue<UplinkMsg> orderedPendingMsgsQueue = new LinkedBlockingQueue<>();
+            while (initialized && !inFlightPacks.isEmpty()) {
+                awaitHeadUplinkMsgsPack();
+            }
+            // not acknowledged messages are going to be read again from the last persisted queue offset
+            inFlightPacks.clear();
             pendingMsgsMap.clear();
-            uplinkMsgsPack.forEach(msg -> {
-                pendingMsgsMap.put(msg.getUplinkMsgId(), msg);
-                orderedPendingMsgsQueue.add(msg);
-            });
-            do {
-                log.trace("[{}] uplink msg(s) are going to be send.", pendingMsgsMap.values().size());
-                latch = new CountDownLatch(pendingMsgsMap.values().size());
-                for (UplinkMsg uplinkMsg : orderedPendingMsgsQueue) {
-                    if (edgeRpcClient.getServerMaxInboundMessageSize() != 0 && uplinkMsg.getSerializedSize() > edgeRpcClient.getServerMaxInboundMessageSize()) {
-                        log.error("Uplink msg size [{}] exceeds server max inbound message size [{}]. Skipping this message. " +
-                                        "Please increase value of EDGES_RPC_MAX_INBOUND_MESSAGE_SIZE env variable on the server and restart it." +
-                                        "Message {}",
-                                uplinkMsg.getSerializedSize(), edgeRpcClient.getServerMaxInboundMessageSize(), uplinkMsg);
-                        pendingMsgsMap.remove(uplinkMsg.getUplinkMsgId());
-                        latch.countDown();
-                    } else {
-                        edgeRpcClient.sendUplinkMsg(uplinkMsg);
-                    }
-                }
-                success = latch.await(uplinkPackTimeoutSec, TimeUnit.SECONDS);
-                success = success && pendingMsgsMap.isEmpty();
-                if (!success) {
-                    log.warn("Failed to deliver the batch: {}, attempt: {}", pendingMsgsMap.values(), attempt);
-                }
-                if (initialized && !success) {
-                    try {
-                        Thread.sleep(cloudEventStorageSettings.getSleepIntervalBetweenBatches());
-                    } catch (InterruptedException e) {
-                        log.error("Error during sleep between batches", e);
-                    }
-                }
-                if (initialized && !success && isRateLimitViolated) {
-                    isRateLimitViolated = false;
-                    try {
-                        TimeUnit.SECONDS.sleep(60);
-                    } catch (InterruptedException e) {
-                        log.error("Error during sleep on rate limit violation", e);
-                    }
-                }
-                attempt++;
-                if (attempt > MAX_UPLINK_ATTEMPTS) {
-                    log.warn("Failed to deliver the batch after {} attempts. Next messages are going to be discarded {}",
-                            MAX_UPLINK_ATTEMPTS, pendingMsgsMap.values());
-                    return true;
-                }
-            } while (initialized && !success);
-            return success;
         } finally {
             uplinkMsgsPackLock.unlock();
         }
     }
 
+    private void completeAcknowledgedUplinkMsgsPacks() {
+        UplinkMsgsPack head;
+        while ((head = inFlightPacks.peek()) != null && head.isAcknowledged()) {
+            if (head.ackedTs > 0) {
+                uplinkCongestionController.onAck(head.ackedTs - head.sentTs);
+            }
+            completeHeadUplinkMsgsPack();
+        }
+    }
+
+    private void awaitHeadUplinkMsgsPack() throws InterruptedException {
+        UplinkMsgsPack head = inFlightPacks.peek();
+        boolean success = head.latch.await(uplinkPackTimeoutSec, TimeUnit.SECONDS);
+        success = success && head.pendingMsgs.isEmpty();
+        if (success) {
+            completeAcknowledgedUplinkMsgsPacks();
+            return;
+        }
+        boolean rateLimited = head.rateLimitViolated;
+        long backoffMs = rateLimited ? uplinkCongestionController.onRateLimit() : uplinkCongestionController.onFailure();
+        log.warn("Failed to deliver the batch: {}, attempt: {}, rate limited: {}, next attempt in {} ms",
+                head.pendingMsgs.values(), head.attempt, rateLimited, backoffMs);
+        if (initialized) {
+            try {
+                Thread.sleep(backoffMs);
+            } catch (InterruptedException e) {
+                log.error("Error during backoff between batches", e);
+            }
+        }
+        // rejection due to rate limits is not a delivery failure, the pack is kept until the cloud accepts it
+        if (!rateLimited) {
+            head.attempt++;
+        }
+        if (head.attempt > MAX_UPLINK_ATTEMPTS) {
+            log.error("Failed to deliver the batch after {} attempts. Next messages are going to be discarded {}",
+                    MAX_UPLINK_ATTEMPTS, head.pendingMsgs.values());
+            uplinkCongestionController.onDrop(head.pendingMsgs.size());
+            completeHeadUplinkMsgsPack();
+            completeAcknowledgedUplinkMsgsPacks();
+            return;
+        }
+        if (initialized) {
+            // resend every message of the whole window in the original order to keep per-entity ordering:
+            // already acknowledged messages of the next packs must be applied again after the failed ones of the head
+            for (UplinkMsgsPack pack : inFlightPacks) {
+                if (pack != head) {
+                    pace();
+                }
+                pack.resetPendingMsgs();
+                pack.msgs.forEach(msg -> pendingMsgsMap.put(msg.getUplinkMsgId(), pack));
+                sendPendingMsgs(pack);
+            }
+        }
+    }
+
+    private void completeHeadUplinkMsgsPack() {
+        UplinkMsgsPack pack = inFlightPacks.poll();
+        if (pack == null) {
+            return;
+        }
+        pack.pendingMsgs.keySet().forEach(pendingMsgsMap::remove);
+        CloudEvent latestCloudEvent = pack.latestCloudEvent;
+        if (latestCloudEvent != null) {
+            try {
+                Long newStartTs = Uuids.unixTimestamp(latestCloudEvent.getUuidId());
+                updateQueueStartTsSeqIdOffset(newStartTs, latestCloudEvent.getSeqId());
+                log.debug("Queue offset was updated [{}][{}][{}]", latestCloudEvent.getUuidId(), newStartTs, latestCloudEvent.getSeqId());
+            } catch (Exception e) {
+                log.error("Failed to update queue offset [{}]", latestCloudEvent);
+            }
+        }
+    }
+
+    private void pace() {
+        long pacingDelayMs = uplinkCongestionController.getPacingDelayMs();
+        if (pacingDelayMs > 0 && initialized) {
+            try {
+                Thread.sleep(pacingDelayMs);
+            } catch (InterruptedException e) {
+                log.error("Error during pacing between batches", e);
+            }
+        }
+    }
+
+    private void sendPendingMsgs(UplinkMsgsPack pack) {
+        if (pack.isAcknowledged()) {
+            return;
+        }
+        pack.latch = new CountDownLatch(pack.pendingMsgs.size());
+        pack.sentTs = System.currentTimeMillis();
+        pack.rateLimitViolated = false;
+        for (UplinkMsg uplinkMsg : pack.msgs) {
+            if (!pack.pendingMsgs.containsKey(uplinkMsg.getUplinkMsgId())) {
+                continue;
+            }
+            if (edgeRpcClient.getServerMaxInboundMessageSize() != 0 && uplinkMsg.getSerializedSize() > edgeRpcClient.getServerMaxInboundMessageSize()) {
+                log.error("Uplink msg size [{}] exceeds server max inbound message size [{}]. Skipping this message. " +
+                                "Please increase value of EDGES_RPC_MAX_INBOUND_MESSAGE_SIZE env variable on the server and restart it." +
+                                "Message {}",
+                        uplinkMsg.getSerializedSize(), edgeRpcClient.getServerMaxInboundMessageSize(), uplinkMsg);
+                pack.pendingMsgs.remove(uplinkMsg.getUplinkMsgId());
+                pendingMsgsMap.remove(uplinkMsg.getUplinkMsgId());
+                pack.latch.countDown();
+            } else {
+                edgeRpcClient.sendUplinkMsg(uplinkMsg);
+            }
+        }
+    }
+
     private List<UplinkMsg> convertToUplinkMsgsPack(List<CloudEvent> cloudEvents) {
         List<UplinkMsg> result = new ArrayList<>();
+        List<CloudEvent> telemetryEvents = new ArrayList<>();
         for (CloudEvent cloudEvent : cloudEvents) {
             log.trace("Converting cloud event [{}]", cloudEvent);
+            if (isCoalescedTelemetryEvent(cloudEvent)) {
+                telemetryEvents.add(cloudEvent);
+                continue;
+            }
+            flushTelemetryEvents(telemetryEvents, result);
             UplinkMsg uplinkMsg = null;
             try {
                 switch (cloudEvent.getAction()) {
@@ -431,9 +545,23 @@ public class CloudManagerService {
                 result.add(uplinkMsg);
             }
         }
+        flushTelemetryEvents(telemetryEvents, result);
         return result;
     }
 
+    private boolean isCoalescedTelemetryEvent(CloudEvent cloudEvent) {
+        return EdgeEventActionType.TIMESERIES_UPDATED.equals(cloudEvent.getAction())
+                || EdgeEventActionType.ATTRIBUTES_UPDATED.equals(cloudEvent.getAction());
+    }
+
+    private void flushTelemetryEvents(List<CloudEvent> telemetryEvents, List<UplinkMsg> result) {
+        if (!telemetryEvents.isEmpty()) {
+            result.addAll(telemetryProcessor.convertTelemetryEventsToUplinkMsgs(this.tenantId, telemetryEvents,
+                    edgeRpcClient.getServerMaxInboundMessageSize()));
+            telemetryEvents.clear();
+        }
+    }
+
     private UplinkMsg convertEntityEventToUplink(TenantId tenantId, CloudEvent cloudEvent) {
         log.trace("Executing convertEntityEventToUplink, cloudEvent [{}], edgeEventAction [{}]", cloudEvent, cloudEvent.getAction());
         EdgeVersion edgeVersion = EdgeVersion.V_LATEST;
@@ -495,16 +623,25 @@ public class CloudManagerService {
 
     private void onUplinkResponse(UplinkResponseMsg msg) {
         try {
+            UplinkMsgsPack pack = pendingMsgsMap.get(msg.getUplinkMsgId());
+            if (pack == null) {
+                log.debug("[{}] Received response for msg that is not pending anymore {}", routingKey, msg);
+                return;
+            }
             if (msg.getSuccess()) {
                 pendingMsgsMap.remove(msg.getUplinkMsgId());
+                pack.pendingMsgs.remove(msg.getUplinkMsgId());
+                if (pack.isAcknowledged()) {
+                    pack.ackedTs = System.currentTimeMillis();
+                }
                 log.debug("[{}] Msg has been processed successfully! {}", routingKey, msg);
             } else if (msg.getErrorMsg().contains(RATE_LIMIT_REACHED)) {
                 log.warn("[{}] Msg processing failed! {}", routingKey, RATE_LIMIT_REACHED);
-                isRateLimitViolated = true;
+                pack.rateLimitViolated = true;
             } else {
                 log.error("[{}] Msg processing failed! Error msg: {}", routingKey, msg.getErrorMsg());
             }
-            latch.countDown();
+            pack.latch.countDown();
         } catch (Exception e) {
             log.error("Can't process uplink response message [{}]", msg, e);
         }
@@ -556,7 +693,9 @@ public class CloudManagerService {
         }
         // TODO: voba - should sync be executed in some other cases ???
         log.trace("Sending sync request, fullSyncRequired {}, edgeCustomerIdUpdated {}", this.currentEdgeSettings.isFullSyncRequired(), edgeCustomerIdUpdated);
-        edgeRpcClient.sendSyncRequestMsg(this.currentEdgeSettings.isFullSyncRequired() | edgeCustomerIdUpdated);
+        boolean fullSyncRequired = this.currentEdgeSettings.isFullSyncRequired() | edgeCustomerIdUpdated;
+        // digests let the cloud skip entities that are already up to date on the edge
+        edgeRpcClient.sendSyncRequestMsg(fullSyncRequired, fullSyncRequired ? Collections.emptyList() : cloudEntityDigestIndex.getDigests(tenantId));
         this.syncInProgress = true;
 
         cloudEventService.saveEdgeSettings(tenantId, this.currentEdgeSettings);
@@ -565,6 +704,7 @@ public class CloudManagerService {
 
         updateConnectivityStatus(true);
 
+        uplinkCongestionController.reset();
         initialized = true;
     }
 
@@ -720,4 +860,30 @@ public class CloudManagerService {
         }
     }
 
+    private static class UplinkMsgsPack {
+        private final List<UplinkMsg> msgs;
+        private final CloudEvent latestCloudEvent;
+        private final ConcurrentMap<Integer, UplinkMsg> pendingMsgs = new ConcurrentHashMap<>();
+        private volatile CountDownLatch latch = new CountDownLatch(0);
+        private volatile long sentTs;
+        private volatile long ackedTs;
+        private volatile boolean rateLimitViolated;
+        private int attempt = 1;
+
+        UplinkMsgsPack(List<UplinkMsg> msgs, CloudEvent latestCloudEvent) {
+            this.msgs = msgs;
+            this.latestCloudEvent = latestCloudEvent;
+            msgs.forEach(msg -> pendingMsgs.put(msg.getUplinkMsgId(), msg));
+        }
+
+        boolean isAcknowledged() {
+            return pendingMsgs.isEmpty();
+        }
+
+        void resetPendingMsgs() {
+            msgs.forEach(msg -> pendingMsgs.put(msg.getUplinkMsgId(), msg));
+            ackedTs = 0;
+        }
+    }
+
 }
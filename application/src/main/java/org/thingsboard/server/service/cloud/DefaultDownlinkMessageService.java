@@ -17,9 +17,15 @@ package org.thingsboard.server.service.cloud;
 
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
 import org.thingsboard.server.common.data.cloud.CloudEventType;
 import org.thingsboard.server.common.data.edge.EdgeEventActionType;
 import org.thingsboard.server.common.data.edge.EdgeSettings;
@@ -87,6 +93,7 @@ import org.thingsboard.server.service.executors.DbCallbackExecutorService;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Executors;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -171,188 +178,216 @@ public class DefaultDownlinkMessageService implements DownlinkMessageService {
     @Autowired
     private DbCallbackExecutorService dbCallbackExecutorService;
 
+    @Value("${cloud.rpc.downlink_pool_size:4}")
+    private int downlinkPoolSize;
+
+    private ListeningExecutorService downlinkExecutor;
+
+    // completes when the last received downlink msg is applied
+    private ListenableFuture<?> lastDownlinkMsgFuture = Futures.immediateVoidFuture();
+
+    @PostConstruct
+    public void init() {
+        downlinkExecutor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(Math.max(1, downlinkPoolSize),
+                ThingsBoardThreadFactory.forName("cloud-downlink")));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (downlinkExecutor != null) {
+            downlinkExecutor.shutdownNow();
+        }
+    }
+
     public ListenableFuture<List<Void>> processDownlinkMsg(TenantId tenantId,
                                                            CustomerId edgeCustomerId,
                                                            DownlinkMsg downlinkMsg,
                                                            EdgeSettings currentEdgeSettings,
                                                            Long queueStartTs) {
-        List<ListenableFuture<Void>> result = new ArrayList<>();
+        List<DownlinkMsgLayer> layers;
         try {
             log.debug("[{}] Starting process DownlinkMsg. edgeCustomerId [{}], downlinkMsgId [{}],",
                     tenantId, edgeCustomerId, downlinkMsg.getDownlinkMsgId());
             log.trace("DownlinkMsg Body {}", downlinkMsg);
-            if (downlinkMsg.hasSyncCompletedMsg()) {
-                result.add(updateSyncRequiredState(tenantId, edgeCustomerId, currentEdgeSettings, queueStartTs));
-            }
-            if (downlinkMsg.hasEdgeConfiguration()) {
-                result.add(edgeCloudProcessor.processEdgeConfigurationMsgFromCloud(tenantId, downlinkMsg.getEdgeConfiguration()));
-            }
-            if (downlinkMsg.getEntityDataCount() > 0) {
-                for (EntityDataProto entityData : downlinkMsg.getEntityDataList()) {
-                    result.addAll(telemetryProcessor.processTelemetryMsg(tenantId, entityData));
-                }
-            }
-            if (downlinkMsg.getDeviceRpcCallMsgCount() > 0) {
-                for (DeviceRpcCallMsg deviceRpcRequestMsg : downlinkMsg.getDeviceRpcCallMsgList()) {
-                    result.add(deviceProcessor.processDeviceRpcCallFromCloud(tenantId, deviceRpcRequestMsg));
-                }
-            }
-            if (downlinkMsg.getDeviceCredentialsRequestMsgCount() > 0) {
-                for (DeviceCredentialsRequestMsg deviceCredentialsRequestMsg : downlinkMsg.getDeviceCredentialsRequestMsgList()) {
-                    result.add(processDeviceCredentialsRequestMsg(tenantId, deviceCredentialsRequestMsg));
-                }
-            }
-            if (downlinkMsg.getDeviceProfileUpdateMsgCount() > 0) {
-                for (DeviceProfileUpdateMsg deviceProfileUpdateMsg : downlinkMsg.getDeviceProfileUpdateMsgList()) {
-                    result.add(deviceProfileProcessor.processDeviceProfileMsgFromCloud(tenantId, deviceProfileUpdateMsg));
-                }
-            }
-            if (downlinkMsg.getDeviceUpdateMsgCount() > 0) {
-                for (DeviceUpdateMsg deviceUpdateMsg : downlinkMsg.getDeviceUpdateMsgList()) {
-                    result.add(deviceProcessor.processDeviceMsgFromCloud(tenantId, deviceUpdateMsg, queueStartTs));
-                }
-            }
-            if (downlinkMsg.getDeviceCredentialsUpdateMsgCount() > 0) {
-                for (DeviceCredentialsUpdateMsg deviceCredentialsUpdateMsg : downlinkMsg.getDeviceCredentialsUpdateMsgList()) {
-                    result.add(deviceProcessor.processDeviceCredentialsMsgFromCloud(tenantId, deviceCredentialsUpdateMsg));
-                }
-            }
-            if (downlinkMsg.getAssetProfileUpdateMsgCount() > 0) {
-                for (AssetProfileUpdateMsg assetProfileUpdateMsg  : downlinkMsg.getAssetProfileUpdateMsgList()) {
-                    result.add(assetProfileProcessor.processAssetProfileMsgFromCloud(tenantId, assetProfileUpdateMsg));
-                }
-            }
-            if (downlinkMsg.getAssetUpdateMsgCount() > 0) {
-                for (AssetUpdateMsg assetUpdateMsg : downlinkMsg.getAssetUpdateMsgList()) {
-                    result.add(assetProcessor.processAssetMsgFromCloud(tenantId, assetUpdateMsg, queueStartTs));
-                }
-            }
-            if (downlinkMsg.getEntityViewUpdateMsgCount() > 0) {
-                for (EntityViewUpdateMsg entityViewUpdateMsg : downlinkMsg.getEntityViewUpdateMsgList()) {
-                    result.add(entityViewProcessor.processEntityViewMsgFromCloud(tenantId, entityViewUpdateMsg, queueStartTs));
-                }
-            }
-            if (downlinkMsg.getRuleChainUpdateMsgCount() > 0) {
-                for (RuleChainUpdateMsg ruleChainUpdateMsg : downlinkMsg.getRuleChainUpdateMsgList()) {
-                    result.add(ruleChainProcessor.processRuleChainMsgFromCloud(tenantId, ruleChainUpdateMsg, queueStartTs));
-                }
-            }
-            if (downlinkMsg.getRuleChainMetadataUpdateMsgCount() > 0) {
-                for (RuleChainMetadataUpdateMsg ruleChainMetadataUpdateMsg : downlinkMsg.getRuleChainMetadataUpdateMsgList()) {
-                    result.add(ruleChainProcessor.processRuleChainMetadataMsgFromCloud(tenantId, ruleChainMetadataUpdateMsg));
-                }
-            }
-            if (downlinkMsg.getDashboardUpdateMsgCount() > 0) {
-                for (DashboardUpdateMsg dashboardUpdateMsg : downlinkMsg.getDashboardUpdateMsgList()) {
-                    result.add(dashboardProcessor.processDashboardMsgFromCloud(tenantId, dashboardUpdateMsg, edgeCustomerId, queueStartTs));
-                }
-            }
-            if (downlinkMsg.getAlarmUpdateMsgCount() > 0) {
-                for (AlarmUpdateMsg alarmUpdateMsg : downlinkMsg.getAlarmUpdateMsgList()) {
-                    result.add(alarmProcessor.processAlarmMsgFromCloud(tenantId, alarmUpdateMsg));
-                }
-            }
-            if (downlinkMsg.getAlarmCommentUpdateMsgCount() > 0) {
-                for (AlarmCommentUpdateMsg alarmCommentUpdateMsg : downlinkMsg.getAlarmCommentUpdateMsgList()) {
-                    result.add(alarmProcessor.processAlarmCommentMsgFromCloud(tenantId, alarmCommentUpdateMsg));
-                }
-            }
-            if (downlinkMsg.getCustomerUpdateMsgCount() > 0) {
-                for (CustomerUpdateMsg customerUpdateMsg : downlinkMsg.getCustomerUpdateMsgList()) {
-                    sequenceDependencyLock.lock();
-                    try {
-                        result.add(customerProcessor.processCustomerMsgFromCloud(tenantId, customerUpdateMsg, queueStartTs));
-                    } finally {
-                        sequenceDependencyLock.unlock();
-                    }
-                }
-            }
-            if (downlinkMsg.getRelationUpdateMsgCount() > 0) {
-                for (RelationUpdateMsg relationUpdateMsg : downlinkMsg.getRelationUpdateMsgList()) {
-                    result.add(relationProcessor.processRelationMsgFromCloud(tenantId, relationUpdateMsg));
-                }
-            }
-            if (downlinkMsg.getWidgetsBundleUpdateMsgCount() > 0) {
-                for (WidgetsBundleUpdateMsg widgetsBundleUpdateMsg : downlinkMsg.getWidgetsBundleUpdateMsgList()) {
-                    result.add(widgetsBundleProcessor.processWidgetsBundleMsgFromCloud(tenantId, widgetsBundleUpdateMsg));
-                }
-            }
-            if (downlinkMsg.getWidgetTypeUpdateMsgCount() > 0) {
-                for (WidgetTypeUpdateMsg widgetTypeUpdateMsg : downlinkMsg.getWidgetTypeUpdateMsgList()) {
-                    result.add(widgetTypeProcessor.processWidgetTypeMsgFromCloud(tenantId, widgetTypeUpdateMsg));
-                }
-            }
-            if (downlinkMsg.getUserUpdateMsgCount() > 0) {
-                for (UserUpdateMsg userUpdateMsg : downlinkMsg.getUserUpdateMsgList()) {
-                    sequenceDependencyLock.lock();
-                    try {
-                        result.add(userProcessor.processUserMsgFromCloud(tenantId, userUpdateMsg, queueStartTs));
-                    } finally {
-                        sequenceDependencyLock.unlock();
-                    }
-                }
-            }
-            if (downlinkMsg.getUserCredentialsUpdateMsgCount() > 0) {
-                for (UserCredentialsUpdateMsg userCredentialsUpdateMsg : downlinkMsg.getUserCredentialsUpdateMsgList()) {
-                    result.add(userProcessor.processUserCredentialsMsgFromCloud(tenantId, userCredentialsUpdateMsg));
-                }
-            }
-            if (downlinkMsg.getAdminSettingsUpdateMsgCount() > 0) {
-                for (AdminSettingsUpdateMsg adminSettingsUpdateMsg : downlinkMsg.getAdminSettingsUpdateMsgList()) {
-                    result.add(adminSettingsProcessor.processAdminSettingsMsgFromCloud(tenantId, adminSettingsUpdateMsg));
-                }
-            }
-            if (downlinkMsg.getOtaPackageUpdateMsgCount() > 0) {
-                for (OtaPackageUpdateMsg otaPackageUpdateMsg : downlinkMsg.getOtaPackageUpdateMsgList()) {
-                    result.add(otaPackageProcessor.processOtaPackageMsgFromCloud(tenantId, otaPackageUpdateMsg));
-                }
-            }
-            if (downlinkMsg.getQueueUpdateMsgCount() > 0) {
-                for (QueueUpdateMsg queueUpdateMsg : downlinkMsg.getQueueUpdateMsgList()) {
-                    result.add(queueCloudProcessor.processQueueMsgFromCloud(tenantId, queueUpdateMsg));
-                }
-            }
-            if (downlinkMsg.getTenantProfileUpdateMsgCount() > 0) {
-                for (TenantProfileUpdateMsg tenantProfileUpdateMsg : downlinkMsg.getTenantProfileUpdateMsgList()) {
-                    result.add(tenantProfileCloudProcessor.processTenantProfileMsgFromCloud(tenantId, tenantProfileUpdateMsg));
-                }
-            }
-            if (downlinkMsg.getNotificationTemplateUpdateMsgCount() > 0) {
-                for (NotificationTemplateUpdateMsg notificationTemplateUpdateMsg : downlinkMsg.getNotificationTemplateUpdateMsgList()) {
-                    result.add(notificationCloudProcessor.processNotificationTemplateMsgFromCloud(tenantId, notificationTemplateUpdateMsg));
-                }
-            }
-            if (downlinkMsg.getNotificationTargetUpdateMsgCount() > 0) {
-                for (NotificationTargetUpdateMsg notificationTargetUpdateMsg : downlinkMsg.getNotificationTargetUpdateMsgList()) {
-                    result.add(notificationCloudProcessor.processNotificationTargetMsgFromCloud(tenantId, notificationTargetUpdateMsg));
-                }
-            }
-            if (downlinkMsg.getNotificationRuleUpdateMsgCount() > 0) {
-                for (NotificationRuleUpdateMsg notificationRuleUpdateMsg : downlinkMsg.getNotificationRuleUpdateMsgList()) {
-                    result.add(notificationCloudProcessor.processNotificationRuleMsgFromCloud(tenantId, notificationRuleUpdateMsg));
-                }
-            }
-            if (downlinkMsg.getOAuth2UpdateMsgCount() > 0) {
-                for (OAuth2UpdateMsg oAuth2UpdateMsg : downlinkMsg.getOAuth2UpdateMsgList()) {
-                    result.add(oAuth2CloudProcessor.processOAuth2MsgFromCloud(oAuth2UpdateMsg));
-                }
-            }
-            if (downlinkMsg.getTenantUpdateMsgCount() > 0) {
-                for (TenantUpdateMsg tenantUpdateMsg : downlinkMsg.getTenantUpdateMsgList()) {
-                    result.add(tenantCloudProcessor.processTenantMsgFromCloud(tenantUpdateMsg));
-                }
-            }
-            if (downlinkMsg.getResourceUpdateMsgCount() > 0) {
-                for (ResourceUpdateMsg resourceUpdateMsg : downlinkMsg.getResourceUpdateMsgList()) {
-                    result.add(tbResourceCloudProcessor.processResourceMsgFromCloud(tenantId, resourceUpdateMsg));
-                }
-            }
-            log.trace("Finished processing DownlinkMsg {}", downlinkMsg.getDownlinkMsgId());
+            layers = toLayers(tenantId, edgeCustomerId, downlinkMsg, currentEdgeSettings, queueStartTs);
         } catch (Exception e) {
             log.error("Can't process downlink message [{}]", downlinkMsg, e);
             return Futures.immediateFailedFuture(new RuntimeException("Can't process downlink message", e));
         }
-        return Futures.allAsList(result);
+        // layers order the updates within a single msg only, so the msg is started when the previous one is applied,
+        // e.g. device update and then device delete of the next msg are not applied concurrently
+        synchronized (this) {
+            ListenableFuture<List<Void>> future = Futures.whenAllComplete(lastDownlinkMsgFuture)
+                    .callAsync(() -> executeLayers(layers, downlinkMsg), MoreExecutors.directExecutor());
+            lastDownlinkMsgFuture = future;
+            return future;
+        }
+    }
+
+    private ListenableFuture<List<Void>> executeLayers(List<DownlinkMsgLayer> layers, DownlinkMsg downlinkMsg) {
+        List<ListenableFuture<List<Void>>> layerFutures = new ArrayList<>(layers.size());
+        ListenableFuture<?> previousLayer = Futures.immediateVoidFuture();
+        for (DownlinkMsgLayer layer : layers) {
+            if (layer.isEmpty()) {
+                continue;
+            }
+            // next layer is started only when all updates of the previous one are completed,
+            // a failed update doesn't prevent the next layers from being applied
+            ListenableFuture<List<Void>> layerFuture = Futures.whenAllComplete(previousLayer)
+                    .callAsync(() -> layer.execute(downlinkExecutor), MoreExecutors.directExecutor());
+            layerFutures.add(layerFuture);
+            previousLayer = layerFuture;
+        }
+        return Futures.transform(DownlinkMsgLayer.allCompleteAsList(layerFutures), results -> {
+            log.trace("Finished processing DownlinkMsg {}", downlinkMsg.getDownlinkMsgId());
+            List<Void> processed = new ArrayList<>();
+            results.forEach(processed::addAll);
+            return processed;
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Splits downlink msg into layers of updates, so entities are applied only after the entities they depend on:
+     * tenant and settings, then profiles and owners, then devices, assets and widget types, then entities that refer to them
+     * (e.g. entity views, credentials and widgets bundles), then relations and telemetry.
+     */
+    private List<DownlinkMsgLayer> toLayers(TenantId tenantId,
+                                            CustomerId edgeCustomerId,
+                                            DownlinkMsg downlinkMsg,
+                                            EdgeSettings currentEdgeSettings,
+                                            Long queueStartTs) {
+        DownlinkMsgLayer settingsLayer = new DownlinkMsgLayer("settings");
+        DownlinkMsgLayer profilesLayer = new DownlinkMsgLayer("profiles");
+        DownlinkMsgLayer entitiesLayer = new DownlinkMsgLayer("entities");
+        DownlinkMsgLayer dependentEntitiesLayer = new DownlinkMsgLayer("dependent entities");
+        DownlinkMsgLayer relationsAndTelemetryLayer = new DownlinkMsgLayer("relations and telemetry");
+
+        if (downlinkMsg.hasSyncCompletedMsg()) {
+            settingsLayer.add(null, () -> updateSyncRequiredState(tenantId, edgeCustomerId, currentEdgeSettings, queueStartTs));
+        }
+        if (downlinkMsg.hasEdgeConfiguration()) {
+            settingsLayer.add(null, () -> edgeCloudProcessor.processEdgeConfigurationMsgFromCloud(tenantId, downlinkMsg.getEdgeConfiguration()));
+        }
+        for (TenantUpdateMsg tenantUpdateMsg : downlinkMsg.getTenantUpdateMsgList()) {
+            settingsLayer.add(TenantUpdateMsg.class, () -> tenantCloudProcessor.processTenantMsgFromCloud(tenantUpdateMsg));
+        }
+        for (TenantProfileUpdateMsg tenantProfileUpdateMsg : downlinkMsg.getTenantProfileUpdateMsgList()) {
+            settingsLayer.add(TenantProfileUpdateMsg.class, () -> tenantProfileCloudProcessor.processTenantProfileMsgFromCloud(tenantId, tenantProfileUpdateMsg));
+        }
+        for (QueueUpdateMsg queueUpdateMsg : downlinkMsg.getQueueUpdateMsgList()) {
+            settingsLayer.add(QueueUpdateMsg.class, () -> queueCloudProcessor.processQueueMsgFromCloud(tenantId, queueUpdateMsg));
+        }
+        for (AdminSettingsUpdateMsg adminSettingsUpdateMsg : downlinkMsg.getAdminSettingsUpdateMsgList()) {
+            settingsLayer.add(AdminSettingsUpdateMsg.class, () -> adminSettingsProcessor.processAdminSettingsMsgFromCloud(tenantId, adminSettingsUpdateMsg));
+        }
+        for (OAuth2UpdateMsg oAuth2UpdateMsg : downlinkMsg.getOAuth2UpdateMsgList()) {
+            settingsLayer.add(OAuth2UpdateMsg.class, () -> oAuth2CloudProcessor.processOAuth2MsgFromCloud(oAuth2UpdateMsg));
+        }
+        for (NotificationTemplateUpdateMsg notificationTemplateUpdateMsg : downlinkMsg.getNotificationTemplateUpdateMsgList()) {
+            settingsLayer.add(null, () -> notificationCloudProcessor.processNotificationTemplateMsgFromCloud(tenantId, notificationTemplateUpdateMsg));
+        }
+        for (NotificationTargetUpdateMsg notificationTargetUpdateMsg : downlinkMsg.getNotificationTargetUpdateMsgList()) {
+            settingsLayer.add(null, () -> notificationCloudProcessor.processNotificationTargetMsgFromCloud(tenantId, notificationTargetUpdateMsg));
+        }
+
+        for (CustomerUpdateMsg customerUpdateMsg : downlinkMsg.getCustomerUpdateMsgList()) {
+            profilesLayer.add(DownlinkMsgLayer.entityKey(customerUpdateMsg.getIdMSB(), customerUpdateMsg.getIdLSB(), CustomerUpdateMsg.class), () -> {
+                sequenceDependencyLock.lock();
+                try {
+                    return customerProcessor.processCustomerMsgFromCloud(tenantId, customerUpdateMsg, queueStartTs);
+                } finally {
+                    sequenceDependencyLock.unlock();
+                }
+            });
+        }
+        for (DeviceProfileUpdateMsg deviceProfileUpdateMsg : downlinkMsg.getDeviceProfileUpdateMsgList()) {
+            profilesLayer.add(DeviceProfileUpdateMsg.class, () -> deviceProfileProcessor.processDeviceProfileMsgFromCloud(tenantId, deviceProfileUpdateMsg));
+        }
+        for (AssetProfileUpdateMsg assetProfileUpdateMsg : downlinkMsg.getAssetProfileUpdateMsgList()) {
+            profilesLayer.add(AssetProfileUpdateMsg.class, () -> assetProfileProcessor.processAssetProfileMsgFromCloud(tenantId, assetProfileUpdateMsg));
+        }
+        for (RuleChainUpdateMsg ruleChainUpdateMsg : downlinkMsg.getRuleChainUpdateMsgList()) {
+            profilesLayer.add(RuleChainUpdateMsg.class, () -> ruleChainProcessor.processRuleChainMsgFromCloud(tenantId, ruleChainUpdateMsg, queueStartTs));
+        }
+        for (ResourceUpdateMsg resourceUpdateMsg : downlinkMsg.getResourceUpdateMsgList()) {
+            profilesLayer.add(null, () -> tbResourceCloudProcessor.processResourceMsgFromCloud(tenantId, resourceUpdateMsg));
+        }
+
+        for (DeviceUpdateMsg deviceUpdateMsg : downlinkMsg.getDeviceUpdateMsgList()) {
+            entitiesLayer.add(DownlinkMsgLayer.entityKey(deviceUpdateMsg.getIdMSB(), deviceUpdateMsg.getIdLSB(), DeviceUpdateMsg.class),
+                    () -> deviceProcessor.processDeviceMsgFromCloud(tenantId, deviceUpdateMsg, queueStartTs));
+        }
+        for (AssetUpdateMsg assetUpdateMsg : downlinkMsg.getAssetUpdateMsgList()) {
+            entitiesLayer.add(DownlinkMsgLayer.entityKey(assetUpdateMsg.getIdMSB(), assetUpdateMsg.getIdLSB(), AssetUpdateMsg.class),
+                    () -> assetProcessor.processAssetMsgFromCloud(tenantId, assetUpdateMsg, queueStartTs));
+        }
+        for (OtaPackageUpdateMsg otaPackageUpdateMsg : downlinkMsg.getOtaPackageUpdateMsgList()) {
+            entitiesLayer.add(OtaPackageUpdateMsg.class, () -> otaPackageProcessor.processOtaPackageMsgFromCloud(tenantId, otaPackageUpdateMsg));
+        }
+        for (RuleChainMetadataUpdateMsg ruleChainMetadataUpdateMsg : downlinkMsg.getRuleChainMetadataUpdateMsgList()) {
+            entitiesLayer.add(DownlinkMsgLayer.entityKey(ruleChainMetadataUpdateMsg.getRuleChainIdMSB(), ruleChainMetadataUpdateMsg.getRuleChainIdLSB(), RuleChainMetadataUpdateMsg.class),
+                    () -> ruleChainProcessor.processRuleChainMetadataMsgFromCloud(tenantId, ruleChainMetadataUpdateMsg));
+        }
+        for (WidgetTypeUpdateMsg widgetTypeUpdateMsg : downlinkMsg.getWidgetTypeUpdateMsgList()) {
+            entitiesLayer.add(WidgetTypeUpdateMsg.class, () -> widgetTypeProcessor.processWidgetTypeMsgFromCloud(tenantId, widgetTypeUpdateMsg));
+        }
+        for (DashboardUpdateMsg dashboardUpdateMsg : downlinkMsg.getDashboardUpdateMsgList()) {
+            entitiesLayer.add(DownlinkMsgLayer.entityKey(dashboardUpdateMsg.getIdMSB(), dashboardUpdateMsg.getIdLSB(), DashboardUpdateMsg.class),
+                    () -> dashboardProcessor.processDashboardMsgFromCloud(tenantId, dashboardUpdateMsg, edgeCustomerId, queueStartTs));
+        }
+        for (UserUpdateMsg userUpdateMsg : downlinkMsg.getUserUpdateMsgList()) {
+            entitiesLayer.add(DownlinkMsgLayer.entityKey(userUpdateMsg.getIdMSB(), userUpdateMsg.getIdLSB(), UserUpdateMsg.class), () -> {
+                sequenceDependencyLock.lock();
+                try {
+                    return userProcessor.processUserMsgFromCloud(tenantId, userUpdateMsg, queueStartTs);
+                } finally {
+                    sequenceDependencyLock.unlock();
+                }
+            });
+        }
+        for (NotificationRuleUpdateMsg notificationRuleUpdateMsg : downlinkMsg.getNotificationRuleUpdateMsgList()) {
+            entitiesLayer.add(null, () -> notificationCloudProcessor.processNotificationRuleMsgFromCloud(tenantId, notificationRuleUpdateMsg));
+        }
+
+        for (EntityViewUpdateMsg entityViewUpdateMsg : downlinkMsg.getEntityViewUpdateMsgList()) {
+            dependentEntitiesLayer.add(DownlinkMsgLayer.entityKey(entityViewUpdateMsg.getIdMSB(), entityViewUpdateMsg.getIdLSB(), EntityViewUpdateMsg.class),
+                    () -> entityViewProcessor.processEntityViewMsgFromCloud(tenantId, entityViewUpdateMsg, queueStartTs));
+        }
+        for (DeviceCredentialsUpdateMsg deviceCredentialsUpdateMsg : downlinkMsg.getDeviceCredentialsUpdateMsgList()) {
+            dependentEntitiesLayer.add(DownlinkMsgLayer.entityKey(deviceCredentialsUpdateMsg.getDeviceIdMSB(), deviceCredentialsUpdateMsg.getDeviceIdLSB(), DeviceCredentialsUpdateMsg.class),
+                    () -> deviceProcessor.processDeviceCredentialsMsgFromCloud(tenantId, deviceCredentialsUpdateMsg));
+        }
+        for (DeviceCredentialsRequestMsg deviceCredentialsRequestMsg : downlinkMsg.getDeviceCredentialsRequestMsgList()) {
+            dependentEntitiesLayer.add(DownlinkMsgLayer.entityKey(deviceCredentialsRequestMsg.getDeviceIdMSB(), deviceCredentialsRequestMsg.getDeviceIdLSB(), DeviceCredentialsRequestMsg.class),
+                    () -> processDeviceCredentialsRequestMsg(tenantId, deviceCredentialsRequestMsg));
+        }
+        for (UserCredentialsUpdateMsg userCredentialsUpdateMsg : downlinkMsg.getUserCredentialsUpdateMsgList()) {
+            dependentEntitiesLayer.add(DownlinkMsgLayer.entityKey(userCredentialsUpdateMsg.getUserIdMSB(), userCredentialsUpdateMsg.getUserIdLSB(), UserCredentialsUpdateMsg.class),
+                    () -> userProcessor.processUserCredentialsMsgFromCloud(tenantId, userCredentialsUpdateMsg));
+        }
+        for (WidgetsBundleUpdateMsg widgetsBundleUpdateMsg : downlinkMsg.getWidgetsBundleUpdateMsgList()) {
+            dependentEntitiesLayer.add(WidgetsBundleUpdateMsg.class, () -> widgetsBundleProcessor.processWidgetsBundleMsgFromCloud(tenantId, widgetsBundleUpdateMsg));
+        }
+        for (AlarmUpdateMsg alarmUpdateMsg : downlinkMsg.getAlarmUpdateMsgList()) {
+            dependentEntitiesLayer.add(DownlinkMsgLayer.entityKey(alarmUpdateMsg.getIdMSB(), alarmUpdateMsg.getIdLSB(), AlarmUpdateMsg.class),
+                    () -> alarmProcessor.processAlarmMsgFromCloud(tenantId, alarmUpdateMsg));
+        }
+
+        for (RelationUpdateMsg relationUpdateMsg : downlinkMsg.getRelationUpdateMsgList()) {
+            relationsAndTelemetryLayer.add(null, () -> relationProcessor.processRelationMsgFromCloud(tenantId, relationUpdateMsg));
+        }
+        for (AlarmCommentUpdateMsg alarmCommentUpdateMsg : downlinkMsg.getAlarmCommentUpdateMsgList()) {
+            relationsAndTelemetryLayer.add(AlarmCommentUpdateMsg.class, () -> alarmProcessor.processAlarmCommentMsgFromCloud(tenantId, alarmCommentUpdateMsg));
+        }
+        for (EntityDataProto entityData : downlinkMsg.getEntityDataList()) {
+            relationsAndTelemetryLayer.addAll(DownlinkMsgLayer.entityKey(entityData.getEntityIdMSB(), entityData.getEntityIdLSB(), EntityDataProto.class),
+                    () -> telemetryProcessor.processTelemetryMsg(tenantId, entityData));
+        }
+        for (DeviceRpcCallMsg deviceRpcRequestMsg : downlinkMsg.getDeviceRpcCallMsgList()) {
+            relationsAndTelemetryLayer.add(DownlinkMsgLayer.entityKey(deviceRpcRequestMsg.getDeviceIdMSB(), deviceRpcRequestMsg.getDeviceIdLSB(), DeviceRpcCallMsg.class),
+                    () -> deviceProcessor.processDeviceRpcCallFromCloud(tenantId, deviceRpcRequestMsg));
+        }
+        return List.of(settingsLayer, profilesLayer, entitiesLayer, dependentEntitiesLayer, relationsAndTelemetryLayer);
     }
 
     private ListenableFuture<Void> updateSyncRequiredState(TenantId tenantId, CustomerId customerId, EdgeSettings currentEdgeSettings, Long queueStartTs) {
@@ -0,0 +1,127 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.cloud;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Updates of a single dependency layer of the downlink msg, e.g. all profiles or all devices.
+ * Updates of different entities are applied concurrently, updates of the same entity are applied in the original order.
+ */
+@Slf4j
+class DownlinkMsgLayer {
+
+    private final String name;
+    private final Map<Object, List<Supplier<List<ListenableFuture<Void>>>>> groups = new LinkedHashMap<>();
+
+    DownlinkMsgLayer(String name) {
+        this.name = name;
+    }
+
+    void add(Object key, Supplier<ListenableFuture<Void>> update) {
+        addAll(key, () -> Collections.singletonList(update.get()));
+    }
+
+    void addAll(Object key, Supplier<List<ListenableFuture<Void>>> updates) {
+        groups.computeIfAbsent(key != null ? key : new Object(), k -> new ArrayList<>()).add(updates);
+    }
+
+    boolean isEmpty() {
+        return groups.isEmpty();
+    }
+
+    /**
+     * @return future that completes when all updates of the layer are applied or failed,
+     * the future fails if at least one update failed
+     */
+    ListenableFuture<List<Void>> execute(ListeningExecutorService executor) {
+        log.trace("[{}] Applying [{}] group(s) of updates", name, groups.size());
+        List<ListenableFuture<List<Void>>> groupFutures = new ArrayList<>(groups.size());
+        for (List<Supplier<List<ListenableFuture<Void>>>> group : groups.values()) {
+            groupFutures.add(Futures.submitAsync(() -> allCompleteAsList(apply(group)), executor));
+        }
+        return Futures.transform(allCompleteAsList(groupFutures), results -> {
+            List<Void> result = new ArrayList<>();
+            results.forEach(result::addAll);
+            return result;
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Unlike {@link Futures#allAsList}, waits for all the futures even if some of them fail.
+     * The first error is rethrown and the others are added to it as suppressed, so a single failed update doesn't hide the rest.
+     */
+    static <T> ListenableFuture<List<T>> allCompleteAsList(List<ListenableFuture<T>> futures) {
+        return Futures.whenAllComplete(futures).call(() -> {
+            List<T> result = new ArrayList<>(futures.size());
+            Throwable error = null;
+            for (ListenableFuture<T> future : futures) {
+                try {
+                    result.add(Futures.getDone(future));
+                } catch (ExecutionException | CancellationException e) {
+                    Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                    if (error == null) {
+                        error = cause;
+                    } else if (error != cause) {
+                        error.addSuppressed(cause);
+                    }
+                }
+            }
+            if (error instanceof Exception exception) {
+                throw exception;
+            } else if (error != null) {
+                throw new RuntimeException(error);
+            }
+            return result;
+        }, MoreExecutors.directExecutor());
+    }
+
+    private List<ListenableFuture<Void>> apply(List<Supplier<List<ListenableFuture<Void>>>> group) {
+        List<ListenableFuture<Void>> result = new ArrayList<>();
+        for (Supplier<List<ListenableFuture<Void>>> updates : group) {
+            try {
+                result.addAll(updates.get());
+            } catch (Exception e) {
+                log.error("[{}] Failed to apply downlink update", name, e);
+                result.add(Futures.immediateFailedFuture(e));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns id of the updated entity or {@code fallbackKey} if msg doesn't carry the id,
+     * so updates without id are applied one by one.
+     */
+    static Object entityKey(long idMSB, long idLSB, Object fallbackKey) {
+        return idMSB == 0 && idLSB == 0 ? fallbackKey : new UUID(idMSB, idLSB);
+    }
+
+}
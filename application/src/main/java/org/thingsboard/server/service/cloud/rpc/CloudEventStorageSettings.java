@@ -29,4 +29,10 @@ public class CloudEventStorageSettings {
     private long noRecordsSleepInterval;
     @Value("${cloud.rpc.storage.sleep_between_batches}")
     private long sleepIntervalBetweenBatches;
+    @Value("${cloud.rpc.storage.max_in_flight_packs:4}")
+    private int maxInFlightPacks;
+    @Value("${cloud.rpc.storage.max_backoff:60000}")
+    private long maxBackoffMs;
+    @Value("${cloud.rpc.storage.rate_limit_backoff:5000}")
+    private long rateLimitBackoffMs;
 }
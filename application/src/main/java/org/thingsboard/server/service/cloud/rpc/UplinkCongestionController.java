@@ -0,0 +1,168 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.cloud.rpc;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.thingsboard.server.common.stats.DefaultCounter;
+import org.thingsboard.server.common.stats.StatsFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AIMD controller of the uplink flow.
+ * Window of in-flight packs grows by one pack per window of acknowledged packs (doubles while below the slow start threshold)
+ * and is halved on delivery failure. Growth is paused while ack latency is more than twice the best observed one.
+ * Rate limit rejections collapse the window to a single pack and turn on pacing between packs, which decays on every ack.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UplinkCongestionController {
+
+    private static final String STATS_KEY = "cloudUplink";
+    private static final double RTT_ALPHA = 0.125;
+    private static final double BACKOFF_JITTER = 0.2;
+    private static final long MIN_PACING_DELAY_MS = 10;
+
+    private final CloudEventStorageSettings settings;
+    private final StatsFactory statsFactory;
+
+    private double window = 1;
+    private double slowStartThreshold;
+    private double srttMs;
+    private long minRttMs;
+    private long pacingDelayMs;
+    private int consecutiveFailures;
+    private int consecutiveRateLimits;
+
+    private AtomicLong windowGauge;
+    private AtomicLong srttGauge;
+    private AtomicLong pacingDelayGauge;
+    private DefaultCounter ackedPacksCounter;
+    private DefaultCounter failedPacksCounter;
+    private DefaultCounter rateLimitedPacksCounter;
+    private DefaultCounter droppedMsgsCounter;
+
+    @PostConstruct
+    public void init() {
+        slowStartThreshold = getMaxWindow();
+        windowGauge = statsFactory.createGauge(STATS_KEY + ".window", new AtomicLong(1));
+        srttGauge = statsFactory.createGauge(STATS_KEY + ".srttMs", new AtomicLong());
+        pacingDelayGauge = statsFactory.createGauge(STATS_KEY + ".pacingDelayMs", new AtomicLong());
+        ackedPacksCounter = statsFactory.createDefaultCounter(STATS_KEY + ".packs", "result", "acked");
+        failedPacksCounter = statsFactory.createDefaultCounter(STATS_KEY + ".packs", "result", "failed");
+        rateLimitedPacksCounter = statsFactory.createDefaultCounter(STATS_KEY + ".packs", "result", "rateLimited");
+        droppedMsgsCounter = statsFactory.createDefaultCounter(STATS_KEY + ".droppedMsgs");
+    }
+
+    /**
+     * @return number of packs that may be in flight at the moment
+     */
+    public synchronized int getWindow() {
+        return (int) Math.min(window, getMaxWindow());
+    }
+
+    /**
+     * @return delay to keep before sending the next pack, 0 unless the cloud reported rate limit recently
+     */
+    public synchronized long getPacingDelayMs() {
+        return pacingDelayMs;
+    }
+
+    public synchronized void onAck(long rttMs) {
+        ackedPacksCounter.increment();
+        consecutiveFailures = 0;
+        consecutiveRateLimits = 0;
+        rttMs = Math.max(rttMs, 1);
+        srttMs = srttMs == 0 ? rttMs : (1 - RTT_ALPHA) * srttMs + RTT_ALPHA * rttMs;
+        minRttMs = minRttMs == 0 ? rttMs : Math.min(minRttMs, rttMs);
+        if (srttMs <= 2 * minRttMs) {
+            window = window < slowStartThreshold ? window + 1 : window + 1 / window;
+            window = Math.min(window, getMaxWindow());
+        }
+        pacingDelayMs = pacingDelayMs / 2 < MIN_PACING_DELAY_MS ? 0 : pacingDelayMs / 2;
+        updateGauges();
+    }
+
+    /**
+     * Called when the head pack was not acknowledged in time or was rejected by the cloud.
+     *
+     * @return delay before the pack is resent
+     */
+    public synchronized long onFailure() {
+        failedPacksCounter.increment();
+        consecutiveFailures++;
+        slowStartThreshold = Math.max(window / 2, 1);
+        window = slowStartThreshold;
+        updateGauges();
+        return backoff(settings.getSleepIntervalBetweenBatches(), consecutiveFailures);
+    }
+
+    /**
+     * Called when the cloud rejected the head pack due to rate limits.
+     *
+     * @return delay before the pack is resent
+     */
+    public synchronized long onRateLimit() {
+        rateLimitedPacksCounter.increment();
+        consecutiveRateLimits++;
+        slowStartThreshold = Math.max(window / 2, 1);
+        window = 1;
+        pacingDelayMs = Math.min(Math.max(pacingDelayMs * 2, settings.getSleepIntervalBetweenBatches()), settings.getMaxBackoffMs());
+        updateGauges();
+        return backoff(settings.getRateLimitBackoffMs(), consecutiveRateLimits);
+    }
+
+    public void onDrop(int msgsCount) {
+        droppedMsgsCounter.add(msgsCount);
+    }
+
+    /**
+     * Resets window and latency estimation, e.g. after reconnect to another cloud node.
+     */
+    public synchronized void reset() {
+        window = 1;
+        slowStartThreshold = getMaxWindow();
+        srttMs = 0;
+        minRttMs = 0;
+        pacingDelayMs = 0;
+        consecutiveFailures = 0;
+        consecutiveRateLimits = 0;
+        updateGauges();
+    }
+
+    private long backoff(long baseMs, int attempt) {
+        long delay = baseMs << Math.min(attempt - 1, 16);
+        delay = Math.min(Math.max(delay, 0), settings.getMaxBackoffMs());
+        double jitter = 1 + ThreadLocalRandom.current().nextDouble(-BACKOFF_JITTER, BACKOFF_JITTER);
+        return (long) (delay * jitter);
+    }
+
+    private int getMaxWindow() {
+        return Math.max(1, settings.getMaxInFlightPacks());
+    }
+
+    private void updateGauges() {
+        windowGauge.set(getWindow());
+        srttGauge.set((long) srttMs);
+        pacingDelayGauge.set(pacingDelayMs);
+    }
+
+}
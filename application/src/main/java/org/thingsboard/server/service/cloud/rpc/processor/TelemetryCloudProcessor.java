@@ -15,6 +15,8 @@
  */
 package org.thingsboard.server.service.cloud.rpc.processor;
 
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.thingsboard.server.common.data.DataConstants;
@@ -41,18 +43,68 @@ public class TelemetryCloudProcessor extends BaseTelemetryProcessor {
         return DataConstants.CLOUD_MSG_SOURCE;
     }
 
-    public UplinkMsg convertTelemetryEventToUplink(TenantId tenantId, CloudEvent cloudEvent) {
+    public UplinkMsg convertTelemetryEventToUplink(TenantId tenantId, CloudEvent cloudEvent) throws InvalidProtocolBufferException {
         log.trace("Executing convertTelemetryEventToUplink, cloudEvent [{}]", cloudEvent);
-        EntityType entityType = EntityType.valueOf(cloudEvent.getType().name());
-        EntityDataProto entityDataProto = convertTelemetryEventToEntityDataProto(
-                tenantId, entityType, cloudEvent.getEntityId(),
-                cloudEvent.getAction(), cloudEvent.getEntityBody());
+        EntityDataProto entityDataProto = convertTelemetryEventToEntityDataProto(tenantId, cloudEvent);
         return UplinkMsg.newBuilder()
                 .setUplinkMsgId(EdgeUtils.nextPositiveInt())
                 .addEntityData(entityDataProto)
                 .build();
     }
 
+    /**
+     * Packs consecutive telemetry events into as few uplink messages as possible.
+     * Serialized size of every message is kept below {@code maxUplinkMsgSize} (no limit if 0).
+     */
+    public List<UplinkMsg> convertTelemetryEventsToUplinkMsgs(TenantId tenantId, List<CloudEvent> cloudEvents, int maxUplinkMsgSize) {
+        List<UplinkMsg> result = new ArrayList<>();
+        UplinkMsg.Builder builder = null;
+        int builderSize = 0;
+        for (CloudEvent cloudEvent : cloudEvents) {
+            log.trace("Executing convertTelemetryEventsToUplinkMsgs, cloudEvent [{}]", cloudEvent);
+            EntityDataProto entityDataProto;
+            try {
+                entityDataProto = convertTelemetryEventToEntityDataProto(tenantId, cloudEvent);
+            } catch (Exception e) {
+                log.error("Exception during converting events from queue, skipping event [{}]", cloudEvent, e);
+                continue;
+            }
+            int entityDataSize = CodedOutputStream.computeMessageSize(UplinkMsg.ENTITYDATA_FIELD_NUMBER, entityDataProto);
+            if (builder != null && maxUplinkMsgSize > 0 && builderSize + entityDataSize > maxUplinkMsgSize) {
+                result.add(builder.build());
+                builder = null;
+            }
+            if (builder == null) {
+                builder = UplinkMsg.newBuilder().setUplinkMsgId(EdgeUtils.nextPositiveInt());
+                builderSize = builder.build().getSerializedSize();
+            }
+            builder.addEntityData(entityDataProto);
+            builderSize += entityDataSize;
+        }
+        if (builder != null) {
+            result.add(builder.build());
+        }
+        return result;
+    }
+
+    /**
+     * Events stored with a pre-encoded entity body are merged into {@link EntityDataProto} as is,
+     * events stored with a json entity body are converted field by field.
+     */
+    private EntityDataProto convertTelemetryEventToEntityDataProto(TenantId tenantId, CloudEvent cloudEvent) throws InvalidProtocolBufferException {
+        EntityType entityType = EntityType.valueOf(cloudEvent.getType().name());
+        if (cloudEvent.getEntityBodyProto() == null) {
+            return convertTelemetryEventToEntityDataProto(tenantId, entityType, cloudEvent.getEntityId(),
+                    cloudEvent.getAction(), cloudEvent.getEntityBody());
+        }
+        return EntityDataProto.newBuilder()
+                .setEntityIdMSB(cloudEvent.getEntityId().getMostSignificantBits())
+                .setEntityIdLSB(cloudEvent.getEntityId().getLeastSignificantBits())
+                .setEntityType(entityType.name())
+                .mergeFrom(cloudEvent.getEntityBodyProto())
+                .build();
+    }
+
     public UplinkMsg convertAttributesRequestEventToUplink(CloudEvent cloudEvent) {
         log.trace("Executing convertAttributesRequestEventToUplink, cloudEvent [{}]", cloudEvent);
         EntityId entityId = EntityIdFactory.getByCloudEventTypeAndUuid(cloudEvent.getType(), cloudEvent.getEntityId());
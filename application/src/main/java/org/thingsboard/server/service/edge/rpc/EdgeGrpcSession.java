@@ -28,6 +28,7 @@ import org.springframework.data.util.Pair;
 import org.thingsboard.server.common.data.AttributeScope;
 import org.thingsboard.server.common.data.DataConstants;
 import org.thingsboard.server.common.data.EdgeUtils;
+import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.edge.Edge;
 import org.thingsboard.server.common.data.edge.EdgeEvent;
 import org.thingsboard.server.common.data.id.EdgeId;
@@ -94,6 +95,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ScheduledExecutorService;
@@ -178,7 +180,7 @@ public final class EdgeGrpcSession implements Closeable {
                             if (requestMsg.getSyncRequestMsg().hasFullSync()) {
                                 fullSync = requestMsg.getSyncRequestMsg().getFullSync();
                             }
-                            startSyncProcess(fullSync);
+                            startSyncProcess(fullSync, EntitySyncDigest.fromProtos(requestMsg.getSyncRequestMsg().getEntityDigestsList()));
                         } else {
                             syncCompleted = true;
                         }
@@ -223,10 +225,14 @@ public final class EdgeGrpcSession implements Closeable {
     }
 
     public void startSyncProcess(boolean fullSync) {
-        log.trace("[{}][{}][{}] Staring edge sync process", this.tenantId, edge.getId(), this.sessionId);
+        startSyncProcess(fullSync, Collections.emptyMap());
+    }
+
+    public void startSyncProcess(boolean fullSync, Map<EntityType, EntitySyncDigest> edgeDigests) {
+        log.trace("[{}][{}][{}] Staring edge sync process, edge digests {}", this.tenantId, edge.getId(), this.sessionId, edgeDigests.keySet());
         syncCompleted = false;
         interruptGeneralProcessingOnSync();
-        doSync(new EdgeSyncCursor(ctx, edge, fullSync));
+        doSync(new EdgeSyncCursor(ctx, edge, fullSync, edgeDigests));
     }
 
     private void doSync(EdgeSyncCursor cursor) {
@@ -16,12 +16,14 @@
 package org.thingsboard.server.service.edge.rpc;
 
 import org.thingsboard.server.common.data.Customer;
+import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.edge.Edge;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.service.edge.EdgeContextComponent;
 import org.thingsboard.server.service.edge.rpc.fetch.AdminSettingsEdgeEventFetcher;
 import org.thingsboard.server.service.edge.rpc.fetch.AssetProfilesEdgeEventFetcher;
 import org.thingsboard.server.service.edge.rpc.fetch.AssetsEdgeEventFetcher;
+import org.thingsboard.server.service.edge.rpc.fetch.BasePageableEdgeEventFetcher;
 import org.thingsboard.server.service.edge.rpc.fetch.CustomerEdgeEventFetcher;
 import org.thingsboard.server.service.edge.rpc.fetch.CustomerUsersEdgeEventFetcher;
 import org.thingsboard.server.service.edge.rpc.fetch.DashboardsEdgeEventFetcher;
@@ -45,17 +47,30 @@ import org.thingsboard.server.service.edge.rpc.fetch.TenantResourcesEdgeEventFet
 import org.thingsboard.server.service.edge.rpc.fetch.TenantWidgetTypesEdgeEventFetcher;
 import org.thingsboard.server.service.edge.rpc.fetch.TenantWidgetsBundlesEdgeEventFetcher;
 
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 public class EdgeSyncCursor {
 
+    private static final int DIGEST_PAGE_SIZE = 1000;
+
     private final List<EdgeEventFetcher> fetchers = new LinkedList<>();
 
     private int currentIdx = 0;
 
     public EdgeSyncCursor(EdgeContextComponent ctx, Edge edge, boolean fullSync) {
+        this(ctx, edge, fullSync, Collections.emptyMap());
+    }
+
+    /**
+     * @param edgeDigests digests of entities stored on the edge. Used only if full sync is not requested:
+     *                    entities of these types are synced only if they differ from the edge ones
+     */
+    public EdgeSyncCursor(EdgeContextComponent ctx, Edge edge, boolean fullSync, Map<EntityType, EntitySyncDigest> edgeDigests) {
+        Map<EntityType, EntitySyncDigest> digests = fullSync ? Collections.emptyMap() : edgeDigests;
         if (fullSync) {
             fetchers.add(new TenantEdgeEventFetcher(ctx.getTenantService()));
             fetchers.add(new QueuesEdgeEventFetcher(ctx.getQueueService()));
@@ -69,13 +84,16 @@ public class EdgeSyncCursor {
                 fetchers.add(new CustomerUsersEdgeEventFetcher(ctx.getUserService(), edge.getCustomerId()));
             }
         }
-        fetchers.add(new DashboardsEdgeEventFetcher(ctx.getDashboardService()));
+        if (digests.containsKey(EntityType.RULE_CHAIN)) {
+            addFetcher(edge, new RuleChainsEdgeEventFetcher(ctx.getRuleChainService()), EntityType.RULE_CHAIN, digests);
+        }
+        addFetcher(edge, new DashboardsEdgeEventFetcher(ctx.getDashboardService()), EntityType.DASHBOARD, digests);
         fetchers.add(new DefaultProfilesEdgeEventFetcher(ctx.getDeviceProfileService(), ctx.getAssetProfileService()));
-        fetchers.add(new DeviceProfilesEdgeEventFetcher(ctx.getDeviceProfileService()));
-        fetchers.add(new AssetProfilesEdgeEventFetcher(ctx.getAssetProfileService()));
-        fetchers.add(new DevicesEdgeEventFetcher(ctx.getDeviceService()));
-        fetchers.add(new AssetsEdgeEventFetcher(ctx.getAssetService()));
-        fetchers.add(new EntityViewsEdgeEventFetcher(ctx.getEntityViewService()));
+        addFetcher(edge, new DeviceProfilesEdgeEventFetcher(ctx.getDeviceProfileService()), EntityType.DEVICE_PROFILE, digests);
+        addFetcher(edge, new AssetProfilesEdgeEventFetcher(ctx.getAssetProfileService()), EntityType.ASSET_PROFILE, digests);
+        addFetcher(edge, new DevicesEdgeEventFetcher(ctx.getDeviceService()), EntityType.DEVICE, digests);
+        addFetcher(edge, new AssetsEdgeEventFetcher(ctx.getAssetService()), EntityType.ASSET, digests);
+        addFetcher(edge, new EntityViewsEdgeEventFetcher(ctx.getEntityViewService()), EntityType.ENTITY_VIEW, digests);
         if (fullSync) {
             fetchers.add(new NotificationTemplateEdgeEventFetcher(ctx.getNotificationTemplateService()));
             fetchers.add(new NotificationTargetEdgeEventFetcher(ctx.getNotificationTargetService()));
@@ -90,6 +108,14 @@ public class EdgeSyncCursor {
         }
     }
 
+    private void addFetcher(Edge edge, BasePageableEdgeEventFetcher<?> fetcher, EntityType entityType, Map<EntityType, EntitySyncDigest> digests) {
+        EntitySyncDigest edgeDigest = digests.get(entityType);
+        if (edgeDigest != null && !fetcher.applyEdgeDigest(edge.getTenantId(), edge, entityType, edgeDigest, DIGEST_PAGE_SIZE)) {
+            return;
+        }
+        fetchers.add(fetcher);
+    }
+
     public boolean hasNext() {
         return fetchers.size() > currentIdx;
     }
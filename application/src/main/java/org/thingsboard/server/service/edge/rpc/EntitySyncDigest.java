@@ -0,0 +1,133 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.edge.rpc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.hash.Hashing;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.gen.edge.v1.EntityTypeDigestProto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Digest of entities of a single type that is used to sync only entities that differ between the edge and the cloud.
+ * Entities are split into buckets by id. Bucket hash is a sum of content hashes of its entities,
+ * so it is updated incrementally when entity is saved or deleted.
+ */
+public class EntitySyncDigest {
+
+    public static final int BUCKETS_COUNT = 64;
+
+    public static final List<EntityType> SUPPORTED_ENTITY_TYPES = List.of(EntityType.DEVICE_PROFILE, EntityType.ASSET_PROFILE,
+            EntityType.DEVICE, EntityType.ASSET, EntityType.ENTITY_VIEW, EntityType.DASHBOARD, EntityType.RULE_CHAIN);
+
+    // fields that are expected to differ between the edge and the cloud copy of the entity
+    private static final List<String> IGNORED_FIELDS = List.of("externalId", "version");
+    private static final Map<EntityType, List<String>> IGNORED_FIELDS_BY_TYPE = Map.of(
+            EntityType.DEVICE_PROFILE, List.of("defaultRuleChainId", "defaultEdgeRuleChainId"),
+            EntityType.ASSET_PROFILE, List.of("defaultRuleChainId", "defaultEdgeRuleChainId"),
+            EntityType.RULE_CHAIN, List.of("type", "root"));
+
+    private final long[] bucketHashes = new long[BUCKETS_COUNT];
+    private final int[] bucketCounts = new int[BUCKETS_COUNT];
+
+    public synchronized void add(UUID id, long hash) {
+        int bucket = bucket(id);
+        bucketHashes[bucket] += hash;
+        bucketCounts[bucket]++;
+    }
+
+    public synchronized void remove(UUID id, long hash) {
+        int bucket = bucket(id);
+        bucketHashes[bucket] -= hash;
+        bucketCounts[bucket]--;
+    }
+
+    /**
+     * @return buckets that contain different entities
+     */
+    public synchronized Set<Integer> diff(EntitySyncDigest other) {
+        Set<Integer> result = new HashSet<>();
+        synchronized (other) {
+            for (int i = 0; i < BUCKETS_COUNT; i++) {
+                if (bucketHashes[i] != other.bucketHashes[i] || bucketCounts[i] != other.bucketCounts[i]) {
+                    result.add(i);
+                }
+            }
+        }
+        return result;
+    }
+
+    public synchronized EntityTypeDigestProto toProto(EntityType entityType) {
+        EntityTypeDigestProto.Builder builder = EntityTypeDigestProto.newBuilder().setEntityType(entityType.name());
+        for (int i = 0; i < BUCKETS_COUNT; i++) {
+            builder.addBucketHashes(bucketHashes[i]);
+            builder.addBucketCounts(bucketCounts[i]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Digests with unknown entity type or unexpected number of buckets are skipped, entities of such types are synced as usual.
+     */
+    public static Map<EntityType, EntitySyncDigest> fromProtos(List<EntityTypeDigestProto> protos) {
+        Map<EntityType, EntitySyncDigest> result = new EnumMap<>(EntityType.class);
+        for (EntityTypeDigestProto proto : protos) {
+            EntityType entityType;
+            try {
+                entityType = EntityType.valueOf(proto.getEntityType());
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            if (!SUPPORTED_ENTITY_TYPES.contains(entityType)
+                    || proto.getBucketHashesCount() != BUCKETS_COUNT || proto.getBucketCountsCount() != BUCKETS_COUNT) {
+                continue;
+            }
+            EntitySyncDigest digest = new EntitySyncDigest();
+            for (int i = 0; i < BUCKETS_COUNT; i++) {
+                digest.bucketHashes[i] = proto.getBucketHashes(i);
+                digest.bucketCounts[i] = proto.getBucketCounts(i);
+            }
+            result.put(entityType, digest);
+        }
+        return result;
+    }
+
+    public static int bucket(UUID id) {
+        return (int) Math.floorMod(id.getMostSignificantBits() ^ id.getLeastSignificantBits(), (long) BUCKETS_COUNT);
+    }
+
+    /**
+     * Hash of the entity content. Dashboards are expected to be hashed with configuration, not as dashboard infos.
+     */
+    public static long hash(EntityType entityType, Object entity) {
+        JsonNode node = JacksonUtil.valueToTree(entity);
+        if (node instanceof ObjectNode objectNode) {
+            objectNode.remove(IGNORED_FIELDS);
+            objectNode.remove(IGNORED_FIELDS_BY_TYPE.getOrDefault(entityType, List.of()));
+        }
+        return Hashing.murmur3_128().hashString(JacksonUtil.toString(node), StandardCharsets.UTF_8).asLong();
+    }
+
+}
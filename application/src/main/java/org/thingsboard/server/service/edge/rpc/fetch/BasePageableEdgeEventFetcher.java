@@ -16,18 +16,24 @@
 package org.thingsboard.server.service.edge.rpc.fetch;
 
 import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.edge.Edge;
 import org.thingsboard.server.common.data.edge.EdgeEvent;
+import org.thingsboard.server.common.data.id.HasId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.page.PageData;
 import org.thingsboard.server.common.data.page.PageLink;
+import org.thingsboard.server.service.edge.rpc.EntitySyncDigest;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 @Slf4j
 public abstract class BasePageableEdgeEventFetcher<T> implements EdgeEventFetcher {
 
+    private Set<Integer> syncBuckets;
+
     @Override
     public PageLink getPageLink(int pageSize) {
         return new PageLink(pageSize);
@@ -40,12 +46,48 @@ public abstract class BasePageableEdgeEventFetcher<T> implements EdgeEventFetche
         List<EdgeEvent> result = new ArrayList<>();
         if (!entities.getData().isEmpty()) {
             for (T entity : entities.getData()) {
-                result.add(constructEdgeEvent(tenantId, edge, entity));
+                if (isSyncRequired(entity)) {
+                    result.add(constructEdgeEvent(tenantId, edge, entity));
+                }
             }
         }
         return new PageData<>(result, entities.getTotalPages(), entities.getTotalElements(), entities.hasNext());
     }
 
+    /**
+     * Compares entities assigned to the edge with the edge digest and restricts sync to the buckets that differ.
+     *
+     * @return false if the edge already has the same entities and the sync can be skipped
+     */
+    public boolean applyEdgeDigest(TenantId tenantId, Edge edge, EntityType entityType, EntitySyncDigest edgeDigest, int pageSize) {
+        EntitySyncDigest cloudDigest = new EntitySyncDigest();
+        PageLink pageLink = getPageLink(pageSize);
+        PageData<T> entities;
+        do {
+            entities = fetchEntities(tenantId, edge, pageLink);
+            for (T entity : entities.getData()) {
+                if (entity instanceof HasId<?> hasId) {
+                    cloudDigest.add(hasId.getId().getId(), EntitySyncDigest.hash(entityType, getDigestEntity(tenantId, entity)));
+                }
+            }
+            pageLink = pageLink.nextPageLink();
+        } while (entities.hasNext());
+        syncBuckets = cloudDigest.diff(edgeDigest);
+        log.debug("[{}][{}] {} bucket(s) of {} differ from the edge", tenantId, edge.getId(), syncBuckets.size(), entityType);
+        return !syncBuckets.isEmpty();
+    }
+
+    /**
+     * Returns entity in the form it is stored on the edge, used to calculate digest.
+     */
+    Object getDigestEntity(TenantId tenantId, T entity) {
+        return entity;
+    }
+
+    private boolean isSyncRequired(T entity) {
+        return syncBuckets == null || !(entity instanceof HasId<?> hasId) || syncBuckets.contains(EntitySyncDigest.bucket(hasId.getId().getId()));
+    }
+
     abstract PageData<T> fetchEntities(TenantId tenantId, Edge edge, PageLink pageLink);
 
     abstract EdgeEvent constructEdgeEvent(TenantId tenantId, Edge edge, T entity);
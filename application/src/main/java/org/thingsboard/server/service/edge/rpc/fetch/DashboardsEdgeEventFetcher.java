@@ -39,6 +39,11 @@ public class DashboardsEdgeEventFetcher extends BasePageableEdgeEventFetcher<Das
         return dashboardService.findDashboardsByTenantIdAndEdgeId(tenantId, edge.getId(), pageLink);
     }
 
+    @Override
+    Object getDigestEntity(TenantId tenantId, DashboardInfo dashboardInfo) {
+        return dashboardService.findDashboardById(tenantId, dashboardInfo.getId());
+    }
+
     @Override
     EdgeEvent constructEdgeEvent(TenantId tenantId, Edge edge, DashboardInfo dashboardInfo) {
         return EdgeUtils.constructEdgeEvent(tenantId, edge.getId(), EdgeEventType.DASHBOARD,
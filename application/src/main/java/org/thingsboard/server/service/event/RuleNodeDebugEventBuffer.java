@@ -0,0 +1,253 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.event;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+import org.thingsboard.server.common.data.StringUtils;
+import org.thingsboard.server.common.data.event.RuleNodeDebugEvent;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.stats.DefaultCounter;
+import org.thingsboard.server.common.stats.StatsFactory;
+import org.thingsboard.server.dao.event.EventService;
+import org.thingsboard.server.queue.discovery.TbServiceInfoProvider;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persists rule node debug events off the rule engine threads.
+ * <p>
+ * Events are sampled per rule node, put to a bounded buffer and written by a single writer thread in batches.
+ * The writer waits for a batch to be stored before taking the next one, so a slow database fills the buffer
+ * and new events are dropped (and counted) instead of slowing down the rule engine.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RuleNodeDebugEventBuffer {
+
+    private static final String STATS_KEY = "actors.debugEvents";
+    private static final int SAMPLING_PRECISION = 10000;
+
+    private final EventService eventService;
+    private final TbServiceInfoProvider serviceInfoProvider;
+    private final StatsFactory statsFactory;
+
+    @Value("${actors.rule.debug_events.buffer_size:10000}")
+    private int bufferSize;
+    @Value("${actors.rule.debug_events.batch_size:1000}")
+    private int batchSize;
+    @Value("${actors.rule.debug_events.batch_timeout_ms:10000}")
+    private long batchTimeoutMs;
+    @Value("${actors.rule.debug_events.sampling_rate:1.0}")
+    private double samplingRate;
+    @Value("${actors.rule.debug_events.node_sampling_rates:}")
+    private String nodeSamplingRatesStr;
+
+    private final Map<UUID, Integer> nodeSamplingThresholds = new HashMap<>();
+    private int samplingThreshold;
+
+    private BlockingQueue<PendingDebugEvent> buffer;
+    private ExecutorService writerExecutor;
+    private volatile boolean stopped;
+
+    // gauges keep weak references, so the buffer size is referenced here
+    private AtomicInteger bufferSizeGauge;
+    private DefaultCounter persistedCounter;
+    private DefaultCounter droppedCounter;
+    private DefaultCounter failedCounter;
+    private DefaultCounter skippedCounter;
+
+    @PostConstruct
+    public void init() {
+        samplingThreshold = toSamplingThreshold(samplingRate);
+        if (StringUtils.isNotBlank(nodeSamplingRatesStr)) {
+            for (String nodeSamplingRate : nodeSamplingRatesStr.split(",")) {
+                String[] parts = nodeSamplingRate.trim().split(":");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Invalid rule node debug events sampling rate: " + nodeSamplingRate);
+                }
+                nodeSamplingThresholds.put(UUID.fromString(parts[0].trim()), toSamplingThreshold(Double.parseDouble(parts[1].trim())));
+            }
+        }
+        buffer = new ArrayBlockingQueue<>(Math.max(1, bufferSize));
+        bufferSizeGauge = statsFactory.createGauge(STATS_KEY + ".bufferSize", new AtomicInteger());
+        persistedCounter = statsFactory.createDefaultCounter(STATS_KEY + ".persisted");
+        droppedCounter = statsFactory.createDefaultCounter(STATS_KEY + ".dropped");
+        failedCounter = statsFactory.createDefaultCounter(STATS_KEY + ".failed");
+        skippedCounter = statsFactory.createDefaultCounter(STATS_KEY + ".skipped");
+        writerExecutor = Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName("rule-node-debug-event-writer"));
+        writerExecutor.submit(this::writeLoop);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        stopped = true;
+        if (writerExecutor != null) {
+            writerExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Checks whether the debug event of the msg should be persisted according to the sampling rate of the rule node.
+     * All events of the same msg get the same decision, so IN and OUT events of a sampled msg are stored together.
+     * Events with errors are always persisted.
+     */
+    public boolean isSampled(EntityId ruleNodeId, TbMsg tbMsg, boolean hasError) {
+        if (hasError) {
+            return true;
+        }
+        int threshold = nodeSamplingThresholds.getOrDefault(ruleNodeId.getId(), samplingThreshold);
+        if (threshold >= SAMPLING_PRECISION) {
+            return true;
+        }
+        boolean sampled = Math.floorMod(tbMsg.getId().hashCode(), SAMPLING_PRECISION) < threshold;
+        if (!sampled) {
+            skippedCounter.increment();
+        }
+        return sampled;
+    }
+
+    public void add(TenantId tenantId, EntityId ruleNodeId, String type, TbMsg tbMsg, String relationType, Throwable error, String failureMessage) {
+        if (!buffer.offer(new PendingDebugEvent(tenantId, ruleNodeId, type, tbMsg, tbMsg.getMetaData().values(), relationType, error, failureMessage))) {
+            droppedCounter.increment();
+            if (log.isTraceEnabled()) {
+                log.trace("[{}][{}] Debug events buffer is full, dropping event for msg: {}", tenantId, ruleNodeId, tbMsg.getId());
+            }
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingDebugEvent> batch = new ArrayList<>(batchSize);
+        while (!stopped && !Thread.currentThread().isInterrupted()) {
+            try {
+                PendingDebugEvent first = buffer.poll(1, TimeUnit.SECONDS);
+                bufferSizeGauge.set(buffer.size());
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, batchSize - 1);
+                persist(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable t) {
+                log.warn("Failed to persist rule node debug events", t);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void persist(List<PendingDebugEvent> batch) throws InterruptedException {
+        List<ListenableFuture<Void>> futures = new ArrayList<>(batch.size());
+        int failed = 0;
+        for (PendingDebugEvent pendingEvent : batch) {
+            try {
+                futures.add(eventService.saveAsync(toEvent(pendingEvent)));
+            } catch (IllegalArgumentException e) {
+                log.warn("Failed to persist rule node debug message", e);
+                failed++;
+            }
+        }
+        try {
+            // wait for the batch to be stored, so the database is not flooded with more events than it can handle
+            Futures.whenAllComplete(futures).run(() -> {}, MoreExecutors.directExecutor()).get(batchTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            log.warn("Could not save debug events for rule nodes", e);
+        } catch (TimeoutException e) {
+            log.debug("Debug events batch of size [{}] is not persisted in [{}] ms", batch.size(), batchTimeoutMs);
+        }
+        // saved events complete with null as well, so the futures are checked one by one
+        int persisted = 0;
+        for (ListenableFuture<Void> future : futures) {
+            if (!future.isDone()) {
+                continue;
+            }
+            try {
+                Futures.getDone(future);
+                persisted++;
+            } catch (ExecutionException | CancellationException e) {
+                log.trace("Could not save debug event for rule node", e);
+                failed++;
+            }
+        }
+        persistedCounter.add(persisted);
+        failedCounter.add(failed);
+    }
+
+    private RuleNodeDebugEvent toEvent(PendingDebugEvent pendingEvent) {
+        TbMsg tbMsg = pendingEvent.tbMsg();
+        RuleNodeDebugEvent.RuleNodeDebugEventBuilder event = RuleNodeDebugEvent.builder()
+                .tenantId(pendingEvent.tenantId())
+                .entityId(pendingEvent.ruleNodeId().getId())
+                .serviceId(serviceInfoProvider.getServiceId())
+                .eventType(pendingEvent.type())
+                .eventEntity(tbMsg.getOriginator())
+                .msgId(tbMsg.getId())
+                .msgType(tbMsg.getType())
+                .dataType(tbMsg.getDataType().name())
+                .relationType(pendingEvent.relationType())
+                .data(tbMsg.getData())
+                .metadata(JacksonUtil.toString(pendingEvent.metadata()));
+        if (pendingEvent.error() != null) {
+            StringWriter sw = new StringWriter();
+            pendingEvent.error().printStackTrace(new PrintWriter(sw));
+            event.error(sw.toString());
+        } else if (pendingEvent.failureMessage() != null) {
+            event.error(pendingEvent.failureMessage());
+        }
+        return event.build();
+    }
+
+    private static int toSamplingThreshold(double samplingRate) {
+        if (samplingRate < 0 || samplingRate > 1) {
+            throw new IllegalArgumentException("Rule node debug events sampling rate should be in range [0, 1]: " + samplingRate);
+        }
+        return (int) Math.round(samplingRate * SAMPLING_PRECISION);
+    }
+
+    private record PendingDebugEvent(TenantId tenantId, EntityId ruleNodeId, String type, TbMsg tbMsg, Map<String, String> metadata,
+                                     String relationType, Throwable error, String failureMessage) {
+    }
+
+}
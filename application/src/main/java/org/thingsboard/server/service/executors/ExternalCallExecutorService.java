@@ -25,10 +25,17 @@ public class ExternalCallExecutorService extends AbstractListeningExecutor {
     @Value("${actors.rule.external_call_thread_pool_size}")
     private int externalCallExecutorThreadPoolSize;
 
+    @Value("${actors.rule.external_call_virtual_threads:false}")
+    private boolean externalCallExecutorVirtualThreads;
+
     @Override
     protected int getThreadPollSize() {
         return externalCallExecutorThreadPoolSize;
     }
 
-}
+    @Override
+    protected boolean isVirtualThreadsEnabled() {
+        return externalCallExecutorVirtualThreads;
+    }
 
+}
@@ -15,7 +15,12 @@
  */
 package org.thingsboard.server.service.queue.processing;
 
+import com.google.protobuf.InvalidProtocolBufferException;
+import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.server.common.data.StringUtils;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.EntityIdFactory;
+import org.thingsboard.server.common.msg.gen.MsgProtos;
 import org.thingsboard.server.gen.transport.TransportProtos;
 import org.thingsboard.server.queue.common.TbProtoQueueMsg;
 
@@ -25,6 +30,7 @@ import java.util.UUID;
 import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
+@Slf4j
 public abstract class AbstractTbRuleEngineSubmitStrategy implements TbRuleEngineSubmitStrategy {
 
     protected final String queueName;
@@ -78,4 +84,14 @@ public abstract class AbstractTbRuleEngineSubmitStrategy implements TbRuleEngine
     public void stop() {
         stopped = true;
     }
+
+    protected EntityId getOriginatorId(TransportProtos.ToRuleEngineMsg msg) {
+        try {
+            MsgProtos.TbMsgProto proto = MsgProtos.TbMsgProto.parseFrom(msg.getTbMsg());
+            return EntityIdFactory.getByTypeAndUuid(proto.getEntityType(), new UUID(proto.getEntityIdMSB(), proto.getEntityIdLSB()));
+        } catch (InvalidProtocolBufferException e) {
+            log.warn("[{}] Failed to parse TbMsg: {}", queueName, msg);
+            return null;
+        }
+    }
 }
@@ -0,0 +1,63 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.queue.processing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.gen.transport.TransportProtos;
+import org.thingsboard.server.queue.common.TbProtoQueueMsg;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Same as {@link BatchTbRuleEngineSubmitStrategy}, but messages of the pack are regrouped by originator
+ * (keeping the relative order of messages of the same originator), so the messages of one originator
+ * are submitted back-to-back and may be processed together by rule nodes that implement
+ * {@link org.thingsboard.rule.engine.api.TbBatchNode}.
+ */
+@Slf4j
+public class BatchByOriginatorTbRuleEngineSubmitStrategy extends BatchTbRuleEngineSubmitStrategy {
+
+    public BatchByOriginatorTbRuleEngineSubmitStrategy(String queueName, int batchSize) {
+        super(queueName, batchSize);
+    }
+
+    @Override
+    public void init(List<TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> msgs) {
+        super.init(msgs);
+        Map<EntityId, List<IdMsgPair<TransportProtos.ToRuleEngineMsg>>> groups = new LinkedHashMap<>();
+        List<IdMsgPair<TransportProtos.ToRuleEngineMsg>> unknownOriginator = new ArrayList<>();
+        for (IdMsgPair<TransportProtos.ToRuleEngineMsg> pair : orderedMsgList) {
+            EntityId originatorId = getOriginatorId(pair.getMsg().getValue());
+            if (originatorId != null) {
+                groups.computeIfAbsent(originatorId, id -> new ArrayList<>()).add(pair);
+            } else {
+                unknownOriginator.add(pair);
+            }
+        }
+        List<IdMsgPair<TransportProtos.ToRuleEngineMsg>> groupedMsgList = new ArrayList<>(orderedMsgList.size());
+        groups.values().forEach(groupedMsgList::addAll);
+        groupedMsgList.addAll(unknownOriginator);
+        orderedMsgList = groupedMsgList;
+        if (log.isTraceEnabled()) {
+            log.trace("[{}] grouped [{}] messages by [{}] originators", queueName, orderedMsgList.size(), groups.size());
+        }
+    }
+
+}
@@ -23,6 +23,7 @@ import org.thingsboard.server.queue.common.TbProtoQueueMsg;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -83,6 +84,11 @@ public abstract class SequentialByEntityIdTbRuleEngineSubmitStrategy extends Abs
         }
     }
 
+    @Override
+    public Set<EntityId> getOrderedEntityIds() {
+        return Set.copyOf(entityIdToListMap.keySet());
+    }
+
     private void initMaps() {
         msgToEntityIdMap.clear();
         entityIdToListMap.clear();
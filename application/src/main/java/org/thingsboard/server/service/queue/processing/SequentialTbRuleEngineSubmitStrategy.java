@@ -16,9 +16,11 @@
 package org.thingsboard.server.service.queue.processing;
 
 import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.gen.transport.TransportProtos;
 import org.thingsboard.server.queue.common.TbProtoQueueMsg;
 
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -55,6 +57,11 @@ public class SequentialTbRuleEngineSubmitStrategy extends AbstractTbRuleEngineSu
         }
     }
 
+    @Override
+    public Set<EntityId> getOrderedEntityIds() {
+        return null;
+    }
+
     private void submitNext() {
         int listSize = orderedMsgList.size();
         int idx = msgIdx.get();
@@ -15,10 +15,13 @@
  */
 package org.thingsboard.server.service.queue.processing;
 
+import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.gen.transport.TransportProtos;
 import org.thingsboard.server.queue.common.TbProtoQueueMsg;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentMap;
 import java.util.function.BiConsumer;
@@ -36,4 +39,14 @@ public interface TbRuleEngineSubmitStrategy {
     void onSuccess(UUID id);
 
     void stop();
+
+    /**
+     * Entities whose messages are processed in order. When packs are processed concurrently,
+     * a pack with any of these entities is not submitted until this pack is processed.
+     *
+     * @return entity ids of the pack, or null if all messages of the queue are processed in order
+     */
+    default Set<EntityId> getOrderedEntityIds() {
+        return Collections.emptySet();
+    }
 }
@@ -29,6 +29,8 @@ public class TbRuleEngineSubmitStrategyFactory {
                 return new BurstTbRuleEngineSubmitStrategy(name);
             case BATCH:
                 return new BatchTbRuleEngineSubmitStrategy(name, submitStrategy.getBatchSize());
+            case BATCH_BY_ORIGINATOR:
+                return new BatchByOriginatorTbRuleEngineSubmitStrategy(name, submitStrategy.getBatchSize());
             case SEQUENTIAL_BY_ORIGINATOR:
                 return new SequentialByOriginatorIdTbRuleEngineSubmitStrategy(name);
             case SEQUENTIAL_BY_TENANT:
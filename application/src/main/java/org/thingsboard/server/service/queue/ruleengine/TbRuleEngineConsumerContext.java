@@ -56,6 +56,10 @@ public class TbRuleEngineConsumerContext {
     private int topicDeletionDelayInSec;
     @Value("${queue.rule-engine.management-thread-pool-size:12}")
     private int mgmtThreadPoolSize;
+    @Value("${queue.rule-engine.streaming.enabled:false}")
+    private boolean streamingEnabled;
+    @Value("${queue.rule-engine.streaming.max-in-flight-packs:4}")
+    private int maxInFlightPacks;
 
     private final ActorSystemContext actorContext;
     private final StatsFactory statsFactory;
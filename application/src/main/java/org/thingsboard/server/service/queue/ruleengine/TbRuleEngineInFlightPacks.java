@@ -0,0 +1,126 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.queue.ruleengine;
+
+import org.thingsboard.server.common.data.id.EntityId;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Message packs that are processed concurrently by the streaming consumer, in the order they were polled.
+ * Messages are committed up to the oldest pack that is still processed. Not thread-safe, used by the consumer thread only.
+ */
+class TbRuleEngineInFlightPacks {
+
+    private final Deque<InFlightPack> packs = new ArrayDeque<>();
+
+    void add(long pollSeq, Set<EntityId> orderedEntityIds, CompletableFuture<Boolean> processingFuture) {
+        packs.add(new InFlightPack(pollSeq, orderedEntityIds, processingFuture));
+    }
+
+    int size() {
+        return packs.size();
+    }
+
+    /**
+     * @return true if a pack with the given ordered entities has to wait for the packs that are still processed
+     */
+    boolean hasOrderingConflict(Set<EntityId> orderedEntityIds) {
+        for (InFlightPack pack : packs) {
+            if (pack.processingFuture.isDone()) {
+                continue;
+            }
+            if (orderedEntityIds == null || pack.orderedEntityIds == null) {
+                return true;
+            }
+            if (!Collections.disjoint(orderedEntityIds, pack.orderedEntityIds)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the processed packs from the head. Packs that completed with false (consumer is stopped) are never removed.
+     *
+     * @return poll sequence number of the last removed pack, or -1 if the oldest pack is still processed
+     */
+    long pollWatermark() {
+        long watermark = -1;
+        while (!packs.isEmpty() && packs.peek().isProcessed()) {
+            watermark = packs.poll().pollSeq;
+        }
+        return watermark;
+    }
+
+    /**
+     * Waits for the oldest pack, since nothing can be committed before it is processed.
+     */
+    void awaitHead(long timeoutMs) throws InterruptedException {
+        InFlightPack head = packs.peek();
+        if (head == null || head.isProcessed()) {
+            return;
+        }
+        if (head.processingFuture.isDone()) {
+            // pack of the stopped consumer is never removed, so there is nothing to wait for
+            Thread.sleep(timeoutMs);
+            return;
+        }
+        await(new CompletableFuture<?>[]{head.processingFuture}, timeoutMs);
+    }
+
+    /**
+     * Waits for any of the packs that are still processed. Packs that are already done are skipped,
+     * otherwise the wait would return at once while the oldest pack is still processed.
+     */
+    void awaitAny(long timeoutMs) throws InterruptedException {
+        CompletableFuture<?>[] futures = packs.stream()
+                .map(pack -> pack.processingFuture)
+                .filter(future -> !future.isDone())
+                .toArray(CompletableFuture[]::new);
+        if (futures.length == 0) {
+            return;
+        }
+        await(futures, timeoutMs);
+    }
+
+    private void await(CompletableFuture<?>[] futures, long timeoutMs) throws InterruptedException {
+        try {
+            CompletableFuture.anyOf(futures).get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException ignored) {
+        }
+    }
+
+    void clear() {
+        packs.clear();
+    }
+
+    private record InFlightPack(long pollSeq, Set<EntityId> orderedEntityIds, CompletableFuture<Boolean> processingFuture) {
+
+        boolean isProcessed() {
+            return processingFuture.isDone() && Boolean.TRUE.equals(processingFuture.getNow(false));
+        }
+
+    }
+
+}
@@ -51,6 +51,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -240,7 +241,12 @@ public class TbRuleEngineQueueConsumerManager {
         Future<?> consumerLoop = ctx.getConsumersExecutor().submit(() -> {
             ThingsBoardThreadFactory.updateCurrentThreadName(consumerTask.getKey().toString());
             try {
-                consumerLoop(consumerTask.getConsumer());
+                TbQueueConsumer<TbProtoQueueMsg<ToRuleEngineMsg>> consumer = consumerTask.getConsumer();
+                if (ctx.isStreamingEnabled() && consumer.isPollCommitSupported()) {
+                    streamingConsumerLoop(consumer);
+                } else {
+                    consumerLoop(consumer);
+                }
             } catch (Throwable e) {
                 log.error("Failure in consumer loop", e);
             }
@@ -273,12 +279,92 @@ public class TbRuleEngineQueueConsumerManager {
         log.info("Rule Engine consumer stopped");
     }
 
+    /**
+     * Keeps polling while previous packs are processed, so a slow message does not block the whole partition.
+     * Messages are committed up to the oldest pack that is not processed yet,
+     * packs with the same ordered entities (e.g. originators for SEQUENTIAL_BY_ORIGINATOR) are not processed concurrently.
+     */
+    private void streamingConsumerLoop(TbQueueConsumer<TbProtoQueueMsg<ToRuleEngineMsg>> consumer) {
+        TbRuleEngineInFlightPacks inFlightPacks = new TbRuleEngineInFlightPacks();
+        while (!stopped && !consumer.isStopped()) {
+            try {
+                Queue queue = this.queue;
+                commitProcessedPacks(consumer, inFlightPacks);
+                if (inFlightPacks.size() >= ctx.getMaxInFlightPacks()) {
+                    inFlightPacks.awaitHead(queue.getPollInterval());
+                    continue;
+                }
+                List<TbProtoQueueMsg<ToRuleEngineMsg>> msgs = consumer.poll(queue.getPollInterval());
+                if (msgs.isEmpty()) {
+                    continue;
+                }
+                long pollSeq = consumer.getLastPollSeq();
+                TbRuleEngineSubmitStrategy submitStrategy = getSubmitStrategy(queue);
+                submitStrategy.init(msgs);
+                Set<EntityId> orderedEntityIds = submitStrategy.getOrderedEntityIds();
+                while (inFlightPacks.hasOrderingConflict(orderedEntityIds) && !stopped && !consumer.isStopped()) {
+                    inFlightPacks.awaitAny(queue.getPollInterval());
+                    commitProcessedPacks(consumer, inFlightPacks);
+                }
+                if (stopped || consumer.isStopped()) {
+                    break;
+                }
+                CompletableFuture<Boolean> processingFuture = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return processPack(submitStrategy, consumer, queue);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    } catch (Exception e) {
+                        // same as for the regular consumer, failed pack is committed together with the next packs
+                        log.warn("Failed to process messages from queue", e);
+                        return true;
+                    }
+                }, ctx.getConsumersExecutor());
+                inFlightPacks.add(pollSeq, orderedEntityIds, processingFuture);
+            } catch (Exception e) {
+                if (!consumer.isStopped()) {
+                    log.warn("Failed to process messages from queue", e);
+                    try {
+                        Thread.sleep(ctx.getPollDuration());
+                    } catch (InterruptedException e2) {
+                        log.trace("Failed to wait until the server has capacity to handle new requests", e2);
+                    }
+                }
+            }
+        }
+        // messages of the packs that are not processed stay uncommitted and will be consumed again
+        inFlightPacks.clear();
+        if (consumer.isStopped()) {
+            consumer.unsubscribe();
+        }
+        log.info("Rule Engine consumer stopped");
+    }
+
+    private void commitProcessedPacks(TbQueueConsumer<TbProtoQueueMsg<ToRuleEngineMsg>> consumer, TbRuleEngineInFlightPacks inFlightPacks) {
+        long watermark = inFlightPacks.pollWatermark();
+        if (watermark >= 0) {
+            consumer.commit(watermark);
+        }
+    }
+
     private void processMsgs(List<TbProtoQueueMsg<ToRuleEngineMsg>> msgs,
                              TbQueueConsumer<TbProtoQueueMsg<ToRuleEngineMsg>> consumer,
                              Queue queue) throws InterruptedException {
         TbRuleEngineSubmitStrategy submitStrategy = getSubmitStrategy(queue);
-        TbRuleEngineProcessingStrategy ackStrategy = getProcessingStrategy(queue);
         submitStrategy.init(msgs);
+        if (processPack(submitStrategy, consumer, queue)) {
+            consumer.commit();
+        }
+    }
+
+    /**
+     * @return true if the pack is processed and can be committed, false if the consumer was stopped
+     */
+    private boolean processPack(TbRuleEngineSubmitStrategy submitStrategy,
+                                TbQueueConsumer<TbProtoQueueMsg<ToRuleEngineMsg>> consumer,
+                                Queue queue) throws InterruptedException {
+        TbRuleEngineProcessingStrategy ackStrategy = getProcessingStrategy(queue);
         while (!stopped && !consumer.isStopped()) {
             TbMsgPackProcessingContext packCtx = new TbMsgPackProcessingContext(queue.getName(), submitStrategy, ackStrategy.isSkipTimeoutMsgs());
             submitStrategy.submitAttempt((id, msg) -> submitMessage(packCtx, id, msg));
@@ -303,12 +389,12 @@ public class TbRuleEngineQueueConsumerManager {
 
             if (decision.isCommit()) {
                 submitStrategy.stop();
-                consumer.commit();
-                break;
+                return true;
             } else {
                 submitStrategy.update(decision.getReprocessMap());
             }
         }
+        return false;
     }
 
     private TbRuleEngineSubmitStrategy getSubmitStrategy(Queue queue) {
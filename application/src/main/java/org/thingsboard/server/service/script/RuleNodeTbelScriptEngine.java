@@ -124,7 +124,8 @@ public class RuleNodeTbelScriptEngine extends RuleNodeScriptEngine<TbelInvokeSer
     protected Object[] prepareArgs(TbMsg msg) {
         Object[] args = new Object[3];
         if (msg.getData() != null) {
-            args[0] = JacksonUtil.fromString(msg.getData(), Object.class);
+            JsonNode json = msg.getDataAsJson();
+            args[0] = json != null ? JacksonUtil.treeToValue(json, Object.class) : JacksonUtil.fromString(msg.getData(), Object.class);
         } else {
             args[0] = new HashMap<>();
         }
@@ -0,0 +1,128 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.stats;
+
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.thingsboard.server.actors.TbActorId;
+import org.thingsboard.server.actors.TbActorMailboxStats;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.stats.DefaultCounter;
+import org.thingsboard.server.common.stats.StatsFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Actor mailbox metrics (queue depth, drain latency, dropped and rejected messages) per actor type.
+ */
+@Service
+@RequiredArgsConstructor
+public class ActorMailboxStatsService {
+
+    private static final String STATS_KEY = "actors.mailbox";
+    private static final String ACTOR_TYPE_TAG = "actorType";
+    private static final String OTHER_ACTOR_TYPE = "OTHER";
+
+    private final StatsFactory statsFactory;
+
+    private final ConcurrentMap<String, TbActorMailboxStats> statsByActorType = new ConcurrentHashMap<>();
+
+    public TbActorMailboxStats getStats(TbActorId actorId) {
+        EntityType entityType = actorId.getEntityType();
+        return statsByActorType.computeIfAbsent(entityType != null ? entityType.name() : OTHER_ACTOR_TYPE, ActorTypeMailboxStats::new);
+    }
+
+    private class ActorTypeMailboxStats implements TbActorMailboxStats {
+
+        private final LongAdder enqueued = new LongAdder();
+        private final LongAdder dequeued = new LongAdder();
+        // gauges keep weak references, so the queue depth is referenced here
+        private final QueueDepth queueDepth;
+        private final DefaultCounter droppedCounter;
+        private final DefaultCounter rejectedCounter;
+        private final Timer drainTimer;
+
+        ActorTypeMailboxStats(String actorType) {
+            this.queueDepth = statsFactory.createGauge(STATS_KEY + ".queueDepth", new QueueDepth(enqueued, dequeued), ACTOR_TYPE_TAG, actorType);
+            this.droppedCounter = statsFactory.createDefaultCounter(STATS_KEY + ".droppedMsgs", ACTOR_TYPE_TAG, actorType);
+            this.rejectedCounter = statsFactory.createDefaultCounter(STATS_KEY + ".rejectedMsgs", ACTOR_TYPE_TAG, actorType);
+            this.drainTimer = statsFactory.createTimer(STATS_KEY + ".drainLatency", ACTOR_TYPE_TAG, actorType);
+        }
+
+        @Override
+        public void onMsgEnqueued() {
+            enqueued.increment();
+        }
+
+        @Override
+        public void onMsgDequeued() {
+            dequeued.increment();
+        }
+
+        @Override
+        public void onMsgDropped() {
+            droppedCounter.increment();
+        }
+
+        @Override
+        public void onMsgRejected() {
+            rejectedCounter.increment();
+        }
+
+        @Override
+        public void onMailboxDrained(int msgCount, long durationNanos) {
+            drainTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+        }
+
+    }
+
+    private static class QueueDepth extends Number {
+
+        private final LongAdder enqueued;
+        private final LongAdder dequeued;
+
+        QueueDepth(LongAdder enqueued, LongAdder dequeued) {
+            this.enqueued = enqueued;
+            this.dequeued = dequeued;
+        }
+
+        @Override
+        public long longValue() {
+            return Math.max(0, enqueued.sum() - dequeued.sum());
+        }
+
+        @Override
+        public int intValue() {
+            return (int) longValue();
+        }
+
+        @Override
+        public float floatValue() {
+            return longValue();
+        }
+
+        @Override
+        public double doubleValue() {
+            return longValue();
+        }
+
+    }
+
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.stats;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.thingsboard.server.common.data.StringUtils;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.stats.StatsFactory;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per rule node latency histograms: time spent in the rule node mailbox, synchronous processing time
+ * and execution time until the node reports the result (including async callbacks).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RuleNodeProfilerService {
+
+    private static final String STATS_KEY = "ruleNode";
+    private static final String RULE_NODE_ID_TAG = "ruleNodeId";
+
+    private final StatsFactory statsFactory;
+
+    @Value("${actors.rule.node.profiler.enabled:false}")
+    private boolean enabled;
+
+    @Value("${actors.rule.node.profiler.percentiles:0.5,0.95,0.99}")
+    private String percentilesStr;
+
+    private double[] percentiles;
+
+    private final ConcurrentMap<RuleNodeId, RuleNodeProfile> profiles = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (StringUtils.isNotBlank(percentilesStr)) {
+            percentiles = Arrays.stream(percentilesStr.split(",")).map(String::trim).mapToDouble(Double::parseDouble).toArray();
+        } else {
+            percentiles = new double[0];
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Registers the rule node or updates its names. Returns {@code null} if the profiler is disabled.
+     */
+    public RuleNodeProfile register(TenantId tenantId, RuleNodeId ruleNodeId, String ruleChainName, String ruleNodeName) {
+        if (!enabled) {
+            return null;
+        }
+        RuleNodeProfile profile = profiles.computeIfAbsent(ruleNodeId, id -> new RuleNodeProfile(tenantId, id));
+        profile.ruleChainName = ruleChainName;
+        profile.ruleNodeName = ruleNodeName;
+        return profile;
+    }
+
+    public void unregister(RuleNodeId ruleNodeId) {
+        RuleNodeProfile profile = profiles.remove(ruleNodeId);
+        if (profile != null) {
+            statsFactory.removeMeter(profile.queueWait);
+            statsFactory.removeMeter(profile.processing);
+            statsFactory.removeMeter(profile.execution);
+        }
+    }
+
+    public void onExecuted(RuleNodeId ruleNodeId, long durationNanos) {
+        RuleNodeProfile profile = profiles.get(ruleNodeId);
+        if (profile != null) {
+            profile.execution.record(durationNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public List<RuleNodeProfilerStats> getStats(TenantId tenantId) {
+        return profiles.values().stream()
+                .filter(profile -> profile.tenantId.equals(tenantId))
+                .map(RuleNodeProfile::toStats)
+                .sorted(Comparator.comparingDouble((RuleNodeProfilerStats stats) -> stats.getExecution().getMax()).reversed())
+                .toList();
+    }
+
+    public class RuleNodeProfile {
+
+        private final TenantId tenantId;
+        private final RuleNodeId ruleNodeId;
+        private final Timer queueWait;
+        private final Timer processing;
+        private final Timer execution;
+        private volatile String ruleChainName;
+        private volatile String ruleNodeName;
+
+        private RuleNodeProfile(TenantId tenantId, RuleNodeId ruleNodeId) {
+            this.tenantId = tenantId;
+            this.ruleNodeId = ruleNodeId;
+            String id = ruleNodeId.getId().toString();
+            this.queueWait = statsFactory.createHistogramTimer(STATS_KEY + ".queueWait", percentiles, RULE_NODE_ID_TAG, id);
+            this.processing = statsFactory.createHistogramTimer(STATS_KEY + ".processing", percentiles, RULE_NODE_ID_TAG, id);
+            this.execution = statsFactory.createHistogramTimer(STATS_KEY + ".execution", percentiles, RULE_NODE_ID_TAG, id);
+        }
+
+        public void onQueueWait(long durationNanos) {
+            queueWait.record(durationNanos, TimeUnit.NANOSECONDS);
+        }
+
+        public void onProcessed(long durationNanos) {
+            processing.record(durationNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private RuleNodeProfilerStats toStats() {
+            RuleNodeProfilerStats stats = new RuleNodeProfilerStats();
+            stats.setRuleNodeId(ruleNodeId);
+            stats.setRuleChainName(ruleChainName);
+            stats.setRuleNodeName(ruleNodeName);
+            stats.setQueueWait(toLatencyStats(queueWait));
+            stats.setProcessing(toLatencyStats(processing));
+            stats.setExecution(toLatencyStats(execution));
+            return stats;
+        }
+
+        private RuleNodeProfilerStats.LatencyStats toLatencyStats(Timer timer) {
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            Map<String, Double> percentileValues = new LinkedHashMap<>();
+            for (ValueAtPercentile value : snapshot.percentileValues()) {
+                percentileValues.put("p" + Math.round(value.percentile() * 100), value.value(TimeUnit.MILLISECONDS));
+            }
+            RuleNodeProfilerStats.LatencyStats stats = new RuleNodeProfilerStats.LatencyStats();
+            stats.setCount(snapshot.count());
+            stats.setMean(snapshot.mean(TimeUnit.MILLISECONDS));
+            stats.setMax(snapshot.max(TimeUnit.MILLISECONDS));
+            stats.setPercentiles(percentileValues);
+            return stats;
+        }
+
+    }
+
+}
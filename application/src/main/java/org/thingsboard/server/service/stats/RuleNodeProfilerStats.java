@@ -0,0 +1,49 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.stats;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+
+import java.util.Map;
+
+@Data
+@Schema
+public class RuleNodeProfilerStats {
+
+    private RuleNodeId ruleNodeId;
+    private String ruleChainName;
+    private String ruleNodeName;
+    @Schema(description = "Time the message spent in the rule node mailbox")
+    private LatencyStats queueWait;
+    @Schema(description = "Synchronous processing time of the message by the rule node")
+    private LatencyStats processing;
+    @Schema(description = "Time from the start of processing until the rule node reported the result, including async callbacks")
+    private LatencyStats execution;
+
+    @Data
+    public static class LatencyStats {
+        private long count;
+        @Schema(description = "Mean value, ms")
+        private double mean;
+        @Schema(description = "Max value, ms")
+        private double max;
+        @Schema(description = "Percentile values, ms. For example, 'p99'")
+        private Map<String, Double> percentiles;
+    }
+
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors.ruleChain;
+
+import org.junit.Test;
+import org.thingsboard.server.common.data.id.RuleChainId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RuleChainRoutingTableTest {
+
+    private final RuleNodeId source = new RuleNodeId(UUID.randomUUID());
+    private final RuleNodeId leaf = new RuleNodeId(UUID.randomUUID());
+    private final RuleNodeRelation success1 = new RuleNodeRelation(source, new RuleNodeId(UUID.randomUUID()), "Success");
+    private final RuleNodeRelation failure = new RuleNodeRelation(source, new RuleNodeId(UUID.randomUUID()), "Failure");
+    private final RuleNodeRelation success2 = new RuleNodeRelation(source, new RuleChainId(UUID.randomUUID()), "success");
+
+    private final RuleChainRoutingTable routingTable = RuleChainRoutingTable.build(Map.of(
+            source, List.of(success1, failure, success2),
+            leaf, Collections.emptyList()));
+
+    @Test
+    public void testSingleRelationTypeIgnoresCase() {
+        assertThat(routingTable.getRoutes(source, Set.of("Success"))).containsExactly(success1, success2);
+        assertThat(routingTable.getRoutes(source, Set.of("SUCCESS"))).containsExactly(success1, success2);
+        assertThat(routingTable.getRoutes(source, Set.of("Failure"))).containsExactly(failure);
+        assertThat(routingTable.getRoutes(source, Set.of("True"))).isEmpty();
+    }
+
+    @Test
+    public void testSingleRelationTypeLookupReturnsPrecomputedRoutes() {
+        assertThat(routingTable.getRoutes(source, Set.of("Success"))).isSameAs(routingTable.getRoutes(source, Set.of("Success")));
+    }
+
+    @Test
+    public void testMultipleRelationTypesKeepRelationsOrder() {
+        assertThat(routingTable.getRoutes(source, Set.of("success", "Failure"))).containsExactly(success1, failure, success2);
+        assertThat(routingTable.getRoutes(source, null)).containsExactly(success1, failure, success2);
+    }
+
+    @Test
+    public void testUnknownAndLeafNodes() {
+        assertThat(routingTable.containsNode(leaf)).isTrue();
+        assertThat(routingTable.getRoutes(leaf, Set.of("Success"))).isEmpty();
+
+        RuleNodeId removed = new RuleNodeId(UUID.randomUUID());
+        assertThat(routingTable.containsNode(removed)).isFalse();
+        assertThat(routingTable.getRoutes(removed, Set.of("Success"))).isEmpty();
+    }
+
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.cloud;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.id.CustomerId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.gen.edge.v1.DeviceUpdateMsg;
+import org.thingsboard.server.gen.edge.v1.DownlinkMsg;
+import org.thingsboard.server.gen.edge.v1.UpdateMsgType;
+import org.thingsboard.server.service.cloud.rpc.processor.DeviceCloudProcessor;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DefaultDownlinkMessageServiceTest {
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final UUID deviceId = UUID.randomUUID();
+
+    private DefaultDownlinkMessageService downlinkMessageService;
+    private DeviceCloudProcessor deviceProcessor;
+
+    @Before
+    public void setUp() {
+        deviceProcessor = mock(DeviceCloudProcessor.class);
+        downlinkMessageService = new DefaultDownlinkMessageService();
+        ReflectionTestUtils.setField(downlinkMessageService, "deviceProcessor", deviceProcessor);
+        ReflectionTestUtils.setField(downlinkMessageService, "downlinkPoolSize", 4);
+        downlinkMessageService.init();
+    }
+
+    @After
+    public void tearDown() {
+        downlinkMessageService.destroy();
+    }
+
+    @Test
+    public void testDownlinkMsgsAreAppliedInOrder() throws Exception {
+        List<UpdateMsgType> applied = new CopyOnWriteArrayList<>();
+        when(deviceProcessor.processDeviceMsgFromCloud(any(), any(), any())).thenAnswer(invocation -> {
+            DeviceUpdateMsg deviceUpdateMsg = invocation.getArgument(1);
+            if (deviceUpdateMsg.getMsgType() == UpdateMsgType.ENTITY_UPDATED_RPC_MESSAGE) {
+                // slow update must not let the delete of the next msg overtake it
+                Thread.sleep(200);
+            }
+            applied.add(deviceUpdateMsg.getMsgType());
+            return Futures.immediateFuture(null);
+        });
+
+        ListenableFuture<List<Void>> update = downlinkMessageService.processDownlinkMsg(tenantId, new CustomerId(CustomerId.NULL_UUID),
+                deviceDownlinkMsg(1, UpdateMsgType.ENTITY_UPDATED_RPC_MESSAGE), null, 0L);
+        ListenableFuture<List<Void>> delete = downlinkMessageService.processDownlinkMsg(tenantId, new CustomerId(CustomerId.NULL_UUID),
+                deviceDownlinkMsg(2, UpdateMsgType.ENTITY_DELETED_RPC_MESSAGE), null, 0L);
+
+        delete.get(10, TimeUnit.SECONDS);
+        assertThat(update.isDone()).isTrue();
+        assertThat(applied).containsExactly(UpdateMsgType.ENTITY_UPDATED_RPC_MESSAGE, UpdateMsgType.ENTITY_DELETED_RPC_MESSAGE);
+    }
+
+    @Test
+    public void testFailedDownlinkMsgDoesNotBlockNextMsg() throws Exception {
+        List<UpdateMsgType> applied = new CopyOnWriteArrayList<>();
+        when(deviceProcessor.processDeviceMsgFromCloud(any(), any(), any())).thenAnswer(invocation -> {
+            DeviceUpdateMsg deviceUpdateMsg = invocation.getArgument(1);
+            if (deviceUpdateMsg.getMsgType() == UpdateMsgType.ENTITY_UPDATED_RPC_MESSAGE) {
+                return Futures.immediateFailedFuture(new RuntimeException("Failed to save device"));
+            }
+            applied.add(deviceUpdateMsg.getMsgType());
+            return Futures.immediateFuture(null);
+        });
+
+        ListenableFuture<List<Void>> update = downlinkMessageService.processDownlinkMsg(tenantId, new CustomerId(CustomerId.NULL_UUID),
+                deviceDownlinkMsg(1, UpdateMsgType.ENTITY_UPDATED_RPC_MESSAGE), null, 0L);
+        ListenableFuture<List<Void>> delete = downlinkMessageService.processDownlinkMsg(tenantId, new CustomerId(CustomerId.NULL_UUID),
+                deviceDownlinkMsg(2, UpdateMsgType.ENTITY_DELETED_RPC_MESSAGE), null, 0L);
+
+        delete.get(10, TimeUnit.SECONDS);
+        assertThat(Futures.getDone(delete)).hasSize(1);
+        assertThat(update.isDone()).isTrue();
+        assertThat(applied).containsExactly(UpdateMsgType.ENTITY_DELETED_RPC_MESSAGE);
+    }
+
+    private DownlinkMsg deviceDownlinkMsg(int downlinkMsgId, UpdateMsgType msgType) {
+        return DownlinkMsg.newBuilder()
+                .setDownlinkMsgId(downlinkMsgId)
+                .addDeviceUpdateMsg(DeviceUpdateMsg.newBuilder()
+                        .setMsgType(msgType)
+                        .setIdMSB(deviceId.getMostSignificantBits())
+                        .setIdLSB(deviceId.getLeastSignificantBits())
+                        .build())
+                .build();
+    }
+
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.cloud;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DownlinkMsgLayerTest {
+
+    private ListeningExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(4, ThingsBoardThreadFactory.forName(getClass().getSimpleName())));
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testUpdatesOfSameEntityAreAppliedInOrder() throws Exception {
+        DownlinkMsgLayer layer = new DownlinkMsgLayer("test");
+        ConcurrentMap<Object, List<Integer>> applied = new ConcurrentHashMap<>();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        for (int i = 0; i < 100; i++) {
+            int order = i;
+            Object key = DownlinkMsgLayer.entityKey(first.getMostSignificantBits(), first.getLeastSignificantBits(), null);
+            layer.add(key, () -> {
+                applied.computeIfAbsent(first, k -> new CopyOnWriteArrayList<>()).add(order);
+                return Futures.immediateFuture(null);
+            });
+            key = DownlinkMsgLayer.entityKey(second.getMostSignificantBits(), second.getLeastSignificantBits(), null);
+            layer.add(key, () -> {
+                applied.computeIfAbsent(second, k -> new CopyOnWriteArrayList<>()).add(order);
+                return Futures.immediateFuture(null);
+            });
+        }
+
+        List<Void> result = layer.execute(executor).get(10, TimeUnit.SECONDS);
+
+        assertThat(result).hasSize(200);
+        assertThat(applied.get(first)).isSorted().hasSize(100);
+        assertThat(applied.get(second)).isSorted().hasSize(100);
+    }
+
+    @Test
+    public void testLayerFailsIfAnyUpdateFails() {
+        DownlinkMsgLayer layer = new DownlinkMsgLayer("test");
+        layer.add(null, () -> Futures.immediateFuture(null));
+        layer.add(null, () -> {
+            throw new RuntimeException("Failed to save entity");
+        });
+
+        ListenableFuture<List<Void>> result = layer.execute(executor);
+
+        assertThatThrownBy(() -> result.get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseMessage("Failed to save entity");
+    }
+
+    @Test
+    public void testFailedUpdateDoesNotSkipOtherUpdates() {
+        DownlinkMsgLayer layer = new DownlinkMsgLayer("test");
+        List<Integer> applied = new CopyOnWriteArrayList<>();
+        Object key = DownlinkMsgLayer.entityKey(1, 2, null);
+        layer.add(key, () -> {
+            throw new RuntimeException("Failed to save first entity");
+        });
+        layer.add(key, () -> {
+            applied.add(1);
+            return Futures.immediateFuture(null);
+        });
+        layer.add(null, () -> Futures.immediateFailedFuture(new RuntimeException("Failed to save second entity")));
+        layer.add(null, () -> {
+            applied.add(2);
+            return Futures.immediateFuture(null);
+        });
+
+        ListenableFuture<List<Void>> result = layer.execute(executor);
+
+        assertThatThrownBy(() -> result.get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .satisfies(e -> assertThat(e.getCause().getMessage()).isEqualTo("Failed to save first entity"))
+                .satisfies(e -> assertThat(e.getCause().getSuppressed()).extracting(Throwable::getMessage)
+                        .containsExactly("Failed to save second entity"));
+        assertThat(applied).containsExactlyInAnyOrder(1, 2);
+    }
+
+    @Test
+    public void testEntityKeyFallsBackWhenIdIsMissing() {
+        assertThat(DownlinkMsgLayer.entityKey(0, 0, String.class)).isEqualTo(String.class);
+        assertThat(DownlinkMsgLayer.entityKey(1, 2, String.class)).isEqualTo(new UUID(1, 2));
+    }
+
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.cloud.rpc;
+
+import io.micrometer.core.instrument.Counter;
+import org.junit.Before;
+import org.junit.Test;
+import org.thingsboard.server.common.stats.DefaultCounter;
+import org.thingsboard.server.common.stats.StatsFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class UplinkCongestionControllerTest {
+
+    private UplinkCongestionController controller;
+
+    @Before
+    public void setUp() {
+        CloudEventStorageSettings settings = new CloudEventStorageSettings();
+        settings.setMaxInFlightPacks(8);
+        settings.setSleepIntervalBetweenBatches(1000);
+        settings.setMaxBackoffMs(60000);
+        settings.setRateLimitBackoffMs(5000);
+        StatsFactory statsFactory = mock(StatsFactory.class, invocation -> "createGauge".equals(invocation.getMethod().getName()) ?
+                invocation.getArgument(1) : new DefaultCounter(new AtomicInteger(), mock(Counter.class)));
+        controller = new UplinkCongestionController(settings, statsFactory);
+        controller.init();
+    }
+
+    @Test
+    public void testWindowGrowsOnAcksUpToMax() {
+        assertThat(controller.getWindow()).isEqualTo(1);
+        for (int i = 0; i < 3; i++) {
+            controller.onAck(100);
+        }
+        assertThat(controller.getWindow()).isEqualTo(4);
+        for (int i = 0; i < 100; i++) {
+            controller.onAck(100);
+        }
+        assertThat(controller.getWindow()).isEqualTo(8);
+    }
+
+    @Test
+    public void testWindowIsNotGrownWhileLatencyIncreases() {
+        controller.onAck(100);
+        assertThat(controller.getWindow()).isEqualTo(2);
+        for (int i = 0; i < 20; i++) {
+            controller.onAck(1000);
+        }
+        int window = controller.getWindow();
+        controller.onAck(1000);
+        assertThat(controller.getWindow()).isEqualTo(window);
+    }
+
+    @Test
+    public void testFailureHalvesWindowAndBacksOffExponentially() {
+        for (int i = 0; i < 100; i++) {
+            controller.onAck(100);
+        }
+        long firstBackoff = controller.onFailure();
+        assertThat(controller.getWindow()).isEqualTo(4);
+        assertThat(firstBackoff).isBetween(800L, 1200L);
+        long secondBackoff = controller.onFailure();
+        assertThat(controller.getWindow()).isEqualTo(2);
+        assertThat(secondBackoff).isBetween(1600L, 2400L);
+        for (int i = 0; i < 20; i++) {
+            assertThat(controller.onFailure()).isLessThanOrEqualTo(72000L);
+        }
+        assertThat(controller.getWindow()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRateLimitCollapsesWindowAndEnablesPacing() {
+        for (int i = 0; i < 100; i++) {
+            controller.onAck(100);
+        }
+        long backoff = controller.onRateLimit();
+        assertThat(backoff).isBetween(4000L, 6000L);
+        assertThat(controller.getWindow()).isEqualTo(1);
+        assertThat(controller.getPacingDelayMs()).isEqualTo(1000);
+        for (int i = 0; i < 10; i++) {
+            controller.onAck(100);
+        }
+        assertThat(controller.getPacingDelayMs()).isZero();
+    }
+
+}
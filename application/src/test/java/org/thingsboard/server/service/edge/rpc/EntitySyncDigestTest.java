@@ -0,0 +1,98 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.edge.rpc;
+
+import org.junit.Test;
+import org.thingsboard.server.common.data.Device;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.gen.edge.v1.EntityTypeDigestProto;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EntitySyncDigestTest {
+
+    @Test
+    public void testEqualContentProducesEqualDigests() {
+        Device device = createDevice("Device 1");
+        Device copy = new Device(device);
+        copy.setExternalId(new DeviceId(UUID.randomUUID()));
+
+        EntitySyncDigest cloudDigest = new EntitySyncDigest();
+        cloudDigest.add(device.getUuidId(), EntitySyncDigest.hash(EntityType.DEVICE, device));
+        EntitySyncDigest edgeDigest = new EntitySyncDigest();
+        edgeDigest.add(copy.getUuidId(), EntitySyncDigest.hash(EntityType.DEVICE, copy));
+
+        assertThat(cloudDigest.diff(edgeDigest)).isEmpty();
+    }
+
+    @Test
+    public void testChangedEntityIsDetectedInItsBucket() {
+        Device device = createDevice("Device 1");
+        Device other = createDevice("Device 2");
+
+        EntitySyncDigest cloudDigest = new EntitySyncDigest();
+        cloudDigest.add(device.getUuidId(), EntitySyncDigest.hash(EntityType.DEVICE, device));
+        cloudDigest.add(other.getUuidId(), EntitySyncDigest.hash(EntityType.DEVICE, other));
+
+        EntitySyncDigest edgeDigest = new EntitySyncDigest();
+        edgeDigest.add(device.getUuidId(), EntitySyncDigest.hash(EntityType.DEVICE, device));
+        long oldHash = EntitySyncDigest.hash(EntityType.DEVICE, other);
+        edgeDigest.add(other.getUuidId(), oldHash);
+        assertThat(cloudDigest.diff(edgeDigest)).isEmpty();
+
+        other.setLabel("changed");
+        edgeDigest.remove(other.getUuidId(), oldHash);
+        edgeDigest.add(other.getUuidId(), EntitySyncDigest.hash(EntityType.DEVICE, other));
+        assertThat(cloudDigest.diff(edgeDigest)).containsExactly(EntitySyncDigest.bucket(other.getUuidId()));
+    }
+
+    @Test
+    public void testMissingEntityIsDetected() {
+        Device device = createDevice("Device 1");
+        EntitySyncDigest cloudDigest = new EntitySyncDigest();
+        cloudDigest.add(device.getUuidId(), EntitySyncDigest.hash(EntityType.DEVICE, device));
+
+        assertThat(cloudDigest.diff(new EntitySyncDigest())).containsExactly(EntitySyncDigest.bucket(device.getUuidId()));
+    }
+
+    @Test
+    public void testProtoRoundTrip() {
+        Device device = createDevice("Device 1");
+        EntitySyncDigest digest = new EntitySyncDigest();
+        digest.add(device.getUuidId(), EntitySyncDigest.hash(EntityType.DEVICE, device));
+
+        EntityTypeDigestProto unsupported = EntityTypeDigestProto.newBuilder().setEntityType("UNKNOWN").build();
+        Map<EntityType, EntitySyncDigest> digests = EntitySyncDigest.fromProtos(List.of(digest.toProto(EntityType.DEVICE), unsupported));
+
+        assertThat(digests).containsOnlyKeys(EntityType.DEVICE);
+        assertThat(digests.get(EntityType.DEVICE).diff(digest)).isEmpty();
+    }
+
+    private Device createDevice(String name) {
+        Device device = new Device(new DeviceId(UUID.randomUUID()));
+        device.setTenantId(TenantId.fromUUID(UUID.randomUUID()));
+        device.setName(name);
+        device.setType("default");
+        return device;
+    }
+
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.event;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.event.Event;
+import org.thingsboard.server.common.data.event.RuleNodeDebugEvent;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.msg.TbMsgType;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+import org.thingsboard.server.common.stats.DefaultCounter;
+import org.thingsboard.server.common.stats.DefaultStatsFactory;
+import org.thingsboard.server.dao.event.EventService;
+import org.thingsboard.server.queue.discovery.TbServiceInfoProvider;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RuleNodeDebugEventBufferTest {
+
+    private final TenantId tenantId = new TenantId(UUID.randomUUID());
+    private final RuleNodeId ruleNodeId = new RuleNodeId(UUID.randomUUID());
+    private final RuleNodeId sampledRuleNodeId = new RuleNodeId(UUID.randomUUID());
+
+    private EventService eventService;
+    private RuleNodeDebugEventBuffer buffer;
+
+    @Before
+    public void setUp() {
+        DefaultStatsFactory statsFactory = new DefaultStatsFactory();
+        ReflectionTestUtils.setField(statsFactory, "meterRegistry", new SimpleMeterRegistry());
+        eventService = mock(EventService.class);
+        TbServiceInfoProvider serviceInfoProvider = mock(TbServiceInfoProvider.class);
+        when(serviceInfoProvider.getServiceId()).thenReturn("tb-edge");
+        buffer = new RuleNodeDebugEventBuffer(eventService, serviceInfoProvider, statsFactory);
+        ReflectionTestUtils.setField(buffer, "bufferSize", 10);
+        ReflectionTestUtils.setField(buffer, "batchSize", 5);
+        ReflectionTestUtils.setField(buffer, "batchTimeoutMs", TimeUnit.MINUTES.toMillis(1));
+        ReflectionTestUtils.setField(buffer, "samplingRate", 1.0);
+        ReflectionTestUtils.setField(buffer, "nodeSamplingRatesStr", sampledRuleNodeId.getId() + ":0");
+    }
+
+    @After
+    public void tearDown() {
+        buffer.destroy();
+    }
+
+    @Test
+    public void testEventsArePersistedOnWriterThread() {
+        when(eventService.saveAsync(any())).thenReturn(Futures.immediateFuture(null));
+        buffer.init();
+
+        TbMsg tbMsg = newMsg();
+        buffer.add(tenantId, ruleNodeId, "IN", tbMsg, null, null, null);
+        buffer.add(tenantId, ruleNodeId, "OUT", tbMsg, "Success", null, null);
+        buffer.add(tenantId, ruleNodeId, "OUT", tbMsg, "Failure", null, "Failed to process");
+
+        ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+        await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> verify(eventService, atLeast(3)).saveAsync(eventCaptor.capture()));
+        assertThat(eventCaptor.getAllValues()).allSatisfy(event -> {
+            assertThat(event).isInstanceOf(RuleNodeDebugEvent.class);
+            assertThat(event.getEntityId()).isEqualTo(ruleNodeId.getId());
+            assertThat(event.getServiceId()).isEqualTo("tb-edge");
+        });
+        RuleNodeDebugEvent failure = (RuleNodeDebugEvent) eventCaptor.getAllValues().get(2);
+        assertThat(failure.getRelationType()).isEqualTo("Failure");
+        assertThat(failure.getError()).isEqualTo("Failed to process");
+        await().atMost(10, TimeUnit.SECONDS).until(() -> counter("persistedCounter") == 3);
+    }
+
+    @Test
+    public void testFailedEventsAreNotCountedAsPersisted() {
+        when(eventService.saveAsync(any()))
+                .thenReturn(Futures.immediateFuture(null))
+                .thenReturn(Futures.immediateFailedFuture(new RuntimeException("DB is down")));
+        buffer.init();
+
+        TbMsg tbMsg = newMsg();
+        buffer.add(tenantId, ruleNodeId, "IN", tbMsg, null, null, null);
+        buffer.add(tenantId, ruleNodeId, "OUT", tbMsg, "Success", null, null);
+        buffer.add(tenantId, ruleNodeId, "OUT", tbMsg, "Failure", null, null);
+
+        await().atMost(10, TimeUnit.SECONDS).until(() -> counter("persistedCounter") + counter("failedCounter") == 3);
+        assertThat(counter("persistedCounter")).isEqualTo(1);
+        assertThat(counter("failedCounter")).isEqualTo(2);
+    }
+
+    @Test
+    public void testEventsAreDroppedWhenBufferIsFull() {
+        // the writer waits for the first batch forever, so the next events stay in the buffer
+        when(eventService.saveAsync(any())).thenReturn(SettableFuture.create());
+        buffer.init();
+
+        TbMsg tbMsg = newMsg();
+        buffer.add(tenantId, ruleNodeId, "IN", tbMsg, null, null, null);
+        await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> verify(eventService).saveAsync(any()));
+        for (int i = 0; i < 15; i++) {
+            buffer.add(tenantId, ruleNodeId, "IN", tbMsg, null, null, null);
+        }
+
+        assertThat(counter("droppedCounter")).isEqualTo(5);
+        assertThat(counter("persistedCounter")).isZero();
+    }
+
+    @Test
+    public void testSamplingPerRuleNode() {
+        buffer.init();
+        TbMsg tbMsg = newMsg();
+
+        assertThat(buffer.isSampled(ruleNodeId, tbMsg, false)).isTrue();
+        assertThat(buffer.isSampled(sampledRuleNodeId, tbMsg, false)).isFalse();
+        assertThat(buffer.isSampled(sampledRuleNodeId, tbMsg, true)).isTrue();
+        assertThat(counter("skippedCounter")).isEqualTo(1);
+    }
+
+    @Test
+    public void testSamplingDecisionIsStablePerMsg() {
+        ReflectionTestUtils.setField(buffer, "samplingRate", 0.5);
+        buffer.init();
+
+        int sampled = 0;
+        for (int i = 0; i < 1000; i++) {
+            TbMsg tbMsg = newMsg();
+            boolean in = buffer.isSampled(ruleNodeId, tbMsg, false);
+            assertThat(buffer.isSampled(ruleNodeId, tbMsg, false)).isEqualTo(in);
+            if (in) {
+                sampled++;
+            }
+        }
+        assertThat(sampled).isBetween(350, 650);
+    }
+
+    private TbMsg newMsg() {
+        return TbMsg.newMsg(TbMsgType.POST_TELEMETRY_REQUEST, new DeviceId(UUID.randomUUID()), TbMsgMetaData.EMPTY, TbMsg.EMPTY_JSON_OBJECT);
+    }
+
+    private int counter(String name) {
+        return ((DefaultCounter) ReflectionTestUtils.getField(buffer, name)).get();
+    }
+
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.queue.processing;
+
+import org.junit.Test;
+import org.thingsboard.server.common.data.DataConstants;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.msg.TbMsgType;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+import org.thingsboard.server.gen.transport.TransportProtos;
+import org.thingsboard.server.queue.common.TbProtoQueueMsg;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BatchByOriginatorTbRuleEngineSubmitStrategyTest {
+
+    private final DeviceId deviceA = new DeviceId(UUID.randomUUID());
+    private final DeviceId deviceB = new DeviceId(UUID.randomUUID());
+    private final DeviceId deviceC = new DeviceId(UUID.randomUUID());
+
+    @Test
+    public void testMessagesAreGroupedByOriginatorKeepingOrder() {
+        BatchByOriginatorTbRuleEngineSubmitStrategy strategy = new BatchByOriginatorTbRuleEngineSubmitStrategy(DataConstants.MAIN_QUEUE_NAME, 10);
+        strategy.init(List.of(newMsg(deviceA, 1), newMsg(deviceB, 2), newMsg(deviceA, 3), newMsg(deviceC, 4), newMsg(deviceB, 5)));
+
+        List<TbMsg> submitted = new ArrayList<>();
+        strategy.submitAttempt((id, msg) -> submitted.add(toTbMsg(msg)));
+
+        assertThat(submitted).extracting(TbMsg::getOriginator).containsExactly(deviceA, deviceA, deviceB, deviceB, deviceC);
+        assertThat(submitted).extracting(TbMsg::getData).containsExactly("1", "3", "2", "5", "4");
+    }
+
+    @Test
+    public void testNextBatchIsSubmittedWhenPreviousIsAcknowledged() {
+        BatchByOriginatorTbRuleEngineSubmitStrategy strategy = new BatchByOriginatorTbRuleEngineSubmitStrategy(DataConstants.MAIN_QUEUE_NAME, 2);
+        strategy.init(List.of(newMsg(deviceA, 1), newMsg(deviceB, 2), newMsg(deviceA, 3)));
+
+        List<UUID> submittedIds = new ArrayList<>();
+        List<EntityId> submittedOriginators = new ArrayList<>();
+        strategy.submitAttempt((id, msg) -> {
+            submittedIds.add(id);
+            submittedOriginators.add(toTbMsg(msg).getOriginator());
+        });
+        assertThat(submittedOriginators).containsExactly(deviceA, deviceA);
+
+        strategy.onSuccess(submittedIds.get(0));
+        assertThat(submittedOriginators).hasSize(2);
+        strategy.onSuccess(submittedIds.get(1));
+        assertThat(submittedOriginators).containsExactly(deviceA, deviceA, deviceB);
+    }
+
+    private TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg> newMsg(EntityId originator, int idx) {
+        TbMsg tbMsg = TbMsg.newMsg(TbMsgType.POST_TELEMETRY_REQUEST, originator, TbMsgMetaData.EMPTY, String.valueOf(idx));
+        TransportProtos.ToRuleEngineMsg msg = TransportProtos.ToRuleEngineMsg.newBuilder()
+                .setTbMsg(TbMsg.toByteString(tbMsg))
+                .build();
+        return new TbProtoQueueMsg<>(UUID.randomUUID(), msg);
+    }
+
+    private TbMsg toTbMsg(TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg> msg) {
+        return TbMsg.fromBytes(DataConstants.MAIN_QUEUE_NAME, msg.getValue().getTbMsg().toByteArray(), null);
+    }
+
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.queue.ruleengine;
+
+import org.junit.Test;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EntityId;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TbRuleEngineInFlightPacksTest {
+
+    private final EntityId device1 = new DeviceId(UUID.randomUUID());
+    private final EntityId device2 = new DeviceId(UUID.randomUUID());
+
+    @Test
+    public void testWatermarkStopsAtOldestUnprocessedPack() {
+        TbRuleEngineInFlightPacks packs = new TbRuleEngineInFlightPacks();
+        CompletableFuture<Boolean> first = new CompletableFuture<>();
+        CompletableFuture<Boolean> second = new CompletableFuture<>();
+        CompletableFuture<Boolean> third = new CompletableFuture<>();
+        packs.add(1, Set.of(), first);
+        packs.add(2, Set.of(), second);
+        packs.add(3, Set.of(), third);
+
+        second.complete(true);
+        third.complete(true);
+        assertThat(packs.pollWatermark()).isEqualTo(-1);
+        assertThat(packs.size()).isEqualTo(3);
+
+        first.complete(true);
+        assertThat(packs.pollWatermark()).isEqualTo(3);
+        assertThat(packs.size()).isZero();
+    }
+
+    @Test
+    public void testStoppedPackIsNotCommitted() {
+        TbRuleEngineInFlightPacks packs = new TbRuleEngineInFlightPacks();
+        packs.add(1, Set.of(), CompletableFuture.completedFuture(true));
+        packs.add(2, Set.of(), CompletableFuture.completedFuture(false));
+
+        assertThat(packs.pollWatermark()).isEqualTo(1);
+        assertThat(packs.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testOrderingConflicts() {
+        TbRuleEngineInFlightPacks packs = new TbRuleEngineInFlightPacks();
+        CompletableFuture<Boolean> processing = new CompletableFuture<>();
+        packs.add(1, Set.of(device1), processing);
+
+        assertThat(packs.hasOrderingConflict(Set.of())).isFalse();
+        assertThat(packs.hasOrderingConflict(Set.of(device2))).isFalse();
+        assertThat(packs.hasOrderingConflict(Set.of(device1, device2))).isTrue();
+        assertThat(packs.hasOrderingConflict(null)).isTrue();
+
+        processing.complete(true);
+        assertThat(packs.hasOrderingConflict(Set.of(device1))).isFalse();
+        assertThat(packs.hasOrderingConflict(null)).isFalse();
+    }
+
+    @Test
+    public void testAwaitDoesNotReturnForCompletedPacksWhileHeadIsProcessed() throws Exception {
+        TbRuleEngineInFlightPacks packs = new TbRuleEngineInFlightPacks();
+        CompletableFuture<Boolean> head = new CompletableFuture<>();
+        packs.add(1, Set.of(device1), head);
+        packs.add(2, Set.of(device2), CompletableFuture.completedFuture(true));
+
+        long startTs = System.currentTimeMillis();
+        packs.awaitHead(200);
+        assertThat(System.currentTimeMillis() - startTs).isGreaterThanOrEqualTo(150);
+
+        startTs = System.currentTimeMillis();
+        packs.awaitAny(200);
+        assertThat(System.currentTimeMillis() - startTs).isGreaterThanOrEqualTo(150);
+
+        CompletableFuture.runAsync(() -> head.complete(true), CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
+        startTs = System.currentTimeMillis();
+        packs.awaitHead(5000);
+        assertThat(System.currentTimeMillis() - startTs).isLessThan(1000);
+        assertThat(packs.pollWatermark()).isEqualTo(2);
+    }
+
+    @Test
+    public void testFullyOrderedPackConflictsWithAnyPack() {
+        TbRuleEngineInFlightPacks packs = new TbRuleEngineInFlightPacks();
+        packs.add(1, null, new CompletableFuture<>());
+
+        assertThat(packs.hasOrderingConflict(Set.of())).isTrue();
+    }
+
+}
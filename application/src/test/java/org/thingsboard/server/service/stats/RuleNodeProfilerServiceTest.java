@@ -0,0 +1,94 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.stats;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.stats.DefaultStatsFactory;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RuleNodeProfilerServiceTest {
+
+    private final TenantId tenantId = new TenantId(UUID.randomUUID());
+    private SimpleMeterRegistry meterRegistry;
+    private RuleNodeProfilerService profilerService;
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        DefaultStatsFactory statsFactory = new DefaultStatsFactory();
+        ReflectionTestUtils.setField(statsFactory, "meterRegistry", meterRegistry);
+        profilerService = new RuleNodeProfilerService(statsFactory);
+        ReflectionTestUtils.setField(profilerService, "enabled", true);
+        ReflectionTestUtils.setField(profilerService, "percentilesStr", "0.5,0.99");
+        profilerService.init();
+    }
+
+    @Test
+    public void testLatenciesAreRecordedPerRuleNode() {
+        RuleNodeId ruleNodeId = new RuleNodeId(UUID.randomUUID());
+        RuleNodeProfilerService.RuleNodeProfile profile = profilerService.register(tenantId, ruleNodeId, "Root Rule Chain", "Save Timeseries");
+        profile.onQueueWait(TimeUnit.MILLISECONDS.toNanos(1));
+        profile.onProcessed(TimeUnit.MILLISECONDS.toNanos(2));
+        profilerService.onExecuted(ruleNodeId, TimeUnit.MILLISECONDS.toNanos(10));
+        profilerService.onExecuted(ruleNodeId, TimeUnit.MILLISECONDS.toNanos(20));
+
+        List<RuleNodeProfilerStats> stats = profilerService.getStats(tenantId);
+        assertThat(stats).hasSize(1);
+        RuleNodeProfilerStats nodeStats = stats.get(0);
+        assertThat(nodeStats.getRuleNodeId()).isEqualTo(ruleNodeId);
+        assertThat(nodeStats.getRuleChainName()).isEqualTo("Root Rule Chain");
+        assertThat(nodeStats.getRuleNodeName()).isEqualTo("Save Timeseries");
+        assertThat(nodeStats.getQueueWait().getCount()).isEqualTo(1);
+        assertThat(nodeStats.getProcessing().getMax()).isEqualTo(2.0);
+        assertThat(nodeStats.getExecution().getCount()).isEqualTo(2);
+        assertThat(nodeStats.getExecution().getMax()).isEqualTo(20.0);
+        assertThat(nodeStats.getExecution().getPercentiles()).containsKeys("p50", "p99");
+
+        assertThat(meterRegistry.find("ruleNode.execution").tag("ruleNodeId", ruleNodeId.getId().toString()).timer()).isNotNull();
+        assertThat(profilerService.getStats(new TenantId(UUID.randomUUID()))).isEmpty();
+    }
+
+    @Test
+    public void testUnregisteredRuleNodeIsNotReported() {
+        RuleNodeId ruleNodeId = new RuleNodeId(UUID.randomUUID());
+        profilerService.register(tenantId, ruleNodeId, "Root Rule Chain", "Filter");
+        assertThat(meterRegistry.find("ruleNode.queueWait").tag("ruleNodeId", ruleNodeId.getId().toString()).timer()).isNotNull();
+        profilerService.unregister(ruleNodeId);
+        profilerService.onExecuted(ruleNodeId, 1000);
+
+        assertThat(profilerService.getStats(tenantId)).isEmpty();
+        assertThat(meterRegistry.find("ruleNode.queueWait").tag("ruleNodeId", ruleNodeId.getId().toString()).timer()).isNull();
+        assertThat(meterRegistry.find("ruleNode.processing").tag("ruleNodeId", ruleNodeId.getId().toString()).timer()).isNull();
+        assertThat(meterRegistry.find("ruleNode.execution").tag("ruleNodeId", ruleNodeId.getId().toString()).timer()).isNull();
+    }
+
+    @Test
+    public void testDisabledProfiler() {
+        ReflectionTestUtils.setField(profilerService, "enabled", false);
+        assertThat(profilerService.register(tenantId, new RuleNodeId(UUID.randomUUID()), "Root Rule Chain", "Filter")).isNull();
+    }
+
+}
@@ -32,6 +32,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -48,15 +49,26 @@ public class DefaultTbActorSystem implements TbActorSystem {
     private final TbActorSystemSettings settings;
     @Getter
     private final ScheduledExecutorService scheduler;
+    private final Function<TbActorId, TbActorMailboxStats> mailboxStatsProvider;
 
     public DefaultTbActorSystem(TbActorSystemSettings settings) {
+        this(settings, actorId -> TbActorMailboxStats.NO_OP);
+    }
+
+    public DefaultTbActorSystem(TbActorSystemSettings settings, Function<TbActorId, TbActorMailboxStats> mailboxStatsProvider) {
         this.settings = settings;
+        this.mailboxStatsProvider = mailboxStatsProvider;
         this.scheduler = Executors.newScheduledThreadPool(settings.getSchedulerPoolSize(), ThingsBoardThreadFactory.forName("actor-system-scheduler"));
     }
 
     @Override
     public void createDispatcher(String dispatcherId, ExecutorService executor) {
-        Dispatcher current = dispatchers.putIfAbsent(dispatcherId, new Dispatcher(dispatcherId, executor));
+        createDispatcher(dispatcherId, executor, TbActorMailboxSettings.UNBOUNDED);
+    }
+
+    @Override
+    public void createDispatcher(String dispatcherId, ExecutorService executor, TbActorMailboxSettings mailboxSettings) {
+        Dispatcher current = dispatchers.putIfAbsent(dispatcherId, new Dispatcher(dispatcherId, executor, mailboxSettings));
         if (current != null) {
             throw new RuntimeException("Dispatcher with id [" + dispatcherId + "] is already registered!");
         }
@@ -113,7 +125,7 @@ public class DefaultTbActorSystem implements TbActorSystem {
                             throw new TbActorNotRegisteredException(parent, "Parent Actor with id [" + parent + "] is not registered!");
                         }
                     }
-                    TbActorMailbox mailbox = new TbActorMailbox(this, settings, actorId, parentRef, actor, dispatcher);
+                    TbActorMailbox mailbox = new TbActorMailbox(this, settings, actorId, parentRef, actor, dispatcher, mailboxStatsProvider.apply(actorId));
                     actors.put(actorId, mailbox);
                     mailbox.initActor();
                     actorMailbox = mailbox;
@@ -16,7 +16,6 @@
 package org.thingsboard.server.actors;
 
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.msg.MsgType;
@@ -25,15 +24,16 @@ import org.thingsboard.server.common.msg.TbActorMsg;
 import org.thingsboard.server.common.msg.TbActorStopReason;
 
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 @Slf4j
 @Getter
-@RequiredArgsConstructor
 public final class TbActorMailbox implements TbActorCtx {
     private static final boolean HIGH_PRIORITY = true;
     private static final boolean NORMAL_PRIORITY = false;
@@ -44,19 +44,36 @@ public final class TbActorMailbox implements TbActorCtx {
     private static final boolean NOT_READY = false;
     private static final boolean READY = true;
 
+    private static final long MAX_BACKPRESSURE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
     private final TbActorSystem system;
     private final TbActorSystemSettings settings;
     private final TbActorId selfId;
     private final TbActorRef parentRef;
     private final TbActor actor;
     private final Dispatcher dispatcher;
+    private final TbActorMailboxStats stats;
     private final ConcurrentLinkedQueue<TbActorMsg> highPriorityMsgs = new ConcurrentLinkedQueue<>();
-    private final ConcurrentLinkedQueue<TbActorMsg> normalPriorityMsgs = new ConcurrentLinkedQueue<>();
+    private final Queue<TbActorMsg> normalPriorityMsgs;
     private final AtomicBoolean busy = new AtomicBoolean(FREE);
     private final AtomicBoolean ready = new AtomicBoolean(NOT_READY);
     private final AtomicBoolean destroyInProgress = new AtomicBoolean();
     private volatile TbActorStopReason stopReason;
 
+    public TbActorMailbox(TbActorSystem system, TbActorSystemSettings settings, TbActorId selfId, TbActorRef parentRef,
+                          TbActor actor, Dispatcher dispatcher, TbActorMailboxStats stats) {
+        this.system = system;
+        this.settings = settings;
+        this.selfId = selfId;
+        this.parentRef = parentRef;
+        this.actor = actor;
+        this.dispatcher = dispatcher;
+        this.stats = stats;
+        TbActorMailboxSettings mailboxSettings = dispatcher.getMailboxSettings();
+        this.normalPriorityMsgs = mailboxSettings.isBounded() ?
+                new TbMpscArrayQueue<>(mailboxSettings.getCapacity()) : new ConcurrentLinkedQueue<>();
+    }
+
     public void initActor() {
         dispatcher.getExecutor().execute(() -> tryInit(1));
     }
@@ -107,9 +124,10 @@ public final class TbActorMailbox implements TbActorCtx {
         if (!destroyInProgress.get()) {
             if (highPriority) {
                 highPriorityMsgs.add(msg);
-            } else {
-                normalPriorityMsgs.add(msg);
+            } else if (!normalPriorityMsgs.offer(msg) && !onMailboxFull(msg)) {
+                return;
             }
+            stats.onMsgEnqueued();
             tryProcessQueue(true);
         } else {
             if (highPriority && msg.getMsgType().equals(MsgType.RULE_NODE_UPDATED_MSG)) {
@@ -128,6 +146,45 @@ public final class TbActorMailbox implements TbActorCtx {
         }
     }
 
+    /**
+     * @return true if the message was enqueued after waiting for the free space
+     */
+    private boolean onMailboxFull(TbActorMsg msg) {
+        TbActorMailboxSettings mailboxSettings = dispatcher.getMailboxSettings();
+        switch (mailboxSettings.getOverflowStrategy()) {
+            case DROP:
+                log.debug("[{}] Mailbox is full, dropping message: {}", selfId, msg);
+                stats.onMsgDropped();
+                // the sender still has to be notified, e.g. to fail the callback of the queue msg instead of waiting for the pack timeout
+                msg.onTbActorStopped(TbActorStopReason.MAILBOX_FULL);
+                return false;
+            case BACKPRESSURE:
+                if (awaitFreeSpace(msg, mailboxSettings.getBackpressureTimeoutMs())) {
+                    return true;
+                }
+                break;
+        }
+        log.debug("[{}] Mailbox is full, rejecting message: {}", selfId, msg);
+        stats.onMsgRejected();
+        msg.onTbActorStopped(TbActorStopReason.MAILBOX_FULL);
+        return false;
+    }
+
+    private boolean awaitFreeSpace(TbActorMsg msg, long timeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        long parkNanos = 1000;
+        // make sure the mailbox is being processed while the sender waits
+        tryProcessQueue(true);
+        while (!destroyInProgress.get() && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(parkNanos);
+            if (normalPriorityMsgs.offer(msg)) {
+                return true;
+            }
+            parkNanos = Math.min(parkNanos * 2, MAX_BACKPRESSURE_PARK_NANOS);
+        }
+        return false;
+    }
+
     private void tryProcessQueue(boolean newMsg) {
         if (ready.get() == READY) {
             if (newMsg || !highPriorityMsgs.isEmpty() || !normalPriorityMsgs.isEmpty()) {
@@ -146,12 +203,16 @@ public final class TbActorMailbox implements TbActorCtx {
 
     private void processMailbox() {
         boolean noMoreElements = false;
+        int processed = 0;
+        long startNanos = System.nanoTime();
         for (int i = 0; i < settings.getActorThroughput(); i++) {
             TbActorMsg msg = highPriorityMsgs.poll();
             if (msg == null) {
                 msg = normalPriorityMsgs.poll();
             }
             if (msg != null) {
+                stats.onMsgDequeued();
+                processed++;
                 try {
                     log.debug("[{}] Going to process message: {}", selfId, msg);
                     actor.process(msg);
@@ -170,9 +231,17 @@ public final class TbActorMailbox implements TbActorCtx {
                 break;
             }
         }
+        if (processed > 0) {
+            stats.onMailboxDrained(processed, System.nanoTime() - startNanos);
+        }
         if (noMoreElements) {
             busy.set(FREE);
-            dispatcher.getExecutor().execute(() -> tryProcessQueue(false));
+            if (destroyInProgress.get()) {
+                notifyStoppedMsgs();
+            } else {
+                // messages added after the last poll but before the mailbox became free
+                tryProcessQueue(false);
+            }
         } else {
             dispatcher.getExecutor().execute(this::processMailbox);
         }
@@ -237,14 +306,31 @@ public final class TbActorMailbox implements TbActorCtx {
             try {
                 ready.set(NOT_READY);
                 actor.destroy(stopReason, cause);
-                highPriorityMsgs.forEach(msg -> msg.onTbActorStopped(stopReason));
-                normalPriorityMsgs.forEach(msg -> msg.onTbActorStopped(stopReason));
+                notifyStoppedMsgs();
             } catch (Throwable t) {
                 log.warn("[{}] Failed to destroy actor: {}", selfId, t);
             }
         });
     }
 
+    /*
+     * Mailbox queue has a single consumer, so pending messages are drained only if the mailbox is not processed at the moment.
+     * Otherwise, they are drained by the processing task when it completes.
+     */
+    private void notifyStoppedMsgs() {
+        if (busy.compareAndSet(FREE, BUSY)) {
+            try {
+                TbActorMsg msg;
+                while ((msg = highPriorityMsgs.poll()) != null || (msg = normalPriorityMsgs.poll()) != null) {
+                    stats.onMsgDequeued();
+                    msg.onTbActorStopped(stopReason);
+                }
+            } finally {
+                busy.set(FREE);
+            }
+        }
+    }
+
     @Override
     public TbActorId getActorId() {
         return selfId;
@@ -0,0 +1,36 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors;
+
+/**
+ * What to do with a message when the bounded mailbox of the actor is full.
+ */
+public enum TbActorMailboxOverflowStrategy {
+
+    /**
+     * Message is discarded and notified with {@link org.thingsboard.server.common.msg.TbActorStopReason#MAILBOX_FULL}, counted as dropped.
+     */
+    DROP,
+    /**
+     * Message is discarded and notified with {@link org.thingsboard.server.common.msg.TbActorStopReason#MAILBOX_FULL}, counted as rejected.
+     */
+    REJECT,
+    /**
+     * Sender waits for the free space up to the backpressure timeout, then the message is rejected.
+     */
+    BACKPRESSURE
+
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors;
+
+/**
+ * Mailbox metrics. One instance is shared by the mailboxes of the same actor type.
+ */
+public interface TbActorMailboxStats {
+
+    TbActorMailboxStats NO_OP = new TbActorMailboxStats() {
+    };
+
+    default void onMsgEnqueued() {
+    }
+
+    default void onMsgDequeued() {
+    }
+
+    default void onMsgDropped() {
+    }
+
+    default void onMsgRejected() {
+    }
+
+    default void onMailboxDrained(int msgCount, long durationNanos) {
+    }
+
+}
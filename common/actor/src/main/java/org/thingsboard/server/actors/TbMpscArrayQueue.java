@@ -0,0 +1,116 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for multiple producers and a single consumer, backed by a ring buffer.
+ * {@link #poll()} and {@link #peek()} must be called by one thread at a time. Iteration is not supported.
+ */
+final class TbMpscArrayQueue<E> extends AbstractQueue<E> {
+
+    private final AtomicReferenceArray<E> buffer;
+    private final int mask;
+    private final int capacity;
+    private final AtomicLong producerIndex = new AtomicLong();
+    private final AtomicLong consumerIndex = new AtomicLong();
+
+    TbMpscArrayQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int actualCapacity = Integer.highestOneBit(capacity);
+        if (actualCapacity < capacity) {
+            actualCapacity <<= 1;
+        }
+        this.capacity = actualCapacity;
+        this.mask = actualCapacity - 1;
+        this.buffer = new AtomicReferenceArray<>(actualCapacity);
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        long index;
+        do {
+            index = producerIndex.get();
+            if (index - consumerIndex.get() >= capacity) {
+                return false;
+            }
+        } while (!producerIndex.compareAndSet(index, index + 1));
+        buffer.lazySet((int) index & mask, e);
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        long index = consumerIndex.get();
+        int offset = (int) index & mask;
+        E e = buffer.get(offset);
+        if (e == null) {
+            if (index == producerIndex.get()) {
+                return null;
+            }
+            // slot is claimed by the producer, but the element is not published yet
+            do {
+                Thread.onSpinWait();
+                e = buffer.get(offset);
+            } while (e == null);
+        }
+        buffer.lazySet(offset, null);
+        consumerIndex.lazySet(index + 1);
+        return e;
+    }
+
+    @Override
+    public E peek() {
+        long index = consumerIndex.get();
+        int offset = (int) index & mask;
+        E e = buffer.get(offset);
+        while (e == null && index != producerIndex.get()) {
+            Thread.onSpinWait();
+            e = buffer.get(offset);
+        }
+        return e;
+    }
+
+    @Override
+    public int size() {
+        long size = producerIndex.get() - consumerIndex.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return producerIndex.get() == consumerIndex.get();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        throw new UnsupportedOperationException();
+    }
+
+}
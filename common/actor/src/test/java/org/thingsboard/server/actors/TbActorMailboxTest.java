@@ -0,0 +1,183 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+import org.thingsboard.server.common.msg.MsgType;
+import org.thingsboard.server.common.msg.TbActorMsg;
+import org.thingsboard.server.common.msg.TbActorStopReason;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+
+public class TbActorMailboxTest {
+
+    private static final int CAPACITY = 2;
+
+    private final List<Integer> processed = new CopyOnWriteArrayList<>();
+    private final CountDownLatch processingStarted = new CountDownLatch(1);
+    private final CountDownLatch processingReleased = new CountDownLatch(1);
+    private final AtomicInteger dropped = new AtomicInteger();
+    private final AtomicInteger rejected = new AtomicInteger();
+
+    private ExecutorService dispatcherExecutor;
+    private ExecutorService senderExecutor;
+
+    @Before
+    public void setUp() {
+        dispatcherExecutor = Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName(getClass().getSimpleName()));
+        senderExecutor = Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName(getClass().getSimpleName() + "-sender"));
+    }
+
+    @After
+    public void tearDown() {
+        processingReleased.countDown();
+        senderExecutor.shutdownNow();
+        dispatcherExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testDropNotifiesDroppedMsg() throws Exception {
+        TbActorMailbox mailbox = createFullMailbox(TbActorMailboxOverflowStrategy.DROP, 0);
+
+        TestMsg msg = new TestMsg(CAPACITY + 1);
+        mailbox.tell(msg);
+
+        Assert.assertEquals(TbActorStopReason.MAILBOX_FULL, msg.stopReason);
+        Assert.assertEquals(1, dropped.get());
+        Assert.assertEquals(0, rejected.get());
+
+        processingReleased.countDown();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> processed.size() == CAPACITY + 1);
+        Assert.assertEquals(List.of(0, 1, 2), processed);
+    }
+
+    @Test
+    public void testBackpressureWaitsForFreeSpace() throws Exception {
+        TbActorMailbox mailbox = createFullMailbox(TbActorMailboxOverflowStrategy.BACKPRESSURE, TimeUnit.SECONDS.toMillis(30));
+
+        TestMsg msg = new TestMsg(CAPACITY + 1);
+        Future<?> sent = senderExecutor.submit(() -> mailbox.tell(msg));
+        Assert.assertThrows(TimeoutException.class, () -> sent.get(100, TimeUnit.MILLISECONDS));
+
+        processingReleased.countDown();
+        sent.get(5, TimeUnit.SECONDS);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> processed.size() == CAPACITY + 2);
+
+        Assert.assertEquals(List.of(0, 1, 2, 3), processed);
+        Assert.assertNull(msg.stopReason);
+        Assert.assertEquals(0, rejected.get());
+    }
+
+    @Test
+    public void testBackpressureRejectsMsgOnTimeout() throws Exception {
+        TbActorMailbox mailbox = createFullMailbox(TbActorMailboxOverflowStrategy.BACKPRESSURE, 100);
+
+        TestMsg msg = new TestMsg(CAPACITY + 1);
+        senderExecutor.submit(() -> mailbox.tell(msg)).get(5, TimeUnit.SECONDS);
+
+        Assert.assertEquals(TbActorStopReason.MAILBOX_FULL, msg.stopReason);
+        Assert.assertEquals(1, rejected.get());
+        Assert.assertEquals(List.of(0), processed);
+    }
+
+    /*
+     * First msg blocks the only dispatcher thread, so the next ones stay in the mailbox until it is full.
+     */
+    private TbActorMailbox createFullMailbox(TbActorMailboxOverflowStrategy overflowStrategy, long backpressureTimeoutMs) throws Exception {
+        TbActorMailboxSettings mailboxSettings = new TbActorMailboxSettings(CAPACITY, overflowStrategy, backpressureTimeoutMs);
+        Dispatcher dispatcher = new Dispatcher("test-dispatcher", dispatcherExecutor, mailboxSettings);
+        TbActorMailboxStats stats = new TbActorMailboxStats() {
+            @Override
+            public void onMsgDropped() {
+                dropped.incrementAndGet();
+            }
+
+            @Override
+            public void onMsgRejected() {
+                rejected.incrementAndGet();
+            }
+        };
+        TbActorMailbox mailbox = new TbActorMailbox(mock(TbActorSystem.class), new TbActorSystemSettings(5, 1, 1),
+                new TbStringActorId("test"), null, new BlockingActor(), dispatcher, stats);
+        mailbox.initActor();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> mailbox.getReady().get());
+
+        mailbox.tell(new TestMsg(0));
+        Assert.assertTrue(processingStarted.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= CAPACITY; i++) {
+            mailbox.tell(new TestMsg(i));
+        }
+        return mailbox;
+    }
+
+    private class BlockingActor implements TbActor {
+
+        @Override
+        public boolean process(TbActorMsg msg) {
+            processed.add(((TestMsg) msg).value);
+            processingStarted.countDown();
+            try {
+                processingReleased.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        }
+
+        @Override
+        public TbActorRef getActorRef() {
+            return null;
+        }
+
+    }
+
+    private static class TestMsg implements TbActorMsg {
+
+        private final int value;
+        private volatile TbActorStopReason stopReason;
+
+        private TestMsg(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public MsgType getMsgType() {
+            return MsgType.QUEUE_TO_RULE_ENGINE_MSG;
+        }
+
+        @Override
+        public void onTbActorStopped(TbActorStopReason reason) {
+            stopReason = reason;
+        }
+
+    }
+
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class TbMpscArrayQueueTest {
+
+    @Test
+    public void testCapacityIsRoundedUpToPowerOfTwo() {
+        Assert.assertEquals(8, new TbMpscArrayQueue<Integer>(5).capacity());
+        Assert.assertEquals(8, new TbMpscArrayQueue<Integer>(8).capacity());
+        Assert.assertEquals(1, new TbMpscArrayQueue<Integer>(1).capacity());
+    }
+
+    @Test
+    public void testOfferFailsWhenFull() {
+        TbMpscArrayQueue<Integer> queue = new TbMpscArrayQueue<>(4);
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(queue.offer(i));
+        }
+        Assert.assertFalse(queue.offer(4));
+        Assert.assertEquals(4, queue.size());
+
+        Assert.assertEquals(Integer.valueOf(0), queue.poll());
+        Assert.assertTrue(queue.offer(4));
+        for (int i = 1; i <= 4; i++) {
+            Assert.assertEquals(Integer.valueOf(i), queue.poll());
+        }
+        Assert.assertNull(queue.poll());
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testMultipleProducersKeepPerProducerOrder() throws InterruptedException {
+        int producers = 4;
+        int msgsPerProducer = 100_000;
+        TbMpscArrayQueue<long[]> queue = new TbMpscArrayQueue<>(1024);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            for (int p = 0; p < producers; p++) {
+                long producer = p;
+                executor.submit(() -> {
+                    started.await();
+                    for (long i = 0; i < msgsPerProducer; i++) {
+                        long[] msg = {producer, i};
+                        while (!queue.offer(msg)) {
+                            Thread.onSpinWait();
+                        }
+                    }
+                    return null;
+                });
+            }
+            started.countDown();
+
+            List<Long> lastSeen = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                lastSeen.add(-1L);
+            }
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+            int received = 0;
+            while (received < producers * msgsPerProducer && System.currentTimeMillis() < deadline) {
+                long[] msg = queue.poll();
+                if (msg == null) {
+                    continue;
+                }
+                int producer = (int) msg[0];
+                Assert.assertEquals(lastSeen.get(producer) + 1, msg[1]);
+                lastSeen.set(producer, msg[1]);
+                received++;
+            }
+            Assert.assertEquals(producers * msgsPerProducer, received);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
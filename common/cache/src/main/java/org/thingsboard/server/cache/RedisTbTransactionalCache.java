@@ -55,7 +55,9 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
     private final JedisConnectionFactory connectionFactory;
     private final RedisSerializer<String> keySerializer = StringRedisSerializer.UTF_8;
     private final TbRedisSerializer<K, V> valueSerializer;
+    @Getter
     private final Expiration evictExpiration;
+    @Getter
     private final Expiration cacheTtl;
 
     public RedisTbTransactionalCache(String cacheName,
@@ -80,19 +82,23 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
         try (var connection = connectionFactory.getConnection()) {
             byte[] rawKey = getRawKey(key);
             byte[] rawValue = connection.get(rawKey);
-            if (rawValue == null) {
-                return null;
-            } else if (Arrays.equals(rawValue, BINARY_NULL_VALUE)) {
-                return SimpleTbCacheValueWrapper.empty();
-            } else {
-                long startTime = System.nanoTime();
-                V value = valueSerializer.deserialize(key, rawValue);
-                if (value != null) {
-                    fstStatsService.recordDecodeTime(value.getClass(), startTime);
-                    fstStatsService.incrementDecode(value.getClass());
-                }
-                return SimpleTbCacheValueWrapper.wrap(value);
+            return toValueWrapper(key, rawValue);
+        }
+    }
+
+    protected TbCacheValueWrapper<V> toValueWrapper(K key, byte[] rawValue) {
+        if (rawValue == null) {
+            return null;
+        } else if (Arrays.equals(rawValue, BINARY_NULL_VALUE)) {
+            return SimpleTbCacheValueWrapper.empty();
+        } else {
+            long startTime = System.nanoTime();
+            V value = valueSerializer.deserialize(key, rawValue);
+            if (value != null) {
+                fstStatsService.recordDecodeTime(value.getClass(), startTime);
+                fstStatsService.incrementDecode(value.getClass());
             }
+            return SimpleTbCacheValueWrapper.wrap(value);
         }
     }
 
@@ -153,7 +159,7 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
         return new RedisTbCacheTransaction<>(this, connection);
     }
 
-    private RedisConnection getConnection(byte[] rawKey) {
+    protected RedisConnection getConnection(byte[] rawKey) {
         if (!connectionFactory.isRedisClusterAware()) {
             return connectionFactory.getConnection();
         }
@@ -180,7 +186,7 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
         return connection;
     }
 
-    private byte[] getRawKey(K key) {
+    protected byte[] getRawKey(K key) {
         String keyString = cacheName + key.toString();
         byte[] rawKey;
         try {
@@ -196,7 +202,7 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
         return rawKey;
     }
 
-    private byte[] getRawValue(V value) {
+    protected byte[] getRawValue(V value) {
         if (value == null) {
             return BINARY_NULL_VALUE;
         } else {
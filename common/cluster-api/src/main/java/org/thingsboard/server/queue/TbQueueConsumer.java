@@ -36,6 +36,28 @@ public interface TbQueueConsumer<T extends TbQueueMsg> {
 
     void commit();
 
+    /**
+     * @return true if messages of a poll can be committed with {@link #commit(long)} while messages of the later polls are still processed
+     */
+    default boolean isPollCommitSupported() {
+        return false;
+    }
+
+    /**
+     * @return sequence number of the last poll that returned messages
+     */
+    default long getLastPollSeq() {
+        return 0;
+    }
+
+    /**
+     * Commits messages returned by the polls up to and including the poll with the given sequence number.
+     * Messages of the later polls stay uncommitted.
+     */
+    default void commit(long pollSeq) {
+        throw new UnsupportedOperationException("Poll commit is not supported by " + getClass().getSimpleName());
+    }
+
     boolean isStopped();
 
     List<String> getFullTopicNames();
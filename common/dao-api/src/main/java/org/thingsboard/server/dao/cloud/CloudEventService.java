@@ -28,6 +28,7 @@ import org.thingsboard.server.common.data.page.TimePageLink;
 
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.function.IntConsumer;
 
 public interface CloudEventService {
 
@@ -54,4 +55,10 @@ public interface CloudEventService {
     ListenableFuture<List<String>> saveEdgeSettings(TenantId tenantId, EdgeSettings edgeSettings);
 
     void cleanupEvents(long ttl);
+
+    /**
+     * Registers listener that is notified with the number of cloud events every time a batch of events is committed.
+     * Listener is called from the storage thread and must not block.
+     */
+    void registerNewCloudEventsListener(IntConsumer listener);
 }
\ No newline at end of file
@@ -37,6 +37,10 @@ public class CloudEvent extends BaseData<CloudEventId> {
     private UUID entityId;
     private CloudEventType type;
     private transient JsonNode entityBody;
+    /**
+     * Pre-encoded {@code CloudEventEntityDataProto} of telemetry and attribute events, used instead of {@link #entityBody} when set.
+     */
+    private transient byte[] entityBodyProto;
 
     public CloudEvent() {
         super();
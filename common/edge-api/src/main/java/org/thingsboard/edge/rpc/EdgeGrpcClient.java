@@ -35,6 +35,7 @@ import org.thingsboard.server.gen.edge.v1.DownlinkResponseMsg;
 import org.thingsboard.server.gen.edge.v1.EdgeConfiguration;
 import org.thingsboard.server.gen.edge.v1.EdgeRpcServiceGrpc;
 import org.thingsboard.server.gen.edge.v1.EdgeVersion;
+import org.thingsboard.server.gen.edge.v1.EntityTypeDigestProto;
 import org.thingsboard.server.gen.edge.v1.RequestMsg;
 import org.thingsboard.server.gen.edge.v1.RequestMsgType;
 import org.thingsboard.server.gen.edge.v1.ResponseMsg;
@@ -43,6 +44,8 @@ import org.thingsboard.server.gen.edge.v1.UplinkMsg;
 import org.thingsboard.server.gen.edge.v1.UplinkResponseMsg;
 
 import javax.net.ssl.SSLException;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
@@ -222,10 +225,16 @@ public class EdgeGrpcClient implements EdgeRpcClient {
 
     @Override
     public void sendSyncRequestMsg(boolean fullSyncRequired) {
+        sendSyncRequestMsg(fullSyncRequired, Collections.emptyList());
+    }
+
+    @Override
+    public void sendSyncRequestMsg(boolean fullSyncRequired, List<EntityTypeDigestProto> entityDigests) {
         uplinkMsgLock.lock();
         try {
             SyncRequestMsg syncRequestMsg = SyncRequestMsg.newBuilder()
                     .setFullSync(fullSyncRequired)
+                    .addAllEntityDigests(entityDigests)
                     .build();
             this.inputStream.onNext(RequestMsg.newBuilder()
                     .setMsgType(RequestMsgType.SYNC_REQUEST_RPC_MESSAGE)
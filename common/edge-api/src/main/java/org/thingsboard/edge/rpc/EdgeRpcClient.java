@@ -18,9 +18,11 @@ package org.thingsboard.edge.rpc;
 import org.thingsboard.server.gen.edge.v1.DownlinkMsg;
 import org.thingsboard.server.gen.edge.v1.DownlinkResponseMsg;
 import org.thingsboard.server.gen.edge.v1.EdgeConfiguration;
+import org.thingsboard.server.gen.edge.v1.EntityTypeDigestProto;
 import org.thingsboard.server.gen.edge.v1.UplinkMsg;
 import org.thingsboard.server.gen.edge.v1.UplinkResponseMsg;
 
+import java.util.List;
 import java.util.function.Consumer;
 
 public interface EdgeRpcClient {
@@ -36,6 +38,8 @@ public interface EdgeRpcClient {
 
     void sendSyncRequestMsg(boolean fullSyncRequired);
 
+    void sendSyncRequestMsg(boolean fullSyncRequired, List<EntityTypeDigestProto> entityDigests);
+
     void sendUplinkMsg(UplinkMsg uplinkMsg);
 
     void sendDownlinkResponseMsg(DownlinkResponseMsg downlinkResponseMsg);
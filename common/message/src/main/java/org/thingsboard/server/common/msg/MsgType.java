@@ -87,6 +87,11 @@ public enum MsgType {
      */
     RULE_TO_SELF_MSG,
 
+    /**
+     * Message that is sent by RuleActor implementation to RuleActor itself to process the collected batch of messages.
+     */
+    RULE_NODE_BATCH_FLUSH_MSG,
+
     DEVICE_ATTRIBUTES_UPDATE_TO_DEVICE_ACTOR_MSG,
 
     DEVICE_CREDENTIALS_UPDATE_TO_DEVICE_ACTOR_MSG,
@@ -17,6 +17,6 @@ package org.thingsboard.server.common.msg;
 
 public enum TbActorStopReason {
 
-    INIT_FAILED, STOPPED
+    INIT_FAILED, STOPPED, MAILBOX_FULL
 
 }
@@ -16,11 +16,15 @@
 package org.thingsboard.server.common.msg;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
 import lombok.AccessLevel;
 import lombok.Data;
 import lombok.Getter;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.StringUtils;
@@ -48,6 +52,8 @@ public final class TbMsg implements Serializable {
     public static final String EMPTY_JSON_ARRAY = "[]";
     public static final String EMPTY_STRING = "";
 
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
     private final String queueName;
     private final UUID id;
     private final long ts;
@@ -69,6 +75,12 @@ public final class TbMsg implements Serializable {
     @JsonIgnore
     transient private final TbMsgCallback callback;
 
+    //Lazily parsed msg data. Shared by the copies of this msg that carry the same data; never serialized
+    @JsonIgnore
+    @Getter(value = AccessLevel.NONE)
+    @ToString.Exclude
+    transient private final ParsedData parsedData;
+
     public int getAndIncrementRuleNodeCounter() {
         return ctx.getAndIncrementRuleNodeCounter();
     }
@@ -277,42 +289,42 @@ public final class TbMsg implements Serializable {
 
     public static TbMsg transformMsgOriginator(TbMsg tbMsg, EntityId originatorId) {
         return new TbMsg(tbMsg.queueName, tbMsg.id, tbMsg.ts, tbMsg.internalType, tbMsg.type, originatorId, tbMsg.getCustomerId(), tbMsg.metaData, tbMsg.dataType,
-                tbMsg.data, tbMsg.ruleChainId, tbMsg.ruleNodeId, tbMsg.ctx.copy(), tbMsg.getCallback());
+                tbMsg.data, tbMsg.ruleChainId, tbMsg.ruleNodeId, tbMsg.ctx.copy(), tbMsg.getCallback(), tbMsg.parsedData);
     }
 
     public static TbMsg transformMsgData(TbMsg tbMsg, String data) {
         return new TbMsg(tbMsg.queueName, tbMsg.id, tbMsg.ts, tbMsg.internalType, tbMsg.type, tbMsg.originator, tbMsg.customerId, tbMsg.metaData, tbMsg.dataType,
-                data, tbMsg.ruleChainId, tbMsg.ruleNodeId, tbMsg.ctx.copy(), tbMsg.getCallback());
+                data, tbMsg.ruleChainId, tbMsg.ruleNodeId, tbMsg.ctx.copy(), tbMsg.getCallback(), tbMsg.parsedDataFor(data));
     }
 
     public static TbMsg transformMsgMetadata(TbMsg tbMsg, TbMsgMetaData metadata) {
         return new TbMsg(tbMsg.queueName, tbMsg.id, tbMsg.ts, tbMsg.internalType, tbMsg.type, tbMsg.originator, tbMsg.customerId, metadata.copy(), tbMsg.dataType,
-                tbMsg.data, tbMsg.ruleChainId, tbMsg.ruleNodeId, tbMsg.ctx.copy(), tbMsg.getCallback());
+                tbMsg.data, tbMsg.ruleChainId, tbMsg.ruleNodeId, tbMsg.ctx.copy(), tbMsg.getCallback(), tbMsg.parsedData);
     }
 
     public static TbMsg transformMsg(TbMsg tbMsg, TbMsgMetaData metadata, String data) {
         return new TbMsg(tbMsg.queueName, tbMsg.id, tbMsg.ts, tbMsg.internalType, tbMsg.type, tbMsg.originator, tbMsg.customerId, metadata, tbMsg.dataType,
-                data, tbMsg.ruleChainId, tbMsg.ruleNodeId, tbMsg.ctx.copy(), tbMsg.getCallback());
+                data, tbMsg.ruleChainId, tbMsg.ruleNodeId, tbMsg.ctx.copy(), tbMsg.getCallback(), tbMsg.parsedDataFor(data));
     }
 
     public static TbMsg transformMsgCustomerId(TbMsg tbMsg, CustomerId customerId) {
         return new TbMsg(tbMsg.queueName, tbMsg.id, tbMsg.ts, tbMsg.internalType, tbMsg.type, tbMsg.originator, customerId, tbMsg.metaData, tbMsg.dataType,
-                tbMsg.data, tbMsg.ruleChainId, tbMsg.ruleNodeId, tbMsg.ctx.copy(), tbMsg.getCallback());
+                tbMsg.data, tbMsg.ruleChainId, tbMsg.ruleNodeId, tbMsg.ctx.copy(), tbMsg.getCallback(), tbMsg.parsedData);
     }
 
     public static TbMsg transformMsgRuleChainId(TbMsg tbMsg, RuleChainId ruleChainId) {
         return new TbMsg(tbMsg.queueName, tbMsg.id, tbMsg.ts, tbMsg.internalType, tbMsg.type, tbMsg.originator, tbMsg.customerId, tbMsg.metaData, tbMsg.dataType,
-                tbMsg.data, ruleChainId, null, tbMsg.ctx.copy(), tbMsg.getCallback());
+                tbMsg.data, ruleChainId, null, tbMsg.ctx.copy(), tbMsg.getCallback(), tbMsg.parsedData);
     }
 
     public static TbMsg transformMsgQueueName(TbMsg tbMsg, String queueName) {
         return new TbMsg(queueName, tbMsg.id, tbMsg.ts, tbMsg.internalType, tbMsg.type, tbMsg.originator, tbMsg.customerId, tbMsg.metaData, tbMsg.dataType,
-                tbMsg.data, tbMsg.getRuleChainId(), null, tbMsg.ctx.copy(), tbMsg.getCallback());
+                tbMsg.data, tbMsg.getRuleChainId(), null, tbMsg.ctx.copy(), tbMsg.getCallback(), tbMsg.parsedData);
     }
 
     public static TbMsg transformMsg(TbMsg tbMsg, RuleChainId ruleChainId, String queueName) {
         return new TbMsg(queueName, tbMsg.id, tbMsg.ts, tbMsg.internalType, tbMsg.type, tbMsg.originator, tbMsg.customerId, tbMsg.metaData, tbMsg.dataType,
-                tbMsg.data, ruleChainId, null, tbMsg.ctx.copy(), tbMsg.getCallback());
+                tbMsg.data, ruleChainId, null, tbMsg.ctx.copy(), tbMsg.getCallback(), tbMsg.parsedData);
     }
 
     //used for enqueueForTellNext
@@ -328,6 +340,11 @@ public final class TbMsg implements Serializable {
 
     private TbMsg(String queueName, UUID id, long ts, TbMsgType internalType, String type, EntityId originator, CustomerId customerId, TbMsgMetaData metaData, TbMsgDataType dataType, String data,
                   RuleChainId ruleChainId, RuleNodeId ruleNodeId, TbMsgProcessingCtx ctx, TbMsgCallback callback) {
+        this(queueName, id, ts, internalType, type, originator, customerId, metaData, dataType, data, ruleChainId, ruleNodeId, ctx, callback, null);
+    }
+
+    private TbMsg(String queueName, UUID id, long ts, TbMsgType internalType, String type, EntityId originator, CustomerId customerId, TbMsgMetaData metaData, TbMsgDataType dataType, String data,
+                  RuleChainId ruleChainId, RuleNodeId ruleNodeId, TbMsgProcessingCtx ctx, TbMsgCallback callback, ParsedData parsedData) {
         this.id = id;
         this.queueName = queueName;
         if (ts > 0) {
@@ -354,6 +371,7 @@ public final class TbMsg implements Serializable {
         this.ruleNodeId = ruleNodeId;
         this.ctx = ctx != null ? ctx : new TbMsgProcessingCtx();
         this.callback = Objects.requireNonNullElse(callback, TbMsgCallback.EMPTY);
+        this.parsedData = parsedData != null ? parsedData : new ParsedData();
     }
 
     public static ByteString toByteString(TbMsg msg) {
@@ -435,17 +453,45 @@ public final class TbMsg implements Serializable {
 
     public TbMsg copyWithRuleChainId(RuleChainId ruleChainId, UUID msgId) {
         return new TbMsg(this.queueName, msgId, this.ts, this.internalType, this.type, this.originator, this.customerId,
-                this.metaData, this.dataType, this.data, ruleChainId, null, this.ctx, callback);
+                this.metaData, this.dataType, this.data, ruleChainId, null, this.ctx, callback, parsedData);
     }
 
     public TbMsg copyWithRuleNodeId(RuleChainId ruleChainId, RuleNodeId ruleNodeId, UUID msgId) {
         return new TbMsg(this.queueName, msgId, this.ts, this.internalType, this.type, this.originator, this.customerId,
-                this.metaData, this.dataType, this.data, ruleChainId, ruleNodeId, this.ctx, callback);
+                this.metaData, this.dataType, this.data, ruleChainId, ruleNodeId, this.ctx, callback, parsedData);
     }
 
     public TbMsg copyWithNewCtx() {
         return new TbMsg(this.queueName, this.id, this.ts, this.internalType, this.type, this.originator, this.customerId,
-                this.metaData, this.dataType, this.data, ruleChainId, ruleNodeId, this.ctx.copy(), TbMsgCallback.EMPTY);
+                this.metaData, this.dataType, this.data, ruleChainId, ruleNodeId, this.ctx.copy(), TbMsgCallback.EMPTY, parsedData);
+    }
+
+    /**
+     * Returns the msg data parsed as JSON. The result is parsed once and then shared by this msg and
+     * all its copies that carry the same data (e.g. after the originator or metadata were changed),
+     * so the returned node <b>must not be modified</b>. Use {@link JsonNode#deepCopy()} to build a new msg body.
+     *
+     * @return parsed msg data or {@code null} if the data is empty
+     * @throws IllegalArgumentException if the data is not a valid JSON
+     */
+    @JsonIgnore
+    public JsonNode getDataAsJson() {
+        // May be null in case of deserialization;
+        ParsedData parsedData = this.parsedData != null ? this.parsedData : new ParsedData();
+        JsonNode json = parsedData.json;
+        if (json == null && StringUtils.isNotEmpty(data)) {
+            try {
+                json = JSON_MAPPER.readTree(data);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("The given string value cannot be transformed to Json object: " + data, e);
+            }
+            parsedData.json = json;
+        }
+        return json;
+    }
+
+    private ParsedData parsedDataFor(String data) {
+        return parsedData != null && Objects.equals(this.data, data) ? parsedData : null;
     }
 
     public TbMsgCallback getCallback() {
@@ -501,4 +547,8 @@ public final class TbMsg implements Serializable {
         return false;
     }
 
+    private static final class ParsedData {
+        private volatile JsonNode json;
+    }
+
 }
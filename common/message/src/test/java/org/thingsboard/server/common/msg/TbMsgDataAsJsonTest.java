@@ -0,0 +1,79 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.msg;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.JavaSerDesUtil;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.msg.TbMsgType;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TbMsgDataAsJsonTest {
+
+    private final DeviceId deviceId = new DeviceId(UUID.randomUUID());
+
+    @Test
+    void testDataIsParsedOnceAndSharedWithCopiesOfSameData() {
+        TbMsg msg = TbMsg.newMsg(TbMsgType.POST_TELEMETRY_REQUEST, deviceId, TbMsgMetaData.EMPTY, "{\"temperature\":42}");
+        JsonNode json = msg.getDataAsJson();
+        assertThat(json.get("temperature").asInt()).isEqualTo(42);
+        assertThat(msg.getDataAsJson()).isSameAs(json);
+
+        TbMsgMetaData metaData = new TbMsgMetaData();
+        metaData.putValue("key", "value");
+        TbMsg withNewMetadata = TbMsg.transformMsgMetadata(msg, metaData);
+        assertThat(withNewMetadata.getDataAsJson()).isSameAs(json);
+        TbMsg withNewOriginator = TbMsg.transformMsgOriginator(msg, new DeviceId(UUID.randomUUID()));
+        assertThat(withNewOriginator.getDataAsJson()).isSameAs(json);
+        TbMsg withSameData = TbMsg.transformMsgData(msg, "{\"temperature\":42}");
+        assertThat(withSameData.getDataAsJson()).isSameAs(json);
+    }
+
+    @Test
+    void testDataIsParsedAgainWhenDataChanged() {
+        TbMsg msg = TbMsg.newMsg(TbMsgType.POST_TELEMETRY_REQUEST, deviceId, TbMsgMetaData.EMPTY, "{\"temperature\":42}");
+        JsonNode json = msg.getDataAsJson();
+
+        TbMsg transformed = TbMsg.transformMsgData(msg, "{\"temperature\":43}");
+        assertThat(transformed.getDataAsJson().get("temperature").asInt()).isEqualTo(43);
+        assertThat(msg.getDataAsJson()).isSameAs(json);
+    }
+
+    @Test
+    void testParsedDataIsNotSerialized() {
+        TbMsg msg = TbMsg.newMsg(TbMsgType.POST_TELEMETRY_REQUEST, deviceId, TbMsgMetaData.EMPTY, "{\"temperature\":42}");
+        JsonNode json = msg.getDataAsJson();
+
+        TbMsg fromProto = TbMsg.fromBytes(null, TbMsg.toByteArray(msg), null);
+        assertThat(fromProto.getDataAsJson()).isNotSameAs(json).isEqualTo(json);
+
+        TbMsg fromJava = JavaSerDesUtil.decode(JavaSerDesUtil.encode(msg));
+        assertThat(fromJava.getDataAsJson()).isEqualTo(json);
+    }
+
+    @Test
+    void testEmptyAndInvalidData() {
+        assertThat(TbMsg.newMsg(TbMsgType.POST_TELEMETRY_REQUEST, deviceId, TbMsgMetaData.EMPTY, "").getDataAsJson()).isNull();
+        TbMsg invalid = TbMsg.newMsg(TbMsgType.POST_TELEMETRY_REQUEST, deviceId, TbMsgMetaData.EMPTY, "{invalid");
+        assertThatThrownBy(invalid::getDataAsJson).isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -93,7 +93,7 @@ public class RuleEngineTbQueueAdminFactory {
         return new TbServiceBusAdmin(serviceBusSettings, serviceBusQueueConfigs.getRuleEngineConfigs());
     }
 
-    @ConditionalOnExpression("'${queue.type:null}'=='in-memory'")
+    @ConditionalOnExpression("'${queue.type:null}'=='in-memory' || '${queue.type:null}'=='local'")
     @Bean
     public TbQueueAdmin createInMemoryAdmin() {
         return new TbQueueAdmin() {
@@ -21,6 +21,8 @@ import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.util.StopWatch;
 import org.thingsboard.server.queue.TbQueueAdmin;
 import org.thingsboard.server.queue.TbQueueMsg;
@@ -30,8 +32,12 @@ import java.io.IOException;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Properties;
+import java.util.TreeMap;
 
 /**
  * Created by ashvayka on 24.09.18.
@@ -46,6 +52,10 @@ public class TbKafkaConsumerTemplate<T extends TbQueueMsg> extends AbstractTbQue
     private final TbKafkaConsumerStatsService statsService;
     private final String groupId;
 
+    // offsets to commit after each poll that returned records, guarded by consumerLock
+    private final NavigableMap<Long, Map<TopicPartition, OffsetAndMetadata>> uncommittedPolls = new TreeMap<>();
+    private volatile long lastPollSeq;
+
     @Builder
     private TbKafkaConsumerTemplate(TbKafkaSettings settings, TbKafkaDecoder<T> decoder,
                                     String clientId, String groupId, String topic,
@@ -71,6 +81,7 @@ public class TbKafkaConsumerTemplate<T extends TbQueueMsg> extends AbstractTbQue
 
     @Override
     protected void doSubscribe(List<String> topicNames) {
+        uncommittedPolls.clear();
         if (!topicNames.isEmpty()) {
             topicNames.forEach(admin::createTopicIfNotExists);
             consumer.subscribe(topicNames);
@@ -97,6 +108,12 @@ public class TbKafkaConsumerTemplate<T extends TbQueueMsg> extends AbstractTbQue
         } else {
             List<ConsumerRecord<String, byte[]>> recordList = new ArrayList<>(256);
             records.forEach(recordList::add);
+            Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+            for (TopicPartition partition : records.partitions()) {
+                List<ConsumerRecord<String, byte[]>> partitionRecords = records.records(partition);
+                offsets.put(partition, new OffsetAndMetadata(partitionRecords.get(partitionRecords.size() - 1).offset() + 1));
+            }
+            uncommittedPolls.put(++lastPollSeq, offsets);
             return recordList;
         }
     }
@@ -109,10 +126,40 @@ public class TbKafkaConsumerTemplate<T extends TbQueueMsg> extends AbstractTbQue
     @Override
     protected void doCommit() {
         consumer.commitSync();
+        uncommittedPolls.clear();
+    }
+
+    @Override
+    public boolean isPollCommitSupported() {
+        return true;
+    }
+
+    @Override
+    public long getLastPollSeq() {
+        return lastPollSeq;
+    }
+
+    @Override
+    public void commit(long pollSeq) {
+        consumerLock.lock();
+        try {
+            Map<Long, Map<TopicPartition, OffsetAndMetadata>> polls = uncommittedPolls.headMap(pollSeq, true);
+            if (polls.isEmpty()) {
+                return;
+            }
+            // offsets of the later polls are higher, so they override the earlier ones
+            Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+            polls.values().forEach(offsets::putAll);
+            consumer.commitSync(offsets);
+            polls.clear();
+        } finally {
+            consumerLock.unlock();
+        }
     }
 
     @Override
     protected void doUnsubscribe() {
+        uncommittedPolls.clear();
         if (consumer != null) {
             consumer.unsubscribe();
             consumer.close();
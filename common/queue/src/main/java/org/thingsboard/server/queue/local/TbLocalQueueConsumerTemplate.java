@@ -0,0 +1,192 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.local;
+
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.queue.TbQueueMsg;
+import org.thingsboard.server.queue.TbQueueMsgDecoder;
+import org.thingsboard.server.queue.common.AbstractTbQueueConsumerTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Consumer of the local queue with the same offset and commit semantics as the Kafka consumer:
+ * records are polled starting from the committed offset of the consumer group,
+ * and a restarted consumer receives again all records that were polled but not committed.
+ */
+@Slf4j
+public class TbLocalQueueConsumerTemplate<T extends TbQueueMsg> extends AbstractTbQueueConsumerTemplate<TbLocalQueueRecord, T> {
+
+    private final TbLocalQueueStorage storage;
+    private final TbQueueMsgDecoder<T> decoder;
+    private final String groupId;
+    private final int maxPollRecords;
+
+    // read positions of the subscribed topics, guarded by consumerLock
+    private final List<String> topics = new ArrayList<>();
+    private final Map<String, Long> positions = new HashMap<>();
+    private int nextTopicIdx;
+    // offsets to commit after each poll that returned records, guarded by consumerLock
+    private final NavigableMap<Long, Map<String, Long>> uncommittedPolls = new TreeMap<>();
+    private volatile long lastPollSeq;
+
+    @Builder
+    private TbLocalQueueConsumerTemplate(TbLocalQueueStorage storage, TbQueueMsgDecoder<T> decoder,
+                                         String groupId, String topic, int maxPollRecords) {
+        super(topic);
+        this.storage = storage;
+        this.decoder = decoder;
+        this.groupId = groupId;
+        this.maxPollRecords = maxPollRecords > 0 ? maxPollRecords : 1000;
+    }
+
+    @Override
+    protected void doSubscribe(List<String> topicNames) {
+        topics.clear();
+        positions.clear();
+        uncommittedPolls.clear();
+        for (String topicName : topicNames) {
+            topics.add(topicName);
+            positions.put(topicName, storage.getCommittedOffset(groupId, topicName));
+        }
+        nextTopicIdx = 0;
+    }
+
+    @Override
+    protected List<TbLocalQueueRecord> doPoll(long durationInMillis) {
+        long deadline = System.currentTimeMillis() + durationInMillis;
+        while (!stopped) {
+            long appendCounter = storage.getAppendCounter();
+            List<TbLocalQueueRecord> records = readRecords();
+            if (!records.isEmpty()) {
+                return records;
+            }
+            long waitMs = deadline - System.currentTimeMillis();
+            if (waitMs <= 0) {
+                break;
+            }
+            try {
+                storage.awaitAppend(appendCounter, waitMs);
+            } catch (InterruptedException e) {
+                if (!stopped) {
+                    log.error("Failed to wait for new records", e);
+                }
+                break;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private List<TbLocalQueueRecord> readRecords() {
+        if (topics.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<TbLocalQueueRecord> result = null;
+        Map<String, Long> pollOffsets = null;
+        // start from the next topic on each poll, so that a busy partition does not starve the others
+        int startIdx = nextTopicIdx++ % topics.size();
+        for (int i = 0; i < topics.size(); i++) {
+            int remaining = maxPollRecords - (result != null ? result.size() : 0);
+            if (remaining <= 0) {
+                break;
+            }
+            String topicName = topics.get((startIdx + i) % topics.size());
+            long position = positions.get(topicName);
+            List<TbLocalQueueRecord> records = storage.read(topicName, position, remaining);
+            if (!records.isEmpty()) {
+                if (records.get(0).getOffset() > position) {
+                    log.warn("[{}][{}] Skipped records from offset {} to {} that were deleted", groupId, topicName, position, records.get(0).getOffset());
+                }
+                if (result == null) {
+                    result = new ArrayList<>(records);
+                    pollOffsets = new HashMap<>();
+                } else {
+                    result.addAll(records);
+                }
+                long nextOffset = records.get(records.size() - 1).getNextOffset();
+                positions.put(topicName, nextOffset);
+                pollOffsets.put(topicName, nextOffset);
+            }
+        }
+        if (result == null) {
+            return Collections.emptyList();
+        }
+        uncommittedPolls.put(++lastPollSeq, pollOffsets);
+        return result;
+    }
+
+    @Override
+    protected T decode(TbLocalQueueRecord record) throws IOException {
+        return decoder.decode(TbLocalQueueMsg.decode(record.getPayload()));
+    }
+
+    @Override
+    protected void doCommit() {
+        commitPolls(uncommittedPolls);
+    }
+
+    @Override
+    public boolean isPollCommitSupported() {
+        return true;
+    }
+
+    @Override
+    public long getLastPollSeq() {
+        return lastPollSeq;
+    }
+
+    @Override
+    public void commit(long pollSeq) {
+        consumerLock.lock();
+        try {
+            commitPolls(uncommittedPolls.headMap(pollSeq, true));
+        } finally {
+            consumerLock.unlock();
+        }
+    }
+
+    private void commitPolls(Map<Long, Map<String, Long>> polls) {
+        if (polls.isEmpty()) {
+            return;
+        }
+        // offsets of the later polls are higher, so they override the earlier ones
+        Map<String, Long> offsets = new HashMap<>();
+        polls.values().forEach(offsets::putAll);
+        offsets.forEach((topicName, offset) -> storage.commit(groupId, topicName, offset));
+        polls.clear();
+    }
+
+    @Override
+    protected void doUnsubscribe() {
+        topics.clear();
+        positions.clear();
+        uncommittedPolls.clear();
+    }
+
+    @Override
+    public boolean isLongPollingSupported() {
+        return true;
+    }
+
+}
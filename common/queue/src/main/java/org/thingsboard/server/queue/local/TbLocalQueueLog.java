@@ -0,0 +1,229 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.local;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of a single topic, stored as a sequence of memory-mapped segment files of the same size.
+ * Offset of the record is its position in the log, so segment that contains the offset is found without an index.
+ * Each record is prefixed by its length and CRC32 checksum, which are used to find the end of the log on recovery.
+ * Offsets depend on the segment size, so it is stored next to the segments and can't be changed for the existing log.
+ */
+@Slf4j
+final class TbLocalQueueLog {
+
+    static final int RECORD_HEADER_SIZE = Integer.BYTES * 2;
+    private static final int END_OF_SEGMENT = -1;
+    private static final String SEGMENT_FILE_SUFFIX = ".log";
+    private static final String SEGMENT_SIZE_FILE = "segment_size";
+
+    @Getter
+    private final String topic;
+    private final Path dir;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final NavigableMap<Long, TbLocalQueueSegment> segments = new ConcurrentSkipListMap<>();
+    private TbLocalQueueSegment activeSegment;
+    @Getter
+    private volatile long startOffset;
+    @Getter
+    private volatile long endOffset;
+
+    TbLocalQueueLog(String topic, Path dir, int segmentSize, int maxSegments) throws IOException {
+        this.topic = topic;
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        Files.createDirectories(dir);
+        checkSegmentSize();
+        List<Long> baseOffsets = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_FILE_SUFFIX))
+                    .forEach(name -> baseOffsets.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_FILE_SUFFIX.length()))));
+        }
+        Collections.sort(baseOffsets);
+        for (Long baseOffset : baseOffsets) {
+            segments.put(baseOffset, TbLocalQueueSegment.open(segmentFile(baseOffset), baseOffset, segmentSize));
+        }
+        if (segments.isEmpty()) {
+            activeSegment = TbLocalQueueSegment.open(segmentFile(0), 0, segmentSize);
+            segments.put(0L, activeSegment);
+        } else {
+            activeSegment = segments.lastEntry().getValue();
+        }
+        startOffset = segments.firstKey();
+        endOffset = activeSegment.getBaseOffset() + recover(activeSegment);
+    }
+
+    /**
+     * @return offset of the appended record or -1 if the log reached the max number of segments
+     */
+    synchronized long append(byte[] payload) throws IOException {
+        int recordSize = RECORD_HEADER_SIZE + payload.length;
+        if (recordSize > segmentSize) {
+            throw new IllegalArgumentException("Record size " + recordSize + " exceeds the segment size " + segmentSize);
+        }
+        long offset = endOffset;
+        int position = (int) (offset - activeSegment.getBaseOffset());
+        if (position + recordSize > segmentSize) {
+            if (segments.size() >= maxSegments) {
+                return -1;
+            }
+            if (position + Integer.BYTES <= segmentSize) {
+                activeSegment.putInt(position, END_OF_SEGMENT);
+            }
+            long baseOffset = activeSegment.getBaseOffset() + segmentSize;
+            activeSegment = TbLocalQueueSegment.open(segmentFile(baseOffset), baseOffset, segmentSize);
+            segments.put(baseOffset, activeSegment);
+            offset = baseOffset;
+            position = 0;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        activeSegment.write(position + RECORD_HEADER_SIZE, payload);
+        activeSegment.putInt(position + Integer.BYTES, (int) crc.getValue());
+        activeSegment.putInt(position, payload.length);
+        endOffset = offset + recordSize;
+        return offset;
+    }
+
+    /**
+     * Reads records starting from the given offset. Offsets before the start of the log are moved to the start of the log.
+     */
+    List<TbLocalQueueRecord> read(long offset, int maxRecords) {
+        long end = endOffset;
+        offset = Math.max(offset, startOffset);
+        if (offset >= end) {
+            return Collections.emptyList();
+        }
+        List<TbLocalQueueRecord> records = new ArrayList<>(Math.min(maxRecords, 256));
+        while (offset < end && records.size() < maxRecords) {
+            Map.Entry<Long, TbLocalQueueSegment> entry = segments.floorEntry(offset);
+            if (entry == null) {
+                // segment was deleted concurrently
+                offset = startOffset;
+                continue;
+            }
+            TbLocalQueueSegment segment = entry.getValue();
+            int position = (int) (offset - segment.getBaseOffset());
+            int length = position + RECORD_HEADER_SIZE <= segmentSize ? segment.getInt(position) : END_OF_SEGMENT;
+            if (length <= 0) {
+                offset = segment.getBaseOffset() + segmentSize;
+                continue;
+            }
+            long nextOffset = offset + RECORD_HEADER_SIZE + length;
+            records.add(new TbLocalQueueRecord(offset, nextOffset, segment.read(position + RECORD_HEADER_SIZE, length)));
+            offset = nextOffset;
+        }
+        return records;
+    }
+
+    /**
+     * Deletes segments that contain only the records before the given offset. Active segment is never deleted.
+     */
+    synchronized void deleteSegmentsBefore(long offset) {
+        while (segments.size() > 1) {
+            TbLocalQueueSegment segment = segments.firstEntry().getValue();
+            if (segment == activeSegment || segment.getBaseOffset() + segmentSize > offset) {
+                break;
+            }
+            segments.remove(segment.getBaseOffset());
+            startOffset = segments.firstKey();
+            try {
+                segment.delete();
+                log.debug("[{}] Deleted consumed segment {}", topic, segment.getFile());
+            } catch (IOException e) {
+                log.warn("[{}] Failed to delete segment {}", topic, segment.getFile(), e);
+            }
+        }
+    }
+
+    boolean isFull() {
+        return segments.size() >= maxSegments;
+    }
+
+    void force() {
+        activeSegment.force();
+    }
+
+    synchronized void close() {
+        for (TbLocalQueueSegment segment : segments.values()) {
+            try {
+                segment.force();
+                segment.close();
+            } catch (IOException e) {
+                log.warn("[{}] Failed to close segment {}", topic, segment.getFile(), e);
+            }
+        }
+    }
+
+    /**
+     * Finds the end of the valid records in the segment and clears the rest of it,
+     * so that partially written record is not mistaken for a valid one after new appends.
+     */
+    private int recover(TbLocalQueueSegment segment) {
+        int position = 0;
+        while (position + RECORD_HEADER_SIZE <= segmentSize) {
+            int length = segment.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > segmentSize) {
+                break;
+            }
+            byte[] payload = segment.read(position + RECORD_HEADER_SIZE, length);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != segment.getInt(position + Integer.BYTES)) {
+                log.warn("[{}] Found corrupted record at position {} of {}, truncating the segment", topic, position, segment.getFile());
+                break;
+            }
+            position += RECORD_HEADER_SIZE + length;
+        }
+        segment.clear(position);
+        return position;
+    }
+
+    private void checkSegmentSize() throws IOException {
+        Path segmentSizeFile = dir.resolve(SEGMENT_SIZE_FILE);
+        if (Files.exists(segmentSizeFile)) {
+            int storedSegmentSize = Integer.parseInt(Files.readString(segmentSizeFile).trim());
+            if (storedSegmentSize != segmentSize) {
+                throw new IllegalStateException("Segment size of the local queue topic [" + topic + "] was changed from " + storedSegmentSize +
+                        " to " + segmentSize + ". Restore the previous segment size or remove the topic directory " + dir.toAbsolutePath());
+            }
+        } else {
+            Files.writeString(segmentSizeFile, Integer.toString(segmentSize));
+        }
+    }
+
+    private Path segmentFile(long baseOffset) {
+        return dir.resolve(String.format("%020d", baseOffset) + SEGMENT_FILE_SUFFIX);
+    }
+
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.local;
+
+import org.thingsboard.server.queue.TbQueueMsg;
+import org.thingsboard.server.queue.TbQueueMsgHeaders;
+import org.thingsboard.server.queue.common.DefaultTbQueueMsgHeaders;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Message stored in the local queue log. Binary layout:
+ * key (2 longs), number of headers, headers (key length, key, value length, value), data length, data.
+ */
+public class TbLocalQueueMsg implements TbQueueMsg {
+    private final UUID key;
+    private final TbQueueMsgHeaders headers;
+    private final byte[] data;
+
+    private TbLocalQueueMsg(UUID key, TbQueueMsgHeaders headers, byte[] data) {
+        this.key = key;
+        this.headers = headers;
+        this.data = data;
+    }
+
+    public static byte[] encode(TbQueueMsg msg) {
+        byte[] data = msg.getData() != null ? msg.getData() : new byte[0];
+        int size = Long.BYTES * 2 + Integer.BYTES * 2 + data.length;
+        List<byte[]> headerKeys = new ArrayList<>();
+        List<byte[]> headerValues = new ArrayList<>();
+        if (msg.getHeaders() != null) {
+            for (Map.Entry<String, byte[]> header : msg.getHeaders().getData().entrySet()) {
+                byte[] headerKey = header.getKey().getBytes(StandardCharsets.UTF_8);
+                byte[] headerValue = header.getValue() != null ? header.getValue() : new byte[0];
+                headerKeys.add(headerKey);
+                headerValues.add(headerValue);
+                size += Integer.BYTES * 2 + headerKey.length + headerValue.length;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putLong(msg.getKey().getMostSignificantBits());
+        buffer.putLong(msg.getKey().getLeastSignificantBits());
+        buffer.putInt(headerKeys.size());
+        for (int i = 0; i < headerKeys.size(); i++) {
+            buffer.putInt(headerKeys.get(i).length).put(headerKeys.get(i));
+            buffer.putInt(headerValues.get(i).length).put(headerValues.get(i));
+        }
+        buffer.putInt(data.length).put(data);
+        return buffer.array();
+    }
+
+    public static TbLocalQueueMsg decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        UUID key = new UUID(buffer.getLong(), buffer.getLong());
+        int headersCount = buffer.getInt();
+        TbQueueMsgHeaders headers = new DefaultTbQueueMsgHeaders();
+        for (int i = 0; i < headersCount; i++) {
+            byte[] headerKey = new byte[buffer.getInt()];
+            buffer.get(headerKey);
+            byte[] headerValue = new byte[buffer.getInt()];
+            buffer.get(headerValue);
+            headers.put(new String(headerKey, StandardCharsets.UTF_8), headerValue);
+        }
+        byte[] data = new byte[buffer.getInt()];
+        buffer.get(data);
+        return new TbLocalQueueMsg(key, headers, data);
+    }
+
+    @Override
+    public UUID getKey() {
+        return key;
+    }
+
+    @Override
+    public TbQueueMsgHeaders getHeaders() {
+        return headers;
+    }
+
+    @Override
+    public byte[] getData() {
+        return data;
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.local;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Memory-mapped segment file of the local queue log.
+ * Records are written and read using absolute positions, so concurrent readers do not interfere with the writer.
+ */
+final class TbLocalQueueSegment {
+
+    @Getter
+    private final long baseOffset;
+    @Getter
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private TbLocalQueueSegment(long baseOffset, Path file, FileChannel channel, MappedByteBuffer buffer) {
+        this.baseOffset = baseOffset;
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static TbLocalQueueSegment open(Path file, long baseOffset, int size) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new TbLocalQueueSegment(baseOffset, file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    int getInt(int position) {
+        return buffer.getInt(position);
+    }
+
+    void putInt(int position, int value) {
+        buffer.putInt(position, value);
+    }
+
+    byte[] read(int position, int length) {
+        byte[] data = new byte[length];
+        buffer.get(position, data);
+        return data;
+    }
+
+    void write(int position, byte[] data) {
+        buffer.put(position, data);
+    }
+
+    void clear(int fromPosition) {
+        byte[] zeros = new byte[4096];
+        for (int position = fromPosition; position < buffer.capacity(); position += zeros.length) {
+            buffer.put(position, zeros, 0, Math.min(zeros.length, buffer.capacity() - position));
+        }
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(file);
+    }
+
+}
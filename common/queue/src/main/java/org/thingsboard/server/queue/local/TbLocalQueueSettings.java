@@ -0,0 +1,46 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.local;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+@ConditionalOnExpression("'${queue.type:null}'=='local'")
+@Component
+@Data
+public class TbLocalQueueSettings {
+
+    @Value("${queue.local.data_dir:./data/queue}")
+    private String dataDir;
+
+    @Value("${queue.local.segment_size:16777216}")
+    private int segmentSize;
+
+    @Value("${queue.local.max_segments_per_topic:16}")
+    private int maxSegmentsPerTopic;
+
+    @Value("${queue.local.max_poll_records:1000}")
+    private int maxPollRecords;
+
+    @Value("${queue.local.flush_interval_ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${queue.local.offset_retention_ms:604800000}")
+    private long offsetRetentionMs;
+
+}
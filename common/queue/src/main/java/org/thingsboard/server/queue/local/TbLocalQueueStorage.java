@@ -0,0 +1,278 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.local;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+import org.thingsboard.server.queue.TbQueueMsg;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Persistent storage of the local queue. Each topic (partition) is stored in a separate {@link TbLocalQueueLog}.
+ * Committed offsets of the consumer groups are stored in small memory-mapped files, one per group and topic,
+ * together with the time of the last commit.
+ * Records are deleted by segments once they are committed by all consumer groups of the topic,
+ * except the groups that did not commit within offset_retention_ms (e.g. removed or renamed ones).
+ * <p>
+ * Data is written to the page cache, so it survives the crash of the process.
+ * Page cache is flushed to the disk every flush_interval_ms to survive the crash of the host.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("'${queue.type:null}'=='local'")
+public class TbLocalQueueStorage {
+
+    private static final String TOPICS_DIR = "topics";
+    private static final String OFFSETS_DIR = "offsets";
+    private static final String OFFSET_FILE_SUFFIX = ".offset";
+    private static final int OFFSET_POSITION = 0;
+    private static final int COMMIT_TS_POSITION = Long.BYTES;
+    private static final int OFFSET_FILE_SIZE = Long.BYTES * 2;
+
+    private final TbLocalQueueSettings settings;
+    private final ConcurrentMap<String, TbLocalQueueLog> logs = new ConcurrentHashMap<>();
+    // topic -> consumer group -> committed offset
+    private final ConcurrentMap<String, ConcurrentMap<String, MappedByteBuffer>> offsets = new ConcurrentHashMap<>();
+    private final AtomicLong appendCounter = new AtomicLong();
+    private final AtomicInteger pollWaiters = new AtomicInteger();
+    private final Object appendMonitor = new Object();
+    private Path topicsDir;
+    private Path offsetsDir;
+    private ScheduledExecutorService flushExecutor;
+
+    public TbLocalQueueStorage(TbLocalQueueSettings settings) {
+        this.settings = settings;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Path dataDir = Paths.get(settings.getDataDir());
+        topicsDir = dataDir.resolve(TOPICS_DIR);
+        offsetsDir = dataDir.resolve(OFFSETS_DIR);
+        Files.createDirectories(topicsDir);
+        Files.createDirectories(offsetsDir);
+        try (Stream<Path> topicDirs = Files.list(topicsDir)) {
+            for (Path topicDir : topicDirs.toList()) {
+                getLog(topicDir.getFileName().toString());
+            }
+        }
+        try (Stream<Path> groupDirs = Files.list(offsetsDir)) {
+            for (Path groupDir : groupDirs.toList()) {
+                try (Stream<Path> offsetFiles = Files.list(groupDir)) {
+                    for (Path offsetFile : offsetFiles.toList()) {
+                        String fileName = offsetFile.getFileName().toString();
+                        if (fileName.endsWith(OFFSET_FILE_SUFFIX)) {
+                            String topic = fileName.substring(0, fileName.length() - OFFSET_FILE_SUFFIX.length());
+                            getOffsetBuffer(groupDir.getFileName().toString(), topic);
+                        }
+                    }
+                }
+            }
+        }
+        log.info("Initialized local queue storage in {} with {} topics", dataDir.toAbsolutePath(), logs.size());
+        if (settings.getFlushIntervalMs() > 0) {
+            flushExecutor = Executors.newSingleThreadScheduledExecutor(ThingsBoardThreadFactory.forName("local-queue-flush"));
+            flushExecutor.scheduleWithFixedDelay(this::flush, settings.getFlushIntervalMs(), settings.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdownNow();
+        }
+        offsets.values().forEach(groupOffsets -> groupOffsets.values().forEach(MappedByteBuffer::force));
+        logs.values().forEach(TbLocalQueueLog::close);
+    }
+
+    /**
+     * @return false if the topic reached the max number of segments that are not consumed yet
+     */
+    public boolean append(String topic, TbQueueMsg msg) throws IOException {
+        TbLocalQueueLog topicLog = getLog(topic);
+        byte[] payload = TbLocalQueueMsg.encode(msg);
+        long offset = topicLog.append(payload);
+        if (offset < 0) {
+            // consumers might have committed the oldest segment since the last cleanup
+            deleteConsumedSegments(topicLog);
+            offset = topicLog.append(payload);
+            if (offset < 0) {
+                return false;
+            }
+        }
+        appendCounter.incrementAndGet();
+        if (pollWaiters.get() > 0) {
+            synchronized (appendMonitor) {
+                appendMonitor.notifyAll();
+            }
+        }
+        return true;
+    }
+
+    public List<TbLocalQueueRecord> read(String topic, long offset, int maxRecords) {
+        return getLog(topic).read(offset, maxRecords);
+    }
+
+    /**
+     * @return committed offset of the consumer group or the start of the topic if the group did not commit yet
+     */
+    public long getCommittedOffset(String groupId, String topic) {
+        TbLocalQueueLog topicLog = getLog(topic);
+        long committedOffset = getOffsetBuffer(groupId, topic).getLong(OFFSET_POSITION);
+        return Math.max(committedOffset, topicLog.getStartOffset());
+    }
+
+    public void commit(String groupId, String topic, long offset) {
+        MappedByteBuffer offsetBuffer = getOffsetBuffer(groupId, topic);
+        offsetBuffer.putLong(COMMIT_TS_POSITION, System.currentTimeMillis());
+        offsetBuffer.putLong(OFFSET_POSITION, offset);
+        TbLocalQueueLog topicLog = logs.get(topic);
+        if (topicLog != null) {
+            deleteConsumedSegments(topicLog);
+        }
+    }
+
+    public long getAppendCounter() {
+        return appendCounter.get();
+    }
+
+    /**
+     * Waits until a new record is appended to any topic after the append counter had the given value
+     */
+    public void awaitAppend(long lastAppendCounter, long timeoutMs) throws InterruptedException {
+        pollWaiters.incrementAndGet();
+        try {
+            synchronized (appendMonitor) {
+                if (appendCounter.get() == lastAppendCounter) {
+                    appendMonitor.wait(timeoutMs);
+                }
+            }
+        } finally {
+            pollWaiters.decrementAndGet();
+        }
+    }
+
+    public long getLagTotal() {
+        long lag = 0;
+        for (Map.Entry<String, ConcurrentMap<String, MappedByteBuffer>> topicOffsets : offsets.entrySet()) {
+            TbLocalQueueLog topicLog = logs.get(topicOffsets.getKey());
+            if (topicLog != null) {
+                for (MappedByteBuffer offset : topicOffsets.getValue().values()) {
+                    lag += topicLog.getEndOffset() - Math.max(offset.getLong(OFFSET_POSITION), topicLog.getStartOffset());
+                }
+            }
+        }
+        return lag;
+    }
+
+    public void printStats() {
+        if (log.isDebugEnabled()) {
+            offsets.forEach((topic, groupOffsets) -> {
+                TbLocalQueueLog topicLog = logs.get(topic);
+                if (topicLog != null) {
+                    groupOffsets.forEach((groupId, offset) -> {
+                        long lag = topicLog.getEndOffset() - Math.max(offset.getLong(OFFSET_POSITION), topicLog.getStartOffset());
+                        if (lag > 0) {
+                            log.debug("[{}][{}] Lag [{}] bytes", topic, groupId, lag);
+                        }
+                    });
+                }
+            });
+        }
+    }
+
+    private void deleteConsumedSegments(TbLocalQueueLog topicLog) {
+        Map<String, MappedByteBuffer> groupOffsets = offsets.get(topicLog.getTopic());
+        if (groupOffsets == null || groupOffsets.isEmpty()) {
+            return;
+        }
+        long expirationTs = settings.getOffsetRetentionMs() > 0 ? System.currentTimeMillis() - settings.getOffsetRetentionMs() : 0;
+        long minCommittedOffset = Long.MAX_VALUE;
+        for (Map.Entry<String, MappedByteBuffer> groupOffset : groupOffsets.entrySet()) {
+            MappedByteBuffer offset = groupOffset.getValue();
+            if (offset.getLong(COMMIT_TS_POSITION) < expirationTs) {
+                log.trace("[{}][{}] Ignoring expired offset of the consumer group", topicLog.getTopic(), groupOffset.getKey());
+                continue;
+            }
+            minCommittedOffset = Math.min(minCommittedOffset, offset.getLong(OFFSET_POSITION));
+        }
+        if (minCommittedOffset != Long.MAX_VALUE) {
+            topicLog.deleteSegmentsBefore(minCommittedOffset);
+        }
+    }
+
+    private void flush() {
+        try {
+            logs.values().forEach(TbLocalQueueLog::force);
+            offsets.values().forEach(groupOffsets -> groupOffsets.values().forEach(MappedByteBuffer::force));
+        } catch (Exception e) {
+            log.warn("Failed to flush local queue storage", e);
+        }
+    }
+
+    private TbLocalQueueLog getLog(String topic) {
+        return logs.computeIfAbsent(topic, t -> {
+            try {
+                return new TbLocalQueueLog(t, topicsDir.resolve(t), settings.getSegmentSize(), settings.getMaxSegmentsPerTopic());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open local queue log for topic " + t, e);
+            }
+        });
+    }
+
+    private MappedByteBuffer getOffsetBuffer(String groupId, String topic) {
+        return offsets.computeIfAbsent(topic, t -> new ConcurrentHashMap<>()).computeIfAbsent(groupId, g -> {
+            Path offsetFile = offsetsDir.resolve(g).resolve(topic + OFFSET_FILE_SUFFIX);
+            try {
+                Files.createDirectories(offsetFile.getParent());
+                try (FileChannel channel = FileChannel.open(offsetFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    // mapping stays valid after the channel is closed
+                    MappedByteBuffer offsetBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, OFFSET_FILE_SIZE);
+                    if (offsetBuffer.getLong(COMMIT_TS_POSITION) == 0) {
+                        // new group or the offset file written without the commit time, retention starts now
+                        offsetBuffer.putLong(COMMIT_TS_POSITION, System.currentTimeMillis());
+                    }
+                    return offsetBuffer;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open local queue offset file " + offsetFile, e);
+            }
+        });
+    }
+
+}
@@ -15,55 +15,132 @@
  */
 package org.thingsboard.server.queue.memory;
 
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.thingsboard.server.common.stats.DefaultCounter;
+import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.queue.TbQueueMsg;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Component
 @Slf4j
 public final class DefaultInMemoryStorage implements InMemoryStorage {
-    private final ConcurrentHashMap<String, BlockingQueue<TbQueueMsg>> storage = new ConcurrentHashMap<>();
+    private static final String SIZE_STATS_KEY = "queue.inMemory.size";
+    private static final String LAG_STATS_KEY = "queue.inMemory.lag";
+    private static final String REJECTED_STATS_KEY = "queue.inMemory.rejectedMsgs";
+    private static final String TOPIC_TAG = "topic";
 
-    @Override
-    public void printStats() {
-        if (log.isDebugEnabled()) {
-            storage.forEach((topic, queue) -> {
-                if (queue.size() > 0) {
-                    log.debug("[{}] Queue Size [{}]", topic, queue.size());
+    private final ConcurrentHashMap<String, TopicQueue> storage = new ConcurrentHashMap<>();
+
+    @Autowired(required = false)
+    private StatsFactory statsFactory;
+
+    @Value("${queue.in_memory.max_queue_size:0}")
+    private int maxQueueSize = 0;
+
+    @Value("${queue.in_memory.bounded_topics:}")
+    private String boundedTopicsStr = "";
+
+    @Value("${queue.in_memory.topic_max_queue_sizes:}")
+    private String topicMaxQueueSizesStr = "";
+
+    @Value("${queue.in_memory.put_timeout_ms:0}")
+    private long putTimeoutMs = 0;
+
+    @Value("${queue.in_memory.max_poll_records:1000}")
+    private int maxPollRecords = 1000;
+
+    private final Set<String> boundedTopics = new HashSet<>();
+    private final Map<String, Integer> topicMaxQueueSizes = new HashMap<>();
+    private LagGauge lagGauge;
+
+    @PostConstruct
+    public void init() {
+        if (StringUtils.isNotBlank(boundedTopicsStr)) {
+            for (String boundedTopic : boundedTopicsStr.split(",")) {
+                if (StringUtils.isNotBlank(boundedTopic)) {
+                    boundedTopics.add(boundedTopic.trim());
+                }
+            }
+        }
+        if (StringUtils.isNotBlank(topicMaxQueueSizesStr)) {
+            for (String topicMaxQueueSize : topicMaxQueueSizesStr.split(",")) {
+                String[] parts = topicMaxQueueSize.trim().split(":");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Invalid in-memory queue size limit '" + topicMaxQueueSize + "', expected 'topic:size'");
                 }
-            });
+                topicMaxQueueSizes.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+            }
+        }
+        if (statsFactory != null) {
+            lagGauge = statsFactory.createGauge(LAG_STATS_KEY, new LagGauge());
         }
     }
 
+    @Override
+    public void printStats() {
+        storage.forEach((topic, queue) -> {
+            int size = queue.size();
+            if (queue.capacity > 0 && size >= queue.capacity * 0.8) {
+                log.warn("[{}] Queue Size [{}] is close to the limit [{}], rejected [{}] messages", topic, size, queue.capacity, queue.getAndResetRejected());
+            } else if (log.isDebugEnabled() && size > 0) {
+                log.debug("[{}] Queue Size [{}]", topic, size);
+            }
+        });
+    }
+
     @Override
     public int getLagTotal() {
-        return storage.values().stream().map(BlockingQueue::size).reduce(0, Integer::sum);
+        return storage.values().stream().map(TopicQueue::size).reduce(0, Integer::sum);
     }
 
     @Override
     public boolean put(String topic, TbQueueMsg msg) {
-        return storage.computeIfAbsent(topic, (t) -> new LinkedBlockingQueue<>()).add(msg);
+        TopicQueue queue = storage.computeIfAbsent(topic, this::createQueue);
+        if (queue.msgs.offer(msg)) {
+            return true;
+        }
+        if (putTimeoutMs > 0) {
+            try {
+                if (queue.msgs.offer(msg, putTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        queue.onRejected();
+        return false;
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public <T extends TbQueueMsg> List<T> get(String topic) throws InterruptedException {
-        final BlockingQueue<TbQueueMsg> queue = storage.get(topic);
+        final TopicQueue queue = storage.get(topic);
         if (queue != null) {
-            final TbQueueMsg firstMsg = queue.poll();
+            final TbQueueMsg firstMsg = queue.msgs.poll();
             if (firstMsg != null) {
                 final int queueSize = queue.size();
                 if (queueSize > 0) {
-                    final List<TbQueueMsg> entities = new ArrayList<>(Math.min(queueSize, 999) + 1);
+                    final List<TbQueueMsg> entities = new ArrayList<>(Math.min(queueSize, maxPollRecords - 1) + 1);
                     entities.add(firstMsg);
-                    queue.drainTo(entities, 999);
+                    queue.msgs.drainTo(entities, maxPollRecords - 1);
                     return (List<T>) entities;
                 }
                 return Collections.singletonList((T) firstMsg);
@@ -72,4 +149,115 @@ public final class DefaultInMemoryStorage implements InMemoryStorage {
         return Collections.emptyList();
     }
 
+    private TopicQueue createQueue(String topic) {
+        int capacity = getMaxQueueSize(topic);
+        TopicQueue queue = new TopicQueue(capacity);
+        if (statsFactory != null) {
+            queue.sizeGauge = statsFactory.createGauge(SIZE_STATS_KEY, new SizeGauge(queue), TOPIC_TAG, topic);
+            queue.rejectedCounter = statsFactory.createDefaultCounter(REJECTED_STATS_KEY, TOPIC_TAG, topic);
+        }
+        return queue;
+    }
+
+    /*
+     * Limit is looked up by the full topic name of the partition, then by the topic name without the partition index.
+     * Default limit is applied to the bounded topics only, e.g. the rule engine topics that are fed by the transport,
+     * the internal topics (notifications, transport API, etc.) are unbounded unless the explicit limit is set.
+     */
+    private int getMaxQueueSize(String topic) {
+        String topicName = topic;
+        int partitionIdx = topic.lastIndexOf('.');
+        if (partitionIdx > 0 && StringUtils.isNumeric(topic.substring(partitionIdx + 1))) {
+            topicName = topic.substring(0, partitionIdx);
+        }
+        Integer limit = topicMaxQueueSizes.get(topic);
+        if (limit == null) {
+            limit = topicMaxQueueSizes.get(topicName);
+        }
+        if (limit != null) {
+            return limit;
+        }
+        return boundedTopics.contains(topic) || boundedTopics.contains(topicName) ? maxQueueSize : 0;
+    }
+
+    private static class TopicQueue {
+        private final int capacity;
+        private final BlockingQueue<TbQueueMsg> msgs;
+        private final AtomicInteger rejected = new AtomicInteger();
+        // strong references to the meters, registry keeps the weak ones only
+        private SizeGauge sizeGauge;
+        private DefaultCounter rejectedCounter;
+
+        private TopicQueue(int capacity) {
+            this.capacity = capacity;
+            this.msgs = capacity > 0 ? new LinkedBlockingQueue<>(capacity) : new LinkedBlockingQueue<>();
+        }
+
+        private int size() {
+            return msgs.size();
+        }
+
+        private void onRejected() {
+            rejected.incrementAndGet();
+            if (rejectedCounter != null) {
+                rejectedCounter.increment();
+            }
+        }
+
+        private int getAndResetRejected() {
+            return rejected.getAndSet(0);
+        }
+    }
+
+    private static class SizeGauge extends Number {
+        private final TopicQueue queue;
+
+        private SizeGauge(TopicQueue queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public int intValue() {
+            return queue.size();
+        }
+
+        @Override
+        public long longValue() {
+            return intValue();
+        }
+
+        @Override
+        public float floatValue() {
+            return intValue();
+        }
+
+        @Override
+        public double doubleValue() {
+            return intValue();
+        }
+    }
+
+    private class LagGauge extends Number {
+
+        @Override
+        public int intValue() {
+            return getLagTotal();
+        }
+
+        @Override
+        public long longValue() {
+            return intValue();
+        }
+
+        @Override
+        public float floatValue() {
+            return intValue();
+        }
+
+        @Override
+        public double doubleValue() {
+            return intValue();
+        }
+    }
+
 }
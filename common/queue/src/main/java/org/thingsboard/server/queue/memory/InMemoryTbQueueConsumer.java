@@ -104,6 +104,15 @@ public class InMemoryTbQueueConsumer<T extends TbQueueMsg> implements TbQueueCon
     public void commit() {
     }
 
+    @Override
+    public boolean isPollCommitSupported() {
+        return true;
+    }
+
+    @Override
+    public void commit(long pollSeq) {
+    }
+
     @Override
     public boolean isStopped() {
         return stopped;
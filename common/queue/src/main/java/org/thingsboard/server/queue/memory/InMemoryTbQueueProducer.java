@@ -40,6 +40,7 @@ public class InMemoryTbQueueProducer<T extends TbQueueMsg> implements TbQueuePro
 
     @Override
     public void send(TopicPartitionInfo tpi, T msg, TbQueueCallback callback) {
+        // blocks for up to queue.in_memory.put_timeout_ms if the queue is full, so that the producers slow down
         boolean result = storage.put(tpi.getFullTopicName(), msg);
         if (result) {
             if (callback != null) {
@@ -47,7 +48,7 @@ public class InMemoryTbQueueProducer<T extends TbQueueMsg> implements TbQueuePro
             }
         } else {
             if (callback != null) {
-                callback.onFailure(new RuntimeException("Failure add msg to InMemoryQueue"));
+                callback.onFailure(new RuntimeException("Failure add msg to InMemoryQueue: queue " + tpi.getFullTopicName() + " is full"));
             }
         }
     }
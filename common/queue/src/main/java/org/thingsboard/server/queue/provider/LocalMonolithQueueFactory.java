@@ -0,0 +1,216 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.provider;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.thingsboard.server.common.data.queue.Queue;
+import org.thingsboard.server.common.msg.queue.ServiceType;
+import org.thingsboard.server.gen.js.JsInvokeProtos;
+import org.thingsboard.server.gen.transport.TransportProtos;
+import org.thingsboard.server.queue.TbQueueConsumer;
+import org.thingsboard.server.queue.TbQueueProducer;
+import org.thingsboard.server.queue.TbQueueRequestTemplate;
+import org.thingsboard.server.queue.common.TbProtoJsQueueMsg;
+import org.thingsboard.server.queue.common.TbProtoQueueMsg;
+import org.thingsboard.server.queue.discovery.TbServiceInfoProvider;
+import org.thingsboard.server.queue.discovery.TopicService;
+import org.thingsboard.server.queue.local.TbLocalQueueConsumerTemplate;
+import org.thingsboard.server.queue.local.TbLocalQueueProducerTemplate;
+import org.thingsboard.server.queue.local.TbLocalQueueSettings;
+import org.thingsboard.server.queue.local.TbLocalQueueStorage;
+import org.thingsboard.server.queue.memory.InMemoryStorage;
+import org.thingsboard.server.queue.memory.InMemoryTbQueueConsumer;
+import org.thingsboard.server.queue.memory.InMemoryTbQueueProducer;
+import org.thingsboard.server.queue.settings.TbQueueCoreSettings;
+import org.thingsboard.server.queue.settings.TbQueueRuleEngineSettings;
+import org.thingsboard.server.queue.settings.TbQueueTransportApiSettings;
+import org.thingsboard.server.queue.settings.TbQueueTransportNotificationSettings;
+import org.thingsboard.server.queue.settings.TbQueueVersionControlSettings;
+
+/**
+ * Monolith queue factory that keeps rule engine, core, usage stats, OTA and version control messages
+ * in the persistent {@link TbLocalQueueStorage}, so that they are not lost on restart.
+ * Notifications and transport API messages are addressed to the running service instance only,
+ * so they are kept in memory as with the 'in-memory' queue type.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("'${queue.type:null}'=='local' && '${service.type:null}'=='monolith'")
+public class LocalMonolithQueueFactory implements TbCoreQueueFactory, TbRuleEngineQueueFactory, TbVersionControlQueueFactory {
+
+    private final TopicService topicService;
+    private final TbQueueCoreSettings coreSettings;
+    private final TbServiceInfoProvider serviceInfoProvider;
+    private final TbQueueRuleEngineSettings ruleEngineSettings;
+    private final TbQueueVersionControlSettings vcSettings;
+    private final TbQueueTransportApiSettings transportApiSettings;
+    private final TbQueueTransportNotificationSettings transportNotificationSettings;
+    private final TbLocalQueueSettings localQueueSettings;
+    private final TbLocalQueueStorage localStorage;
+    private final InMemoryStorage inMemoryStorage;
+
+    public LocalMonolithQueueFactory(TopicService topicService, TbQueueCoreSettings coreSettings,
+                                     TbQueueRuleEngineSettings ruleEngineSettings,
+                                     TbQueueVersionControlSettings vcSettings,
+                                     TbServiceInfoProvider serviceInfoProvider,
+                                     TbQueueTransportApiSettings transportApiSettings,
+                                     TbQueueTransportNotificationSettings transportNotificationSettings,
+                                     TbLocalQueueSettings localQueueSettings,
+                                     TbLocalQueueStorage localStorage,
+                                     InMemoryStorage inMemoryStorage) {
+        this.topicService = topicService;
+        this.coreSettings = coreSettings;
+        this.vcSettings = vcSettings;
+        this.serviceInfoProvider = serviceInfoProvider;
+        this.ruleEngineSettings = ruleEngineSettings;
+        this.transportApiSettings = transportApiSettings;
+        this.transportNotificationSettings = transportNotificationSettings;
+        this.localQueueSettings = localQueueSettings;
+        this.localStorage = localStorage;
+        this.inMemoryStorage = inMemoryStorage;
+    }
+
+    @Override
+    public TbQueueProducer<TbProtoQueueMsg<TransportProtos.ToTransportMsg>> createTransportNotificationsMsgProducer() {
+        return new InMemoryTbQueueProducer<>(inMemoryStorage, topicService.buildTopicName(transportNotificationSettings.getNotificationsTopic()));
+    }
+
+    @Override
+    public TbQueueProducer<TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> createRuleEngineMsgProducer() {
+        return new TbLocalQueueProducerTemplate<>(localStorage, topicService.buildTopicName(ruleEngineSettings.getTopic()));
+    }
+
+    @Override
+    public TbQueueProducer<TbProtoQueueMsg<TransportProtos.ToRuleEngineNotificationMsg>> createRuleEngineNotificationsMsgProducer() {
+        return new InMemoryTbQueueProducer<>(inMemoryStorage, topicService.buildTopicName(ruleEngineSettings.getTopic()));
+    }
+
+    @Override
+    public TbQueueProducer<TbProtoQueueMsg<TransportProtos.ToCoreMsg>> createTbCoreMsgProducer() {
+        return new TbLocalQueueProducerTemplate<>(localStorage, topicService.buildTopicName(coreSettings.getTopic()));
+    }
+
+    @Override
+    public TbQueueProducer<TbProtoQueueMsg<TransportProtos.ToCoreNotificationMsg>> createTbCoreNotificationsMsgProducer() {
+        return new InMemoryTbQueueProducer<>(inMemoryStorage, topicService.buildTopicName(coreSettings.getTopic()));
+    }
+
+    @Override
+    public TbQueueConsumer<TbProtoQueueMsg<TransportProtos.ToVersionControlServiceMsg>> createToVersionControlMsgConsumer() {
+        TbLocalQueueConsumerTemplate.TbLocalQueueConsumerTemplateBuilder<TbProtoQueueMsg<TransportProtos.ToVersionControlServiceMsg>> consumerBuilder = TbLocalQueueConsumerTemplate.builder();
+        consumerBuilder.storage(localStorage);
+        consumerBuilder.topic(topicService.buildTopicName(vcSettings.getTopic()));
+        consumerBuilder.groupId(topicService.buildTopicName("monolith-vc-node"));
+        consumerBuilder.decoder(msg -> new TbProtoQueueMsg<>(msg.getKey(), TransportProtos.ToVersionControlServiceMsg.parseFrom(msg.getData()), msg.getHeaders()));
+        consumerBuilder.maxPollRecords(localQueueSettings.getMaxPollRecords());
+        return consumerBuilder.build();
+    }
+
+    @Override
+    public TbQueueConsumer<TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> createToRuleEngineMsgConsumer(Queue configuration) {
+        String queueName = configuration.getName();
+        TbLocalQueueConsumerTemplate.TbLocalQueueConsumerTemplateBuilder<TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> consumerBuilder = TbLocalQueueConsumerTemplate.builder();
+        consumerBuilder.storage(localStorage);
+        consumerBuilder.topic(topicService.buildTopicName(configuration.getTopic()));
+        consumerBuilder.groupId(topicService.buildTopicName("re-" + queueName + (configuration.getTenantId().isSysTenantId() ? "" : ("-isolated-" + configuration.getTenantId())) + "-consumer"));
+        consumerBuilder.decoder(msg -> new TbProtoQueueMsg<>(msg.getKey(), TransportProtos.ToRuleEngineMsg.parseFrom(msg.getData()), msg.getHeaders()));
+        consumerBuilder.maxPollRecords(localQueueSettings.getMaxPollRecords());
+        return consumerBuilder.build();
+    }
+
+    @Override
+    public TbQueueConsumer<TbProtoQueueMsg<TransportProtos.ToRuleEngineNotificationMsg>> createToRuleEngineNotificationsMsgConsumer() {
+        return new InMemoryTbQueueConsumer<>(inMemoryStorage, topicService.getNotificationsTopic(ServiceType.TB_RULE_ENGINE, serviceInfoProvider.getServiceId()).getFullTopicName());
+    }
+
+    @Override
+    public TbQueueConsumer<TbProtoQueueMsg<TransportProtos.ToCoreMsg>> createToCoreMsgConsumer() {
+        TbLocalQueueConsumerTemplate.TbLocalQueueConsumerTemplateBuilder<TbProtoQueueMsg<TransportProtos.ToCoreMsg>> consumerBuilder = TbLocalQueueConsumerTemplate.builder();
+        consumerBuilder.storage(localStorage);
+        consumerBuilder.topic(topicService.buildTopicName(coreSettings.getTopic()));
+        consumerBuilder.groupId(topicService.buildTopicName("monolith-core-consumer"));
+        consumerBuilder.decoder(msg -> new TbProtoQueueMsg<>(msg.getKey(), TransportProtos.ToCoreMsg.parseFrom(msg.getData()), msg.getHeaders()));
+        consumerBuilder.maxPollRecords(localQueueSettings.getMaxPollRecords());
+        return consumerBuilder.build();
+    }
+
+    @Override
+    public TbQueueConsumer<TbProtoQueueMsg<TransportProtos.ToCoreNotificationMsg>> createToCoreNotificationsMsgConsumer() {
+        return new InMemoryTbQueueConsumer<>(inMemoryStorage, topicService.getNotificationsTopic(ServiceType.TB_CORE, serviceInfoProvider.getServiceId()).getFullTopicName());
+    }
+
+    @Override
+    public TbQueueConsumer<TbProtoQueueMsg<TransportProtos.TransportApiRequestMsg>> createTransportApiRequestConsumer() {
+        return new InMemoryTbQueueConsumer<>(inMemoryStorage, topicService.buildTopicName(transportApiSettings.getRequestsTopic()));
+    }
+
+    @Override
+    public TbQueueProducer<TbProtoQueueMsg<TransportProtos.TransportApiResponseMsg>> createTransportApiResponseProducer() {
+        return new InMemoryTbQueueProducer<>(inMemoryStorage, topicService.buildTopicName(transportApiSettings.getResponsesTopic()));
+    }
+
+    @Override
+    public TbQueueRequestTemplate<TbProtoJsQueueMsg<JsInvokeProtos.RemoteJsRequest>, TbProtoQueueMsg<JsInvokeProtos.RemoteJsResponse>> createRemoteJsRequestTemplate() {
+        return null;
+    }
+
+    @Override
+    public TbQueueConsumer<TbProtoQueueMsg<TransportProtos.ToUsageStatsServiceMsg>> createToUsageStatsServiceMsgConsumer() {
+        TbLocalQueueConsumerTemplate.TbLocalQueueConsumerTemplateBuilder<TbProtoQueueMsg<TransportProtos.ToUsageStatsServiceMsg>> consumerBuilder = TbLocalQueueConsumerTemplate.builder();
+        consumerBuilder.storage(localStorage);
+        consumerBuilder.topic(topicService.buildTopicName(coreSettings.getUsageStatsTopic()));
+        consumerBuilder.groupId(topicService.buildTopicName("monolith-us-consumer"));
+        consumerBuilder.decoder(msg -> new TbProtoQueueMsg<>(msg.getKey(), TransportProtos.ToUsageStatsServiceMsg.parseFrom(msg.getData()), msg.getHeaders()));
+        consumerBuilder.maxPollRecords(localQueueSettings.getMaxPollRecords());
+        return consumerBuilder.build();
+    }
+
+    @Override
+    public TbQueueConsumer<TbProtoQueueMsg<TransportProtos.ToOtaPackageStateServiceMsg>> createToOtaPackageStateServiceMsgConsumer() {
+        TbLocalQueueConsumerTemplate.TbLocalQueueConsumerTemplateBuilder<TbProtoQueueMsg<TransportProtos.ToOtaPackageStateServiceMsg>> consumerBuilder = TbLocalQueueConsumerTemplate.builder();
+        consumerBuilder.storage(localStorage);
+        consumerBuilder.topic(topicService.buildTopicName(coreSettings.getOtaPackageTopic()));
+        consumerBuilder.groupId(topicService.buildTopicName("monolith-ota-consumer"));
+        consumerBuilder.decoder(msg -> new TbProtoQueueMsg<>(msg.getKey(), TransportProtos.ToOtaPackageStateServiceMsg.parseFrom(msg.getData()), msg.getHeaders()));
+        consumerBuilder.maxPollRecords(localQueueSettings.getMaxPollRecords());
+        return consumerBuilder.build();
+    }
+
+    @Override
+    public TbQueueProducer<TbProtoQueueMsg<TransportProtos.ToOtaPackageStateServiceMsg>> createToOtaPackageStateServiceMsgProducer() {
+        return new TbLocalQueueProducerTemplate<>(localStorage, topicService.buildTopicName(coreSettings.getOtaPackageTopic()));
+    }
+
+    @Override
+    public TbQueueProducer<TbProtoQueueMsg<TransportProtos.ToUsageStatsServiceMsg>> createToUsageStatsServiceMsgProducer() {
+        return new TbLocalQueueProducerTemplate<>(localStorage, topicService.buildTopicName(coreSettings.getUsageStatsTopic()));
+    }
+
+    @Override
+    public TbQueueProducer<TbProtoQueueMsg<TransportProtos.ToVersionControlServiceMsg>> createVersionControlMsgProducer() {
+        return new TbLocalQueueProducerTemplate<>(localStorage, topicService.buildTopicName(vcSettings.getTopic()));
+    }
+
+    @Scheduled(fixedRateString = "${queue.in_memory.stats.print-interval-ms:60000}")
+    private void printLocalQueueStats() {
+        localStorage.printStats();
+        inMemoryStorage.printStats();
+    }
+
+}
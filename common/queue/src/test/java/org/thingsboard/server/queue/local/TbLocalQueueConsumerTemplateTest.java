@@ -0,0 +1,257 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.local;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.queue.TbQueueMsg;
+import org.thingsboard.server.queue.TbQueueMsgHeaders;
+import org.thingsboard.server.queue.common.DefaultTbQueueMsgHeaders;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TbLocalQueueConsumerTemplateTest {
+
+    private static final String TOPIC = "tb_rule_engine.main";
+    private static final String GROUP_ID = "re-main-consumer";
+
+    private Path dataDir;
+    private TbLocalQueueSettings settings;
+    private TbLocalQueueStorage storage;
+
+    @Before
+    public void before() throws IOException {
+        dataDir = Files.createTempDirectory("tb-local-queue");
+        settings = new TbLocalQueueSettings();
+        settings.setDataDir(dataDir.toString());
+        settings.setSegmentSize(4096);
+        settings.setMaxSegmentsPerTopic(4);
+        settings.setMaxPollRecords(100);
+        storage = newStorage();
+    }
+
+    @After
+    public void after() throws IOException {
+        storage.destroy();
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Test
+    public void givenMessages_whenPoll_thenReturnedInOrderWithKeyAndHeaders() throws Exception {
+        UUID key = UUID.randomUUID();
+        DefaultTbQueueMsgHeaders headers = new DefaultTbQueueMsgHeaders();
+        headers.put("header", "value".getBytes(StandardCharsets.UTF_8));
+        storage.append(TOPIC, msg(key, headers, "data".getBytes(StandardCharsets.UTF_8)));
+        send(1, 10);
+
+        TbLocalQueueConsumerTemplate<TbQueueMsg> consumer = newConsumer();
+        List<TbQueueMsg> msgs = consumer.poll(100);
+
+        assertThat(msgs).hasSize(11);
+        assertThat(msgs.get(0).getKey()).isEqualTo(key);
+        assertThat(msgs.get(0).getHeaders().get("header")).isEqualTo("value".getBytes(StandardCharsets.UTF_8));
+        assertThat(new String(msgs.get(0).getData(), StandardCharsets.UTF_8)).isEqualTo("data");
+        assertThat(toPayloads(msgs.subList(1, 11))).isEqualTo(expectedPayloads(1, 10));
+        assertThat(consumer.poll(10)).isEmpty();
+    }
+
+    @Test
+    public void givenUncommittedMessages_whenRestart_thenPolledAgainFromCommittedOffset() throws Exception {
+        send(0, 5);
+        TbLocalQueueConsumerTemplate<TbQueueMsg> consumer = newConsumer();
+        assertThat(consumer.poll(100)).hasSize(5);
+        long firstPollSeq = consumer.getLastPollSeq();
+        send(5, 5);
+        assertThat(consumer.poll(100)).hasSize(5);
+        consumer.commit(firstPollSeq);
+        consumer.unsubscribe();
+
+        storage.destroy();
+        storage = newStorage();
+
+        TbLocalQueueConsumerTemplate<TbQueueMsg> restarted = newConsumer();
+        assertThat(toPayloads(restarted.poll(100))).isEqualTo(expectedPayloads(5, 5));
+    }
+
+    @Test
+    public void givenSegmentsNotConsumed_whenLogIsFull_thenAppendRejectedUntilCommit() throws Exception {
+        TbLocalQueueConsumerTemplate<TbQueueMsg> consumer = newConsumer();
+        consumer.poll(1);
+        int sent = 0;
+        while (storage.append(TOPIC, msg(sent))) {
+            sent++;
+        }
+        assertThat(sent).isGreaterThan(0);
+
+        int received = 0;
+        List<TbQueueMsg> msgs;
+        while (!(msgs = consumer.poll(10)).isEmpty()) {
+            received += msgs.size();
+        }
+        assertThat(received).isEqualTo(sent);
+        consumer.commit();
+
+        assertThat(storage.append(TOPIC, msg(sent))).isTrue();
+        assertThat(countSegments()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenExpiredOffsetOfRemovedGroup_whenCommit_thenSegmentsAreDeleted() throws Exception {
+        settings.setOffsetRetentionMs(100);
+        storage.commit("removed-consumer", TOPIC, 0);
+        TbLocalQueueConsumerTemplate<TbQueueMsg> consumer = newConsumer();
+        consumer.poll(1);
+        int sent = 0;
+        while (storage.append(TOPIC, msg(sent))) {
+            sent++;
+        }
+        while (!consumer.poll(10).isEmpty()) {
+        }
+
+        Thread.sleep(200);
+        consumer.commit();
+
+        assertThat(storage.append(TOPIC, msg(sent))).isTrue();
+        assertThat(countSegments()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenNotExpiredOffsetOfIdleGroup_whenCommit_thenSegmentsAreKept() throws Exception {
+        storage.commit("idle-consumer", TOPIC, 0);
+        TbLocalQueueConsumerTemplate<TbQueueMsg> consumer = newConsumer();
+        consumer.poll(1);
+        int sent = 0;
+        while (storage.append(TOPIC, msg(sent))) {
+            sent++;
+        }
+        while (!consumer.poll(10).isEmpty()) {
+        }
+
+        consumer.commit();
+
+        assertThat(storage.append(TOPIC, msg(sent))).isFalse();
+        assertThat(countSegments()).isEqualTo(settings.getMaxSegmentsPerTopic());
+    }
+
+    @Test
+    public void givenChangedSegmentSize_whenRestart_thenFailsToStart() throws Exception {
+        send(0, 3);
+        storage.destroy();
+
+        settings.setSegmentSize(8192);
+        assertThatThrownBy(this::newStorage)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("was changed from 4096 to 8192");
+
+        settings.setSegmentSize(4096);
+        storage = newStorage();
+        assertThat(toPayloads(newConsumer().poll(100))).isEqualTo(expectedPayloads(0, 3));
+    }
+
+    @Test
+    public void givenPartiallyWrittenRecord_whenRestart_thenLogIsTruncated() throws Exception {
+        send(0, 3);
+        storage.destroy();
+        Path segment = dataDir.resolve("topics").resolve(TOPIC).resolve(String.format("%020d", 0) + ".log");
+        byte[] bytes = Files.readAllBytes(segment);
+        int recordSize = TbLocalQueueLog.RECORD_HEADER_SIZE + TbLocalQueueMsg.encode(msg(0)).length;
+        // corrupt the payload of the last record
+        bytes[recordSize * 3 - 1] ^= 1;
+        Files.write(segment, bytes);
+
+        storage = newStorage();
+        send(10, 1);
+        assertThat(toPayloads(newConsumer().poll(100))).isEqualTo(List.of("0", "1", "10"));
+    }
+
+    private long countSegments() throws IOException {
+        try (Stream<Path> files = Files.list(dataDir.resolve("topics").resolve(TOPIC))) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log")).count();
+        }
+    }
+
+    private TbLocalQueueStorage newStorage() throws IOException {
+        TbLocalQueueStorage storage = new TbLocalQueueStorage(settings);
+        storage.init();
+        return storage;
+    }
+
+    private TbLocalQueueConsumerTemplate<TbQueueMsg> newConsumer() {
+        TbLocalQueueConsumerTemplate<TbQueueMsg> consumer = TbLocalQueueConsumerTemplate.<TbQueueMsg>builder()
+                .storage(storage)
+                .topic(TOPIC)
+                .groupId(GROUP_ID)
+                .decoder(msg -> msg)
+                .maxPollRecords(settings.getMaxPollRecords())
+                .build();
+        consumer.subscribe(Collections.singleton(new TopicPartitionInfo(TOPIC, null, null, true)));
+        return consumer;
+    }
+
+    private void send(int from, int count) throws IOException {
+        for (int i = from; i < from + count; i++) {
+            assertThat(storage.append(TOPIC, msg(i))).isTrue();
+        }
+    }
+
+    private static TbQueueMsg msg(int i) {
+        return msg(UUID.randomUUID(), new DefaultTbQueueMsgHeaders(), String.valueOf(i).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static TbQueueMsg msg(UUID key, TbQueueMsgHeaders headers, byte[] data) {
+        return new TbQueueMsg() {
+            @Override
+            public UUID getKey() {
+                return key;
+            }
+
+            @Override
+            public TbQueueMsgHeaders getHeaders() {
+                return headers;
+            }
+
+            @Override
+            public byte[] getData() {
+                return data;
+            }
+        };
+    }
+
+    private static List<String> toPayloads(List<TbQueueMsg> msgs) {
+        return msgs.stream().map(msg -> new String(msg.getData(), StandardCharsets.UTF_8)).collect(Collectors.toList());
+    }
+
+    private static List<String> expectedPayloads(int from, int count) {
+        return Stream.iterate(from, i -> i + 1).limit(count).map(String::valueOf).collect(Collectors.toList());
+    }
+
+}
@@ -18,6 +18,7 @@ package org.thingsboard.server.queue.memory;
 import com.google.gson.Gson;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.thingsboard.server.queue.TbQueueMsg;
 import org.thingsboard.server.queue.common.DefaultTbQueueMsg;
 
@@ -112,4 +113,69 @@ public class DefaultInMemoryStorageTest {
         testPollOnce(10);
     }
 
+    @Test
+    public void givenMaxQueueSize_whenQueueIsFull_thenPutRejectedUntilPoll() throws InterruptedException {
+        DefaultInMemoryStorage storage = new DefaultInMemoryStorage();
+        ReflectionTestUtils.setField(storage, "maxQueueSize", 2);
+        ReflectionTestUtils.setField(storage, "boundedTopicsStr", topic);
+        storage.init();
+
+        assertThat(storage.put(topic, mock(TbQueueMsg.class))).isTrue();
+        assertThat(storage.put(topic, mock(TbQueueMsg.class))).isTrue();
+        assertThat(storage.put(topic, mock(TbQueueMsg.class))).as("queue is full").isFalse();
+        assertThat(storage.getLagTotal()).isEqualTo(2);
+
+        assertThat(storage.get(topic)).hasSize(2);
+        assertThat(storage.put(topic, mock(TbQueueMsg.class))).isTrue();
+    }
+
+    @Test
+    public void givenTopicMaxQueueSize_whenPutToPartition_thenTopicLimitApplied() {
+        DefaultInMemoryStorage storage = new DefaultInMemoryStorage();
+        ReflectionTestUtils.setField(storage, "maxQueueSize", 1);
+        ReflectionTestUtils.setField(storage, "boundedTopicsStr", "tb_rule_engine.main,tb_rule_engine.hp");
+        ReflectionTestUtils.setField(storage, "topicMaxQueueSizesStr", "tb_rule_engine.main:3,tb_core_notification.tb-node-0:1");
+        storage.init();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(storage.put("tb_rule_engine.main.0", mock(TbQueueMsg.class))).isTrue();
+            assertThat(storage.put("tb_rule_engine.main.1", mock(TbQueueMsg.class))).isTrue();
+        }
+        assertThat(storage.put("tb_rule_engine.main.0", mock(TbQueueMsg.class))).isFalse();
+        assertThat(storage.put("tb_rule_engine.hp.0", mock(TbQueueMsg.class))).isTrue();
+        assertThat(storage.put("tb_rule_engine.hp.0", mock(TbQueueMsg.class))).isFalse();
+        assertThat(storage.put(topic, mock(TbQueueMsg.class))).isTrue();
+        assertThat(storage.put(topic, mock(TbQueueMsg.class))).isFalse();
+    }
+
+    @Test
+    public void givenMaxQueueSize_whenPutToInternalTopic_thenQueueIsUnbounded() {
+        DefaultInMemoryStorage storage = new DefaultInMemoryStorage();
+        ReflectionTestUtils.setField(storage, "maxQueueSize", 1);
+        ReflectionTestUtils.setField(storage, "boundedTopicsStr", "tb_rule_engine.main");
+        storage.init();
+
+        assertThat(storage.put("tb_rule_engine.main.0", mock(TbQueueMsg.class))).isTrue();
+        assertThat(storage.put("tb_rule_engine.main.0", mock(TbQueueMsg.class))).isFalse();
+        for (int i = 0; i < 10; i++) {
+            assertThat(storage.put("tb_core.0", mock(TbQueueMsg.class))).isTrue();
+            assertThat(storage.put("tb_rule_engine.notifications.tb-node-0", mock(TbQueueMsg.class))).isTrue();
+            assertThat(storage.put("tb_transport.api.requests", mock(TbQueueMsg.class))).isTrue();
+        }
+    }
+
+    @Test
+    public void givenMaxPollRecords_whenPoll_thenReturnBatchesOfMaxPollRecords() throws InterruptedException {
+        DefaultInMemoryStorage storage = new DefaultInMemoryStorage();
+        ReflectionTestUtils.setField(storage, "maxPollRecords", 10);
+        storage.init();
+        for (int i = 0; i < 25; i++) {
+            storage.put(topic, mock(TbQueueMsg.class));
+        }
+
+        assertThat(storage.get(topic)).hasSize(10);
+        assertThat(storage.get(topic)).hasSize(10);
+        assertThat(storage.get(topic)).hasSize(5);
+    }
+
 }
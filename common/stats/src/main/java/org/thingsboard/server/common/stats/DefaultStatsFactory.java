@@ -16,6 +16,8 @@
 package org.thingsboard.server.common.stats;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.Timer;
@@ -26,6 +28,7 @@ import org.springframework.stereotype.Service;
 import org.thingsboard.server.common.data.StringUtils;
 
 import jakarta.annotation.PostConstruct;
+import java.time.Duration;
 import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
@@ -38,6 +41,9 @@ public class DefaultStatsFactory implements StatsFactory {
 
     private static final Counter STUB_COUNTER = new StubCounter();
 
+    private static final long MIN_HISTOGRAM_VALUE_NANOS = 100_000;
+    private static final long MAX_HISTOGRAM_VALUE_SECONDS = 60;
+
     @Autowired
     private MeterRegistry meterRegistry;
 
@@ -111,6 +117,33 @@ public class DefaultStatsFactory implements StatsFactory {
         return timerBuilder.register(meterRegistry);
     }
 
+    @Override
+    public Timer createHistogramTimer(String key, double[] percentiles, String... tags) {
+        return Timer.builder(key)
+                .tags(tags)
+                .publishPercentiles(percentiles)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(MIN_HISTOGRAM_VALUE_NANOS))
+                .maximumExpectedValue(Duration.ofSeconds(MAX_HISTOGRAM_VALUE_SECONDS))
+                .register(meterRegistry);
+    }
+
+    @Override
+    public DistributionSummary createHistogram(String key, double[] percentiles, double minExpectedValue, double maxExpectedValue, String... tags) {
+        return DistributionSummary.builder(key)
+                .tags(tags)
+                .publishPercentiles(percentiles)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(minExpectedValue)
+                .maximumExpectedValue(maxExpectedValue)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void removeMeter(Meter meter) {
+        meterRegistry.remove(meter);
+    }
+
     private static class StubCounter implements Counter {
         @Override
         public void increment(double amount) {
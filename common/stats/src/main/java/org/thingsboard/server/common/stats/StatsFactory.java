@@ -15,6 +15,8 @@
  */
 package org.thingsboard.server.common.stats;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.Timer;
 
 public interface StatsFactory {
@@ -29,4 +31,21 @@ public interface StatsFactory {
 
     Timer createTimer(String key, String... tags);
 
+    /**
+     * Creates a timer that additionally publishes a percentile histogram (HDR based, exported as buckets by Prometheus)
+     * and the given percentiles.
+     */
+    Timer createHistogramTimer(String key, double[] percentiles, String... tags);
+
+    /**
+     * Creates a distribution summary of arbitrary values (e.g. queue sizes) that publishes a percentile histogram
+     * and the given percentiles. Histogram buckets cover only the range of the expected values.
+     */
+    DistributionSummary createHistogram(String key, double[] percentiles, double minExpectedValue, double maxExpectedValue, String... tags);
+
+    /**
+     * Removes the meter from the registry, e.g. once the entity it is tagged with is deleted.
+     */
+    void removeMeter(Meter meter);
+
 }
@@ -32,7 +32,8 @@ public abstract class AbstractListeningExecutor implements ListeningExecutor {
 
     @PostConstruct
     public void init() {
-        this.service = MoreExecutors.listeningDecorator(ThingsBoardExecutors.newWorkStealingPool(getThreadPollSize(), getClass()));
+        this.service = MoreExecutors.listeningDecorator(
+                ThingsBoardExecutors.newExecutor(isVirtualThreadsEnabled(), getThreadPollSize(), getClass().getSimpleName()));
     }
 
     @PreDestroy
@@ -62,4 +63,11 @@ public abstract class AbstractListeningExecutor implements ListeningExecutor {
 
     protected abstract int getThreadPollSize();
 
+    /**
+     * Whether to run tasks on virtual threads instead of the thread pool, if supported by the running JVM
+     */
+    protected boolean isVirtualThreadsEnabled() {
+        return false;
+    }
+
 }
@@ -15,11 +15,50 @@
  */
 package org.thingsboard.common.util;
 
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
 
+@Slf4j
 public class ThingsBoardExecutors {
 
+    /*
+     * The project is compiled for Java 17, so the virtual threads API (Java 21+) is looked up at runtime.
+     * Handles are null when the running JVM does not support virtual threads.
+     */
+    private static final MethodHandle OF_VIRTUAL;
+    private static final MethodHandle BUILDER_NAME;
+    private static final MethodHandle BUILDER_FACTORY;
+    private static final MethodHandle NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        MethodHandle ofVirtual = null;
+        MethodHandle builderName = null;
+        MethodHandle builderFactory = null;
+        MethodHandle newThreadPerTaskExecutor = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Class<?> virtualBuilderClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(virtualBuilderClass));
+            builderName = lookup.findVirtual(virtualBuilderClass, "name", MethodType.methodType(virtualBuilderClass, String.class, long.class));
+            builderFactory = lookup.findVirtual(builderClass, "factory", MethodType.methodType(ThreadFactory.class));
+            newThreadPerTaskExecutor = lookup.findStatic(Executors.class, "newThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class, ThreadFactory.class));
+        } catch (ReflectiveOperationException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+    }
+
     /**
      * Method forked from ExecutorService to provide thread poll name
      *
@@ -48,4 +87,45 @@ public class ThingsBoardExecutors {
         return newWorkStealingPool(parallelism, clazz.getSimpleName());
     }
 
+    public static boolean isVirtualThreadsSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task.
+     * Suitable for the tasks that block on I/O: a blocked virtual thread releases its carrier thread,
+     * so the number of concurrent blocking calls is not limited by the pool size.
+     *
+     * @param namePrefix used to define thread name
+     * @return the newly created executor
+     * @throws UnsupportedOperationException if the running JVM does not support virtual threads
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+        if (!isVirtualThreadsSupported()) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by Java " + Runtime.version().feature());
+        }
+        try {
+            Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(), namePrefix + "-", 0L);
+            ThreadFactory threadFactory = (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(threadFactory);
+        } catch (Throwable t) {
+            throw new IllegalStateException("Failed to create virtual thread executor", t);
+        }
+    }
+
+    /**
+     * Creates a virtual thread per task executor if enabled and supported by the running JVM,
+     * otherwise a work-stealing pool with the given parallelism.
+     */
+    public static ExecutorService newExecutor(boolean virtualThreads, int parallelism, String namePrefix) {
+        if (virtualThreads) {
+            if (isVirtualThreadsSupported()) {
+                return newVirtualThreadPerTaskExecutor(namePrefix);
+            }
+            log.warn("[{}] Virtual threads are not supported by Java {}, using work-stealing pool with parallelism {}",
+                    namePrefix, Runtime.version().feature(), parallelism);
+        }
+        return newWorkStealingPool(parallelism, namePrefix);
+    }
+
 }
@@ -0,0 +1,80 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.common.util;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ThingsBoardExecutorsTest {
+
+    @Test
+    public void givenVirtualThreadsDisabled_whenNewExecutor_thenWorkStealingPool() {
+        ExecutorService executor = ThingsBoardExecutors.newExecutor(false, 2, "test");
+        try {
+            assertThat(executor).isInstanceOf(ForkJoinPool.class);
+            assertThat(((ForkJoinPool) executor).getParallelism()).isEqualTo(2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void givenVirtualThreadsNotSupported_whenNewExecutor_thenFallbackToWorkStealingPool() {
+        Assume.assumeFalse(ThingsBoardExecutors.isVirtualThreadsSupported());
+        ExecutorService executor = ThingsBoardExecutors.newExecutor(true, 2, "test");
+        try {
+            assertThat(executor).isInstanceOf(ForkJoinPool.class);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThatThrownBy(() -> ThingsBoardExecutors.newVirtualThreadPerTaskExecutor("test"))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void givenVirtualThreads_whenTasksBlock_thenNotLimitedByParallelism() throws Exception {
+        Assume.assumeTrue(ThingsBoardExecutors.isVirtualThreadsSupported());
+        ExecutorService executor = ThingsBoardExecutors.newExecutor(true, 1, "test-virtual");
+        try {
+            long startTs = System.currentTimeMillis();
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                futures.add(executor.submit(() -> {
+                    Thread.sleep(100);
+                    return Thread.currentThread().getName();
+                }));
+            }
+            for (Future<String> future : futures) {
+                assertThat(future.get(10, TimeUnit.SECONDS)).startsWith("test-virtual-");
+            }
+            // 1000 blocking tasks with parallelism 1 would take 100 seconds on the thread pool
+            assertThat(System.currentTimeMillis() - startTs).isLessThan(TimeUnit.SECONDS.toMillis(10));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
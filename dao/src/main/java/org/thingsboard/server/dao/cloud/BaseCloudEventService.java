@@ -15,9 +15,12 @@
  */
 package org.thingsboard.server.dao.cloud;
 
+import com.datastax.oss.driver.api.core.uuid.Uuids;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -27,6 +30,7 @@ import org.thingsboard.server.common.data.cloud.CloudEvent;
 import org.thingsboard.server.common.data.cloud.CloudEventType;
 import org.thingsboard.server.common.data.edge.EdgeEventActionType;
 import org.thingsboard.server.common.data.edge.EdgeSettings;
+import org.thingsboard.server.common.data.id.CloudEventId;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.kv.AttributeKvEntry;
@@ -40,7 +44,9 @@ import org.thingsboard.server.dao.service.DataValidator;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.ExecutionException;
+import java.util.function.IntConsumer;
 
 @Service
 @Slf4j
@@ -49,6 +55,8 @@ public class BaseCloudEventService implements CloudEventService {
 
     public static final String INCORRECT_TENANT_ID = "Incorrect tenantId ";
 
+    private static final int DEDUPLICATION_INDEX_LOAD_PAGE_SIZE = 1000;
+
     private static final List<EdgeEventActionType> CLOUD_EVENT_ACTION_WITHOUT_DUPLICATES =
             List.of(EdgeEventActionType.CREDENTIALS_REQUEST,
                     EdgeEventActionType.ATTRIBUTES_REQUEST,
@@ -63,6 +71,8 @@ public class BaseCloudEventService implements CloudEventService {
 
     private DataValidator<CloudEvent> cloudEventValidator;
 
+    private CloudEventDeduplicationIndex deduplicationIndex;
+
     @Override
     public void cleanupEvents(long ttl) {
         cloudEventDao.cleanupEvents(ttl);
@@ -91,29 +101,73 @@ public class BaseCloudEventService implements CloudEventService {
                                                       EntityId entityId,
                                                       JsonNode entityBody,
                                                       Long queueStartTs) {
-        boolean addEventToQueue = true;
+        UUID eventId = Uuids.timeBased();
+        long createdTime = Uuids.unixTimestamp(eventId);
+        boolean registeredInIndex = false;
         if (queueStartTs != null && queueStartTs > 0 && CLOUD_EVENT_ACTION_WITHOUT_DUPLICATES.contains(cloudEventAction)) {
-            long countMsgsInQueue = countEventsByTenantIdAndEntityIdAndActionAndTypeAndStartTimeAndEndTime(
-                    tenantId, entityId, cloudEventType, cloudEventAction, queueStartTs, System.currentTimeMillis());
-            if (countMsgsInQueue > 0) {
+            loadDeduplicationIndexIfRequired(tenantId, queueStartTs);
+            boolean duplicate;
+            if (deduplicationIndex.ensureCapacity(queueStartTs)) {
+                duplicate = !deduplicationIndex.tryRegister(tenantId, entityId.getId(), cloudEventType, cloudEventAction, createdTime, queueStartTs);
+                registeredInIndex = !duplicate;
+            } else {
+                duplicate = countEventsByTenantIdAndEntityIdAndActionAndTypeAndStartTimeAndEndTime(
+                        tenantId, entityId, cloudEventType, cloudEventAction, queueStartTs, System.currentTimeMillis()) > 0;
+            }
+            if (duplicate) {
                 log.info("{} Skipping adding of {} event because it's already present in db {} {}", tenantId, cloudEventAction, entityId, cloudEventType);
-                addEventToQueue = false;
+                return Futures.immediateFuture(null);
             }
         }
-        if (addEventToQueue) {
-            log.debug("Pushing event to cloud queue. tenantId [{}], cloudEventType [{}], cloudEventAction[{}], entityId [{}], entityBody [{}]",
-                    tenantId, cloudEventType, cloudEventAction, entityId, entityBody);
-            CloudEvent cloudEvent = new CloudEvent();
-            cloudEvent.setTenantId(tenantId);
-            cloudEvent.setType(cloudEventType);
-            cloudEvent.setAction(cloudEventAction);
-            if (entityId != null) {
-                cloudEvent.setEntityId(entityId.getId());
+        log.debug("Pushing event to cloud queue. tenantId [{}], cloudEventType [{}], cloudEventAction[{}], entityId [{}], entityBody [{}]",
+                tenantId, cloudEventType, cloudEventAction, entityId, entityBody);
+        CloudEvent cloudEvent = new CloudEvent(new CloudEventId(eventId));
+        cloudEvent.setCreatedTime(createdTime);
+        cloudEvent.setTenantId(tenantId);
+        cloudEvent.setType(cloudEventType);
+        cloudEvent.setAction(cloudEventAction);
+        if (entityId != null) {
+            cloudEvent.setEntityId(entityId.getId());
+        }
+        cloudEvent.setEntityBody(entityBody);
+        ListenableFuture<Void> future = saveAsync(cloudEvent);
+        if (registeredInIndex) {
+            Futures.addCallback(future, new FutureCallback<>() {
+                @Override
+                public void onSuccess(Void result) {
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    deduplicationIndex.unregister(tenantId, entityId.getId(), cloudEventType, cloudEventAction, createdTime);
+                }
+            }, MoreExecutors.directExecutor());
+        }
+        return future;
+    }
+
+    private void loadDeduplicationIndexIfRequired(TenantId tenantId, long queueStartTs) {
+        if (deduplicationIndex.isLoaded(tenantId)) {
+            return;
+        }
+        synchronized (deduplicationIndex) {
+            if (deduplicationIndex.isLoaded(tenantId)) {
+                return;
             }
-            cloudEvent.setEntityBody(entityBody);
-            return saveAsync(cloudEvent);
-        } else {
-            return Futures.immediateFuture(null);
+            log.debug("[{}] Loading pending cloud events to deduplication index, queue start ts [{}]", tenantId, queueStartTs);
+            TimePageLink pageLink = new TimePageLink(DEDUPLICATION_INDEX_LOAD_PAGE_SIZE, 0, null, null, queueStartTs + 1, System.currentTimeMillis());
+            PageData<CloudEvent> pendingEvents;
+            do {
+                pendingEvents = cloudEventDao.findCloudEvents(tenantId.getId(), null, null, pageLink);
+                for (CloudEvent pendingEvent : pendingEvents.getData()) {
+                    if (pendingEvent.getEntityId() != null && CLOUD_EVENT_ACTION_WITHOUT_DUPLICATES.contains(pendingEvent.getAction())) {
+                        deduplicationIndex.tryRegister(tenantId, pendingEvent.getEntityId(), pendingEvent.getType(),
+                                pendingEvent.getAction(), pendingEvent.getCreatedTime(), queueStartTs);
+                    }
+                }
+                pageLink = pageLink.nextPageLink();
+            } while (pendingEvents.hasNext());
+            deduplicationIndex.markLoaded(tenantId);
         }
     }
 
@@ -137,6 +191,11 @@ public class BaseCloudEventService implements CloudEventService {
                 endTime);
     }
 
+    @Override
+    public void registerNewCloudEventsListener(IntConsumer listener) {
+        cloudEventDao.registerNewCloudEventsListener(listener);
+    }
+
     @Override
     public EdgeSettings findEdgeSettings(TenantId tenantId) {
         try {
@@ -21,14 +21,14 @@ import org.thingsboard.server.common.data.cloud.CloudEventType;
 import org.thingsboard.server.common.data.edge.EdgeEventActionType;
 import org.thingsboard.server.common.data.page.PageData;
 import org.thingsboard.server.common.data.page.TimePageLink;
-import org.thingsboard.server.dao.Dao;
 
 import java.util.UUID;
+import java.util.function.IntConsumer;
 
 /**
  * The Interface CloudEventDao.
  */
-public interface CloudEventDao extends Dao<CloudEvent> {
+public interface CloudEventDao {
 
     /**
      * Save or update cloud event object
@@ -64,4 +64,11 @@ public interface CloudEventDao extends Dao<CloudEvent> {
     void cleanupEvents(long eventsTtl);
 
     void migrateCloudEvents();
+
+    /**
+     * Registers listener that is notified with the number of cloud events every time a batch of events is committed.
+     *
+     * @param listener the listener
+     */
+    void registerNewCloudEventsListener(IntConsumer listener);
 }
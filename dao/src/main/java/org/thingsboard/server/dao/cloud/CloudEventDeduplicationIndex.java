@@ -0,0 +1,101 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.cloud;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thingsboard.server.common.data.cloud.CloudEventType;
+import org.thingsboard.server.common.data.edge.EdgeEventActionType;
+import org.thingsboard.server.common.data.id.TenantId;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Bounded index of cloud events that are not yet delivered to the cloud, used to skip duplicate request events
+ * without querying the storage. Entry value is the created time of the pending event, an entry is considered
+ * pending while its created time is after the uplink queue start ts.
+ */
+@Slf4j
+@Component
+public class CloudEventDeduplicationIndex {
+
+    @Value("${sql.cloud_events.deduplication_index_max_size:100000}")
+    private int maxSize;
+
+    private final ConcurrentMap<PendingEventKey, Long> pendingEvents = new ConcurrentHashMap<>();
+    private final Set<TenantId> loadedTenants = ConcurrentHashMap.newKeySet();
+
+    boolean isLoaded(TenantId tenantId) {
+        return loadedTenants.contains(tenantId);
+    }
+
+    void markLoaded(TenantId tenantId) {
+        loadedTenants.add(tenantId);
+    }
+
+    /**
+     * Registers pending event unless another event with the same key is still pending.
+     *
+     * @return false if the event is a duplicate of a pending one
+     */
+    boolean tryRegister(TenantId tenantId, UUID entityId, CloudEventType type, EdgeEventActionType action,
+                        long createdTime, long queueStartTs) {
+        boolean[] duplicate = new boolean[1];
+        pendingEvents.compute(new PendingEventKey(tenantId, entityId, type, action), (key, pendingCreatedTime) -> {
+            if (pendingCreatedTime != null && pendingCreatedTime > queueStartTs) {
+                duplicate[0] = true;
+                return pendingCreatedTime;
+            }
+            return createdTime;
+        });
+        return !duplicate[0];
+    }
+
+    void unregister(TenantId tenantId, UUID entityId, CloudEventType type, EdgeEventActionType action, long createdTime) {
+        pendingEvents.remove(new PendingEventKey(tenantId, entityId, type, action), createdTime);
+    }
+
+    /**
+     * Removes delivered events if the index is full.
+     *
+     * @return true if there is space for a new entry
+     */
+    boolean ensureCapacity(long queueStartTs) {
+        if (pendingEvents.size() < maxSize) {
+            return true;
+        }
+        pendingEvents.values().removeIf(createdTime -> createdTime <= queueStartTs);
+        if (pendingEvents.size() < maxSize) {
+            return true;
+        }
+        log.debug("Cloud event deduplication index is full [{}]", pendingEvents.size());
+        return false;
+    }
+
+    @Data
+    private static class PendingEventKey {
+        private final TenantId tenantId;
+        private final UUID entityId;
+        private final CloudEventType type;
+        private final EdgeEventActionType action;
+    }
+
+}
@@ -0,0 +1,331 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.cloud.file;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.common.data.cloud.CloudEvent;
+import org.thingsboard.server.common.data.cloud.CloudEventType;
+import org.thingsboard.server.common.data.edge.EdgeEventActionType;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only memory-mapped segment of the cloud event log.
+ * <p>
+ * Record layout: [int length][int crc32][long seqId][long createdTime][long tenantIdMSB][long tenantIdLSB]
+ * [long entityIdMSB][long entityIdLSB][int type][int action][payload], where payload is an encoded CloudEventProto
+ * and the crc covers everything after the crc field. The header carries the fields events are filtered by,
+ * so records are skipped and counted without decoding the payload. Length is written last,
+ * so a torn record at the tail is detected and dropped on recovery.
+ * <p>
+ * Single writer, many concurrent readers. Readers {@link #retain()} the segment for the time of the iteration,
+ * the file is unmapped and deleted only after the last reader released it.
+ */
+@Slf4j
+class CloudEventSegment {
+
+    static final int HEADER_SIZE = 64;
+    private static final int INDEX_STEP = 64;
+
+    static {
+        checkCodesAreUnique(CloudEventType.values());
+        checkCodesAreUnique(EdgeEventActionType.values());
+    }
+
+    @Getter
+    private final Path file;
+    @Getter
+    private final long baseSeqId;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    // the segment holds one reference itself until it is closed or deleted
+    private final AtomicInteger refCount = new AtomicInteger(1);
+    private volatile boolean deleteOnRelease;
+
+    private volatile int writePosition;
+    @Getter
+    private volatile long lastSeqId;
+    @Getter
+    private volatile long firstCreatedTime;
+    @Getter
+    private volatile long maxCreatedTime;
+    private int recordsCount;
+
+    private volatile SparseIndex index = new SparseIndex(16);
+    private volatile int indexSize;
+
+    private CloudEventSegment(Path file, long baseSeqId, FileChannel channel, MappedByteBuffer buffer) {
+        this.file = file;
+        this.baseSeqId = baseSeqId;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.lastSeqId = baseSeqId - 1;
+    }
+
+    static CloudEventSegment open(Path file, long baseSeqId, int segmentSize) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = Math.max(channel.size(), segmentSize);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        CloudEventSegment segment = new CloudEventSegment(file, baseSeqId, channel, buffer);
+        segment.recover();
+        return segment;
+    }
+
+    static int code(Enum<?> value) {
+        return value.name().hashCode();
+    }
+
+    private void recover() {
+        int position = 0;
+        while (position + HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER_SIZE + length > buffer.capacity()) {
+                break;
+            }
+            if (crc(position, length) != buffer.getInt(position + 4)) {
+                log.warn("[{}] Corrupted record at position {}, segment tail is going to be truncated", file, position);
+                break;
+            }
+            onAppended(position, buffer.getLong(position + 8), buffer.getLong(position + 16));
+            position += HEADER_SIZE + length;
+        }
+        writePosition = position;
+        if (position + 4 <= buffer.capacity()) {
+            buffer.putInt(position, 0);
+        }
+    }
+
+    /**
+     * @return false if there is no space left in the segment
+     */
+    boolean append(long seqId, CloudEvent cloudEvent, byte[] payload) {
+        int position = writePosition;
+        if (position + HEADER_SIZE + payload.length + 4 > buffer.capacity()) {
+            return false;
+        }
+        UUID tenantId = cloudEvent.getTenantId().getId();
+        UUID entityId = cloudEvent.getEntityId();
+        buffer.put(position + HEADER_SIZE, payload);
+        buffer.putLong(position + 8, seqId);
+        buffer.putLong(position + 16, cloudEvent.getCreatedTime());
+        buffer.putLong(position + 24, tenantId.getMostSignificantBits());
+        buffer.putLong(position + 32, tenantId.getLeastSignificantBits());
+        buffer.putLong(position + 40, entityId != null ? entityId.getMostSignificantBits() : 0L);
+        buffer.putLong(position + 48, entityId != null ? entityId.getLeastSignificantBits() : 0L);
+        buffer.putInt(position + 56, code(cloudEvent.getType()));
+        buffer.putInt(position + 60, code(cloudEvent.getAction()));
+        buffer.putInt(position + 4, crc(position, payload.length));
+        buffer.putInt(position + HEADER_SIZE + payload.length, 0);
+        buffer.putInt(position, payload.length);
+        onAppended(position, seqId, cloudEvent.getCreatedTime());
+        writePosition = position + HEADER_SIZE + payload.length;
+        return true;
+    }
+
+    private void onAppended(int position, long seqId, long createdTime) {
+        if (recordsCount % INDEX_STEP == 0) {
+            SparseIndex current = index;
+            if (indexSize == current.seqIds.length) {
+                current = current.grow();
+                index = current;
+            }
+            current.seqIds[indexSize] = seqId;
+            current.positions[indexSize] = position;
+            indexSize++;
+        }
+        if (recordsCount == 0) {
+            firstCreatedTime = createdTime;
+        }
+        recordsCount++;
+        maxCreatedTime = Math.max(maxCreatedTime, createdTime);
+        lastSeqId = seqId;
+    }
+
+    boolean isEmpty() {
+        return writePosition == 0;
+    }
+
+    /**
+     * Passes records with seqId greater than {@code afterSeqId} to the visitor in seqId order until the visitor returns false.
+     * The caller must hold a reference to the segment, see {@link #retain()}.
+     *
+     * @return false if the visitor stopped the iteration
+     */
+    boolean forEach(long afterSeqId, RecordVisitor visitor) {
+        int size = indexSize;
+        SparseIndex currentIndex = index;
+        int limit = writePosition;
+        int position = 0;
+        int idx = Arrays.binarySearch(currentIndex.seqIds, 0, size, afterSeqId);
+        if (idx >= 0) {
+            position = currentIndex.positions[idx];
+        } else if (idx < -1) {
+            position = currentIndex.positions[-idx - 2];
+        }
+        Record record = new Record();
+        while (position < limit) {
+            record.position = position;
+            int length = buffer.getInt(position);
+            if (record.getSeqId() > afterSeqId && !visitor.visit(record)) {
+                return false;
+            }
+            position += HEADER_SIZE + length;
+        }
+        return true;
+    }
+
+    /**
+     * @return false if the segment is already closed or deleted and must not be read
+     */
+    boolean retain() {
+        int current;
+        do {
+            current = refCount.get();
+            if (current <= 0) {
+                return false;
+            }
+        } while (!refCount.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    void release() {
+        if (refCount.decrementAndGet() == 0) {
+            doClose();
+        }
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Closes the segment once all readers released it.
+     */
+    void close() {
+        release();
+    }
+
+    /**
+     * Closes and deletes the segment file once all readers released it.
+     */
+    void delete() {
+        deleteOnRelease = true;
+        release();
+    }
+
+    private void doClose() {
+        try {
+            if (!deleteOnRelease) {
+                buffer.force();
+            }
+            channel.close();
+            if (deleteOnRelease) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            log.warn("[{}] Failed to close segment", file, e);
+        }
+    }
+
+    private int crc(int position, int payloadLength) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(buffer.slice(position + 8, HEADER_SIZE - 8 + payloadLength));
+        return (int) crc32.getValue();
+    }
+
+    private static void checkCodesAreUnique(Enum<?>[] values) {
+        if (Stream.of(values).mapToInt(CloudEventSegment::code).distinct().count() != values.length) {
+            throw new IllegalStateException("Cloud event segment codes of " + values.getClass().getComponentType().getSimpleName() + " are not unique");
+        }
+    }
+
+    @FunctionalInterface
+    interface RecordVisitor {
+        boolean visit(Record record);
+    }
+
+    /**
+     * View of the record at the current iteration position. Header fields are read directly from the mapped buffer,
+     * the payload is copied only on request.
+     */
+    class Record {
+
+        private int position;
+
+        long getSeqId() {
+            return buffer.getLong(position + 8);
+        }
+
+        long getCreatedTime() {
+            return buffer.getLong(position + 16);
+        }
+
+        boolean isTenant(UUID tenantId) {
+            return buffer.getLong(position + 24) == tenantId.getMostSignificantBits()
+                    && buffer.getLong(position + 32) == tenantId.getLeastSignificantBits();
+        }
+
+        boolean isEntity(UUID entityId) {
+            return buffer.getLong(position + 40) == entityId.getMostSignificantBits()
+                    && buffer.getLong(position + 48) == entityId.getLeastSignificantBits();
+        }
+
+        boolean isType(CloudEventType type) {
+            return buffer.getInt(position + 56) == code(type);
+        }
+
+        boolean isAction(EdgeEventActionType action) {
+            return buffer.getInt(position + 60) == code(action);
+        }
+
+        byte[] readPayload() {
+            byte[] payload = new byte[buffer.getInt(position)];
+            buffer.get(position + HEADER_SIZE, payload);
+            return payload;
+        }
+    }
+
+    private static class SparseIndex {
+        private final long[] seqIds;
+        private final int[] positions;
+
+        SparseIndex(int capacity) {
+            this.seqIds = new long[capacity];
+            this.positions = new int[capacity];
+        }
+
+        SparseIndex(long[] seqIds, int[] positions) {
+            this.seqIds = seqIds;
+            this.positions = positions;
+        }
+
+        SparseIndex grow() {
+            return new SparseIndex(Arrays.copyOf(seqIds, seqIds.length * 2), Arrays.copyOf(positions, positions.length * 2));
+        }
+    }
+
+}
@@ -0,0 +1,535 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.cloud.file;
+
+import com.datastax.oss.driver.api.core.uuid.Uuids;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.common.data.AttributeScope;
+import org.thingsboard.server.common.data.Tenant;
+import org.thingsboard.server.common.data.cloud.CloudEvent;
+import org.thingsboard.server.common.data.cloud.CloudEventType;
+import org.thingsboard.server.common.data.edge.EdgeEventActionType;
+import org.thingsboard.server.common.data.id.CloudEventId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.AttributeKvEntry;
+import org.thingsboard.server.common.data.page.PageData;
+import org.thingsboard.server.common.data.page.PageLink;
+import org.thingsboard.server.common.data.page.TimePageLink;
+import org.thingsboard.server.common.stats.StatsFactory;
+import org.thingsboard.server.dao.attributes.AttributesService;
+import org.thingsboard.server.dao.cloud.CloudEventDao;
+import org.thingsboard.server.dao.sql.ScheduledLogExecutorComponent;
+import org.thingsboard.server.dao.sql.TbSqlBlockingQueueParams;
+import org.thingsboard.server.dao.sql.TbSqlBlockingQueueWrapper;
+import org.thingsboard.server.dao.tenant.TenantDao;
+import org.thingsboard.server.dao.util.FileCloudEventsDao;
+import org.thingsboard.server.gen.transport.TransportProtos.CloudEventProto;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+
+import static org.thingsboard.server.dao.model.ModelConstants.NULL_UUID;
+
+/**
+ * Cloud event storage backed by append-only memory-mapped segment files.
+ * Segments are rolled by size and age, TTL cleanup deletes whole segments.
+ */
+@Slf4j
+@Component
+@FileCloudEventsDao
+@RequiredArgsConstructor
+public class FileCloudEventDao implements CloudEventDao {
+
+    private static final String SEGMENT_FILE_SUFFIX = ".segment";
+    private static final String MIGRATED_FROM_SQL_MARKER = "migrated_from_sql";
+    private static final int MIGRATION_PAGE_SIZE = 1000;
+
+    private static final String QUEUE_START_TS_ATTR_KEY = "queueStartTs";
+    private static final String QUEUE_SEQ_ID_OFFSET_ATTR_KEY = "queueSeqIdOffset";
+
+    private static final String SELECT_SQL_CLOUD_EVENTS =
+            "SELECT seq_id, id, created_time, entity_body, entity_body_proto, entity_id, cloud_event_type, cloud_event_action, tenant_id " +
+                    "FROM cloud_event WHERE seq_id > ? AND seq_id <= ? AND created_time >= ? ORDER BY seq_id LIMIT ?";
+
+    private final ScheduledLogExecutorComponent logExecutor;
+
+    private final StatsFactory statsFactory;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TenantDao tenantDao;
+
+    private final AttributesService attributesService;
+
+    @Value("${database.cloud_events.file.dir:${user.dir}/data/cloud_events}")
+    private String dir;
+
+    @Value("${database.cloud_events.file.segment_size:67108864}")
+    private int segmentSize;
+
+    @Value("${database.cloud_events.file.segment_duration_hours:24}")
+    private int segmentDurationInHours;
+
+    @Value("${database.cloud_events.file.migrate_from_sql:true}")
+    private boolean migrateFromSql;
+
+    @Value("${sql.ttl.cloud_events.cloud_events_ttl:2628000}")
+    private long cloudEventsTtl;
+
+    @Value("${sql.cloud_events.batch_size:10000}")
+    private int batchSize;
+
+    @Value("${sql.cloud_events.batch_max_delay:100}")
+    private long maxDelay;
+
+    @Value("${sql.cloud_events.stats_print_interval_ms:10000}")
+    private long statsPrintIntervalMs;
+
+    private final ConcurrentNavigableMap<Long, CloudEventSegment> segments = new ConcurrentSkipListMap<>();
+    private final List<IntConsumer> newCloudEventsListeners = new CopyOnWriteArrayList<>();
+
+    private Path dirPath;
+    private volatile CloudEventSegment activeSegment;
+    private long nextSeqId = 1;
+    private volatile PageCursor lastPageCursor;
+
+    private TbSqlBlockingQueueWrapper<CloudEvent> queue;
+
+    @PostConstruct
+    private void init() throws IOException {
+        dirPath = Paths.get(dir);
+        Files.createDirectories(dirPath);
+        loadSegments();
+        if (migrateFromSql && !Files.exists(dirPath.resolve(MIGRATED_FROM_SQL_MARKER))) {
+            migrateFromSqlTable();
+            Files.createFile(dirPath.resolve(MIGRATED_FROM_SQL_MARKER));
+        }
+        TbSqlBlockingQueueParams params = TbSqlBlockingQueueParams.builder()
+                .logName("Cloud Events")
+                .batchSize(batchSize)
+                .maxDelay(maxDelay)
+                .statsPrintIntervalMs(statsPrintIntervalMs)
+                .statsNamePrefix("cloud.events")
+                .batchSortEnabled(true)
+                .build();
+        queue = new TbSqlBlockingQueueWrapper<>(params, cloudEvent -> 0, 1, statsFactory);
+        queue.init(logExecutor, this::appendBatch, Comparator.comparingLong(CloudEvent::getCreatedTime));
+        log.info("Cloud event segment log started [{}], segments [{}], next seqId [{}]", dirPath, segments.size(), nextSeqId);
+    }
+
+    private void loadSegments() throws IOException {
+        try (Stream<Path> files = Files.list(dirPath)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(SEGMENT_FILE_SUFFIX)).toList()) {
+                String fileName = file.getFileName().toString();
+                long baseSeqId = Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_FILE_SUFFIX.length()));
+                CloudEventSegment segment = CloudEventSegment.open(file, baseSeqId, segmentSize);
+                segments.put(baseSeqId, segment);
+            }
+        }
+        if (!segments.isEmpty()) {
+            activeSegment = segments.lastEntry().getValue();
+            nextSeqId = Math.max(activeSegment.getBaseSeqId(), activeSegment.getLastSeqId() + 1);
+        }
+    }
+
+    /**
+     * Copies not yet uplinked and not expired events from the 'cloud_event' table.
+     * Events after the persisted queue offset keep their seqIds, so the offset stays valid. Events of a new seq_id cycle
+     * (seq_id column of the table is cyclic) follow them with new seqIds, so the original order is preserved.
+     */
+    private void migrateFromSqlTable() {
+        log.info("Migrating cloud events from SQL table to segment log [{}]", dirPath);
+        Map<String, Long> queueAttributes = findQueueAttributes();
+        long queueSeqIdOffset = queueAttributes.getOrDefault(QUEUE_SEQ_ID_OFFSET_ATTR_KEY, 0L);
+        long startTs = queueAttributes.getOrDefault(QUEUE_START_TS_ATTR_KEY, 0L);
+        if (cloudEventsTtl > 0) {
+            startTs = Math.max(startTs, System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(cloudEventsTtl));
+        }
+        nextSeqId = Math.max(nextSeqId, queueSeqIdOffset + 1);
+        long migrated = migrateFromSqlTable(queueSeqIdOffset, Long.MAX_VALUE, startTs, true);
+        long migratedFromNewCycle = migrateFromSqlTable(0, queueSeqIdOffset, startTs, false);
+        if (migratedFromNewCycle > 0) {
+            log.info("Migrated [{}] cloud events of the new seq_id cycle", migratedFromNewCycle);
+        }
+        if (activeSegment != null) {
+            activeSegment.force();
+        }
+        log.info("Migrated [{}] cloud events from SQL table, queue offset [{}], start ts [{}], next seqId [{}]",
+                migrated + migratedFromNewCycle, queueSeqIdOffset, startTs, nextSeqId);
+    }
+
+    private long migrateFromSqlTable(long afterSeqId, long maxSeqId, long startTs, boolean keepSeqIds) {
+        long lastSeqId = afterSeqId;
+        long migrated = 0;
+        List<CloudEvent> page;
+        do {
+            page = jdbcTemplate.query(SELECT_SQL_CLOUD_EVENTS, (rs, rowNum) -> {
+                CloudEvent cloudEvent = new CloudEvent(new CloudEventId(rs.getObject("id", UUID.class)));
+                cloudEvent.setSeqId(rs.getLong("seq_id"));
+                cloudEvent.setCreatedTime(rs.getLong("created_time"));
+                String entityBody = rs.getString("entity_body");
+                if (entityBody != null) {
+                    cloudEvent.setEntityBody(JacksonUtil.toJsonNode(entityBody));
+                }
+                cloudEvent.setEntityBodyProto(rs.getBytes("entity_body_proto"));
+                cloudEvent.setEntityId(rs.getObject("entity_id", UUID.class));
+                cloudEvent.setType(CloudEventType.valueOf(rs.getString("cloud_event_type")));
+                cloudEvent.setAction(EdgeEventActionType.valueOf(rs.getString("cloud_event_action")));
+                cloudEvent.setTenantId(TenantId.fromUUID(rs.getObject("tenant_id", UUID.class)));
+                return cloudEvent;
+            }, lastSeqId, maxSeqId, startTs, MIGRATION_PAGE_SIZE);
+            for (CloudEvent cloudEvent : page) {
+                lastSeqId = cloudEvent.getSeqId();
+                if (keepSeqIds) {
+                    nextSeqId = cloudEvent.getSeqId();
+                }
+                append(cloudEvent);
+            }
+            migrated += page.size();
+        } while (page.size() == MIGRATION_PAGE_SIZE);
+        return migrated;
+    }
+
+    /**
+     * Reads the queue offset attributes that the cloud manager keeps on the tenant of the edge.
+     * Without a tenant the edge was never connected, so nothing was uplinked yet.
+     */
+    private Map<String, Long> findQueueAttributes() {
+        PageData<Tenant> tenants = tenantDao.findTenants(TenantId.SYS_TENANT_ID, new PageLink(2));
+        if (tenants.getData().isEmpty()) {
+            return Collections.emptyMap();
+        }
+        if (tenants.getData().size() > 1) {
+            throw new IllegalStateException("Failed to migrate cloud events: more than one tenant found");
+        }
+        TenantId tenantId = tenants.getData().get(0).getId();
+        List<AttributeKvEntry> attributes;
+        try {
+            attributes = attributesService.find(tenantId, tenantId, AttributeScope.SERVER_SCOPE,
+                    List.of(QUEUE_SEQ_ID_OFFSET_ATTR_KEY, QUEUE_START_TS_ATTR_KEY)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Failed to migrate cloud events: reading queue attributes was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to migrate cloud events: failed to read queue attributes", e);
+        }
+        Map<String, Long> result = new HashMap<>();
+        for (AttributeKvEntry attribute : attributes) {
+            attribute.getLongValue().ifPresent(value -> result.put(attribute.getKey(), value));
+        }
+        return result;
+    }
+
+    @PreDestroy
+    private void destroy() {
+        if (queue != null) {
+            queue.destroy();
+        }
+        segments.values().forEach(CloudEventSegment::close);
+    }
+
+    @Override
+    public ListenableFuture<Void> saveAsync(CloudEvent cloudEvent) {
+        log.debug("Save cloud event [{}] ", cloudEvent);
+        if (cloudEvent.getId() == null) {
+            UUID timeBased = Uuids.timeBased();
+            cloudEvent.setId(new CloudEventId(timeBased));
+            cloudEvent.setCreatedTime(Uuids.unixTimestamp(timeBased));
+        } else if (cloudEvent.getCreatedTime() == 0L) {
+            UUID eventId = cloudEvent.getId().getId();
+            if (eventId.version() == 1) {
+                cloudEvent.setCreatedTime(Uuids.unixTimestamp(eventId));
+            } else {
+                cloudEvent.setCreatedTime(System.currentTimeMillis());
+            }
+        }
+        if (cloudEvent.getTenantId() == null) {
+            cloudEvent.setTenantId(TenantId.fromUUID(NULL_UUID));
+        }
+        return queue.add(cloudEvent);
+    }
+
+    private void appendBatch(List<CloudEvent> cloudEvents) {
+        for (CloudEvent cloudEvent : cloudEvents) {
+            append(cloudEvent);
+        }
+        activeSegment.force();
+        for (IntConsumer listener : newCloudEventsListeners) {
+            try {
+                listener.accept(cloudEvents.size());
+            } catch (Exception e) {
+                log.warn("Failed to notify listener about new cloud events", e);
+            }
+        }
+    }
+
+    private void append(CloudEvent cloudEvent) {
+        byte[] payload = toProto(cloudEvent).toByteArray();
+        if (payload.length + CloudEventSegment.HEADER_SIZE + 4 > segmentSize) {
+            log.error("Cloud event size [{}] exceeds segment size [{}], skipping event [{}]", payload.length, segmentSize, cloudEvent);
+            return;
+        }
+        long seqId = nextSeqId;
+        if (activeSegment == null || isExpired(activeSegment, cloudEvent.getCreatedTime())
+                || !activeSegment.append(seqId, cloudEvent, payload)) {
+            rollSegment(seqId);
+            activeSegment.append(seqId, cloudEvent, payload);
+        }
+        cloudEvent.setSeqId(seqId);
+        nextSeqId = seqId + 1;
+    }
+
+    private boolean isExpired(CloudEventSegment segment, long createdTime) {
+        return !segment.isEmpty() && createdTime - segment.getFirstCreatedTime() > TimeUnit.HOURS.toMillis(segmentDurationInHours);
+    }
+
+    private void rollSegment(long baseSeqId) {
+        if (activeSegment != null) {
+            activeSegment.force();
+            if (activeSegment.isEmpty()) {
+                removeSegment(activeSegment);
+            }
+        }
+        Path file = dirPath.resolve(String.format("%020d%s", baseSeqId, SEGMENT_FILE_SUFFIX));
+        try {
+            CloudEventSegment segment = CloudEventSegment.open(file, baseSeqId, segmentSize);
+            segments.put(baseSeqId, segment);
+            activeSegment = segment;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create cloud event segment " + file, e);
+        }
+    }
+
+    /**
+     * Records are filtered and skipped by their headers, only the returned page is decoded.
+     * Sequential reads of the next page resume right after the last returned seqId instead of skipping the previous pages.
+     */
+    @Override
+    public PageData<CloudEvent> findCloudEvents(UUID tenantId, Long seqIdStart, Long seqIdEnd, TimePageLink pageLink) {
+        log.trace("Executing findCloudEvents [{}], [{}], [{}], [{}]", tenantId, seqIdStart, seqIdEnd, pageLink);
+        long afterSeqId = seqIdStart != null ? seqIdStart : 0L;
+        int pageSize = pageLink.getPageSize();
+        int toSkip = pageLink.getPage() * pageSize;
+        PageCursor cursor = lastPageCursor;
+        if (cursor != null && cursor.isPreviousPageOf(tenantId, seqIdStart, seqIdEnd, pageLink)) {
+            afterSeqId = cursor.lastSeqId();
+            toSkip = 0;
+        }
+        List<CloudEvent> data = new ArrayList<>(pageSize);
+        boolean[] hasNext = new boolean[1];
+        int[] skipped = new int[1];
+        CloudEventSegment.RecordVisitor visitor = record -> {
+            long seqId = record.getSeqId();
+            if (seqIdEnd != null && seqId >= seqIdEnd) {
+                return false;
+            }
+            if (!isInTimeRange(record.getCreatedTime(), pageLink.getStartTime(), pageLink.getEndTime()) || !record.isTenant(tenantId)) {
+                return true;
+            }
+            if (skipped[0] < toSkip) {
+                skipped[0]++;
+                return true;
+            }
+            if (data.size() < pageSize) {
+                CloudEvent cloudEvent = fromProto(seqId, record.readPayload());
+                if (cloudEvent != null) {
+                    data.add(cloudEvent);
+                }
+                return true;
+            }
+            hasNext[0] = true;
+            return false;
+        };
+        for (CloudEventSegment segment : segmentsAfter(afterSeqId)) {
+            if (!segment.retain()) {
+                continue;
+            }
+            try {
+                if (!segment.forEach(afterSeqId, visitor)) {
+                    break;
+                }
+            } finally {
+                segment.release();
+            }
+        }
+        if (!data.isEmpty()) {
+            lastPageCursor = new PageCursor(tenantId, seqIdStart, seqIdEnd, pageLink.getStartTime(), pageLink.getEndTime(),
+                    pageSize, pageLink.getPage(), data.get(data.size() - 1).getSeqId());
+        }
+        // total count is not tracked by the segment log, only pages up to the current one are reported
+        int totalPages = pageLink.getPage() + (hasNext[0] ? 2 : 1);
+        return new PageData<>(data, totalPages, (long) pageLink.getPage() * pageSize + data.size() + (hasNext[0] ? 1 : 0), hasNext[0]);
+    }
+
+    private Collection<CloudEventSegment> segmentsAfter(long afterSeqId) {
+        Map.Entry<Long, CloudEventSegment> floor = segments.floorEntry(afterSeqId + 1);
+        return floor != null ? segments.tailMap(floor.getKey(), true).values() : segments.values();
+    }
+
+    @Override
+    public long countEventsByTenantIdAndEntityIdAndActionAndTypeAndStartTimeAndEndTime(UUID tenantId,
+                                                                                       UUID entityId,
+                                                                                       CloudEventType cloudEventType,
+                                                                                       EdgeEventActionType cloudEventAction,
+                                                                                       Long startTime,
+                                                                                       Long endTime) {
+        long[] count = new long[1];
+        for (CloudEventSegment segment : segments.values()) {
+            if (startTime != null && segment.getMaxCreatedTime() <= startTime) {
+                continue;
+            }
+            if (!segment.retain()) {
+                continue;
+            }
+            try {
+                segment.forEach(segment.getBaseSeqId() - 1, record -> {
+                    long createdTime = record.getCreatedTime();
+                    if ((startTime == null || createdTime > startTime) && (endTime == null || createdTime <= endTime)
+                            && record.isTenant(tenantId) && record.isEntity(entityId)
+                            && record.isType(cloudEventType) && record.isAction(cloudEventAction)) {
+                        count[0]++;
+                    }
+                    return true;
+                });
+            } finally {
+                segment.release();
+            }
+        }
+        return count[0];
+    }
+
+    /**
+     * Segments are deleted once concurrent readers released them.
+     */
+    @Override
+    public void cleanupEvents(long eventsExpTime) {
+        log.info("Going to cleanup old cloud event segments using expiration time: {}", eventsExpTime);
+        int removed = 0;
+        for (CloudEventSegment segment : segments.values()) {
+            if (segment != activeSegment && segment.getMaxCreatedTime() < eventsExpTime) {
+                removeSegment(segment);
+                removed++;
+            }
+        }
+        log.info("Total cloud event segments removed by TTL: [{}]", removed);
+    }
+
+    private void removeSegment(CloudEventSegment segment) {
+        segments.remove(segment.getBaseSeqId());
+        segment.delete();
+    }
+
+    @Override
+    public void migrateCloudEvents() {
+        log.info("Cloud events are stored in the segment log, partition migration is not required");
+    }
+
+    @Override
+    public void registerNewCloudEventsListener(IntConsumer listener) {
+        newCloudEventsListeners.add(listener);
+    }
+
+    private static boolean isInTimeRange(long createdTime, Long startTime, Long endTime) {
+        return (startTime == null || createdTime >= startTime) && (endTime == null || createdTime <= endTime);
+    }
+
+    private static CloudEventProto toProto(CloudEvent cloudEvent) {
+        CloudEventProto.Builder builder = CloudEventProto.newBuilder()
+                .setIdMSB(cloudEvent.getUuidId().getMostSignificantBits())
+                .setIdLSB(cloudEvent.getUuidId().getLeastSignificantBits())
+                .setCreatedTime(cloudEvent.getCreatedTime())
+                .setTenantIdMSB(cloudEvent.getTenantId().getId().getMostSignificantBits())
+                .setTenantIdLSB(cloudEvent.getTenantId().getId().getLeastSignificantBits())
+                .setType(cloudEvent.getType().name())
+                .setAction(cloudEvent.getAction().name());
+        if (cloudEvent.getEntityId() != null) {
+            builder.setEntityIdMSB(cloudEvent.getEntityId().getMostSignificantBits())
+                    .setEntityIdLSB(cloudEvent.getEntityId().getLeastSignificantBits());
+        }
+        if (cloudEvent.getEntityBody() != null) {
+            builder.setEntityBody(JacksonUtil.toString(cloudEvent.getEntityBody()));
+        }
+        if (cloudEvent.getEntityBodyProto() != null) {
+            builder.setEntityBodyProto(ByteString.copyFrom(cloudEvent.getEntityBodyProto()));
+        }
+        return builder.build();
+    }
+
+    private static CloudEvent fromProto(long seqId, byte[] payload) {
+        try {
+            CloudEventProto proto = CloudEventProto.parseFrom(payload);
+            CloudEvent cloudEvent = new CloudEvent(new CloudEventId(new UUID(proto.getIdMSB(), proto.getIdLSB())));
+            cloudEvent.setSeqId(seqId);
+            cloudEvent.setCreatedTime(proto.getCreatedTime());
+            cloudEvent.setTenantId(TenantId.fromUUID(new UUID(proto.getTenantIdMSB(), proto.getTenantIdLSB())));
+            if (proto.hasEntityIdMSB() && proto.hasEntityIdLSB()) {
+                cloudEvent.setEntityId(new UUID(proto.getEntityIdMSB(), proto.getEntityIdLSB()));
+            }
+            cloudEvent.setType(CloudEventType.valueOf(proto.getType()));
+            cloudEvent.setAction(EdgeEventActionType.valueOf(proto.getAction()));
+            if (proto.hasEntityBody()) {
+                cloudEvent.setEntityBody(JacksonUtil.toJsonNode(proto.getEntityBody()));
+            }
+            if (proto.hasEntityBodyProto()) {
+                cloudEvent.setEntityBodyProto(proto.getEntityBodyProto().toByteArray());
+            }
+            return cloudEvent;
+        } catch (InvalidProtocolBufferException e) {
+            log.warn("[{}] Failed to decode cloud event", seqId, e);
+            return null;
+        }
+    }
+
+    private record PageCursor(UUID tenantId, Long seqIdStart, Long seqIdEnd, Long startTime, Long endTime,
+                              int pageSize, int page, long lastSeqId) {
+
+        boolean isPreviousPageOf(UUID tenantId, Long seqIdStart, Long seqIdEnd, TimePageLink pageLink) {
+            return this.page + 1 == pageLink.getPage() && this.pageSize == pageLink.getPageSize()
+                    && this.tenantId.equals(tenantId) && Objects.equals(this.seqIdStart, seqIdStart) && Objects.equals(this.seqIdEnd, seqIdEnd)
+                    && Objects.equals(this.startTime, pageLink.getStartTime()) && Objects.equals(this.endTime, pageLink.getEndTime());
+        }
+
+    }
+
+}
@@ -15,11 +15,18 @@
  */
 package org.thingsboard.server.dao.dictionary;
 
+import java.util.Collection;
+import java.util.Map;
 
 public interface KeyDictionaryDao {
 
     Integer getOrSaveKeyId(String strKey);
 
+    /**
+     * Resolves the ids of all keys at once, the missing keys are saved with a single insert.
+     */
+    Map<String, Integer> getOrSaveKeyIds(Collection<String> strKeys);
+
     String getKey(Integer keyId);
 
 }
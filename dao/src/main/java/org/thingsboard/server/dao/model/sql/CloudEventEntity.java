@@ -39,6 +39,7 @@ import java.util.UUID;
 import static org.thingsboard.server.dao.model.ModelConstants.CLOUD_EVENT_ACTION_PROPERTY;
 import static org.thingsboard.server.dao.model.ModelConstants.CLOUD_EVENT_COLUMN_FAMILY_NAME;
 import static org.thingsboard.server.dao.model.ModelConstants.CLOUD_EVENT_ENTITY_BODY_PROPERTY;
+import static org.thingsboard.server.dao.model.ModelConstants.CLOUD_EVENT_ENTITY_BODY_PROTO_PROPERTY;
 import static org.thingsboard.server.dao.model.ModelConstants.CLOUD_EVENT_ENTITY_ID_PROPERTY;
 import static org.thingsboard.server.dao.model.ModelConstants.CLOUD_EVENT_SEQUENTIAL_ID_PROPERTY;
 import static org.thingsboard.server.dao.model.ModelConstants.CLOUD_EVENT_TENANT_ID_PROPERTY;
@@ -74,6 +75,9 @@ public class CloudEventEntity extends BaseSqlEntity<CloudEvent> implements BaseE
     @Column(name = CLOUD_EVENT_ENTITY_BODY_PROPERTY)
     private JsonNode entityBody;
 
+    @Column(name = CLOUD_EVENT_ENTITY_BODY_PROTO_PROPERTY)
+    private byte[] entityBodyProto;
+
     @Column(name = TS_COLUMN)
     private long ts;
 
@@ -94,6 +98,7 @@ public class CloudEventEntity extends BaseSqlEntity<CloudEvent> implements BaseE
         this.cloudEventType = cloudEvent.getType();
         this.cloudEventAction = cloudEvent.getAction();
         this.entityBody = cloudEvent.getEntityBody();
+        this.entityBodyProto = cloudEvent.getEntityBodyProto();
     }
 
     @Override
@@ -107,6 +112,7 @@ public class CloudEventEntity extends BaseSqlEntity<CloudEvent> implements BaseE
         cloudEvent.setType(cloudEventType);
         cloudEvent.setAction(cloudEventAction);
         cloudEvent.setEntityBody(entityBody);
+        cloudEvent.setEntityBodyProto(entityBodyProto);
         cloudEvent.setSeqId(seqId);
         return cloudEvent;
     }
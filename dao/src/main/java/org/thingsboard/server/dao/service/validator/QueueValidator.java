@@ -92,7 +92,8 @@ public class QueueValidator extends DataValidator<Queue> {
         if (submitStrategy.getType() == null) {
             throw new DataValidationException("Queue submit strategy type can't be null!");
         }
-        if (submitStrategy.getType() == SubmitStrategyType.BATCH && submitStrategy.getBatchSize() < 1) {
+        if ((submitStrategy.getType() == SubmitStrategyType.BATCH || submitStrategy.getType() == SubmitStrategyType.BATCH_BY_ORIGINATOR)
+                && submitStrategy.getBatchSize() < 1) {
             throw new DataValidationException("Queue submit strategy batch size should be more then 0!");
         }
         ProcessingStrategy processingStrategy = queue.getProcessingStrategy();
@@ -0,0 +1,55 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql;
+
+/**
+ * Picks the size of the next batch of a {@link TbSqlBlockingQueue} from the outcome of the previous commit.
+ * The batch grows by a quarter while full batches leave a backlog in the queue and commits stay within the target latency,
+ * and is halved as soon as a commit exceeds the target latency.
+ */
+public class TbSqlAdaptiveBatchSize {
+
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final long targetLatencyMs;
+
+    private volatile int batchSize;
+
+    public TbSqlAdaptiveBatchSize(int minBatchSize, int maxBatchSize, long targetLatencyMs) {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.minBatchSize = Math.max(1, Math.min(minBatchSize, this.maxBatchSize));
+        this.targetLatencyMs = targetLatencyMs;
+        this.batchSize = this.minBatchSize;
+    }
+
+    public static TbSqlAdaptiveBatchSize fixed(int batchSize) {
+        return new TbSqlAdaptiveBatchSize(batchSize, batchSize, Long.MAX_VALUE);
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void onBatchCommitted(int committed, long latencyMs, int queueDepth) {
+        int current = batchSize;
+        if (latencyMs > targetLatencyMs) {
+            batchSize = Math.max(minBatchSize, current / 2);
+        } else if (committed >= current && queueDepth > 0) {
+            batchSize = Math.min(maxBatchSize, current + Math.max(1, current / 4));
+        }
+    }
+
+}
@@ -17,13 +17,17 @@ package org.thingsboard.server.dao.sql;
 
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.common.util.ThingsBoardThreadFactory;
 import org.thingsboard.server.common.stats.MessagesStats;
+import org.thingsboard.server.common.stats.StatsFactory;
 
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -31,73 +35,98 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Slf4j
 public class TbSqlBlockingQueue<E> implements TbSqlQueue<E> {
 
-    private final BlockingQueue<TbSqlQueueElement<E>> queue = new LinkedBlockingQueue<>();
+    private static final double[] HISTOGRAM_PERCENTILES = {0.5, 0.95, 0.99};
+    private static final String STATS_NAME_TAG = "statsName";
+    // histogram range of the unbounded queue depth, deeper queues are counted in the last bucket
+    private static final int MAX_EXPECTED_QUEUE_DEPTH = 1_000_000;
+
+    private final BlockingQueue<TbSqlQueueElement<E>> queue;
+    private final BlockingQueue<List<TbSqlQueueElement<E>>> pendingBatches = new ArrayBlockingQueue<>(1);
     private final TbSqlBlockingQueueParams params;
+    private final TbSqlAdaptiveBatchSize batchSize;
 
     private ExecutorService executor;
+    private ExecutorService commitExecutor;
     private final MessagesStats stats;
+    private final StatsFactory statsFactory;
+    private Timer batchLatencyTimer;
+    private DistributionSummary queueDepthHistogram;
 
-    public TbSqlBlockingQueue(TbSqlBlockingQueueParams params, MessagesStats stats) {
+    public TbSqlBlockingQueue(TbSqlBlockingQueueParams params, MessagesStats stats, StatsFactory statsFactory) {
         this.params = params;
         this.stats = stats;
+        this.statsFactory = statsFactory;
+        this.queue = params.getMaxQueueSize() > 0 ? new LinkedBlockingQueue<>(params.getMaxQueueSize()) : new LinkedBlockingQueue<>();
+        this.batchSize = params.isAdaptiveBatching() ?
+                new TbSqlAdaptiveBatchSize(params.getMinBatchSize(), params.getBatchSize(), params.getTargetBatchLatencyMs()) :
+                TbSqlAdaptiveBatchSize.fixed(params.getBatchSize());
     }
 
     @Override
     public void init(ScheduledLogExecutorComponent logExecutor, Consumer<List<E>> saveFunction, Comparator<E> batchUpdateComparator, int index) {
-        executor = Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName("sql-queue-" + index + "-" + params.getLogName().toLowerCase()));
+        String logName = params.getLogName();
+        String threadName = "sql-queue-" + index + "-" + logName.toLowerCase();
+        String statsName = params.getStatsNamePrefix() + ".queue." + index;
+        batchLatencyTimer = statsFactory.createHistogramTimer("sqlQueue.batchLatency", HISTOGRAM_PERCENTILES, STATS_NAME_TAG, statsName);
+        int maxExpectedQueueDepth = params.getMaxQueueSize() > 0 ? params.getMaxQueueSize() : MAX_EXPECTED_QUEUE_DEPTH;
+        queueDepthHistogram = statsFactory.createHistogram("sqlQueue.queueDepth", HISTOGRAM_PERCENTILES, 1, maxExpectedQueueDepth, STATS_NAME_TAG, statsName);
+        Comparator<TbSqlQueueElement<E>> elementComparator = params.isBatchSortEnabled() ?
+                Comparator.comparing(TbSqlQueueElement::getEntity, batchUpdateComparator) : null;
+
+        if (params.isAdaptiveBatching()) {
+            // the next batch is polled and sorted while the previous one is being committed
+            commitExecutor = Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName(threadName + "-commit"));
+            commitExecutor.submit(() -> {
+                while (!Thread.interrupted()) {
+                    try {
+                        commit(pendingBatches.take(), saveFunction);
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                }
+                log.info("[{}] Queue commit completed", logName);
+            });
+        }
+
+        executor = Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName(threadName));
         executor.submit(() -> {
-            String logName = params.getLogName();
-            int batchSize = params.getBatchSize();
             long maxDelay = params.getMaxDelay();
-            final List<TbSqlQueueElement<E>> entities = new ArrayList<>(batchSize);
             while (!Thread.interrupted()) {
                 try {
                     long currentTs = System.currentTimeMillis();
                     TbSqlQueueElement<E> attr = queue.poll(maxDelay, TimeUnit.MILLISECONDS);
                     if (attr == null) {
                         continue;
-                    } else {
-                        entities.add(attr);
                     }
-                    queue.drainTo(entities, batchSize - 1);
-                    boolean fullPack = entities.size() == batchSize;
-                    if (log.isDebugEnabled()) {
-                        log.debug("[{}] Going to save {} entities", logName, entities.size());
-                        log.trace("[{}] Going to save entities: {}", logName, entities);
+                    queueDepthHistogram.record(queue.size() + 1);
+                    int currentBatchSize = batchSize.getBatchSize();
+                    final List<TbSqlQueueElement<E>> entities = new ArrayList<>(currentBatchSize);
+                    entities.add(attr);
+                    queue.drainTo(entities, currentBatchSize - 1);
+                    boolean fullPack = entities.size() == currentBatchSize;
+                    if (elementComparator != null) {
+                        entities.sort(elementComparator);
                     }
-                    Stream<E> entitiesStream = entities.stream().map(TbSqlQueueElement::getEntity);
-                    saveFunction.accept(
-                            (params.isBatchSortEnabled() ? entitiesStream.sorted(batchUpdateComparator) : entitiesStream)
-                                    .collect(Collectors.toList())
-                    );
-                    entities.forEach(v -> v.getFuture().set(null));
-                    stats.incrementSuccessful(entities.size());
-                    if (!fullPack) {
-                        long remainingDelay = maxDelay - (System.currentTimeMillis() - currentTs);
-                        if (remainingDelay > 0) {
-                            Thread.sleep(remainingDelay);
-                        }
-                    }
-                } catch (Throwable t) {
-                    if (t instanceof InterruptedException) {
-                        log.info("[{}] Queue polling was interrupted", logName);
-                        break;
+                    if (commitExecutor != null) {
+                        pendingBatches.put(entities);
                     } else {
-                        log.error("[{}] Failed to save {} entities", logName, entities.size(), t);
-                        try {
-                            stats.incrementFailed(entities.size());
-                            entities.forEach(entityFutureWrapper -> entityFutureWrapper.getFuture().setException(t));
-                        } catch (Throwable th) {
-                            log.error("[{}] Failed to set future exception", logName, th);
+                        commit(entities, saveFunction);
+                        if (!fullPack) {
+                            long remainingDelay = maxDelay - (System.currentTimeMillis() - currentTs);
+                            if (remainingDelay > 0) {
+                                Thread.sleep(remainingDelay);
+                            }
                         }
                     }
-                } finally {
-                    entities.clear();
+                } catch (InterruptedException e) {
+                    log.info("[{}] Queue polling was interrupted", logName);
+                    break;
+                } catch (Throwable t) {
+                    log.error("[{}] Failed to prepare batch", logName, t);
                 }
             }
             log.info("[{}] Queue polling completed", logName);
@@ -105,24 +134,64 @@ public class TbSqlBlockingQueue<E> implements TbSqlQueue<E> {
 
         logExecutor.scheduleAtFixedRate(() -> {
             if (queue.size() > 0 || stats.getTotal() > 0 || stats.getSuccessful() > 0 || stats.getFailed() > 0) {
-                log.info("Queue-{} [{}] queueSize [{}] totalAdded [{}] totalSaved [{}] totalFailed [{}]", index,
-                        params.getLogName(), queue.size(), stats.getTotal(), stats.getSuccessful(), stats.getFailed());
+                log.info("Queue-{} [{}] queueSize [{}] batchSize [{}] totalAdded [{}] totalSaved [{}] totalFailed [{}]", index,
+                        params.getLogName(), queue.size(), batchSize.getBatchSize(), stats.getTotal(), stats.getSuccessful(), stats.getFailed());
                 stats.reset();
             }
         }, params.getStatsPrintIntervalMs(), params.getStatsPrintIntervalMs(), TimeUnit.MILLISECONDS);
     }
 
+    private void commit(List<TbSqlQueueElement<E>> entities, Consumer<List<E>> saveFunction) {
+        String logName = params.getLogName();
+        try {
+            if (log.isDebugEnabled()) {
+                log.debug("[{}] Going to save {} entities", logName, entities.size());
+                log.trace("[{}] Going to save entities: {}", logName, entities);
+            }
+            long startTs = System.nanoTime();
+            saveFunction.accept(entities.stream().map(TbSqlQueueElement::getEntity).collect(Collectors.toList()));
+            long latencyNanos = System.nanoTime() - startTs;
+            batchLatencyTimer.record(latencyNanos, TimeUnit.NANOSECONDS);
+            batchSize.onBatchCommitted(entities.size(), TimeUnit.NANOSECONDS.toMillis(latencyNanos), queue.size());
+            entities.forEach(v -> v.getFuture().set(null));
+            stats.incrementSuccessful(entities.size());
+        } catch (Throwable t) {
+            log.error("[{}] Failed to save {} entities", logName, entities.size(), t);
+            try {
+                stats.incrementFailed(entities.size());
+                entities.forEach(entityFutureWrapper -> entityFutureWrapper.getFuture().setException(t));
+            } catch (Throwable th) {
+                log.error("[{}] Failed to set future exception", logName, th);
+            }
+        }
+    }
+
     @Override
     public void destroy() {
         if (executor != null) {
             executor.shutdownNow();
         }
+        if (commitExecutor != null) {
+            commitExecutor.shutdownNow();
+        }
     }
 
     @Override
     public ListenableFuture<Void> add(E element) {
         SettableFuture<Void> future = SettableFuture.create();
-        queue.add(new TbSqlQueueElement<>(future, element));
+        try {
+            // blocks the caller while a bounded queue is full, but not longer than max queue wait
+            if (!queue.offer(new TbSqlQueueElement<>(future, element), params.getMaxQueueWaitMs(), TimeUnit.MILLISECONDS)) {
+                stats.incrementFailed();
+                future.setException(new IllegalStateException("[" + params.getLogName() + "] Queue is full, element is not added in " +
+                        params.getMaxQueueWaitMs() + " ms"));
+                return future;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.setException(e);
+            return future;
+        }
         stats.incrementTotal();
         return future;
     }
@@ -30,4 +30,9 @@ public class TbSqlBlockingQueueParams {
     private final long statsPrintIntervalMs;
     private final String statsNamePrefix;
     private final boolean batchSortEnabled;
+    private final boolean adaptiveBatching;
+    private final int minBatchSize;
+    private final long targetBatchLatencyMs;
+    private final int maxQueueSize;
+    private final long maxQueueWaitMs;
 }
@@ -48,7 +48,7 @@ public class TbSqlBlockingQueueWrapper<E> {
     public void init(ScheduledLogExecutorComponent logExecutor, Consumer<List<E>> saveFunction, Comparator<E> batchUpdateComparator) {
         for (int i = 0; i < maxThreads; i++) {
             MessagesStats stats = statsFactory.createMessagesStats(params.getStatsNamePrefix() + ".queue." + i);
-            TbSqlBlockingQueue<E> queue = new TbSqlBlockingQueue<>(params, stats);
+            TbSqlBlockingQueue<E> queue = new TbSqlBlockingQueue<>(params, stats, statsFactory);
             queues.add(queue);
             queue.init(logExecutor, saveFunction, batchUpdateComparator, i);
         }
@@ -19,23 +19,25 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.transaction.support.TransactionCallbackWithoutResult;
 import org.springframework.transaction.support.TransactionTemplate;
 import org.thingsboard.server.dao.model.sql.CloudEventEntity;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 
 @Repository
 @Transactional
 public class CloudEventInsertRepository {
 
+    private static final String RESERVE_SEQ_IDS =
+            "SELECT nextval(pg_get_serial_sequence('cloud_event', 'seq_id')) FROM generate_series(1, ?)";
+
     private static final String INSERT =
-            "INSERT INTO cloud_event (id, created_time, entity_body, entity_id, cloud_event_type, cloud_event_action, tenant_id, ts) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+            "INSERT INTO cloud_event (seq_id, id, created_time, entity_body, entity_body_proto, entity_id, cloud_event_type, cloud_event_action, tenant_id, ts) " +
+                    "OVERRIDING SYSTEM VALUE VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
                     "ON CONFLICT DO NOTHING;";
 
     @Autowired
@@ -44,32 +46,47 @@ public class CloudEventInsertRepository {
     @Autowired
     private TransactionTemplate transactionTemplate;
 
-    protected void save(List<CloudEventEntity> entities) {
-        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
-            @Override
-            protected void doInTransactionWithoutResult(TransactionStatus status) {
-                jdbcTemplate.batchUpdate(INSERT, new BatchPreparedStatementSetter() {
-                    @Override
-                    public void setValues(PreparedStatement ps, int i) throws SQLException {
-                        CloudEventEntity cloudEvent = entities.get(i);
-                        ps.setObject(1, cloudEvent.getId());
-                        ps.setLong(2, cloudEvent.getCreatedTime());
-                        ps.setString(3, cloudEvent.getEntityBody() != null
-                                ? cloudEvent.getEntityBody().toString()
-                                : null);
-                        ps.setObject(4, cloudEvent.getEntityId());
-                        ps.setString(5, cloudEvent.getCloudEventType().name());
-                        ps.setString(6, cloudEvent.getCloudEventAction().name());
-                        ps.setObject(7, cloudEvent.getTenantId());
-                        ps.setLong(8, cloudEvent.getTs());
-                    }
+    /**
+     * Saves cloud events with seqIds reserved from the seq_id sequence in one round trip.
+     *
+     * @return saved entities with assigned seqIds, entities skipped due to conflict are not included
+     */
+    protected List<CloudEventEntity> save(List<CloudEventEntity> entities) {
+        return transactionTemplate.execute(status -> {
+            List<Long> seqIds = jdbcTemplate.queryForList(RESERVE_SEQ_IDS, Long.class, entities.size());
+            for (int i = 0; i < entities.size(); i++) {
+                entities.get(i).setSeqId(seqIds.get(i));
+            }
+            int[] result = jdbcTemplate.batchUpdate(INSERT, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    CloudEventEntity cloudEvent = entities.get(i);
+                    ps.setLong(1, cloudEvent.getSeqId());
+                    ps.setObject(2, cloudEvent.getId());
+                    ps.setLong(3, cloudEvent.getCreatedTime());
+                    ps.setString(4, cloudEvent.getEntityBody() != null
+                            ? cloudEvent.getEntityBody().toString()
+                            : null);
+                    ps.setBytes(5, cloudEvent.getEntityBodyProto());
+                    ps.setObject(6, cloudEvent.getEntityId());
+                    ps.setString(7, cloudEvent.getCloudEventType().name());
+                    ps.setString(8, cloudEvent.getCloudEventAction().name());
+                    ps.setObject(9, cloudEvent.getTenantId());
+                    ps.setLong(10, cloudEvent.getTs());
+                }
 
-                    @Override
-                    public int getBatchSize() {
-                        return entities.size();
-                    }
-                });
+                @Override
+                public int getBatchSize() {
+                    return entities.size();
+                }
+            });
+            List<CloudEventEntity> saved = new ArrayList<>(entities.size());
+            for (int i = 0; i < result.length; i++) {
+                if (result[i] != 0) {
+                    saved.add(entities.get(i));
+                }
             }
+            return saved;
         });
     }
 }
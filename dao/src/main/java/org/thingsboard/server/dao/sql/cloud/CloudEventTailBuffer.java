@@ -0,0 +1,100 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql.cloud;
+
+import org.thingsboard.server.common.data.cloud.CloudEvent;
+import org.thingsboard.server.common.data.page.PageData;
+import org.thingsboard.server.common.data.page.TimePageLink;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bounded in-memory tail of the recently committed cloud events ordered by seqId.
+ * Serves reads of the uplink reader while its cursor is inside the buffered range,
+ * otherwise {@link #find} returns null and the caller falls back to the database.
+ */
+class CloudEventTailBuffer {
+
+    private final int capacity;
+    private final ArrayDeque<CloudEvent> events;
+
+    // all committed events with seqId greater than this value are present in the buffer
+    private long coveredAfterSeqId;
+    private boolean covered;
+
+    CloudEventTailBuffer(int capacity) {
+        this.capacity = capacity;
+        this.events = new ArrayDeque<>(capacity);
+    }
+
+    synchronized void addAll(List<CloudEvent> committedEvents) {
+        for (CloudEvent cloudEvent : committedEvents) {
+            CloudEvent last = events.peekLast();
+            if (!covered) {
+                coveredAfterSeqId = cloudEvent.getSeqId() - 1;
+                covered = true;
+            } else if (last != null && cloudEvent.getSeqId() <= last.getSeqId()) {
+                // seq_id sequence started new cycle
+                events.clear();
+                coveredAfterSeqId = cloudEvent.getSeqId() - 1;
+            }
+            if (events.size() >= capacity) {
+                coveredAfterSeqId = events.pollFirst().getSeqId();
+            }
+            events.addLast(cloudEvent);
+        }
+    }
+
+    synchronized PageData<CloudEvent> find(UUID tenantId, long seqIdStart, TimePageLink pageLink) {
+        if (!covered || seqIdStart < coveredAfterSeqId) {
+            return null;
+        }
+        CloudEvent last = events.peekLast();
+        long lastSeqId = last != null ? last.getSeqId() : coveredAfterSeqId;
+        if (seqIdStart > lastSeqId) {
+            // cursor is ahead of the buffer, e.g. buffer was reset after seq_id started new cycle
+            return null;
+        }
+        List<CloudEvent> matched = new ArrayList<>();
+        for (CloudEvent cloudEvent : events) {
+            if (cloudEvent.getSeqId() > seqIdStart && matches(cloudEvent, tenantId, pageLink)) {
+                matched.add(cloudEvent);
+            }
+        }
+        int pageSize = pageLink.getPageSize();
+        int fromIndex = pageLink.getPage() * pageSize;
+        List<CloudEvent> data = fromIndex < matched.size() ?
+                new ArrayList<>(matched.subList(fromIndex, Math.min(fromIndex + pageSize, matched.size()))) :
+                Collections.emptyList();
+        int totalPages = pageSize > 0 ? (matched.size() + pageSize - 1) / pageSize : 1;
+        return new PageData<>(data, totalPages, matched.size(), fromIndex + data.size() < matched.size());
+    }
+
+    private static boolean matches(CloudEvent cloudEvent, UUID tenantId, TimePageLink pageLink) {
+        if (cloudEvent.getTenantId() == null || !cloudEvent.getTenantId().getId().equals(tenantId)) {
+            return false;
+        }
+        if (pageLink.getStartTime() != null && cloudEvent.getCreatedTime() < pageLink.getStartTime()) {
+            return false;
+        }
+        return pageLink.getEndTime() == null || cloudEvent.getCreatedTime() <= pageLink.getEndTime();
+    }
+
+}
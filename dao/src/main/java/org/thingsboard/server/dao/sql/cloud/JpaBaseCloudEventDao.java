@@ -41,18 +41,22 @@ import org.thingsboard.server.dao.sql.ScheduledLogExecutorComponent;
 import org.thingsboard.server.dao.sql.TbSqlBlockingQueueParams;
 import org.thingsboard.server.dao.sql.TbSqlBlockingQueueWrapper;
 import org.thingsboard.server.dao.sqlts.insert.sql.SqlPartitioningRepository;
+import org.thingsboard.server.dao.util.SqlCloudEventsDao;
 
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
 
 import static org.thingsboard.server.dao.model.ModelConstants.NULL_UUID;
 
 @Slf4j
 @Component
+@SqlCloudEventsDao
 @RequiredArgsConstructor
 public class JpaBaseCloudEventDao extends JpaAbstractDao<CloudEventEntity, CloudEvent> implements CloudEventDao {
 
@@ -80,6 +84,9 @@ public class JpaBaseCloudEventDao extends JpaAbstractDao<CloudEventEntity, Cloud
     @Value("${sql.cloud_events.partition_size:24}")
     private int partitionSizeInHours;
 
+    @Value("${sql.cloud_events.tail_buffer_size:10000}")
+    private int tailBufferSize;
+
     @Value("${sql.ttl.cloud_events.cloud_events_ttl:2628000}")
     private long cloudEventsTtl;
 
@@ -87,6 +94,10 @@ public class JpaBaseCloudEventDao extends JpaAbstractDao<CloudEventEntity, Cloud
 
     private TbSqlBlockingQueueWrapper<CloudEventEntity> queue;
 
+    private final List<IntConsumer> newCloudEventsListeners = new CopyOnWriteArrayList<>();
+
+    private CloudEventTailBuffer tailBuffer;
+
     @Override
     protected Class<CloudEventEntity> getEntityClass() {
         return CloudEventEntity.class;
@@ -114,12 +125,29 @@ public class JpaBaseCloudEventDao extends JpaAbstractDao<CloudEventEntity, Cloud
                 return NULL_UUID.hashCode();
             }
         };
+        if (tailBufferSize > 0) {
+            tailBuffer = new CloudEventTailBuffer(tailBufferSize);
+        }
         queue = new TbSqlBlockingQueueWrapper<>(params, hashcodeFunction, 1, statsFactory);
-        queue.init(logExecutor, cloudEventInsertRepository::save,
+        queue.init(logExecutor, this::saveBatch,
                 Comparator.comparing(CloudEventEntity::getTs)
         );
     }
 
+    private void saveBatch(List<CloudEventEntity> entities) {
+        List<CloudEventEntity> saved = cloudEventInsertRepository.save(entities);
+        if (tailBuffer != null) {
+            tailBuffer.addAll(DaoUtil.convertDataList(saved));
+        }
+        for (IntConsumer listener : newCloudEventsListeners) {
+            try {
+                listener.accept(saved.size());
+            } catch (Exception e) {
+                log.warn("Failed to notify listener about new cloud events", e);
+            }
+        }
+    }
+
     @PreDestroy
     private void destroy() {
         if (queue != null) {
@@ -166,6 +194,13 @@ public class JpaBaseCloudEventDao extends JpaAbstractDao<CloudEventEntity, Cloud
     @Override
     public PageData<CloudEvent> findCloudEvents(UUID tenantId, Long seqIdStart, Long seqIdEnd, TimePageLink pageLink) {
         log.trace("Executing findCloudEvents [{}], [{}], [{}], [{}]", tenantId, seqIdStart, seqIdEnd, pageLink);
+        if (tailBuffer != null && seqIdStart != null && seqIdEnd == null
+                && pageLink.getSortOrder() == null && pageLink.getTextSearch() == null) {
+            PageData<CloudEvent> buffered = tailBuffer.find(tenantId, seqIdStart, pageLink);
+            if (buffered != null) {
+                return buffered;
+            }
+        }
         List<SortOrder> sortOrders = new ArrayList<>();
         if (pageLink.getSortOrder() != null) {
             sortOrders.add(pageLink.getSortOrder());
@@ -199,6 +234,11 @@ public class JpaBaseCloudEventDao extends JpaAbstractDao<CloudEventEntity, Cloud
                         endTime);
     }
 
+    @Override
+    public void registerNewCloudEventsListener(IntConsumer listener) {
+        newCloudEventsListeners.add(listener);
+    }
+
     @Override
     public void cleanupEvents(long ttl) {
         log.info("Going to cleanup old cloud events using debug events ttl: {}s", ttl);
@@ -76,6 +76,11 @@ public abstract class AbstractChunkedAggregationTimeseriesDao extends AbstractSq
                 .statsPrintIntervalMs(tsStatsPrintIntervalMs)
                 .statsNamePrefix("ts")
                 .batchSortEnabled(batchSortEnabled)
+                .adaptiveBatching(tsAdaptiveBatching)
+                .minBatchSize(tsMinBatchSize)
+                .targetBatchLatencyMs(tsTargetBatchLatencyMs)
+                .maxQueueSize(tsMaxQueueSize)
+                .maxQueueWaitMs(tsMaxQueueWaitMs)
                 .build();
 
         Function<TsKvEntity, Integer> hashcodeFunction = entity -> entity.getEntityId().hashCode();
@@ -121,6 +126,8 @@ public abstract class AbstractChunkedAggregationTimeseriesDao extends AbstractSq
         var aggParams = query.getAggParameters();
         if (Aggregation.NONE.equals(aggParams.getAggregation())) {
             return Futures.immediateFuture(findAllAsyncWithLimit(entityId, query));
+        } else if (singleQueryAggregation) {
+            return findAllAndAggregateInSingleQueryAsync(entityId, keyDictionaryDao.getOrSaveKeyId(query.getKey()), query);
         } else {
             List<ListenableFuture<Optional<TsKvEntity>>> futures = new ArrayList<>();
             var intervalType = aggParams.getIntervalType();
@@ -23,19 +23,27 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.AggregationParams;
+import org.thingsboard.server.common.data.kv.IntervalType;
 import org.thingsboard.server.common.data.kv.ReadTsKvQuery;
 import org.thingsboard.server.common.data.kv.ReadTsKvQueryResult;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
 import org.thingsboard.server.dao.model.ModelConstants;
+import org.thingsboard.server.dao.model.sql.AbstractTsKvEntity;
+import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
 import org.thingsboard.server.dao.sql.ScheduledLogExecutorComponent;
+import org.thingsboard.server.dao.sqlts.ts.TsKvAggregationRepository;
+import org.thingsboard.server.dao.util.TimeUtils;
 
 import jakarta.annotation.Nullable;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -48,6 +56,9 @@ public abstract class AbstractSqlTimeseriesDao extends BaseAbstractSqlTimeseries
     @Autowired
     protected ScheduledLogExecutorComponent logExecutor;
 
+    @Autowired
+    protected TsKvAggregationRepository tsKvAggregationRepository;
+
     @Value("${sql.ts.batch_size:1000}")
     protected int tsBatchSize;
 
@@ -60,12 +71,30 @@ public abstract class AbstractSqlTimeseriesDao extends BaseAbstractSqlTimeseries
     @Value("${sql.ts.batch_threads:4}")
     protected int tsBatchThreads;
 
+    @Value("${sql.ts.adaptive_batching:false}")
+    protected boolean tsAdaptiveBatching;
+
+    @Value("${sql.ts.min_batch_size:100}")
+    protected int tsMinBatchSize;
+
+    @Value("${sql.ts.target_batch_latency_ms:200}")
+    protected long tsTargetBatchLatencyMs;
+
+    @Value("${sql.ts.max_queue_size:0}")
+    protected int tsMaxQueueSize;
+
+    @Value("${sql.ts.max_queue_wait_ms:10000}")
+    protected long tsMaxQueueWaitMs;
+
     @Value("${sql.timescale.batch_threads:4}")
     protected int timescaleBatchThreads;
 
     @Value("${sql.batch_sort:true}")
     protected boolean batchSortEnabled;
 
+    @Value("${sql.ts.single_query_aggregation:true}")
+    protected boolean singleQueryAggregation;
+
     @Value("${sql.ttl.ts.ts_key_value_ttl:0}")
     private long systemTtl;
 
@@ -105,6 +134,25 @@ public abstract class AbstractSqlTimeseriesDao extends BaseAbstractSqlTimeseries
         }, service);
     }
 
+    protected ListenableFuture<ReadTsKvQueryResult> findAllAndAggregateInSingleQueryAsync(EntityId entityId, Integer keyId, ReadTsKvQuery query) {
+        return getReadTsKvQueryResultFuture(query, service.submit(() -> {
+            AggregationParams aggParams = query.getAggParameters();
+            long endTs = Math.max(query.getStartTs() + 1, query.getEndTs());
+            long[] boundaries = TimeUtils.calculateIntervalBoundaries(query.getStartTs(), endTs, aggParams);
+            boolean fixedInterval = IntervalType.MILLISECONDS.equals(aggParams.getIntervalType());
+            List<Optional<TsKvEntity>> data = tsKvAggregationRepository.findAggregated(entityId.getId(), keyId, query.getAggregation(), boundaries, fixedInterval);
+            List<Optional<? extends AbstractTsKvEntity>> result = new ArrayList<>(data.size());
+            for (Optional<TsKvEntity> entity : data) {
+                entity.ifPresent(e -> {
+                    e.setEntityId(entityId.getId());
+                    e.setStrKey(query.getKey());
+                });
+                result.add(entity);
+            }
+            return result;
+        }));
+    }
+
     protected long computeTtl(long ttl) {
         if (systemTtl > 0) {
             if (ttl == 0) {
@@ -0,0 +1,198 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.thingsboard.server.cache.TbCacheValueWrapper;
+import org.thingsboard.server.cache.TbTransactionalCache;
+import org.thingsboard.server.common.data.StringUtils;
+import org.thingsboard.server.common.data.id.DeviceProfileId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.DeleteTsKvQuery;
+import org.thingsboard.server.common.data.kv.StringDataEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.common.data.kv.TsKvLatestRemovingResult;
+import org.thingsboard.server.common.stats.DefaultCounter;
+import org.thingsboard.server.common.stats.StatsFactory;
+import org.thingsboard.server.dao.cache.CacheExecutorService;
+import org.thingsboard.server.dao.sql.JpaExecutorService;
+import org.thingsboard.server.dao.sqlts.latest.TsLatestCacheKey;
+import org.thingsboard.server.dao.timeseries.TimeseriesLatestDao;
+import org.thingsboard.server.dao.util.SqlTsLatestAnyDao;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Write-through cache of the latest time series values in front of {@link SqlTimeseriesLatestDao}.
+ * Values are put to the cache once they are persisted by the latest values queue.
+ * Local cache is updated by get-then-put in the thread that completes the save, while the remote cache
+ * (e.g. Redis) merges the saved value by ts in a single atomic call, since saves are completed in the pooled executor.
+ */
+@Slf4j
+@Primary
+@Component
+@SqlTsLatestAnyDao
+@ConditionalOnProperty(prefix = "cache.ts_latest", value = "enabled", havingValue = "true")
+public class CachedSqlTimeseriesLatestDao implements TimeseriesLatestDao {
+
+    private static final String STATS_NAME = "tsLatest.cache";
+    private static final String LOCAL_CACHE_TYPE = "caffeine";
+
+    private final SqlTimeseriesLatestDao sqlDao;
+    private final JpaExecutorService jpaExecutorService;
+    private final CacheExecutorService cacheExecutorService;
+    private final TbTransactionalCache<TsLatestCacheKey, TsKvEntry> cache;
+    private final DefaultCounter hitCounter;
+    private final DefaultCounter missCounter;
+    private ListeningExecutorService cacheExecutor;
+    private boolean localCache;
+
+    @Value("${cache.type:caffeine}")
+    private String cacheType;
+    @Value("${sql.ts_latest.update_by_latest_ts:true}")
+    private boolean updateByLatestTs;
+
+    public CachedSqlTimeseriesLatestDao(SqlTimeseriesLatestDao sqlDao,
+                                        JpaExecutorService jpaExecutorService,
+                                        StatsFactory statsFactory,
+                                        CacheExecutorService cacheExecutorService,
+                                        TbTransactionalCache<TsLatestCacheKey, TsKvEntry> cache) {
+        this.sqlDao = sqlDao;
+        this.jpaExecutorService = jpaExecutorService;
+        this.cacheExecutorService = cacheExecutorService;
+        this.cache = cache;
+
+        this.hitCounter = statsFactory.createDefaultCounter(STATS_NAME, "result", "hit");
+        this.missCounter = statsFactory.createDefaultCounter(STATS_NAME, "result", "miss");
+    }
+
+    @PostConstruct
+    public void init() {
+        // the local cache is updated in the same thread that completes the save, so updates of an entity are applied in order
+        localCache = StringUtils.isEmpty(cacheType) || LOCAL_CACHE_TYPE.equals(cacheType);
+        if (localCache) {
+            cacheExecutor = MoreExecutors.newDirectExecutorService();
+        } else {
+            cacheExecutor = cacheExecutorService.executor();
+        }
+    }
+
+    @Override
+    public ListenableFuture<Optional<TsKvEntry>> findLatestOpt(TenantId tenantId, EntityId entityId, String key) {
+        TsLatestCacheKey cacheKey = new TsLatestCacheKey(entityId, key);
+        return Futures.transformAsync(cacheExecutor.submit(() -> cache.get(cacheKey)), cachedValue -> {
+            if (cachedValue != null) {
+                hitCounter.increment();
+                return Futures.immediateFuture(Optional.ofNullable(cachedValue.get()));
+            }
+            missCounter.increment();
+            // DB call should run in DB executor, not in cache-related executor
+            return jpaExecutorService.submit(() -> {
+                var cacheTransaction = cache.newTransactionForKey(cacheKey);
+                try {
+                    TsKvEntry latest = sqlDao.doFindLatest(entityId, key);
+                    cacheTransaction.putIfAbsent(cacheKey, latest);
+                    cacheTransaction.commit();
+                    return Optional.ofNullable(latest);
+                } catch (Throwable e) {
+                    cacheTransaction.rollback();
+                    log.debug("Could not find latest value from cache: [{}] [{}]", entityId, key, e);
+                    throw e;
+                }
+            });
+        }, MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public ListenableFuture<TsKvEntry> findLatest(TenantId tenantId, EntityId entityId, String key) {
+        return Futures.transform(findLatestOpt(tenantId, entityId, key),
+                latest -> latest.orElseGet(() -> new BasicTsKvEntry(System.currentTimeMillis(), new StringDataEntry(key, null))),
+                MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public ListenableFuture<List<TsKvEntry>> findAllLatest(TenantId tenantId, EntityId entityId) {
+        // We can`t watch on cache because the keys are unknown.
+        return sqlDao.findAllLatest(tenantId, entityId);
+    }
+
+    @Override
+    public ListenableFuture<Void> saveLatest(TenantId tenantId, EntityId entityId, TsKvEntry tsKvEntry) {
+        return Futures.transform(sqlDao.saveLatest(tenantId, entityId, tsKvEntry), v -> {
+            updateCache(entityId, tsKvEntry);
+            return v;
+        }, cacheExecutor);
+    }
+
+    @Override
+    public ListenableFuture<TsKvLatestRemovingResult> removeLatest(TenantId tenantId, EntityId entityId, DeleteTsKvQuery query) {
+        return Futures.transform(sqlDao.removeLatest(tenantId, entityId, query), result -> {
+            cache.evict(new TsLatestCacheKey(entityId, query.getKey()));
+            return result;
+        }, cacheExecutor);
+    }
+
+    @Override
+    public List<String> findAllKeysByDeviceProfileId(TenantId tenantId, DeviceProfileId deviceProfileId) {
+        return sqlDao.findAllKeysByDeviceProfileId(tenantId, deviceProfileId);
+    }
+
+    @Override
+    public List<String> findAllKeysByEntityIds(TenantId tenantId, List<EntityId> entityIds) {
+        return sqlDao.findAllKeysByEntityIds(tenantId, entityIds);
+    }
+
+    void updateCache(EntityId entityId, TsKvEntry tsKvEntry) {
+        TsLatestCacheKey cacheKey = new TsLatestCacheKey(entityId, tsKvEntry.getKey());
+        if (!localCache) {
+            if (updateByLatestTs) {
+                // the remote cache keeps the value with the greatest ts, whatever order concurrent saves complete in
+                cache.put(cacheKey, tsKvEntry);
+            } else {
+                cache.evict(cacheKey);
+            }
+            return;
+        }
+        if (updateByLatestTs) {
+            TbCacheValueWrapper<TsKvEntry> cachedValue = cache.get(cacheKey);
+            if (cachedValue == null) {
+                // the DB may hold a newer value than the saved one, so the value is loaded on the next read.
+                // Evict still cancels the concurrent reads of the key, so they don't put a stale value
+                cache.evict(cacheKey);
+                return;
+            }
+            TsKvEntry cached = cachedValue.get();
+            if (cached != null && cached.getTs() > tsKvEntry.getTs()) {
+                log.trace("[{}][{}] Skip cache update with the older value: {}", entityId, tsKvEntry.getKey(), tsKvEntry);
+                return;
+            }
+        }
+        cache.put(cacheKey, tsKvEntry);
+    }
+
+}
@@ -95,6 +95,21 @@ public class SqlTimeseriesLatestDao extends BaseAbstractSqlTimeseriesDao impleme
     @Value("${sql.ts_latest.batch_threads:4}")
     private int tsLatestBatchThreads;
 
+    @Value("${sql.ts_latest.adaptive_batching:false}")
+    private boolean tsLatestAdaptiveBatching;
+
+    @Value("${sql.ts_latest.min_batch_size:100}")
+    private int tsLatestMinBatchSize;
+
+    @Value("${sql.ts_latest.target_batch_latency_ms:200}")
+    private long tsLatestTargetBatchLatencyMs;
+
+    @Value("${sql.ts_latest.max_queue_size:0}")
+    private int tsLatestMaxQueueSize;
+
+    @Value("${sql.ts_latest.max_queue_wait_ms:10000}")
+    private long tsLatestMaxQueueWaitMs;
+
     @Value("${sql.batch_sort:true}")
     protected boolean batchSortEnabled;
 
@@ -116,6 +131,11 @@ public class SqlTimeseriesLatestDao extends BaseAbstractSqlTimeseriesDao impleme
                 .statsPrintIntervalMs(tsLatestStatsPrintIntervalMs)
                 .statsNamePrefix("ts.latest")
                 .batchSortEnabled(false)
+                .adaptiveBatching(tsLatestAdaptiveBatching)
+                .minBatchSize(tsLatestMinBatchSize)
+                .targetBatchLatencyMs(tsLatestTargetBatchLatencyMs)
+                .maxQueueSize(tsLatestMaxQueueSize)
+                .maxQueueWaitMs(tsLatestMaxQueueWaitMs)
                 .build();
 
         java.util.function.Function<TsKvLatestEntity, Integer> hashcodeFunction = entity -> entity.getEntityId().hashCode();
@@ -15,20 +15,29 @@
  */
 package org.thingsboard.server.dao.sqlts.dictionary;
 
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
-import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Component;
 import org.thingsboard.server.dao.dictionary.KeyDictionaryDao;
-import org.thingsboard.server.dao.model.sqlts.dictionary.KeyDictionaryCompositeKey;
 import org.thingsboard.server.dao.model.sqlts.dictionary.KeyDictionaryEntry;
 import org.thingsboard.server.dao.sql.JpaAbstractDaoListeningExecutorService;
 import org.thingsboard.server.dao.util.SqlDao;
 
+import java.sql.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 @Component
@@ -36,57 +45,137 @@ import java.util.concurrent.locks.ReentrantLock;
 @SqlDao
 public class JpaKeyDictionaryDao extends JpaAbstractDaoListeningExecutorService implements KeyDictionaryDao {
 
+    private static final int CREATION_LOCK_STRIPES = 64;
+
+    // Inserts only the keys that are missing, so the key_id sequence is not consumed by the existing keys
+    private static final String RESOLVE_KEYS_QUERY = "WITH inserted AS (" +
+            "INSERT INTO key_dictionary (key) SELECT k FROM unnest(?) AS k " +
+            "WHERE NOT EXISTS (SELECT 1 FROM key_dictionary d WHERE d.key = k) " +
+            "ON CONFLICT (key) DO NOTHING RETURNING key, key_id) " +
+            "SELECT key, key_id FROM inserted " +
+            "UNION ALL SELECT key, key_id FROM key_dictionary WHERE key = ANY(?)";
+    private static final String FIND_KEYS_QUERY = "SELECT key, key_id FROM key_dictionary WHERE key = ANY(?)";
+
     private final ConcurrentMap<String, Integer> keyDictionaryMap = new ConcurrentHashMap<>();
-    protected static final ReentrantLock creationLock = new ReentrantLock();
+    private final ConcurrentMap<Integer, String> keyIdDictionaryMap = new ConcurrentHashMap<>();
+    private final Lock[] creationLocks = new Lock[CREATION_LOCK_STRIPES];
 
     @Autowired
     private KeyDictionaryRepository keyDictionaryRepository;
 
+    public JpaKeyDictionaryDao() {
+        for (int i = 0; i < creationLocks.length; i++) {
+            creationLocks[i] = new ReentrantLock();
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            keyDictionaryRepository.findAll().forEach(entry -> cache(entry.getKey(), entry.getKeyId()));
+            log.info("Loaded [{}] keys to the key dictionary", keyDictionaryMap.size());
+        } catch (Exception e) {
+            // e.g. the schema is not created yet during the installation. Keys are loaded on demand then
+            log.info("Failed to preload the key dictionary: {}", e.getMessage());
+            log.debug("Failed to preload the key dictionary", e);
+        }
+    }
+
     @Override
     public Integer getOrSaveKeyId(String strKey) {
         Integer keyId = keyDictionaryMap.get(strKey);
         if (keyId == null) {
-            Optional<KeyDictionaryEntry> tsKvDictionaryOptional;
-            tsKvDictionaryOptional = keyDictionaryRepository.findById(new KeyDictionaryCompositeKey(strKey));
-            if (tsKvDictionaryOptional.isEmpty()) {
-                creationLock.lock();
-                try {
-                    keyId = keyDictionaryMap.get(strKey);
-                    if (keyId != null) {
-                        return keyId;
-                    }
-                    tsKvDictionaryOptional = keyDictionaryRepository.findById(new KeyDictionaryCompositeKey(strKey));
-                    if (tsKvDictionaryOptional.isEmpty()) {
-                        KeyDictionaryEntry keyDictionaryEntry = new KeyDictionaryEntry();
-                        keyDictionaryEntry.setKey(strKey);
-                        try {
-                            KeyDictionaryEntry saved = keyDictionaryRepository.save(keyDictionaryEntry);
-                            keyDictionaryMap.put(saved.getKey(), saved.getKeyId());
-                            keyId = saved.getKeyId();
-                        } catch (DataIntegrityViolationException | ConstraintViolationException e) {
-                            tsKvDictionaryOptional = keyDictionaryRepository.findById(new KeyDictionaryCompositeKey(strKey));
-                            KeyDictionaryEntry dictionary = tsKvDictionaryOptional.orElseThrow(() -> new RuntimeException("Failed to get KeyDictionaryEntry entity from DB!"));
-                            keyDictionaryMap.put(dictionary.getKey(), dictionary.getKeyId());
-                            keyId = dictionary.getKeyId();
-                        }
-                    } else {
-                        keyId = tsKvDictionaryOptional.get().getKeyId();
-                    }
-                } finally {
-                    creationLock.unlock();
-                }
+            keyId = getOrSaveKeyIds(Collections.singletonList(strKey)).get(strKey);
+        }
+        return keyId;
+    }
+
+    @Override
+    public Map<String, Integer> getOrSaveKeyIds(Collection<String> strKeys) {
+        Map<String, Integer> result = new HashMap<>(strKeys.size());
+        Set<String> missingKeys = new LinkedHashSet<>();
+        for (String strKey : strKeys) {
+            Integer keyId = keyDictionaryMap.get(strKey);
+            if (keyId != null) {
+                result.put(strKey, keyId);
             } else {
-                keyId = tsKvDictionaryOptional.get().getKeyId();
-                keyDictionaryMap.put(strKey, keyId);
+                missingKeys.add(strKey);
             }
         }
-        return keyId;
+        if (missingKeys.isEmpty()) {
+            return result;
+        }
+        // locks are taken in the order of the stripes to avoid deadlocks between concurrent batches
+        Set<Integer> stripes = new TreeSet<>();
+        missingKeys.forEach(strKey -> stripes.add(getStripe(strKey)));
+        stripes.forEach(stripe -> creationLocks[stripe].lock());
+        try {
+            missingKeys.removeIf(strKey -> {
+                Integer keyId = keyDictionaryMap.get(strKey);
+                if (keyId != null) {
+                    result.put(strKey, keyId);
+                    return true;
+                }
+                return false;
+            });
+            if (!missingKeys.isEmpty()) {
+                Map<String, Integer> resolved = resolveKeyIds(missingKeys);
+                resolved.forEach(this::cache);
+                result.putAll(resolved);
+            }
+        } finally {
+            stripes.forEach(stripe -> creationLocks[stripe].unlock());
+        }
+        return result;
     }
 
     @Override
     public String getKey(Integer keyId) {
-        Optional<KeyDictionaryEntry> byKeyId = keyDictionaryRepository.findByKeyId(keyId);
-        return byKeyId.map(KeyDictionaryEntry::getKey).orElse(null);
+        String strKey = keyIdDictionaryMap.get(keyId);
+        if (strKey == null) {
+            Optional<KeyDictionaryEntry> byKeyId = keyDictionaryRepository.findByKeyId(keyId);
+            if (byKeyId.isPresent()) {
+                strKey = byKeyId.get().getKey();
+                cache(strKey, keyId);
+            }
+        }
+        return strKey;
+    }
+
+    private Map<String, Integer> resolveKeyIds(Set<String> strKeys) {
+        Map<String, Integer> resolved = queryKeyIds(RESOLVE_KEYS_QUERY, strKeys, 2);
+        if (resolved.size() < strKeys.size()) {
+            // a concurrent transaction has inserted the key after the snapshot of the query was taken
+            List<String> notResolved = new ArrayList<>(strKeys);
+            notResolved.removeAll(resolved.keySet());
+            resolved.putAll(queryKeyIds(FIND_KEYS_QUERY, notResolved, 1));
+            if (resolved.size() < strKeys.size()) {
+                throw new RuntimeException("Failed to get KeyDictionaryEntry entity from DB!");
+            }
+        }
+        return resolved;
+    }
+
+    private Map<String, Integer> queryKeyIds(String query, Collection<String> strKeys, int paramsCount) {
+        Map<String, Integer> keyIds = new HashMap<>(strKeys.size());
+        jdbcTemplate.query(query, ps -> {
+            Array keysArray = ps.getConnection().createArrayOf("varchar", strKeys.toArray());
+            for (int i = 1; i <= paramsCount; i++) {
+                ps.setArray(i, keysArray);
+            }
+        }, rs -> {
+            keyIds.put(rs.getString(1), rs.getInt(2));
+        });
+        return keyIds;
+    }
+
+    private void cache(String strKey, Integer keyId) {
+        keyDictionaryMap.put(strKey, keyId);
+        keyIdDictionaryMap.put(keyId, strKey);
+    }
+
+    private int getStripe(String strKey) {
+        return Math.floorMod(strKey.hashCode(), creationLocks.length);
     }
 
 }
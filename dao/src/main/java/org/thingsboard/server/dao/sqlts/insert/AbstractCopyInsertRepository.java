@@ -0,0 +1,128 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.insert;
+
+import org.postgresql.PGConnection;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.thingsboard.server.dao.model.sql.AbstractTsKvEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes time series batches through the PostgreSQL binary COPY protocol into a temporary staging table
+ * and merges the staged rows into the target table with a single statement.
+ * The staging table lives per connection and is emptied on commit, so it never hits the WAL.
+ */
+public abstract class AbstractCopyInsertRepository<T extends AbstractTsKvEntity> extends AbstractInsertRepository {
+
+    private static final byte[] COPY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final int FIELDS_COUNT = 9;
+
+    protected abstract String getStagingTable();
+
+    protected abstract String getMergeQuery();
+
+    protected void copyAndMerge(List<T> entities) {
+        byte[] data = encode(entities);
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                jdbcTemplate.execute("CREATE TEMP TABLE IF NOT EXISTS " + getStagingTable() + " (seq int NOT NULL, entity_id uuid NOT NULL, key int NOT NULL, " +
+                        "ts bigint NOT NULL, bool_v boolean, str_v varchar(10000000), long_v bigint, dbl_v double precision, json_v json) ON COMMIT DELETE ROWS");
+                jdbcTemplate.execute((Connection connection) -> {
+                    try {
+                        return connection.unwrap(PGConnection.class).getCopyAPI().copyIn("COPY " + getStagingTable() +
+                                " (seq, entity_id, key, ts, bool_v, str_v, long_v, dbl_v, json_v) FROM STDIN WITH (FORMAT binary)", new ByteArrayInputStream(data));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                jdbcTemplate.update(getMergeQuery());
+            }
+        });
+    }
+
+    private byte[] encode(List<T> entities) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(entities.size() * 64 + 32);
+        DataOutputStream out = new DataOutputStream(buffer);
+        try {
+            out.write(COPY_SIGNATURE);
+            out.writeInt(0);
+            out.writeInt(0);
+            for (int i = 0; i < entities.size(); i++) {
+                T entity = entities.get(i);
+                out.writeShort(FIELDS_COUNT);
+                out.writeInt(4);
+                out.writeInt(i);
+                writeUuid(out, entity.getEntityId());
+                out.writeInt(4);
+                out.writeInt(entity.getKey());
+                out.writeInt(8);
+                out.writeLong(entity.getTs());
+                if (entity.getBooleanValue() != null) {
+                    out.writeInt(1);
+                    out.writeBoolean(entity.getBooleanValue());
+                } else {
+                    out.writeInt(-1);
+                }
+                writeText(out, replaceNullChars(entity.getStrValue()));
+                if (entity.getLongValue() != null) {
+                    out.writeInt(8);
+                    out.writeLong(entity.getLongValue());
+                } else {
+                    out.writeInt(-1);
+                }
+                if (entity.getDoubleValue() != null) {
+                    out.writeInt(8);
+                    out.writeDouble(entity.getDoubleValue());
+                } else {
+                    out.writeInt(-1);
+                }
+                writeText(out, replaceNullChars(entity.getJsonValue()));
+            }
+            out.writeShort(-1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeInt(16);
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static void writeText(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.insert.latest.sql;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import org.thingsboard.server.dao.model.sqlts.latest.TsKvLatestEntity;
+import org.thingsboard.server.dao.sqlts.insert.AbstractCopyInsertRepository;
+import org.thingsboard.server.dao.sqlts.insert.latest.InsertLatestTsRepository;
+import org.thingsboard.server.dao.util.SqlDao;
+import org.thingsboard.server.dao.util.SqlTsLatestAnyDao;
+
+import java.util.List;
+
+@SqlTsLatestAnyDao
+@SqlDao
+@Primary
+@Repository
+@ConditionalOnProperty(prefix = "sql.ts_latest", value = "copy_insert", havingValue = "true")
+public class SqlLatestCopyInsertTsRepository extends AbstractCopyInsertRepository<TsKvLatestEntity> implements InsertLatestTsRepository {
+
+    private static final String MERGE = "INSERT INTO ts_kv_latest (entity_id, key, ts, bool_v, str_v, long_v, dbl_v, json_v) " +
+            "SELECT DISTINCT ON (entity_id, key) entity_id, key, ts, bool_v, str_v, long_v, dbl_v, json_v FROM tmp_ts_kv_latest_copy ";
+
+    private static final String ON_CONFLICT_DO_UPDATE = " ON CONFLICT (entity_id, key) DO UPDATE SET ts = excluded.ts, bool_v = excluded.bool_v, " +
+            "str_v = excluded.str_v, long_v = excluded.long_v, dbl_v = excluded.dbl_v, json_v = excluded.json_v";
+
+    private static final String MERGE_BY_LATEST_TS = MERGE + "ORDER BY entity_id, key, ts DESC, seq DESC" + ON_CONFLICT_DO_UPDATE + " WHERE ts_kv_latest.ts <= excluded.ts";
+
+    private static final String MERGE_BY_SEQ = MERGE + "ORDER BY entity_id, key, seq DESC" + ON_CONFLICT_DO_UPDATE;
+
+    @Value("${sql.ts_latest.update_by_latest_ts:true}")
+    private Boolean updateByLatestTs;
+
+    @Override
+    public void saveOrUpdate(List<TsKvLatestEntity> entities) {
+        copyAndMerge(entities);
+    }
+
+    @Override
+    protected String getStagingTable() {
+        return "tmp_ts_kv_latest_copy";
+    }
+
+    @Override
+    protected String getMergeQuery() {
+        return updateByLatestTs ? MERGE_BY_LATEST_TS : MERGE_BY_SEQ;
+    }
+
+}
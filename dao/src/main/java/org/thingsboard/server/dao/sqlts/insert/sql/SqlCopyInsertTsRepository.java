@@ -0,0 +1,55 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.insert.sql;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
+import org.thingsboard.server.dao.sqlts.insert.AbstractCopyInsertRepository;
+import org.thingsboard.server.dao.sqlts.insert.InsertTsRepository;
+import org.thingsboard.server.dao.util.SqlTsDao;
+
+import java.util.List;
+
+@SqlTsDao
+@Primary
+@Repository
+@ConditionalOnProperty(prefix = "sql.ts", value = "copy_insert", havingValue = "true")
+public class SqlCopyInsertTsRepository extends AbstractCopyInsertRepository<TsKvEntity> implements InsertTsRepository<TsKvEntity> {
+
+    private static final String MERGE = "INSERT INTO ts_kv (entity_id, key, ts, bool_v, str_v, long_v, dbl_v, json_v) " +
+            "SELECT DISTINCT ON (entity_id, key, ts) entity_id, key, ts, bool_v, str_v, long_v, dbl_v, json_v FROM tmp_ts_kv_copy " +
+            "ORDER BY entity_id, key, ts, seq DESC " +
+            "ON CONFLICT (entity_id, key, ts) DO UPDATE SET bool_v = excluded.bool_v, str_v = excluded.str_v, long_v = excluded.long_v, " +
+            "dbl_v = excluded.dbl_v, json_v = excluded.json_v";
+
+    @Override
+    public void saveOrUpdate(List<TsKvEntity> entities) {
+        copyAndMerge(entities);
+    }
+
+    @Override
+    protected String getStagingTable() {
+        return "tmp_ts_kv_copy";
+    }
+
+    @Override
+    protected String getMergeQuery() {
+        return MERGE;
+    }
+
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.latest;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.stereotype.Service;
+import org.thingsboard.server.cache.CacheSpecsMap;
+import org.thingsboard.server.cache.RedisTbTransactionalCache;
+import org.thingsboard.server.cache.TBRedisCacheConfiguration;
+import org.thingsboard.server.cache.TbCacheValueWrapper;
+import org.thingsboard.server.cache.TbRedisSerializer;
+import org.thingsboard.server.common.data.CacheConstants;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.common.util.KvProtoUtil;
+import org.thingsboard.server.gen.transport.TransportProtos.TsKvProto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * Keeps the latest value of a key in a sorted set scored by ts. The upsert script adds the value and trims
+ * the set to the value with the greatest ts, so concurrent saves can't overwrite a newer value with an older one.
+ */
+@ConditionalOnProperty(prefix = "cache", value = "type", havingValue = "redis")
+@Service("TsLatestCache")
+public class TsLatestRedisCache extends RedisTbTransactionalCache<TsLatestCacheKey, TsKvEntry> {
+
+    // ARGV: ts, value, ttl in ms (0 means no ttl), '1' to apply the ttl to the existing key as well
+    private static final byte[] UPSERT_TS_LATEST_LUA_SCRIPT = StringRedisSerializer.UTF_8.serialize("" +
+            "local exists = redis.call('EXISTS', KEYS[1]); " +
+            "redis.call('ZREMRANGEBYSCORE', KEYS[1], ARGV[1], ARGV[1]); " +
+            "redis.call('ZADD', KEYS[1], ARGV[1], ARGV[2]); " +
+            "redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -2); " +
+            "if exists == 0 or ARGV[4] == '1' then " +
+            "  if tonumber(ARGV[3]) > 0 then redis.call('PEXPIRE', KEYS[1], ARGV[3]) else redis.call('PERSIST', KEYS[1]) end " +
+            "end; " +
+            "return 1");
+    private static final byte[] KEEP_TTL = "0".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RESET_TTL = "1".getBytes(StandardCharsets.UTF_8);
+
+    public TsLatestRedisCache(TBRedisCacheConfiguration configuration, CacheSpecsMap cacheSpecsMap, RedisConnectionFactory connectionFactory) {
+        super(CacheConstants.TS_LATEST_CACHE, cacheSpecsMap, connectionFactory, configuration, new TbRedisSerializer<>() {
+            @Override
+            public byte[] serialize(TsKvEntry tsKvEntry) throws SerializationException {
+                return KvProtoUtil.toTsKvProto(tsKvEntry.getTs(), tsKvEntry).toByteArray();
+            }
+
+            @Override
+            public TsKvEntry deserialize(TsLatestCacheKey key, byte[] bytes) throws SerializationException {
+                try {
+                    return KvProtoUtil.fromTsKvProto(TsKvProto.parseFrom(bytes));
+                } catch (InvalidProtocolBufferException e) {
+                    throw new SerializationException(e.getMessage());
+                }
+            }
+        });
+    }
+
+    @Override
+    public TbCacheValueWrapper<TsKvEntry> get(TsLatestCacheKey key) {
+        byte[] rawKey = getRawKey(key);
+        try (var connection = getConnection(rawKey)) {
+            Set<byte[]> rawValues = connection.zRevRange(rawKey, 0, 0);
+            if (rawValues == null || rawValues.isEmpty()) {
+                return null;
+            }
+            return toValueWrapper(key, rawValues.iterator().next());
+        }
+    }
+
+    /**
+     * Merges the saved value. A key that is not cached yet gets the evict ttl, as in {@link #evictOrPut},
+     * since the DB may hold a newer value than the saved one.
+     */
+    @Override
+    public void put(TsLatestCacheKey key, TsKvEntry value) {
+        byte[] rawKey = getRawKey(key);
+        try (var connection = getConnection(rawKey)) {
+            upsert(connection, rawKey, value, getEvictExpiration(), KEEP_TTL);
+        }
+    }
+
+    @Override
+    public void putIfAbsent(TsLatestCacheKey key, TsKvEntry value) {
+        byte[] rawKey = getRawKey(key);
+        try (var connection = getConnection(rawKey)) {
+            upsert(connection, rawKey, value, getCacheTtl(), RESET_TTL);
+        }
+    }
+
+    @Override
+    public void evictOrPut(TsLatestCacheKey key, TsKvEntry value) {
+        byte[] rawKey = getRawKey(key);
+        try (var connection = getConnection(rawKey)) {
+            var records = connection.del(rawKey);
+            if (records == null || records == 0) {
+                upsert(connection, rawKey, value, getEvictExpiration(), RESET_TTL);
+            }
+        }
+    }
+
+    /**
+     * Called by the cache transactions with the value read from the DB.
+     */
+    @Override
+    public void put(RedisConnection connection, TsLatestCacheKey key, TsKvEntry value, RedisStringCommands.SetOption setOption) {
+        upsert(connection, getRawKey(key), value, getCacheTtl(), RESET_TTL);
+    }
+
+    private void upsert(RedisConnection connection, byte[] rawKey, TsKvEntry value, Expiration ttl, byte[] resetTtl) {
+        long ts = value != null ? value.getTs() : 0L;
+        long ttlMs = ttl.isPersistent() ? 0L : ttl.getExpirationTimeInMilliseconds();
+        connection.eval(UPSERT_TS_LATEST_LUA_SCRIPT, ReturnType.INTEGER, 1, rawKey,
+                Long.toString(ts).getBytes(StandardCharsets.UTF_8), getRawValue(value),
+                Long.toString(ttlMs).getBytes(StandardCharsets.UTF_8), resetTtl);
+    }
+
+}
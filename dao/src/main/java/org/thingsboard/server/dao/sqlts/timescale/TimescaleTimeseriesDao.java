@@ -88,6 +88,11 @@ public class TimescaleTimeseriesDao extends AbstractSqlTimeseriesDao implements
                 .statsPrintIntervalMs(tsStatsPrintIntervalMs)
                 .statsNamePrefix("ts.timescale")
                 .batchSortEnabled(batchSortEnabled)
+                .adaptiveBatching(tsAdaptiveBatching)
+                .minBatchSize(tsMinBatchSize)
+                .targetBatchLatencyMs(tsTargetBatchLatencyMs)
+                .maxQueueSize(tsMaxQueueSize)
+                .maxQueueWaitMs(tsMaxQueueWaitMs)
                 .build();
 
         Function<TimescaleTsKvEntity, Integer> hashcodeFunction = entity -> entity.getEntityId().hashCode();
@@ -161,8 +166,9 @@ public class TimescaleTimeseriesDao extends AbstractSqlTimeseriesDao implements
             long timeBucket = query.getInterval();
             List<Optional<? extends AbstractTsKvEntity>> data = findAllAndAggregateAsync(entityId, query.getKey(), startTs, endTs, timeBucket, query.getAggregation());
             return getReadTsKvQueryResultFuture(query, Futures.immediateFuture(data));
+        } else if (singleQueryAggregation) {
+            return findAllAndAggregateInSingleQueryAsync(entityId, keyDictionaryDao.getOrSaveKeyId(query.getKey()), query);
         } else {
-            //TODO: @dshvaika improve according to native capabilities of Timescale.
             long startPeriod = query.getStartTs();
             long endPeriod = Math.max(query.getStartTs() + 1, query.getEndTs());
             List<TimescaleTsKvEntity> timescaleTsKvEntities = new ArrayList<>();
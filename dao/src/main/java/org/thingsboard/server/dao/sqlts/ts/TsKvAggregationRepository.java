@@ -0,0 +1,159 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.ts;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
+import org.thingsboard.server.dao.util.SqlTsOrTsLatestAnyDao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Aggregates the time series of a key over all intervals of a query with a single query.
+ * Rows are grouped by the interval index calculated on the database side, so the number of queries
+ * does not depend on the number of intervals.
+ */
+@Repository
+@SqlTsOrTsLatestAnyDao
+public class TsKvAggregationRepository {
+
+    private static final String FIXED_INTERVAL_BUCKET = "(tskv.ts - :startTs) / :interval";
+    private static final String CUSTOM_INTERVALS_BUCKET = "width_bucket(tskv.ts, cast(:boundaries AS bigint[])) - 1";
+
+    private static final String SUM_AVG_COLUMNS = "SUM(COALESCE(tskv.long_v, 0)), " +
+            "SUM(COALESCE(tskv.dbl_v, 0.0)), " +
+            "SUM(CASE WHEN tskv.long_v IS NULL THEN 0 ELSE 1 END), " +
+            "SUM(CASE WHEN tskv.dbl_v IS NULL THEN 0 ELSE 1 END), " +
+            "null, MAX(tskv.ts) ";
+
+    private static final String MAX_COLUMNS = "MAX(COALESCE(tskv.long_v, -9223372036854775807)), " +
+            "MAX(COALESCE(tskv.dbl_v, -1.79769E+308)), " +
+            "SUM(CASE WHEN tskv.long_v IS NULL THEN 0 ELSE 1 END), " +
+            "SUM(CASE WHEN tskv.dbl_v IS NULL THEN 0 ELSE 1 END), " +
+            "MAX(tskv.str_v), MAX(tskv.ts) ";
+
+    private static final String MIN_COLUMNS = "MIN(COALESCE(tskv.long_v, 9223372036854775807)), " +
+            "MIN(COALESCE(tskv.dbl_v, 1.79769E+308)), " +
+            "SUM(CASE WHEN tskv.long_v IS NULL THEN 0 ELSE 1 END), " +
+            "SUM(CASE WHEN tskv.dbl_v IS NULL THEN 0 ELSE 1 END), " +
+            "MIN(tskv.str_v), MAX(tskv.ts) ";
+
+    private static final String COUNT_COLUMNS = "SUM(CASE WHEN tskv.bool_v IS NULL THEN 0 ELSE 1 END), " +
+            "SUM(CASE WHEN tskv.str_v IS NULL THEN 0 ELSE 1 END), " +
+            "SUM(CASE WHEN tskv.long_v IS NULL THEN 0 ELSE 1 END), " +
+            "SUM(CASE WHEN tskv.dbl_v IS NULL THEN 0 ELSE 1 END), " +
+            "SUM(CASE WHEN tskv.json_v IS NULL THEN 0 ELSE 1 END), " +
+            "MAX(tskv.ts) ";
+
+    private static final String FROM_WHERE_CLAUSE = "FROM ts_kv tskv WHERE " +
+            "tskv.entity_id = cast(:entityId AS uuid) " +
+            "AND tskv.key = cast(:entityKey AS int) " +
+            "AND tskv.ts >= :startTs AND tskv.ts < :endTs " +
+            "GROUP BY tsBucket";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * @param boundaries boundaries of the intervals as returned by {@link org.thingsboard.server.dao.util.TimeUtils#calculateIntervalBoundaries}
+     * @param fixedInterval whether all intervals except the last one have the same length
+     * @return aggregated value per interval, empty if there is no data in the interval. The ts of each value is the middle of its interval
+     */
+    @SuppressWarnings("unchecked")
+    public List<Optional<TsKvEntity>> findAggregated(UUID entityId, int entityKey, Aggregation aggregation, long[] boundaries, boolean fixedInterval) {
+        int intervalsCount = boundaries.length - 1;
+        if (intervalsCount < 1) {
+            return Collections.emptyList();
+        }
+        long startTs = boundaries[0];
+        long endTs = boundaries[intervalsCount];
+        String bucket = fixedInterval ? FIXED_INTERVAL_BUCKET : CUSTOM_INTERVALS_BUCKET;
+        var query = entityManager.createNativeQuery("SELECT " + bucket + " AS tsBucket, " + getColumns(aggregation) + FROM_WHERE_CLAUSE)
+                .setParameter("entityId", entityId)
+                .setParameter("entityKey", entityKey)
+                .setParameter("startTs", startTs)
+                .setParameter("endTs", endTs);
+        if (fixedInterval) {
+            query.setParameter("interval", boundaries[1] - boundaries[0]);
+        } else {
+            query.setParameter("boundaries", toArrayLiteral(boundaries));
+        }
+        List<Optional<TsKvEntity>> result = new ArrayList<>(Collections.nCopies(intervalsCount, Optional.empty()));
+        for (Object[] row : (List<Object[]>) query.getResultList()) {
+            int idx = ((Number) row[0]).intValue();
+            if (idx < 0 || idx >= intervalsCount) {
+                continue;
+            }
+            TsKvEntity entity = toEntity(aggregation, row);
+            if (entity.isNotEmpty()) {
+                entity.setTs(boundaries[idx] + (boundaries[idx + 1] - boundaries[idx]) / 2);
+                result.set(idx, Optional.of(entity));
+            }
+        }
+        return result;
+    }
+
+    private static String getColumns(Aggregation aggregation) {
+        switch (aggregation) {
+            case AVG:
+            case SUM:
+                return SUM_AVG_COLUMNS;
+            case MAX:
+                return MAX_COLUMNS;
+            case MIN:
+                return MIN_COLUMNS;
+            case COUNT:
+                return COUNT_COLUMNS;
+            default:
+                throw new IllegalArgumentException("Not supported aggregation type: " + aggregation);
+        }
+    }
+
+    private static TsKvEntity toEntity(Aggregation aggregation, Object[] row) {
+        if (Aggregation.COUNT.equals(aggregation)) {
+            return new TsKvEntity(toLong(row[1]), toLong(row[2]), toLong(row[3]), toLong(row[4]), toLong(row[5]), toLong(row[6]));
+        }
+        Long aggValuesLastTs = toLong(row[6]);
+        TsKvEntity entity = new TsKvEntity(toLong(row[1]), toDouble(row[2]), toLong(row[3]), toLong(row[4]), aggregation.name(), aggValuesLastTs);
+        if (!entity.isNotEmpty() && row[5] != null) {
+            // same as for the single interval queries: string values are used only if there are no numeric ones
+            entity = new TsKvEntity((String) row[5], aggValuesLastTs);
+        }
+        return entity;
+    }
+
+    private static String toArrayLiteral(long[] boundaries) {
+        return Arrays.stream(boundaries).mapToObj(Long::toString).collect(Collectors.joining(",", "{", "}"));
+    }
+
+    private static Long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : null;
+    }
+
+    private static Double toDouble(Object value) {
+        return value != null ? ((Number) value).doubleValue() : null;
+    }
+
+}
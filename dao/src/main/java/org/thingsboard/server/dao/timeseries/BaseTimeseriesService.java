@@ -38,6 +38,7 @@ import org.thingsboard.server.common.data.kv.ReadTsKvQuery;
 import org.thingsboard.server.common.data.kv.ReadTsKvQueryResult;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
 import org.thingsboard.server.common.data.kv.TsKvLatestRemovingResult;
+import org.thingsboard.server.dao.dictionary.KeyDictionaryDao;
 import org.thingsboard.server.dao.entityview.EntityViewService;
 import org.thingsboard.server.dao.exception.IncorrectParameterException;
 import org.thingsboard.server.dao.service.Validator;
@@ -89,6 +90,15 @@ public class BaseTimeseriesService implements TimeseriesService {
     @Autowired
     private EntityViewService entityViewService;
 
+    @Autowired
+    private KeyDictionaryDao keyDictionaryDao;
+
+    @Value("${database.ts.type:sql}")
+    private String tsType;
+
+    @Value("${database.ts_latest.type:sql}")
+    private String tsLatestType;
+
     @Override
     public ListenableFuture<List<ReadTsKvQueryResult>> findAllByQueries(TenantId tenantId, EntityId entityId, List<ReadTsKvQuery> queries) {
         validate(entityId);
@@ -175,6 +185,7 @@ public class BaseTimeseriesService implements TimeseriesService {
 
     private ListenableFuture<Integer> doSave(TenantId tenantId, EntityId entityId, List<TsKvEntry> tsKvEntries, long ttl, boolean saveLatest) {
         int inserts = saveLatest ? INSERTS_PER_ENTRY : INSERTS_PER_ENTRY_WITHOUT_LATEST;
+        resolveKeys(tsKvEntries, saveLatest);
         List<ListenableFuture<Integer>> futures = new ArrayList<>(tsKvEntries.size() * inserts);
         for (TsKvEntry tsKvEntry : tsKvEntries) {
             if (saveLatest) {
@@ -188,6 +199,7 @@ public class BaseTimeseriesService implements TimeseriesService {
 
     @Override
     public ListenableFuture<List<Void>> saveLatest(TenantId tenantId, EntityId entityId, List<TsKvEntry> tsKvEntries) {
+        resolveKeys(tsKvEntries, true);
         List<ListenableFuture<Void>> futures = new ArrayList<>(tsKvEntries.size());
         for (TsKvEntry tsKvEntry : tsKvEntries) {
             futures.add(timeseriesLatestDao.saveLatest(tenantId, entityId, tsKvEntry));
@@ -195,6 +207,15 @@ public class BaseTimeseriesService implements TimeseriesService {
         return Futures.allAsList(futures);
     }
 
+    /**
+     * Resolves the dictionary ids of all keys with a single round trip, instead of one per new key.
+     */
+    private void resolveKeys(List<TsKvEntry> tsKvEntries, boolean saveLatest) {
+        if (tsKvEntries.size() > 1 && (!"cassandra".equals(tsType) || (saveLatest && !"cassandra".equals(tsLatestType)))) {
+            keyDictionaryDao.getOrSaveKeyIds(tsKvEntries.stream().map(TsKvEntry::getKey).collect(Collectors.toSet()));
+        }
+    }
+
     private void saveAndRegisterFutures(TenantId tenantId, List<ListenableFuture<Integer>> futures, EntityId entityId, TsKvEntry tsKvEntry, long ttl) {
         doSaveAndRegisterFuturesFor(tenantId, futures, entityId, tsKvEntry, ttl);
         futures.add(Futures.transform(timeseriesLatestDao.saveLatest(tenantId, entityId, tsKvEntry), v -> 0, MoreExecutors.directExecutor()));
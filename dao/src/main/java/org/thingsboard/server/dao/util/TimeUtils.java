@@ -15,6 +15,7 @@
  */
 package org.thingsboard.server.dao.util;
 
+import org.thingsboard.server.common.data.kv.AggregationParams;
 import org.thingsboard.server.common.data.kv.IntervalType;
 
 import java.time.Instant;
@@ -23,6 +24,8 @@ import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.IsoFields;
 import java.time.temporal.WeekFields;
+import java.util.ArrayList;
+import java.util.List;
 
 public class TimeUtils {
 
@@ -42,4 +45,26 @@ public class TimeUtils {
         }
     }
 
+    /**
+     * Splits [startTs, endTs) into aggregation intervals.
+     * Returns the boundaries of the intervals: the first element is startTs and the last one is endTs.
+     * The last interval may be shorter than the others.
+     */
+    public static long[] calculateIntervalBoundaries(long startTs, long endTs, AggregationParams aggParams) {
+        List<Long> boundaries = new ArrayList<>();
+        long startPeriod = startTs;
+        boundaries.add(startPeriod);
+        while (startPeriod < endTs) {
+            long intervalEnd;
+            if (IntervalType.MILLISECONDS.equals(aggParams.getIntervalType())) {
+                intervalEnd = startPeriod + aggParams.getInterval();
+            } else {
+                intervalEnd = calculateIntervalEnd(startPeriod, aggParams.getIntervalType(), aggParams.getTzId());
+            }
+            startPeriod = Math.min(intervalEnd, endTs);
+            boundaries.add(startPeriod);
+        }
+        return boundaries.stream().mapToLong(Long::longValue).toArray();
+    }
+
 }
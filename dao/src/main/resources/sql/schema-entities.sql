@@ -777,6 +777,7 @@ CREATE TABLE IF NOT EXISTS cloud_event (
     entity_id uuid,
     cloud_event_action varchar(255),
     entity_body varchar(10000000),
+    entity_body_proto bytea,
     tenant_id uuid,
     ts bigint NOT NULL
 ) PARTITION BY RANGE(created_time);
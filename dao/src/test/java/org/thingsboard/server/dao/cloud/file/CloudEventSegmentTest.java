@@ -0,0 +1,144 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.cloud.file;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.thingsboard.server.common.data.cloud.CloudEvent;
+import org.thingsboard.server.common.data.cloud.CloudEventType;
+import org.thingsboard.server.common.data.edge.EdgeEventActionType;
+import org.thingsboard.server.common.data.id.CloudEventId;
+import org.thingsboard.server.common.data.id.TenantId;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CloudEventSegmentTest {
+
+    private static final int SEGMENT_SIZE = 64 * 1024;
+
+    private final UUID tenantId = UUID.randomUUID();
+    private final UUID entityId = UUID.randomUUID();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testAppendAndReadAfterSeqId() throws Exception {
+        CloudEventSegment segment = CloudEventSegment.open(dir.resolve("1.segment"), 1, SEGMENT_SIZE);
+        for (long seqId = 1; seqId <= 200; seqId++) {
+            assertThat(segment.append(seqId, cloudEvent(seqId * 10), payload(seqId))).isTrue();
+        }
+
+        assertThat(readSeqIds(segment, 0)).hasSize(200);
+        assertThat(readSeqIds(segment, 150)).hasSize(50).startsWith(151L).endsWith(200L);
+        assertThat(readSeqIds(segment, 200)).isEmpty();
+        assertThat(segment.getLastSeqId()).isEqualTo(200);
+        assertThat(segment.getMaxCreatedTime()).isEqualTo(2000);
+        segment.close();
+    }
+
+    @Test
+    void testHeaderFields() throws Exception {
+        CloudEventSegment segment = CloudEventSegment.open(dir.resolve("1.segment"), 1, SEGMENT_SIZE);
+        segment.append(1, cloudEvent(10), payload(1));
+
+        segment.forEach(0, record -> {
+            assertThat(record.getCreatedTime()).isEqualTo(10);
+            assertThat(record.isTenant(tenantId)).isTrue();
+            assertThat(record.isTenant(UUID.randomUUID())).isFalse();
+            assertThat(record.isEntity(entityId)).isTrue();
+            assertThat(record.isType(CloudEventType.DEVICE)).isTrue();
+            assertThat(record.isType(CloudEventType.ASSET)).isFalse();
+            assertThat(record.isAction(EdgeEventActionType.ADDED)).isTrue();
+            assertThat(record.isAction(EdgeEventActionType.UPDATED)).isFalse();
+            return true;
+        });
+        segment.close();
+    }
+
+    @Test
+    void testRecoverAfterReopen() throws Exception {
+        Path file = dir.resolve("10.segment");
+        CloudEventSegment segment = CloudEventSegment.open(file, 10, SEGMENT_SIZE);
+        segment.append(10, cloudEvent(100), payload(10));
+        segment.append(12, cloudEvent(120), payload(12));
+        segment.close();
+
+        CloudEventSegment reopened = CloudEventSegment.open(file, 10, SEGMENT_SIZE);
+        assertThat(readSeqIds(reopened, 0)).containsExactly(10L, 12L);
+        assertThat(reopened.getLastSeqId()).isEqualTo(12);
+
+        reopened.append(13, cloudEvent(130), payload(13));
+        assertThat(readSeqIds(reopened, 10)).containsExactly(12L, 13L);
+        reopened.close();
+    }
+
+    @Test
+    void testAppendReturnsFalseWhenSegmentIsFull() throws Exception {
+        CloudEventSegment segment = CloudEventSegment.open(dir.resolve("1.segment"), 1, 192);
+        assertThat(segment.append(1, cloudEvent(1), new byte[64])).isTrue();
+        assertThat(segment.append(2, cloudEvent(2), new byte[64])).isFalse();
+        segment.close();
+    }
+
+    @Test
+    void testDeleteWaitsForReaders() throws Exception {
+        Path file = dir.resolve("1.segment");
+        CloudEventSegment segment = CloudEventSegment.open(file, 1, SEGMENT_SIZE);
+        segment.append(1, cloudEvent(10), payload(1));
+
+        assertThat(segment.retain()).isTrue();
+        segment.delete();
+        assertThat(segment.retain()).isFalse();
+        assertThat(Files.exists(file)).isTrue();
+        assertThat(readSeqIds(segment, 0)).containsExactly(1L);
+
+        segment.release();
+        assertThat(Files.exists(file)).isFalse();
+    }
+
+    private CloudEvent cloudEvent(long createdTime) {
+        CloudEvent cloudEvent = new CloudEvent(new CloudEventId(UUID.randomUUID()));
+        cloudEvent.setCreatedTime(createdTime);
+        cloudEvent.setTenantId(TenantId.fromUUID(tenantId));
+        cloudEvent.setEntityId(entityId);
+        cloudEvent.setType(CloudEventType.DEVICE);
+        cloudEvent.setAction(EdgeEventActionType.ADDED);
+        return cloudEvent;
+    }
+
+    private static byte[] payload(long seqId) {
+        return ("event-" + seqId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<Long> readSeqIds(CloudEventSegment segment, long afterSeqId) {
+        List<Long> result = new ArrayList<>();
+        segment.forEach(afterSeqId, record -> {
+            assertThat(record.readPayload()).isEqualTo(payload(record.getSeqId()));
+            result.add(record.getSeqId());
+            return true;
+        });
+        return result;
+    }
+
+}
@@ -0,0 +1,223 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.cloud.file;
+
+import com.google.common.util.concurrent.Futures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Answers;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.AttributeScope;
+import org.thingsboard.server.common.data.Tenant;
+import org.thingsboard.server.common.data.cloud.CloudEvent;
+import org.thingsboard.server.common.data.cloud.CloudEventType;
+import org.thingsboard.server.common.data.edge.EdgeEventActionType;
+import org.thingsboard.server.common.data.id.CloudEventId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.BaseAttributeKvEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.page.PageData;
+import org.thingsboard.server.common.data.page.TimePageLink;
+import org.thingsboard.server.common.stats.StatsFactory;
+import org.thingsboard.server.dao.attributes.AttributesService;
+import org.thingsboard.server.dao.sql.ScheduledLogExecutorComponent;
+import org.thingsboard.server.dao.tenant.TenantDao;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FileCloudEventDaoTest {
+
+    private final UUID tenantId = UUID.randomUUID();
+    private final UUID otherTenantId = UUID.randomUUID();
+    private final UUID entityId = UUID.randomUUID();
+    private final ScheduledLogExecutorComponent logExecutor = new ScheduledLogExecutorComponent();
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TenantDao tenantDao = mock(TenantDao.class);
+    private final AttributesService attributesService = mock(AttributesService.class);
+
+    @TempDir
+    Path dir;
+
+    private FileCloudEventDao dao;
+
+    @BeforeEach
+    void setUp() {
+        logExecutor.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (dao != null) {
+            ReflectionTestUtils.invokeMethod(dao, "destroy");
+        }
+        logExecutor.stop();
+    }
+
+    @Test
+    void testFindCloudEventsPaging() throws Exception {
+        dao = createDao(false);
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            CloudEvent cloudEvent = cloudEvent(i % 3 == 0 ? otherTenantId : tenantId, 1000 + i);
+            dao.saveAsync(cloudEvent).get();
+            if (i % 3 != 0) {
+                expected.add(cloudEvent.getSeqId());
+            }
+        }
+
+        List<Long> sequential = new ArrayList<>();
+        TimePageLink pageLink = new TimePageLink(4, 0, null, null, 0L, System.currentTimeMillis());
+        PageData<CloudEvent> page = dao.findCloudEvents(tenantId, 0L, null, pageLink);
+        while (true) {
+            page.getData().forEach(cloudEvent -> sequential.add(cloudEvent.getSeqId()));
+            if (!page.hasNext()) {
+                break;
+            }
+            pageLink = pageLink.nextPageLink();
+            page = dao.findCloudEvents(tenantId, 0L, null, pageLink);
+        }
+        assertThat(sequential).isEqualTo(expected);
+
+        // random access without the cursor of the previous page
+        PageData<CloudEvent> thirdPage = dao.findCloudEvents(tenantId, 0L, null, new TimePageLink(4, 2, null, null, 0L, System.currentTimeMillis()));
+        assertThat(thirdPage.getData()).extracting(CloudEvent::getSeqId).isEqualTo(expected.subList(8, 12));
+        assertThat(thirdPage.getData()).allSatisfy(cloudEvent -> assertThat(cloudEvent.getTenantId().getId()).isEqualTo(tenantId));
+    }
+
+    @Test
+    void testCountEvents() throws Exception {
+        dao = createDao(false);
+        dao.saveAsync(cloudEvent(tenantId, 1000)).get();
+        dao.saveAsync(cloudEvent(tenantId, 2000)).get();
+        dao.saveAsync(cloudEvent(otherTenantId, 2000)).get();
+        CloudEvent otherAction = cloudEvent(tenantId, 2000);
+        otherAction.setAction(EdgeEventActionType.UPDATED);
+        dao.saveAsync(otherAction).get();
+
+        assertThat(dao.countEventsByTenantIdAndEntityIdAndActionAndTypeAndStartTimeAndEndTime(tenantId, entityId,
+                CloudEventType.DEVICE, EdgeEventActionType.ADDED, null, null)).isEqualTo(2);
+        assertThat(dao.countEventsByTenantIdAndEntityIdAndActionAndTypeAndStartTimeAndEndTime(tenantId, entityId,
+                CloudEventType.DEVICE, EdgeEventActionType.ADDED, 1000L, null)).isEqualTo(1);
+        assertThat(dao.countEventsByTenantIdAndEntityIdAndActionAndTypeAndStartTimeAndEndTime(tenantId, UUID.randomUUID(),
+                CloudEventType.DEVICE, EdgeEventActionType.ADDED, null, null)).isZero();
+    }
+
+    @Test
+    void testCleanupEventsRemovesExpiredSegments() throws Exception {
+        dao = createDao(false);
+        long now = System.currentTimeMillis();
+        CloudEvent expired = cloudEvent(tenantId, now - 10 * 3600_000L);
+        dao.saveAsync(expired).get();
+        CloudEvent actual = cloudEvent(tenantId, now);
+        dao.saveAsync(actual).get();
+        assertThat(segmentFiles()).hasSize(2);
+
+        dao.cleanupEvents(now - 3600_000L);
+
+        assertThat(segmentFiles()).hasSize(1);
+        PageData<CloudEvent> page = dao.findCloudEvents(tenantId, 0L, null, new TimePageLink(10));
+        assertThat(page.getData()).extracting(CloudEvent::getSeqId).containsExactly(actual.getSeqId());
+    }
+
+    @Test
+    void testMigrationKeepsOrderAfterSeqIdCycle() throws Exception {
+        Tenant tenant = new Tenant(TenantId.fromUUID(tenantId));
+        when(tenantDao.findTenants(any(), any())).thenReturn(new PageData<>(List.of(tenant), 1, 1, false));
+        when(attributesService.find(eq(tenant.getId()), eq(tenant.getId()), eq(AttributeScope.SERVER_SCOPE), anyCollection()))
+                .thenReturn(Futures.immediateFuture(List.of(
+                        new BaseAttributeKvEntry(new LongDataEntry("queueSeqIdOffset", 100L), 0),
+                        new BaseAttributeKvEntry(new LongDataEntry("queueStartTs", 500L), 0))));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(100L), eq(Long.MAX_VALUE), anyLong(), eq(1000)))
+                .thenReturn(List.of(sqlCloudEvent(101, 1001), sqlCloudEvent(102, 1002)));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(0L), eq(100L), anyLong(), eq(1000)))
+                .thenReturn(List.of(sqlCloudEvent(1, 1003), sqlCloudEvent(2, 1004)));
+
+        dao = createDao(true);
+
+        PageData<CloudEvent> page = dao.findCloudEvents(tenantId, 100L, null, new TimePageLink(10));
+        assertThat(page.getData()).extracting(CloudEvent::getSeqId).containsExactly(101L, 102L, 103L, 104L);
+        assertThat(page.getData()).extracting(CloudEvent::getCreatedTime).containsExactly(1001L, 1002L, 1003L, 1004L);
+        assertThat(Files.exists(dir.resolve("migrated_from_sql"))).isTrue();
+    }
+
+    @Test
+    void testMigrationFailsIfQueueAttributesCanNotBeRead() {
+        Tenant tenant = new Tenant(TenantId.fromUUID(tenantId));
+        when(tenantDao.findTenants(any(), any())).thenReturn(new PageData<>(List.of(tenant), 1, 1, false));
+        when(attributesService.find(eq(tenant.getId()), eq(tenant.getId()), eq(AttributeScope.SERVER_SCOPE), anyCollection()))
+                .thenReturn(Futures.immediateFailedFuture(new RuntimeException("db is down")));
+
+        assertThatThrownBy(() -> createDao(true)).isInstanceOf(IllegalStateException.class);
+        assertThat(Files.exists(dir.resolve("migrated_from_sql"))).isFalse();
+    }
+
+    private FileCloudEventDao createDao(boolean migrateFromSql) {
+        FileCloudEventDao dao = new FileCloudEventDao(logExecutor, mock(StatsFactory.class, Answers.RETURNS_MOCKS), jdbcTemplate,
+                tenantDao, attributesService);
+        ReflectionTestUtils.setField(dao, "dir", dir.toString());
+        ReflectionTestUtils.setField(dao, "segmentSize", 64 * 1024);
+        ReflectionTestUtils.setField(dao, "segmentDurationInHours", 1);
+        ReflectionTestUtils.setField(dao, "migrateFromSql", migrateFromSql);
+        ReflectionTestUtils.setField(dao, "cloudEventsTtl", 0L);
+        ReflectionTestUtils.setField(dao, "batchSize", 100);
+        ReflectionTestUtils.setField(dao, "maxDelay", 5L);
+        ReflectionTestUtils.setField(dao, "statsPrintIntervalMs", 10000L);
+        ReflectionTestUtils.invokeMethod(dao, "init");
+        return dao;
+    }
+
+    private CloudEvent cloudEvent(UUID tenantId, long createdTime) {
+        CloudEvent cloudEvent = new CloudEvent(new CloudEventId(UUID.randomUUID()));
+        cloudEvent.setCreatedTime(createdTime);
+        cloudEvent.setTenantId(TenantId.fromUUID(tenantId));
+        cloudEvent.setEntityId(entityId);
+        cloudEvent.setType(CloudEventType.DEVICE);
+        cloudEvent.setAction(EdgeEventActionType.ADDED);
+        return cloudEvent;
+    }
+
+    private CloudEvent sqlCloudEvent(long seqId, long createdTime) {
+        CloudEvent cloudEvent = cloudEvent(tenantId, createdTime);
+        cloudEvent.setSeqId(seqId);
+        return cloudEvent;
+    }
+
+    private List<Path> segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".segment")).toList();
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TbSqlAdaptiveBatchSizeTest {
+
+    @Test
+    void testGrowsWhileBacklogIsNotDrained() {
+        TbSqlAdaptiveBatchSize batchSize = new TbSqlAdaptiveBatchSize(100, 1000, 50);
+        assertThat(batchSize.getBatchSize()).isEqualTo(100);
+
+        batchSize.onBatchCommitted(100, 10, 500);
+        assertThat(batchSize.getBatchSize()).isEqualTo(125);
+
+        batchSize.onBatchCommitted(80, 10, 0);
+        assertThat(batchSize.getBatchSize()).isEqualTo(125);
+
+        for (int i = 0; i < 100; i++) {
+            batchSize.onBatchCommitted(batchSize.getBatchSize(), 10, 500);
+        }
+        assertThat(batchSize.getBatchSize()).isEqualTo(1000);
+    }
+
+    @Test
+    void testShrinksWhenCommitIsSlow() {
+        TbSqlAdaptiveBatchSize batchSize = new TbSqlAdaptiveBatchSize(100, 1000, 50);
+        for (int i = 0; i < 100; i++) {
+            batchSize.onBatchCommitted(batchSize.getBatchSize(), 10, 500);
+        }
+
+        batchSize.onBatchCommitted(1000, 80, 500);
+        assertThat(batchSize.getBatchSize()).isEqualTo(500);
+
+        for (int i = 0; i < 10; i++) {
+            batchSize.onBatchCommitted(batchSize.getBatchSize(), 80, 500);
+        }
+        assertThat(batchSize.getBatchSize()).isEqualTo(100);
+    }
+
+    @Test
+    void testFixedBatchSize() {
+        TbSqlAdaptiveBatchSize batchSize = TbSqlAdaptiveBatchSize.fixed(1000);
+        batchSize.onBatchCommitted(1000, Long.MAX_VALUE - 1, 500);
+        batchSize.onBatchCommitted(1000, 10, 500);
+        assertThat(batchSize.getBatchSize()).isEqualTo(1000);
+    }
+
+}
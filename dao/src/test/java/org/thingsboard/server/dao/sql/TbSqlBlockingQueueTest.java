@@ -0,0 +1,176 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.thingsboard.server.common.stats.MessagesStats;
+import org.thingsboard.server.common.stats.StatsFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class TbSqlBlockingQueueTest {
+
+    private final ScheduledLogExecutorComponent logExecutor = mock(ScheduledLogExecutorComponent.class);
+    private final StatsFactory statsFactory = mock(StatsFactory.class, Answers.RETURNS_MOCKS);
+    private final ExecutorService callerExecutor = Executors.newSingleThreadExecutor();
+    private TbSqlBlockingQueue<Integer> queue;
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.destroy();
+        }
+        callerExecutor.shutdownNow();
+    }
+
+    @Test
+    void testPartialBatchIsNotDelayedWithAdaptiveBatching() throws Exception {
+        queue = createQueue(TbSqlBlockingQueueParams.builder()
+                .batchSize(100)
+                .maxDelay(10_000)
+                .adaptiveBatching(true)
+                .minBatchSize(10)
+                .targetBatchLatencyMs(1000));
+        List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        queue.init(logExecutor, batches::add, Comparator.naturalOrder(), 0);
+
+        queue.add(1).get(5, TimeUnit.SECONDS);
+        queue.add(2).get(5, TimeUnit.SECONDS);
+
+        assertThat(batches).containsExactly(List.of(1), List.of(2));
+    }
+
+    @Test
+    void testNextBatchIsPreparedWhileCommitting() throws Exception {
+        queue = createQueue(TbSqlBlockingQueueParams.builder()
+                .batchSize(100)
+                .maxDelay(100)
+                .batchSortEnabled(true)
+                .adaptiveBatching(true)
+                .minBatchSize(10)
+                .targetBatchLatencyMs(10_000));
+        CountDownLatch commitStarted = new CountDownLatch(1);
+        CountDownLatch releaseCommit = new CountDownLatch(1);
+        List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        queue.init(logExecutor, batch -> {
+            batches.add(batch);
+            commitStarted.countDown();
+            try {
+                releaseCommit.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }, Comparator.naturalOrder(), 0);
+
+        ListenableFuture<Void> first = queue.add(0);
+        assertThat(commitStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        List<ListenableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 20; i > 0; i--) {
+            futures.add(queue.add(i));
+        }
+        releaseCommit.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        for (ListenableFuture<Void> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        assertThat(batches.get(0)).containsExactly(0);
+        assertThat(batches.subList(1, batches.size())).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(10).isSorted());
+        assertThat(batches.stream().mapToInt(List::size).sum()).isEqualTo(21);
+    }
+
+    @Test
+    void testAddWaitsWhileQueueIsFull() throws Exception {
+        queue = createQueue(TbSqlBlockingQueueParams.builder()
+                .batchSize(1)
+                .maxDelay(100)
+                .maxQueueSize(1)
+                .maxQueueWaitMs(5000));
+        CountDownLatch commitStarted = new CountDownLatch(1);
+        CountDownLatch releaseCommit = new CountDownLatch(1);
+        queue.init(logExecutor, batch -> {
+            commitStarted.countDown();
+            try {
+                releaseCommit.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }, Comparator.naturalOrder(), 0);
+
+        ListenableFuture<Void> first = queue.add(1);
+        assertThat(commitStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        ListenableFuture<Void> second = queue.add(2);
+        Future<ListenableFuture<Void>> blocked = callerExecutor.submit(() -> queue.add(3));
+        Thread.sleep(200);
+        assertThat(blocked.isDone()).isFalse();
+
+        releaseCommit.countDown();
+        blocked.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS);
+        assertThat(first.isDone()).isTrue();
+        assertThat(second.isDone()).isTrue();
+    }
+
+    @Test
+    void testAddFailsWhenQueueIsFullLongerThanMaxWait() throws Exception {
+        queue = createQueue(TbSqlBlockingQueueParams.builder()
+                .batchSize(1)
+                .maxDelay(100)
+                .maxQueueSize(1)
+                .maxQueueWaitMs(100));
+        CountDownLatch commitStarted = new CountDownLatch(1);
+        CountDownLatch releaseCommit = new CountDownLatch(1);
+        queue.init(logExecutor, batch -> {
+            commitStarted.countDown();
+            try {
+                releaseCommit.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }, Comparator.naturalOrder(), 0);
+
+        ListenableFuture<Void> first = queue.add(1);
+        assertThat(commitStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        ListenableFuture<Void> second = queue.add(2);
+        ListenableFuture<Void> rejected = queue.add(3);
+        assertThat(rejected.isDone()).isTrue();
+        assertThatThrownBy(rejected::get).hasCauseInstanceOf(IllegalStateException.class);
+
+        releaseCommit.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+    }
+
+    private TbSqlBlockingQueue<Integer> createQueue(TbSqlBlockingQueueParams.TbSqlBlockingQueueParamsBuilder params) {
+        return new TbSqlBlockingQueue<>(params.logName("Test").statsNamePrefix("test").statsPrintIntervalMs(10_000).build(),
+                mock(MessagesStats.class), statsFactory);
+    }
+
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql.cloud;
+
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.cloud.CloudEvent;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.page.PageData;
+import org.thingsboard.server.common.data.page.TimePageLink;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CloudEventTailBufferTest {
+
+    private final UUID tenantId = UUID.randomUUID();
+
+    @Test
+    void testFindReturnsNullForNotBufferedCursor() {
+        CloudEventTailBuffer buffer = new CloudEventTailBuffer(10);
+        assertThat(buffer.find(tenantId, 0, pageLink(0))).isNull();
+
+        buffer.addAll(events(5, 7));
+        assertThat(buffer.find(tenantId, 3, pageLink(0))).isNull();
+        assertThat(buffer.find(tenantId, 8, pageLink(0))).isNull();
+        assertThat(buffer.find(tenantId, 4, pageLink(0)).getData()).extracting(CloudEvent::getSeqId).containsExactly(5L, 6L, 7L);
+        assertThat(buffer.find(tenantId, 7, pageLink(0)).getData()).isEmpty();
+    }
+
+    @Test
+    void testEvictionMovesCoveredRange() {
+        CloudEventTailBuffer buffer = new CloudEventTailBuffer(3);
+        buffer.addAll(events(1, 5));
+
+        assertThat(buffer.find(tenantId, 1, pageLink(0))).isNull();
+        assertThat(buffer.find(tenantId, 2, pageLink(0)).getData()).extracting(CloudEvent::getSeqId).containsExactly(3L, 4L, 5L);
+    }
+
+    @Test
+    void testPaging() {
+        CloudEventTailBuffer buffer = new CloudEventTailBuffer(10);
+        buffer.addAll(events(1, 5));
+
+        PageData<CloudEvent> firstPage = buffer.find(tenantId, 0, new TimePageLink(2, 0));
+        assertThat(firstPage.getData()).extracting(CloudEvent::getSeqId).containsExactly(1L, 2L);
+        assertThat(firstPage.hasNext()).isTrue();
+
+        PageData<CloudEvent> lastPage = buffer.find(tenantId, 0, new TimePageLink(2, 2));
+        assertThat(lastPage.getData()).extracting(CloudEvent::getSeqId).containsExactly(5L);
+        assertThat(lastPage.hasNext()).isFalse();
+        assertThat(lastPage.getTotalElements()).isEqualTo(5);
+    }
+
+    @Test
+    void testNewSeqIdCycleResetsBuffer() {
+        CloudEventTailBuffer buffer = new CloudEventTailBuffer(10);
+        buffer.addAll(events(100, 102));
+        buffer.addAll(events(1, 2));
+
+        assertThat(buffer.find(tenantId, 102, pageLink(0))).isNull();
+        assertThat(buffer.find(tenantId, 0, pageLink(0)).getData()).extracting(CloudEvent::getSeqId).containsExactly(1L, 2L);
+    }
+
+    private TimePageLink pageLink(int page) {
+        return new TimePageLink(100, page);
+    }
+
+    private List<CloudEvent> events(long fromSeqId, long toSeqId) {
+        return LongStream.rangeClosed(fromSeqId, toSeqId).mapToObj(seqId -> {
+            CloudEvent cloudEvent = new CloudEvent();
+            cloudEvent.setTenantId(TenantId.fromUUID(tenantId));
+            cloudEvent.setSeqId(seqId);
+            cloudEvent.setCreatedTime(System.currentTimeMillis());
+            return cloudEvent;
+        }).toList();
+    }
+
+}
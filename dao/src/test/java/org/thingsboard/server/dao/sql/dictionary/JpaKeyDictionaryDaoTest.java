@@ -0,0 +1,75 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql.dictionary;
+
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.thingsboard.server.dao.AbstractJpaDaoTest;
+import org.thingsboard.server.dao.dictionary.KeyDictionaryDao;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JpaKeyDictionaryDaoTest extends AbstractJpaDaoTest {
+
+    @Autowired
+    private KeyDictionaryDao keyDictionaryDao;
+
+    @Test
+    public void testGetOrSaveKeyIds() {
+        String prefix = UUID.randomUUID().toString();
+        Integer existingKeyId = keyDictionaryDao.getOrSaveKeyId(prefix + "_existing");
+
+        Map<String, Integer> keyIds = keyDictionaryDao.getOrSaveKeyIds(List.of(prefix + "_existing", prefix + "_new1", prefix + "_new2"));
+
+        assertThat(keyIds).hasSize(3);
+        assertThat(keyIds.get(prefix + "_existing")).isEqualTo(existingKeyId);
+        assertThat(keyIds.values()).doesNotHaveDuplicates();
+        keyIds.forEach((key, keyId) -> {
+            assertThat(keyDictionaryDao.getOrSaveKeyId(key)).isEqualTo(keyId);
+            assertThat(keyDictionaryDao.getKey(keyId)).isEqualTo(key);
+        });
+    }
+
+    @Test
+    public void testConcurrentGetOrSaveKeyIds() throws Exception {
+        List<String> keys = IntStream.range(0, 20).mapToObj(i -> UUID.randomUUID() + "_" + i).collect(Collectors.toList());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<Map<String, Integer>>> tasks = IntStream.range(0, 4)
+                    .<Callable<Map<String, Integer>>>mapToObj(i -> () -> keyDictionaryDao.getOrSaveKeyIds(keys))
+                    .collect(Collectors.toList());
+            List<Future<Map<String, Integer>>> results = executor.invokeAll(tasks);
+            Map<String, Integer> expected = results.get(0).get();
+            assertThat(expected).hasSize(keys.size());
+            for (Future<Map<String, Integer>> result : results) {
+                assertThat(result.get()).isEqualTo(expected);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -18,10 +18,12 @@ package org.thingsboard.server.dao.sqlts;
 import com.google.common.util.concurrent.Futures;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.thingsboard.server.common.data.kv.BaseReadTsKvQuery;
 import org.thingsboard.server.common.data.kv.ReadTsKvQuery;
 import org.thingsboard.server.common.data.kv.ReadTsKvQueryResult;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.dao.dictionary.KeyDictionaryDao;
 
 import java.util.Optional;
 
@@ -32,9 +34,11 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.willCallRealMethod;
 import static org.mockito.BDDMockito.willReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.thingsboard.server.common.data.id.TenantId.SYS_TENANT_ID;
 import static org.thingsboard.server.common.data.kv.Aggregation.COUNT;
 
@@ -146,6 +150,20 @@ public class AbstractChunkedAggregationTimeseriesDaoTest {
         }
     }
 
+    @Test
+    public void givenSingleQueryAggregation_whenAggregateCount_thenIntervalsAreNotQueriedSeparately() {
+        KeyDictionaryDao keyDictionaryDao = mock(KeyDictionaryDao.class);
+        when(keyDictionaryDao.getOrSaveKeyId(TEMP)).thenReturn(7);
+        ReflectionTestUtils.setField(tsDao, "keyDictionaryDao", keyDictionaryDao);
+        ReflectionTestUtils.setField(tsDao, "singleQueryAggregation", true);
+        ReadTsKvQuery query = new BaseReadTsKvQuery(TEMP, 1, 3000, 3, LIMIT, COUNT, DESC);
+        willReturn(Futures.immediateFuture(mock(ReadTsKvQueryResult.class))).given(tsDao).findAllAndAggregateInSingleQueryAsync(any(), any(), any());
+
+        assertThat(tsDao.findAllAsync(SYS_TENANT_ID, SYS_TENANT_ID, query)).isNotNull();
+        verify(tsDao, times(1)).findAllAndAggregateInSingleQueryAsync(SYS_TENANT_ID, 7, query);
+        verify(tsDao, never()).findAndAggregateAsync(any(), any(), anyLong(), anyLong(), anyLong(), any());
+    }
+
     long getTsForReadTsKvQuery(long startTs, long endTs) {
         return startTs + (endTs - startTs) / 2L;
     }
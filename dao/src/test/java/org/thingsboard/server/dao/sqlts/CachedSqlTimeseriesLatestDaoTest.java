@@ -0,0 +1,164 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.CacheConstants;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.BaseDeleteTsKvQuery;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.common.data.kv.TsKvLatestRemovingResult;
+import org.thingsboard.server.common.stats.DefaultStatsFactory;
+import org.thingsboard.server.dao.cache.CacheExecutorService;
+import org.thingsboard.server.dao.sql.JpaExecutorService;
+import org.thingsboard.server.dao.sqlts.latest.TsLatestCaffeineCache;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachedSqlTimeseriesLatestDaoTest {
+
+    private static final String KEY = "temperature";
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final DeviceId deviceId = new DeviceId(UUID.randomUUID());
+
+    private SqlTimeseriesLatestDao sqlDao;
+    private CacheExecutorService cacheExecutorService;
+    private CachedSqlTimeseriesLatestDao cachedDao;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        sqlDao = mock(SqlTimeseriesLatestDao.class);
+        when(sqlDao.saveLatest(any(), any(), any())).thenReturn(Futures.immediateFuture(null));
+        JpaExecutorService jpaExecutorService = mock(JpaExecutorService.class);
+        when(jpaExecutorService.submit(any(Callable.class))).thenAnswer(invocation -> Futures.immediateFuture(((Callable<?>) invocation.getArgument(0)).call()));
+        DefaultStatsFactory statsFactory = new DefaultStatsFactory();
+        ReflectionTestUtils.setField(statsFactory, "metricsEnabled", false);
+        TsLatestCaffeineCache cache = new TsLatestCaffeineCache(new ConcurrentMapCacheManager(CacheConstants.TS_LATEST_CACHE));
+        cacheExecutorService = mock(CacheExecutorService.class);
+        when(cacheExecutorService.executor()).thenReturn(MoreExecutors.newDirectExecutorService());
+        cachedDao = new CachedSqlTimeseriesLatestDao(sqlDao, jpaExecutorService, statsFactory, cacheExecutorService, cache);
+        ReflectionTestUtils.setField(cachedDao, "cacheType", "caffeine");
+        ReflectionTestUtils.setField(cachedDao, "updateByLatestTs", true);
+        cachedDao.init();
+    }
+
+    @Test
+    public void testLatestIsReadFromDbOnce() throws Exception {
+        when(sqlDao.doFindLatest(deviceId, KEY)).thenReturn(entry(100, 1L));
+
+        assertThat(cachedDao.findLatestOpt(tenantId, deviceId, KEY).get()).contains(entry(100, 1L));
+        assertThat(cachedDao.findLatestOpt(tenantId, deviceId, KEY).get()).contains(entry(100, 1L));
+
+        verify(sqlDao, times(1)).doFindLatest(deviceId, KEY);
+    }
+
+    @Test
+    public void testMissingLatestIsCached() throws Exception {
+        assertThat(cachedDao.findLatestOpt(tenantId, deviceId, KEY).get()).isEmpty();
+        assertThat(cachedDao.findLatest(tenantId, deviceId, KEY).get().getValue()).isNull();
+
+        verify(sqlDao, times(1)).doFindLatest(deviceId, KEY);
+    }
+
+    @Test
+    public void testSavedLatestIsPutToCacheOnlyIfNewer() throws Exception {
+        when(sqlDao.doFindLatest(deviceId, KEY)).thenReturn(entry(100, 1L));
+        cachedDao.findLatestOpt(tenantId, deviceId, KEY).get();
+
+        cachedDao.saveLatest(tenantId, deviceId, entry(200, 2L)).get();
+        assertThat(cachedDao.findLatestOpt(tenantId, deviceId, KEY).get()).contains(entry(200, 2L));
+
+        cachedDao.saveLatest(tenantId, deviceId, entry(150, 3L)).get();
+        assertThat(cachedDao.findLatestOpt(tenantId, deviceId, KEY).get()).contains(entry(200, 2L));
+
+        verify(sqlDao, times(1)).doFindLatest(deviceId, KEY);
+    }
+
+    @Test
+    public void testSavedLatestIsNotCachedIfKeyWasNotRead() throws Exception {
+        cachedDao.saveLatest(tenantId, deviceId, entry(200, 2L)).get();
+        when(sqlDao.doFindLatest(deviceId, KEY)).thenReturn(entry(300, 5L));
+
+        assertThat(cachedDao.findLatestOpt(tenantId, deviceId, KEY).get()).contains(entry(300, 5L));
+    }
+
+    @Test
+    public void testSavedLatestIsPutToRemoteCache() throws Exception {
+        ReflectionTestUtils.setField(cachedDao, "cacheType", "redis");
+        cachedDao.init();
+        when(sqlDao.doFindLatest(deviceId, KEY)).thenReturn(entry(100, 1L));
+        cachedDao.findLatestOpt(tenantId, deviceId, KEY).get();
+
+        cachedDao.saveLatest(tenantId, deviceId, entry(200, 2L)).get();
+
+        assertThat(cachedDao.findLatestOpt(tenantId, deviceId, KEY).get()).contains(entry(200, 2L));
+        verify(sqlDao, times(1)).doFindLatest(deviceId, KEY);
+    }
+
+    @Test
+    public void testSavedLatestIsEvictedFromRemoteCacheIfNotUpdatedByLatestTs() throws Exception {
+        ReflectionTestUtils.setField(cachedDao, "cacheType", "redis");
+        ReflectionTestUtils.setField(cachedDao, "updateByLatestTs", false);
+        cachedDao.init();
+        when(sqlDao.doFindLatest(deviceId, KEY)).thenReturn(entry(100, 1L));
+        cachedDao.findLatestOpt(tenantId, deviceId, KEY).get();
+
+        cachedDao.saveLatest(tenantId, deviceId, entry(50, 2L)).get();
+        when(sqlDao.doFindLatest(deviceId, KEY)).thenReturn(entry(50, 2L));
+
+        assertThat(cachedDao.findLatestOpt(tenantId, deviceId, KEY).get()).contains(entry(50, 2L));
+        verify(sqlDao, times(2)).doFindLatest(deviceId, KEY);
+    }
+
+    @Test
+    public void testRemovedLatestIsEvicted() throws Exception {
+        when(sqlDao.doFindLatest(deviceId, KEY)).thenReturn(entry(100, 1L));
+        cachedDao.findLatestOpt(tenantId, deviceId, KEY).get();
+        BaseDeleteTsKvQuery query = new BaseDeleteTsKvQuery(KEY, 0, 1000);
+        when(sqlDao.removeLatest(tenantId, deviceId, query)).thenReturn(Futures.immediateFuture(new TsKvLatestRemovingResult(KEY, true)));
+
+        cachedDao.removeLatest(tenantId, deviceId, query).get();
+        when(sqlDao.doFindLatest(deviceId, KEY)).thenReturn(null);
+
+        assertThat(cachedDao.findLatestOpt(tenantId, deviceId, KEY).get()).isEqualTo(Optional.empty());
+        verify(sqlDao, times(2)).doFindLatest(eq(deviceId), eq(KEY));
+    }
+
+    private static TsKvEntry entry(long ts, long value) {
+        return new BasicTsKvEntry(ts, new LongDataEntry(KEY, value));
+    }
+
+}
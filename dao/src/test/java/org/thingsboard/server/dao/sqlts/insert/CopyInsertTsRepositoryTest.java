@@ -0,0 +1,169 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.insert;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.thingsboard.server.dao.AbstractJpaDaoTest;
+import org.thingsboard.server.dao.model.sql.AbstractTsKvEntity;
+import org.thingsboard.server.dao.model.sqlts.latest.TsKvLatestEntity;
+import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
+import org.thingsboard.server.dao.sqlts.insert.latest.sql.SqlLatestCopyInsertTsRepository;
+import org.thingsboard.server.dao.sqlts.insert.latest.sql.SqlLatestInsertTsRepository;
+import org.thingsboard.server.dao.sqlts.insert.sql.SqlCopyInsertTsRepository;
+import org.thingsboard.server.dao.sqlts.insert.sql.SqlInsertTsRepository;
+import org.thingsboard.server.dao.sqlts.insert.sql.SqlPartitioningRepository;
+import org.thingsboard.server.dao.timeseries.SqlPartition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@TestPropertySource(properties = {
+        "sql.ts.copy_insert=true",
+        "sql.ts_latest.copy_insert=true"
+})
+public class CopyInsertTsRepositoryTest extends AbstractJpaDaoTest {
+
+    private static final long PARTITION_START_TS = 1_000_000L;
+    private static final long PARTITION_END_TS = 2_000_000L;
+    private static final String SELECT_TS_KV = "SELECT key, ts, bool_v, str_v, long_v, dbl_v, cast(json_v AS varchar) AS json_v FROM ts_kv WHERE entity_id = ? ORDER BY key, ts";
+    private static final String SELECT_TS_KV_LATEST = "SELECT key, ts, bool_v, str_v, long_v, dbl_v, cast(json_v AS varchar) AS json_v FROM ts_kv_latest WHERE entity_id = ? ORDER BY key";
+
+    @Autowired
+    private SqlInsertTsRepository insertTsRepository;
+    @Autowired
+    private SqlCopyInsertTsRepository copyInsertTsRepository;
+    @Autowired
+    private SqlLatestInsertTsRepository insertLatestTsRepository;
+    @Autowired
+    private SqlLatestCopyInsertTsRepository copyInsertLatestTsRepository;
+    @Autowired
+    private SqlPartitioningRepository partitioningRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void before() {
+        partitioningRepository.save(new SqlPartition(SqlPartition.TS_KV, PARTITION_START_TS, PARTITION_END_TS, "copy_insert_test"));
+    }
+
+    @Test
+    public void testCopyInsertMatchesBatchInsert() {
+        UUID batchEntityId = UUID.randomUUID();
+        UUID copyEntityId = UUID.randomUUID();
+
+        insertTsRepository.saveOrUpdate(createEntities(TsKvEntity::new, batchEntityId, PARTITION_START_TS));
+        copyInsertTsRepository.saveOrUpdate(createEntities(TsKvEntity::new, copyEntityId, PARTITION_START_TS));
+        insertTsRepository.saveOrUpdate(List.of(createEntity(TsKvEntity::new, batchEntityId, 1, PARTITION_START_TS + 1, 42L)));
+        copyInsertTsRepository.saveOrUpdate(List.of(createEntity(TsKvEntity::new, copyEntityId, 1, PARTITION_START_TS + 1, 42L)));
+
+        List<Map<String, Object>> expected = jdbcTemplate.queryForList(SELECT_TS_KV, batchEntityId);
+        assertThat(expected).hasSize(5);
+        assertThat(jdbcTemplate.queryForList(SELECT_TS_KV, copyEntityId)).isEqualTo(expected);
+    }
+
+    @Test
+    public void testLatestCopyInsertMatchesBatchInsert() {
+        UUID batchEntityId = UUID.randomUUID();
+        UUID copyEntityId = UUID.randomUUID();
+
+        insertLatestTsRepository.saveOrUpdate(createEntities(TsKvLatestEntity::new, batchEntityId, 100));
+        copyInsertLatestTsRepository.saveOrUpdate(createEntities(TsKvLatestEntity::new, copyEntityId, 100));
+        insertLatestTsRepository.saveOrUpdate(List.of(createEntity(TsKvLatestEntity::new, batchEntityId, 1, 50, 42L)));
+        copyInsertLatestTsRepository.saveOrUpdate(List.of(createEntity(TsKvLatestEntity::new, copyEntityId, 1, 50, 42L)));
+
+        List<Map<String, Object>> expected = jdbcTemplate.queryForList(SELECT_TS_KV_LATEST, batchEntityId);
+        assertThat(expected).hasSize(4);
+        assertThat(jdbcTemplate.queryForList(SELECT_TS_KV_LATEST, copyEntityId)).isEqualTo(expected);
+    }
+
+    @Ignore("Benchmark of COPY against batched INSERT, run manually")
+    @Test
+    public void testCopyInsertThroughput() {
+        for (int batchSize : new int[]{100, 1000, 10000}) {
+            List<TsKvEntity> batch = createBatch(TsKvEntity::new, UUID.randomUUID(), batchSize);
+            List<TsKvEntity> copy = createBatch(TsKvEntity::new, UUID.randomUUID(), batchSize);
+            long batchTime = measure(() -> insertTsRepository.saveOrUpdate(batch));
+            long copyTime = measure(() -> copyInsertTsRepository.saveOrUpdate(copy));
+            log.info("ts_kv batch size {}: batch insert {} ms, copy insert {} ms", batchSize, batchTime, copyTime);
+            assertThat(countRows("ts_kv", copy.get(0).getEntityId())).isEqualTo(batchSize);
+
+            List<TsKvLatestEntity> latestBatch = createBatch(TsKvLatestEntity::new, UUID.randomUUID(), batchSize);
+            List<TsKvLatestEntity> latestCopy = createBatch(TsKvLatestEntity::new, UUID.randomUUID(), batchSize);
+            long latestBatchTime = measure(() -> insertLatestTsRepository.saveOrUpdate(latestBatch));
+            long latestCopyTime = measure(() -> copyInsertLatestTsRepository.saveOrUpdate(latestCopy));
+            log.info("ts_kv_latest batch size {}: batch insert {} ms, copy insert {} ms", batchSize, latestBatchTime, latestCopyTime);
+            assertThat(countRows("ts_kv_latest", latestCopy.get(0).getEntityId())).isEqualTo(batchSize);
+        }
+    }
+
+    private <T extends AbstractTsKvEntity> List<T> createEntities(Supplier<T> factory, UUID entityId, long ts) {
+        List<T> entities = new ArrayList<>();
+        T boolEntity = createEntity(factory, entityId, 1, ts, null);
+        boolEntity.setBooleanValue(true);
+        entities.add(boolEntity);
+        T strEntity = createEntity(factory, entityId, 2, ts, null);
+        strEntity.setStrValue("str\u0000value");
+        entities.add(strEntity);
+        T jsonEntity = createEntity(factory, entityId, 3, ts, null);
+        jsonEntity.setJsonValue("{\"value\":\"é\"}");
+        entities.add(jsonEntity);
+        T doubleEntity = createEntity(factory, entityId, 4, ts, null);
+        doubleEntity.setDoubleValue(1.5);
+        entities.add(doubleEntity);
+        entities.add(createEntity(factory, entityId, 4, ts, 7L));
+        return entities;
+    }
+
+    private <T extends AbstractTsKvEntity> List<T> createBatch(Supplier<T> factory, UUID entityId, int batchSize) {
+        List<T> entities = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            entities.add(createEntity(factory, entityId, i, PARTITION_START_TS + i, (long) i));
+        }
+        return entities;
+    }
+
+    private <T extends AbstractTsKvEntity> T createEntity(Supplier<T> factory, UUID entityId, int key, long ts, Long longValue) {
+        T entity = factory.get();
+        entity.setEntityId(entityId);
+        entity.setKey(key);
+        entity.setTs(ts);
+        entity.setLongValue(longValue);
+        return entity;
+    }
+
+    private long measure(Runnable runnable) {
+        long startTs = System.currentTimeMillis();
+        runnable.run();
+        return System.currentTimeMillis() - startTs;
+    }
+
+    private int countRows(String table, UUID entityId) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table + " WHERE entity_id = ?", Integer.class, entityId);
+    }
+
+}
@@ -16,6 +16,8 @@
 package org.thingsboard.server.dao.util;
 
 import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.common.data.kv.AggregationParams;
 import org.thingsboard.server.common.data.kv.IntervalType;
 
 import java.time.ZoneId;
@@ -57,4 +59,25 @@ class TimeUtilsTest {
         assertThat(TimeUtils.calculateIntervalEnd(ts, IntervalType.QUARTER, ZoneId.of("America/New_York"))).isEqualTo(1711944000000L); // Monday, April 1, 2024 7:00:00 GMT+03:00 DST
     }
 
+    @Test
+    void testFixedIntervalBoundaries() {
+        AggregationParams aggParams = AggregationParams.milliseconds(Aggregation.AVG, 1000);
+        assertThat(TimeUtils.calculateIntervalBoundaries(1, 3000, aggParams)).containsExactly(1, 1001, 2001, 3000);
+        assertThat(TimeUtils.calculateIntervalBoundaries(0, 3000, aggParams)).containsExactly(0, 1000, 2000, 3000);
+        assertThat(TimeUtils.calculateIntervalBoundaries(0, 500, aggParams)).containsExactly(0, 500);
+    }
+
+    @Test
+    void testCalendarIntervalBoundaries() {
+        long ts = 1704899727000L; // Wednesday, January 10 15:15:27 GMT
+        long endTs = 1711929600000L; // Monday, April 1, 2024 3:00:00 GMT+03:00
+        AggregationParams aggParams = AggregationParams.calendar(Aggregation.SUM, IntervalType.MONTH, ZoneId.of("Europe/Kyiv"));
+        assertThat(TimeUtils.calculateIntervalBoundaries(ts, endTs, aggParams)).containsExactly(
+                ts,
+                1706738400000L, // Thursday, February 1, 2024 0:00:00 GMT+02:00
+                1709244000000L, // Friday, March 1, 2024 0:00:00 GMT+02:00
+                1711918800000L, // Monday, April 1, 2024 0:00:00 GMT+03:00 DST
+                endTs);
+    }
+
 }
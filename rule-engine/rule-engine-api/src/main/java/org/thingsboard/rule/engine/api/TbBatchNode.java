@@ -0,0 +1,42 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.api;
+
+import org.thingsboard.server.common.msg.TbMsg;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Optional extension of {@link TbNode} for nodes that are able to process several messages at once,
+ * e.g. to save telemetry of multiple messages with a single bulk write.
+ * <p>
+ * The rule node actor collects the messages that are already waiting in its mailbox (up to {@link #getMaxBatchSize()})
+ * and passes them to {@link #onMsgs(List)} together with their own contexts. The node is still responsible for telling success or failure
+ * for every message of the batch via the context of the message, exactly as it would do in {@link TbNode#onMsg(TbContext, TbMsg)}.
+ * Exception thrown by {@link #onMsgs(List)} fails all the messages of the batch, so the node should throw it only if none of them is reported yet.
+ */
+public interface TbBatchNode extends TbNode {
+
+    void onMsgs(List<BatchMsg> msgs) throws ExecutionException, InterruptedException, TbNodeException;
+
+    default int getMaxBatchSize() {
+        return 100;
+    }
+
+    record BatchMsg(TbContext ctx, TbMsg msg) {}
+
+}
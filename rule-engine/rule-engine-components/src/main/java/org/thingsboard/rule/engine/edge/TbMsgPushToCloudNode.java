@@ -15,26 +15,33 @@
  */
 package org.thingsboard.rule.engine.edge;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.gson.JsonParser;
 import lombok.extern.slf4j.Slf4j;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.thingsboard.rule.engine.api.RuleNode;
 import org.thingsboard.rule.engine.api.TbContext;
 import org.thingsboard.server.common.data.CloudUtils;
 import org.thingsboard.server.common.data.DataConstants;
+import org.thingsboard.server.common.adaptor.JsonConverter;
 import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.StringUtils;
 import org.thingsboard.server.common.data.cloud.CloudEvent;
 import org.thingsboard.server.common.data.cloud.CloudEventType;
 import org.thingsboard.server.common.data.edge.EdgeEventActionType;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.plugin.ComponentType;
 import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.CloudEventEntityDataProto;
 
 import java.util.UUID;
 
+import static org.thingsboard.server.common.data.msg.TbMsgType.ALARM;
+
 @Slf4j
 @RuleNode(
         type = ComponentType.ACTION,
@@ -70,6 +77,46 @@ public class TbMsgPushToCloudNode extends AbstractTbMsgPushNode<TbMsgPushToCloud
         return cloudEvent;
     }
 
+    @Override
+    protected CloudEvent buildEvent(TbMsg msg, TbContext ctx) throws JsonProcessingException {
+        CloudEventType eventType = msg.isTypeOf(ALARM) ? null : getEventTypeByEntityType(msg.getOriginator().getEntityType());
+        if (eventType != null) {
+            EdgeEventActionType actionType = getEdgeEventActionTypeByMsgType(msg);
+            byte[] entityBodyProto = buildEntityBodyProto(msg, actionType);
+            if (entityBodyProto != null) {
+                CloudEvent cloudEvent = buildEvent(ctx.getTenantId(), actionType, msg.getOriginator().getId(), eventType, null);
+                cloudEvent.setEntityBodyProto(entityBodyProto);
+                return cloudEvent;
+            }
+        }
+        return super.buildEvent(msg, ctx);
+    }
+
+    private byte[] buildEntityBodyProto(TbMsg msg, EdgeEventActionType actionType) {
+        CloudEventEntityDataProto.Builder builder = CloudEventEntityDataProto.newBuilder();
+        try {
+            switch (actionType) {
+                case TIMESERIES_UPDATED ->
+                        builder.setPostTelemetryMsg(JsonConverter.convertToTelemetryProto(JsonParser.parseString(msg.getData()), msg.getMetaDataTs()));
+                case ATTRIBUTES_UPDATED ->
+                        builder.setAttributesUpdatedMsg(JsonConverter.convertToAttributesProto(JsonParser.parseString(msg.getData())));
+                case POST_ATTRIBUTES ->
+                        builder.setPostAttributesMsg(JsonConverter.convertToAttributesProto(JsonParser.parseString(msg.getData())));
+                default -> {
+                    return null;
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Failed to encode entity body proto, falling back to json body, msg [{}]", msg, e);
+            return null;
+        }
+        if (!EdgeEventActionType.TIMESERIES_UPDATED.equals(actionType)) {
+            String scope = getScope(msg.getMetaData().getData());
+            builder.setPostAttributeScope(StringUtils.isNotBlank(scope) ? scope : DataConstants.SERVER_SCOPE);
+        }
+        return builder.build().toByteArray();
+    }
+
     @Override
     CloudEventType getEventTypeByEntityType(EntityType entityType) {
         return CloudUtils.getCloudEventTypeByEntityType(entityType);
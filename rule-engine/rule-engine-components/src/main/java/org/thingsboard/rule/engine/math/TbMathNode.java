@@ -172,9 +172,9 @@ public class TbMathNode implements TbNode {
     private Optional<ObjectNode> convertMsgBodyIfRequired(TbMsg msg) {
         Optional<ObjectNode> msgBodyOpt;
         if (msgBodyToJsonConversionRequired) {
-            var jsonNode = JacksonUtil.toJsonNode(msg.getData());
+            var jsonNode = msg.getDataAsJson();
             if (jsonNode.isObject()) {
-                msgBodyOpt = Optional.of((ObjectNode) jsonNode);
+                msgBodyOpt = Optional.of(((ObjectNode) jsonNode).deepCopy());
             } else {
                 throw new RuntimeException("Message body is not a JSON object!");
             }
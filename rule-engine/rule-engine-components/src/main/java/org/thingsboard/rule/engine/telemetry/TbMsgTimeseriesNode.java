@@ -15,16 +15,20 @@
  */
 package org.thingsboard.rule.engine.telemetry;
 
+import com.google.common.util.concurrent.FutureCallback;
 import com.google.gson.JsonParser;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.rule.engine.api.RuleNode;
+import org.thingsboard.rule.engine.api.TbBatchNode;
+import org.thingsboard.rule.engine.api.TbBatchNode.BatchMsg;
 import org.thingsboard.rule.engine.api.TbContext;
-import org.thingsboard.rule.engine.api.TbNode;
 import org.thingsboard.rule.engine.api.TbNodeConfiguration;
 import org.thingsboard.rule.engine.api.TbNodeException;
 import org.thingsboard.rule.engine.api.util.TbNodeUtils;
 import org.thingsboard.server.common.data.StringUtils;
 import org.thingsboard.server.common.data.TenantProfile;
+import org.thingsboard.server.common.data.id.CustomerId;
+import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
 import org.thingsboard.server.common.data.kv.KvEntry;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
@@ -34,6 +38,7 @@ import org.thingsboard.server.common.msg.TbMsg;
 import org.thingsboard.server.common.adaptor.JsonConverter;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -61,7 +66,7 @@ import static org.thingsboard.server.common.data.msg.TbMsgType.POST_TELEMETRY_RE
         configDirective = "tbActionNodeTimeseriesConfig",
         icon = "file_upload"
 )
-public class TbMsgTimeseriesNode implements TbNode {
+public class TbMsgTimeseriesNode implements TbBatchNode {
 
     private TbMsgTimeseriesNodeConfiguration config;
     private TbContext ctx;
@@ -82,16 +87,61 @@ public class TbMsgTimeseriesNode implements TbNode {
 
     @Override
     public void onMsg(TbContext ctx, TbMsg msg) {
+        List<TsKvEntry> tsKvEntryList = toTsKvEntryList(ctx, msg);
+        if (tsKvEntryList == null) {
+            return;
+        }
+        save(ctx, msg.getCustomerId(), msg.getOriginator(), tsKvEntryList, getTtl(msg), new TelemetryNodeCallback(ctx, msg));
+    }
+
+    @Override
+    public void onMsgs(List<BatchMsg> msgs) {
+        if (msgs.size() == 1) {
+            onMsg(msgs.get(0).ctx(), msgs.get(0).msg());
+            return;
+        }
+        Map<BatchKey, TelemetryBatch> batches = new LinkedHashMap<>();
+        for (BatchMsg batchMsg : msgs) {
+            TbContext ctx = batchMsg.ctx();
+            TbMsg msg = batchMsg.msg();
+            List<TsKvEntry> tsKvEntryList;
+            long ttl;
+            try {
+                tsKvEntryList = toTsKvEntryList(ctx, msg);
+                if (tsKvEntryList == null) {
+                    continue;
+                }
+                ttl = getTtl(msg);
+            } catch (Exception e) {
+                ctx.tellFailure(msg, e);
+                continue;
+            }
+            TelemetryBatch batch = batches.computeIfAbsent(new BatchKey(msg.getOriginator(), msg.getCustomerId(), ttl), key -> new TelemetryBatch());
+            batch.msgs.add(batchMsg);
+            batch.tsKvEntryList.addAll(tsKvEntryList);
+        }
+        batches.forEach((key, batch) -> {
+            TelemetryNodeBatchCallback callback = new TelemetryNodeBatchCallback(batch.msgs);
+            try {
+                save(batch.msgs.get(0).ctx(), key.customerId(), key.originator(), batch.tsKvEntryList, key.ttl(), callback);
+            } catch (Exception e) {
+                // msgs of the other groups are reported by their own callbacks, so only this group is failed
+                callback.onFailure(e);
+            }
+        });
+    }
+
+    private List<TsKvEntry> toTsKvEntryList(TbContext ctx, TbMsg msg) {
         if (!msg.isTypeOf(POST_TELEMETRY_REQUEST)) {
             ctx.tellFailure(msg, new IllegalArgumentException("Unsupported msg type: " + msg.getType()));
-            return;
+            return null;
         }
         long ts = computeTs(msg, config.isUseServerTs());
         String src = msg.getData();
         Map<Long, List<KvEntry>> tsKvMap = JsonConverter.convertToTelemetry(JsonParser.parseString(src), ts);
         if (tsKvMap.isEmpty()) {
             ctx.tellFailure(msg, new IllegalArgumentException("Msg body is empty: " + src));
-            return;
+            return null;
         }
         List<TsKvEntry> tsKvEntryList = new ArrayList<>();
         for (Map.Entry<Long, List<KvEntry>> tsKvEntry : tsKvMap.entrySet()) {
@@ -99,15 +149,23 @@ public class TbMsgTimeseriesNode implements TbNode {
                 tsKvEntryList.add(new BasicTsKvEntry(tsKvEntry.getKey(), kvEntry));
             }
         }
+        return tsKvEntryList;
+    }
+
+    private long getTtl(TbMsg msg) {
         String ttlValue = msg.getMetaData().getValue("TTL");
         long ttl = !StringUtils.isEmpty(ttlValue) ? Long.parseLong(ttlValue) : config.getDefaultTTL();
         if (ttl == 0L) {
             ttl = tenantProfileDefaultStorageTtl;
         }
+        return ttl;
+    }
+
+    private void save(TbContext ctx, CustomerId customerId, EntityId originator, List<TsKvEntry> tsKvEntryList, long ttl, FutureCallback<Void> callback) {
         if (config.isSkipLatestPersistence()) {
-            ctx.getTelemetryService().saveWithoutLatestAndNotify(ctx.getTenantId(), msg.getCustomerId(), msg.getOriginator(), tsKvEntryList, ttl, new TelemetryNodeCallback(ctx, msg));
+            ctx.getTelemetryService().saveWithoutLatestAndNotify(ctx.getTenantId(), customerId, originator, tsKvEntryList, ttl, callback);
         } else {
-            ctx.getTelemetryService().saveAndNotify(ctx.getTenantId(), msg.getCustomerId(), msg.getOriginator(), tsKvEntryList, ttl, new TelemetryNodeCallback(ctx, msg));
+            ctx.getTelemetryService().saveAndNotify(ctx.getTenantId(), customerId, originator, tsKvEntryList, ttl, callback);
         }
     }
 
@@ -120,4 +178,11 @@ public class TbMsgTimeseriesNode implements TbNode {
         ctx.removeListeners();
     }
 
+    private record BatchKey(EntityId originator, CustomerId customerId, long ttl) {}
+
+    private static class TelemetryBatch {
+        private final List<BatchMsg> msgs = new ArrayList<>();
+        private final List<TsKvEntry> tsKvEntryList = new ArrayList<>();
+    }
+
 }
@@ -0,0 +1,41 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.telemetry;
+
+import com.google.common.util.concurrent.FutureCallback;
+import jakarta.annotation.Nullable;
+import lombok.Data;
+import org.thingsboard.rule.engine.api.TbBatchNode.BatchMsg;
+
+import java.util.List;
+
+/**
+ * Callback of a single save operation that covers several messages.
+ */
+@Data
+class TelemetryNodeBatchCallback implements FutureCallback<Void> {
+    private final List<BatchMsg> msgs;
+
+    @Override
+    public void onSuccess(@Nullable Void result) {
+        msgs.forEach(batchMsg -> batchMsg.ctx().tellSuccess(batchMsg.msg()));
+    }
+
+    @Override
+    public void onFailure(Throwable t) {
+        msgs.forEach(batchMsg -> batchMsg.ctx().tellFailure(batchMsg.msg(), t));
+    }
+}
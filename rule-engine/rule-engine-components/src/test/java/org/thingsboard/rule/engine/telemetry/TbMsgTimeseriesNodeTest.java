@@ -0,0 +1,152 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.telemetry;
+
+import com.google.common.util.concurrent.FutureCallback;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.rule.engine.api.RuleEngineTelemetryService;
+import org.thingsboard.rule.engine.api.TbBatchNode.BatchMsg;
+import org.thingsboard.rule.engine.api.TbContext;
+import org.thingsboard.rule.engine.api.TbNodeConfiguration;
+import org.thingsboard.server.common.data.TenantProfile;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.common.data.msg.TbMsgType;
+import org.thingsboard.server.common.data.tenant.profile.DefaultTenantProfileConfiguration;
+import org.thingsboard.server.common.data.tenant.profile.TenantProfileData;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TbMsgTimeseriesNodeTest {
+
+    private final TenantId tenantId = new TenantId(UUID.randomUUID());
+    private final DeviceId deviceA = new DeviceId(UUID.randomUUID());
+    private final DeviceId deviceB = new DeviceId(UUID.randomUUID());
+
+    private TbContext ctx;
+    private RuleEngineTelemetryService telemetryService;
+    private TbMsgTimeseriesNode node;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ctx = mock(TbContext.class);
+        telemetryService = mock(RuleEngineTelemetryService.class);
+        when(ctx.getTenantId()).thenReturn(tenantId);
+        when(ctx.getTelemetryService()).thenReturn(telemetryService);
+        TenantProfileData profileData = new TenantProfileData();
+        profileData.setConfiguration(new DefaultTenantProfileConfiguration());
+        TenantProfile tenantProfile = new TenantProfile();
+        tenantProfile.setProfileData(profileData);
+        when(ctx.getTenantProfile()).thenReturn(tenantProfile);
+
+        node = new TbMsgTimeseriesNode();
+        TbMsgTimeseriesNodeConfiguration config = new TbMsgTimeseriesNodeConfiguration().defaultConfiguration();
+        node.init(ctx, new TbNodeConfiguration(JacksonUtil.valueToTree(config)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void givenMsgsOfTwoOriginators_whenOnMsgs_thenSavesOncePerOriginator() {
+        TbMsg msgA1 = newMsg(deviceA, "{\"temperature\":20}");
+        TbMsg msgB = newMsg(deviceB, "{\"temperature\":30}");
+        TbMsg msgA2 = newMsg(deviceA, "{\"humidity\":40}");
+        TbContext ctxA1 = newCtx();
+        TbContext ctxB = newCtx();
+        TbContext ctxA2 = newCtx();
+
+        node.onMsgs(List.of(new BatchMsg(ctxA1, msgA1), new BatchMsg(ctxB, msgB), new BatchMsg(ctxA2, msgA2)));
+
+        ArgumentCaptor<List<TsKvEntry>> entriesCaptor = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<FutureCallback<Void>> callbackCaptor = ArgumentCaptor.forClass(FutureCallback.class);
+        verify(telemetryService).saveAndNotify(eq(tenantId), any(), eq(deviceA), entriesCaptor.capture(), eq(0L), callbackCaptor.capture());
+        verify(telemetryService).saveAndNotify(eq(tenantId), any(), eq(deviceB), any(), eq(0L), any());
+        assertThat(entriesCaptor.getValue()).extracting(TsKvEntry::getKey).containsExactly("temperature", "humidity");
+
+        callbackCaptor.getValue().onSuccess(null);
+        verify(ctxA1).tellSuccess(msgA1);
+        verify(ctxA2).tellSuccess(msgA2);
+        verify(ctxA1, never()).tellSuccess(msgA2);
+        verify(ctxB, never()).tellSuccess(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void givenUnsupportedMsgInBatch_whenOnMsgs_thenOnlyThisMsgFails() {
+        TbMsg valid = newMsg(deviceA, "{\"temperature\":20}");
+        TbMsg unsupported = TbMsg.newMsg(TbMsgType.POST_ATTRIBUTES_REQUEST, deviceA, TbMsgMetaData.EMPTY, "{\"temperature\":20}");
+        TbContext validCtx = newCtx();
+        TbContext unsupportedCtx = newCtx();
+
+        node.onMsgs(List.of(new BatchMsg(validCtx, valid), new BatchMsg(unsupportedCtx, unsupported)));
+
+        verify(unsupportedCtx).tellFailure(eq(unsupported), any(IllegalArgumentException.class));
+        ArgumentCaptor<FutureCallback<Void>> callbackCaptor = ArgumentCaptor.forClass(FutureCallback.class);
+        verify(telemetryService, times(1)).saveAndNotify(eq(tenantId), any(), eq(deviceA), any(), eq(0L), callbackCaptor.capture());
+        RuntimeException error = new RuntimeException("DB is down");
+        callbackCaptor.getValue().onFailure(error);
+        verify(validCtx).tellFailure(valid, error);
+    }
+
+    @Test
+    void givenSaveThrowsMidBatch_whenOnMsgs_thenOnlyThisGroupFails() {
+        TbMsg msgA = newMsg(deviceA, "{\"temperature\":20}");
+        TbMsg msgB = newMsg(deviceB, "{\"temperature\":30}");
+        TbContext ctxA = newCtx();
+        TbContext ctxB = newCtx();
+        RuntimeException error = new RuntimeException("Queue is full");
+        doAnswer(invocation -> {
+            invocation.<FutureCallback<Void>>getArgument(5).onSuccess(null);
+            return null;
+        }).when(telemetryService).saveAndNotify(eq(tenantId), any(), eq(deviceA), any(), eq(0L), any());
+        doThrow(error).when(telemetryService).saveAndNotify(eq(tenantId), any(), eq(deviceB), any(), eq(0L), any());
+
+        node.onMsgs(List.of(new BatchMsg(ctxA, msgA), new BatchMsg(ctxB, msgB)));
+
+        verify(ctxA).tellSuccess(msgA);
+        verify(ctxA, never()).tellFailure(any(), any());
+        verify(ctxB).tellFailure(msgB, error);
+    }
+
+    private TbContext newCtx() {
+        TbContext msgCtx = mock(TbContext.class);
+        when(msgCtx.getTenantId()).thenReturn(tenantId);
+        when(msgCtx.getTelemetryService()).thenReturn(telemetryService);
+        return msgCtx;
+    }
+
+    private TbMsg newMsg(DeviceId originator, String data) {
+        return TbMsg.newMsg(TbMsgType.POST_TELEMETRY_REQUEST, originator, TbMsgMetaData.EMPTY, data);
+    }
+
+}
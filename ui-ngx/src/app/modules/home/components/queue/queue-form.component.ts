@@ -202,7 +202,7 @@ export class QueueFormComponent implements ControlValueAccessor, OnInit, OnDestr
     const form = this.queueFormGroup.get('submitStrategy') as UntypedFormGroup;
     const type: QueueSubmitStrategyTypes = form.get('type').value;
     const batchSizeField = form.get('batchSize');
-    if (type === QueueSubmitStrategyTypes.BATCH) {
+    if (type === QueueSubmitStrategyTypes.BATCH || type === QueueSubmitStrategyTypes.BATCH_BY_ORIGINATOR) {
       batchSizeField.patchValue(batchSizeField.value ?? 1000, {emitEvent: false});
       batchSizeField.setValidators([Validators.min(1), Validators.required]);
       batchSizeField.updateValueAndValidity({emitEvent: false});
@@ -31,7 +31,8 @@ export enum QueueSubmitStrategyTypes {
   SEQUENTIAL_BY_TENANT = 'SEQUENTIAL_BY_TENANT',
   SEQUENTIAL = 'SEQUENTIAL',
   BURST = 'BURST',
-  BATCH = 'BATCH'
+  BATCH = 'BATCH',
+  BATCH_BY_ORIGINATOR = 'BATCH_BY_ORIGINATOR'
 }
 
 export interface QueueStrategyData {
@@ -60,6 +61,10 @@ export const QueueSubmitStrategyTypesMap = new Map<QueueSubmitStrategyTypes, Que
     [QueueSubmitStrategyTypes.BATCH, {
       label: 'queue.strategies.batch-label',
       hint: 'queue.strategies.batch-hint',
+    }],
+    [QueueSubmitStrategyTypes.BATCH_BY_ORIGINATOR, {
+      label: 'queue.strategies.batch-by-originator-label',
+      hint: 'queue.strategies.batch-by-originator-hint',
     }]
   ]);
 